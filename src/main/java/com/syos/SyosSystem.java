@@ -1,7 +1,14 @@
 package com.syos;
 
+import java.nio.file.Paths;
 import java.util.Scanner;
 
+import com.syos.command.BatchCommandRunner;
+import com.syos.metrics.MetricsRegistry;
+import com.syos.metrics.MetricsReporter;
+import com.syos.model.ImportReport;
+import com.syos.repository.Storage;
+import com.syos.service.ExpiryAlertService;
 import com.syos.service.InventoryService;
 import com.syos.service.OnlineStoreService;
 import com.syos.service.ReportService;
@@ -12,8 +19,22 @@ import com.syos.strategy.ShelfStrategy;
 
 public class SyosSystem {
 	public static void main(String[] args) {
+		Storage.getInstance().upgradeSchema();
 		ShelfStrategy strategy = new ExpiryAwareFifoStrategy();
-		InventoryManager.getInstance(strategy);
+		InventoryManager.getInstance(strategy).startJournal();
+		// --script <file>: run inventory commands from the file without the menus
+		if (args.length == 2 && "--script".equals(args[0])) {
+			BatchCommandRunner runner = new BatchCommandRunner(Storage.getInstance(),
+					InventoryManager.getInstance(strategy));
+			ImportReport report = runner.run(Paths.get(args[1]));
+			System.out.printf("Script finished: %d of %d commands applied%n", report.getRowsImported(),
+					report.getRowsRead());
+			report.getErrors().forEach(error -> System.out.println("  " + error));
+			System.exit(report.hasErrors() ? 1 : 0);
+		}
+		InventoryManager.getInstance(strategy).addExpiryObserver(new ExpiryAlertService());
+		InventoryManager.getInstance(strategy).startExpiryTicker();
+		MetricsReporter.start(MetricsRegistry.getInstance());
 
 		Scanner sc = new Scanner(System.in);
 		StoreBillingService billingService = new StoreBillingService();
@@ -0,0 +1,199 @@
+package com.syos.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * In-process column store of bill lines for ad-hoc analytics.
+ *
+ * Each column is a primitive array split into fixed-size segments and product
+ * codes are dictionary-encoded to ints, so scans are tight loops over
+ * contiguous memory and independent segments can be scanned in parallel.
+ * There is a single writer (appends are synchronized); readers work on a
+ * snapshot of the published row count and never block checkout.
+ */
+public class ColumnarSalesStore implements SaleLineHandler {
+	public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+	public static final long WEEK_MILLIS = 7 * DAY_MILLIS;
+
+	private static final int SEGMENT_SHIFT = 16;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	private static final class Segment {
+		final int[] billId = new int[SEGMENT_SIZE];
+		final int[] productId = new int[SEGMENT_SIZE];
+		final int[] quantity = new int[SEGMENT_SIZE];
+		final long[] billTime = new long[SEGMENT_SIZE];
+		final double[] totalPrice = new double[SEGMENT_SIZE];
+		final double[] discount = new double[SEGMENT_SIZE];
+	}
+
+	private final Map<String, Integer> codeToId = new HashMap<>();
+	private volatile String[] idToCode = new String[64];
+	private volatile int dictionarySize;
+
+	private volatile Segment[] segments = new Segment[0];
+	private volatile int rowCount;
+	private int maxBillId;
+
+	@Override
+	public synchronized void onLine(int billId, long billTimeMillis, int hourOfDay, String productCode, int quantity,
+			double totalPrice, double discountAmount) {
+		int row = rowCount;
+		int segmentIndex = row >>> SEGMENT_SHIFT;
+		if (segmentIndex == segments.length) {
+			Segment[] grown = Arrays.copyOf(segments, segmentIndex + 1);
+			grown[segmentIndex] = new Segment();
+			segments = grown;
+		}
+
+		Segment segment = segments[segmentIndex];
+		int offset = row & SEGMENT_MASK;
+		segment.billId[offset] = billId;
+		segment.productId[offset] = encode(productCode);
+		segment.quantity[offset] = quantity;
+		segment.billTime[offset] = billTimeMillis;
+		segment.totalPrice[offset] = totalPrice;
+		segment.discount[offset] = discountAmount;
+		maxBillId = Math.max(maxBillId, billId);
+
+		// publishing the new count makes the row (and any new dictionary entry)
+		// visible to readers
+		rowCount = row + 1;
+	}
+
+	public synchronized int getMaxBillId() {
+		return maxBillId;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getDistinctProducts() {
+		return dictionarySize;
+	}
+
+	public List<ProductSales> salesByProduct(long fromMillis, long toMillisExclusive) {
+		int rows = rowCount;
+		int products = dictionarySize;
+		String[] codes = idToCode;
+		Segment[] snapshot = segments;
+
+		double[] totals = IntStream.range(0, segmentCount(rows)).parallel()
+				.mapToObj(s -> scanSalesByProduct(snapshot[s], rowsInSegment(s, rows), products, fromMillis,
+						toMillisExclusive))
+				.reduce(new double[products * 2], ColumnarSalesStore::addInto);
+
+		List<ProductSales> result = new ArrayList<>();
+		for (int id = 0; id < products; id++) {
+			long units = (long) totals[id * 2];
+			if (units > 0) {
+				result.add(new ProductSales(codes[id], units, totals[id * 2 + 1]));
+			}
+		}
+		result.sort((a, b) -> Double.compare(b.getRevenue(), a.getRevenue()));
+		return result;
+	}
+
+	// discount given per week, bucket 0 starting at fromMillis
+	public double[] discountByWeek(long fromMillis, int weeks) {
+		if (weeks <= 0) {
+			throw new IllegalArgumentException("Number of weeks must be positive.");
+		}
+		int rows = rowCount;
+		Segment[] snapshot = segments;
+
+		return IntStream.range(0, segmentCount(rows)).parallel()
+				.mapToObj(s -> scanDiscountByWeek(snapshot[s], rowsInSegment(s, rows), fromMillis, weeks))
+				.reduce(new double[weeks], ColumnarSalesStore::addInto);
+	}
+
+	public double totalRevenue(long fromMillis, long toMillisExclusive) {
+		int rows = rowCount;
+		Segment[] snapshot = segments;
+
+		return IntStream.range(0, segmentCount(rows)).parallel().mapToDouble(s -> {
+			Segment segment = snapshot[s];
+			long[] time = segment.billTime;
+			double[] price = segment.totalPrice;
+			double sum = 0;
+			for (int i = 0, n = rowsInSegment(s, rows); i < n; i++) {
+				long t = time[i];
+				sum += (t >= fromMillis && t < toMillisExclusive) ? price[i] : 0.0;
+			}
+			return sum;
+		}).sum();
+	}
+
+	private static double[] scanSalesByProduct(Segment segment, int rows, int products, long from, long to) {
+		double[] acc = new double[products * 2];
+		int[] product = segment.productId;
+		int[] qty = segment.quantity;
+		long[] time = segment.billTime;
+		double[] price = segment.totalPrice;
+		for (int i = 0; i < rows; i++) {
+			long t = time[i];
+			if (t >= from && t < to) {
+				int slot = product[i] * 2;
+				acc[slot] += qty[i];
+				acc[slot + 1] += price[i];
+			}
+		}
+		return acc;
+	}
+
+	private static double[] scanDiscountByWeek(Segment segment, int rows, long from, int weeks) {
+		double[] acc = new double[weeks];
+		long[] time = segment.billTime;
+		double[] discount = segment.discount;
+		for (int i = 0; i < rows; i++) {
+			long delta = time[i] - from;
+			if (delta >= 0) {
+				long week = delta / WEEK_MILLIS;
+				if (week < weeks) {
+					acc[(int) week] += discount[i];
+				}
+			}
+		}
+		return acc;
+	}
+
+	private static double[] addInto(double[] target, double[] source) {
+		double[] sum = new double[target.length];
+		for (int i = 0; i < sum.length; i++) {
+			sum[i] = target[i] + source[i];
+		}
+		return sum;
+	}
+
+	private static int segmentCount(int rows) {
+		return (rows + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT;
+	}
+
+	private static int rowsInSegment(int segmentIndex, int rows) {
+		return Math.min(SEGMENT_SIZE, rows - (segmentIndex << SEGMENT_SHIFT));
+	}
+
+	private int encode(String productCode) {
+		Integer id = codeToId.get(productCode);
+		if (id != null) {
+			return id;
+		}
+		int next = dictionarySize;
+		String[] codes = idToCode;
+		if (next == codes.length) {
+			codes = Arrays.copyOf(codes, codes.length * 2);
+		}
+		codes[next] = productCode;
+		idToCode = codes;
+		codeToId.put(productCode, next);
+		dictionarySize = next + 1;
+		return next;
+	}
+}
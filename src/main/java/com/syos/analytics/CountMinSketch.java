@@ -0,0 +1,56 @@
+package com.syos.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size frequency sketch. Estimates never undercount; they overcount by at
+ * most {@code e / width} of the total with probability {@code 1 - e^-depth}.
+ */
+public class CountMinSketch {
+	private final int depth;
+	private final int width;
+	private final long[] counters;
+	private long total;
+
+	public CountMinSketch(int depth, int width) {
+		if (depth <= 0 || width <= 0) {
+			throw new IllegalArgumentException("Sketch depth and width must be positive.");
+		}
+		this.depth = depth;
+		this.width = width;
+		this.counters = new long[depth * width];
+	}
+
+	public void add(String key, long count) {
+		long hash = Hashing.mix64(key.hashCode());
+		for (int row = 0; row < depth; row++) {
+			counters[row * width + bucket(hash, row)] += count;
+		}
+		total += count;
+	}
+
+	public long estimate(String key) {
+		long hash = Hashing.mix64(key.hashCode());
+		long min = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			min = Math.min(min, counters[row * width + bucket(hash, row)]);
+		}
+		return min;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public void clear() {
+		Arrays.fill(counters, 0L);
+		total = 0;
+	}
+
+	// Kirsch-Mitzenmacher: derive each row's hash from two halves of one 64-bit hash
+	private int bucket(long hash, int row) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		return Math.floorMod(h1 + row * h2, width);
+	}
+}
@@ -0,0 +1,16 @@
+package com.syos.analytics;
+
+final class Hashing {
+	private Hashing() {
+	}
+
+	// MurmurHash3 64-bit finaliser: spreads every input bit over the whole word
+	static long mix64(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
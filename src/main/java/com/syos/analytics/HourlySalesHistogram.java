@@ -0,0 +1,58 @@
+package com.syos.analytics;
+
+/**
+ * Hour-of-day sales buckets backed by fixed primitive arrays, so recording a
+ * line never allocates.
+ */
+public class HourlySalesHistogram {
+	public static final int HOURS = 24;
+
+	private final long[] units = new long[HOURS];
+	private final long[] lines = new long[HOURS];
+	private final double[] revenue = new double[HOURS];
+
+	public void record(int hourOfDay, int quantity, double lineTotal) {
+		if (hourOfDay < 0 || hourOfDay >= HOURS) {
+			throw new IllegalArgumentException("Hour of day must be between 0 and 23: " + hourOfDay);
+		}
+		units[hourOfDay] += quantity;
+		lines[hourOfDay]++;
+		revenue[hourOfDay] += lineTotal;
+	}
+
+	public HourlySalesHistogram copy() {
+		HourlySalesHistogram copy = new HourlySalesHistogram();
+		System.arraycopy(units, 0, copy.units, 0, HOURS);
+		System.arraycopy(lines, 0, copy.lines, 0, HOURS);
+		System.arraycopy(revenue, 0, copy.revenue, 0, HOURS);
+		return copy;
+	}
+
+	public long getUnits(int hourOfDay) {
+		return units[hourOfDay];
+	}
+
+	public long getLines(int hourOfDay) {
+		return lines[hourOfDay];
+	}
+
+	public double getRevenue(int hourOfDay) {
+		return revenue[hourOfDay];
+	}
+
+	public long getPeakUnits() {
+		long peak = 0;
+		for (long u : units) {
+			peak = Math.max(peak, u);
+		}
+		return peak;
+	}
+
+	public long getTotalUnits() {
+		long total = 0;
+		for (long u : units) {
+			total += u;
+		}
+		return total;
+	}
+}
@@ -0,0 +1,64 @@
+package com.syos.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Distinct-count sketch using {@code 2^precision} one-byte registers; the
+ * standard error is roughly {@code 1.04 / sqrt(2^precision)}.
+ */
+public class HyperLogLog {
+	private final int precision;
+	private final int registerCount;
+	private final byte[] registers;
+	private final double alphaMM;
+
+	public HyperLogLog(int precision) {
+		if (precision < 4 || precision > 18) {
+			throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 18.");
+		}
+		this.precision = precision;
+		this.registerCount = 1 << precision;
+		this.registers = new byte[registerCount];
+		this.alphaMM = (0.7213 / (1 + 1.079 / registerCount)) * registerCount * registerCount;
+	}
+
+	public void add(long value) {
+		long hash = Hashing.mix64(value);
+		int index = (int) (hash >>> (64 - precision));
+		// rank of the first set bit in the remaining bits, capped for an all-zero tail
+		int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+		if (rank > registers[index]) {
+			registers[index] = (byte) rank;
+		}
+	}
+
+	public long estimate() {
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		double raw = alphaMM / sum;
+		if (raw <= 2.5 * registerCount && zeros > 0) {
+			// linear counting is far more accurate while most registers are empty
+			return Math.round(registerCount * Math.log((double) registerCount / zeros));
+		}
+		return Math.round(raw);
+	}
+
+	public boolean isEmpty() {
+		for (byte register : registers) {
+			if (register != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void clear() {
+		Arrays.fill(registers, (byte) 0);
+	}
+}
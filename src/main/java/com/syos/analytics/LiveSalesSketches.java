@@ -0,0 +1,68 @@
+package com.syos.analytics;
+
+/**
+ * Approximate, fixed-memory statistics for the live dashboard: per-product
+ * units (count-min), distinct baskets per hour of day (HyperLogLog) and the
+ * basket value distribution (t-digest). Memory does not grow with volume and
+ * recording a bill does not allocate.
+ */
+public class LiveSalesSketches {
+	private static final int CMS_DEPTH = 4;
+	private static final int CMS_WIDTH = 2048;
+	private static final int HLL_PRECISION = 12;
+	private static final double DIGEST_COMPRESSION = 100;
+
+	private final CountMinSketch unitsByProduct = new CountMinSketch(CMS_DEPTH, CMS_WIDTH);
+	private final HyperLogLog[] basketsByHour = new HyperLogLog[HourlySalesHistogram.HOURS];
+	private final QuantileDigest basketValues = new QuantileDigest(DIGEST_COMPRESSION);
+	private long billCount;
+
+	public LiveSalesSketches() {
+		for (int hour = 0; hour < basketsByHour.length; hour++) {
+			basketsByHour[hour] = new HyperLogLog(HLL_PRECISION);
+		}
+	}
+
+	public void recordLine(String productCode, int quantity) {
+		unitsByProduct.add(productCode, quantity);
+	}
+
+	public void recordBasket(int billId, int hourOfDay, double basketValue) {
+		basketsByHour[hourOfDay].add(billId);
+		basketValues.add(basketValue);
+		billCount++;
+	}
+
+	public long estimateUnits(String productCode) {
+		return unitsByProduct.estimate(productCode);
+	}
+
+	public long totalUnits() {
+		return unitsByProduct.getTotal();
+	}
+
+	public long estimateBaskets(int hourOfDay) {
+		return basketsByHour[hourOfDay].estimate();
+	}
+
+	public double basketValueQuantile(double q) {
+		return basketValues.quantile(q);
+	}
+
+	public double maxBasketValue() {
+		return basketValues.getMax();
+	}
+
+	public long getBillCount() {
+		return billCount;
+	}
+
+	public void clear() {
+		unitsByProduct.clear();
+		for (HyperLogLog hll : basketsByHour) {
+			hll.clear();
+		}
+		basketValues.clear();
+		billCount = 0;
+	}
+}
@@ -0,0 +1,34 @@
+package com.syos.analytics;
+
+public class ProductSales {
+	private final String productCode;
+	private long units;
+	private double revenue;
+
+	public ProductSales(String productCode) {
+		this.productCode = productCode;
+	}
+
+	public ProductSales(String productCode, long units, double revenue) {
+		this.productCode = productCode;
+		this.units = units;
+		this.revenue = revenue;
+	}
+
+	void add(int quantity, double lineTotal) {
+		this.units += quantity;
+		this.revenue += lineTotal;
+	}
+
+	public String getProductCode() {
+		return productCode;
+	}
+
+	public long getUnits() {
+		return units;
+	}
+
+	public double getRevenue() {
+		return revenue;
+	}
+}
@@ -0,0 +1,192 @@
+package com.syos.analytics;
+
+/**
+ * Merging t-digest: values are buffered and periodically folded into a bounded
+ * set of centroids whose size shrinks towards the tails, so extreme quantiles
+ * stay accurate. All arrays are allocated up front; adding a value never
+ * allocates.
+ */
+public class QuantileDigest {
+	private final double compression;
+	private final double normalizer;
+
+	private final double[] means;
+	private final double[] weights;
+	private int centroidCount;
+
+	private final double[] buffer;
+	private int buffered;
+
+	private final double[] scratchMeans;
+	private final double[] scratchWeights;
+
+	private double totalWeight;
+	private double min = Double.NaN;
+	private double max = Double.NaN;
+
+	public QuantileDigest(double compression) {
+		if (compression < 10) {
+			throw new IllegalArgumentException("Compression must be at least 10.");
+		}
+		this.compression = compression;
+		this.normalizer = compression / (2 * Math.PI);
+
+		// the arcsine scale function keeps adjacent pairs of centroids more than one
+		// unit of k apart, which bounds the count by compression + 1
+		int capacity = (int) Math.ceil(compression) + 2;
+		this.means = new double[capacity];
+		this.weights = new double[capacity];
+		this.buffer = new double[(int) Math.ceil(compression) * 5];
+		this.scratchMeans = new double[capacity + buffer.length];
+		this.scratchWeights = new double[capacity + buffer.length];
+	}
+
+	public void add(double value) {
+		if (Double.isNaN(value)) {
+			throw new IllegalArgumentException("Cannot add NaN to a quantile digest.");
+		}
+		if (buffered == buffer.length) {
+			merge();
+		}
+		buffer[buffered++] = value;
+		min = Double.isNaN(min) ? value : Math.min(min, value);
+		max = Double.isNaN(max) ? value : Math.max(max, value);
+	}
+
+	public double quantile(double q) {
+		if (q < 0 || q > 1) {
+			throw new IllegalArgumentException("Quantile must be between 0 and 1.");
+		}
+		merge();
+		if (centroidCount == 0) {
+			return Double.NaN;
+		}
+		if (centroidCount == 1) {
+			return means[0];
+		}
+
+		double target = q * totalWeight;
+		double cumulative = 0;
+		for (int i = 0; i < centroidCount; i++) {
+			double center = cumulative + weights[i] / 2;
+			if (target < center) {
+				if (i == 0) {
+					return interpolate(target, 0, min, center, means[0]);
+				}
+				double previousCenter = cumulative - weights[i - 1] / 2;
+				return interpolate(target, previousCenter, means[i - 1], center, means[i]);
+			}
+			cumulative += weights[i];
+		}
+		double lastCenter = totalWeight - weights[centroidCount - 1] / 2;
+		return interpolate(target, lastCenter, means[centroidCount - 1], totalWeight, max);
+	}
+
+	public long getCount() {
+		return Math.round(totalWeight) + buffered;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public void clear() {
+		centroidCount = 0;
+		buffered = 0;
+		totalWeight = 0;
+		min = Double.NaN;
+		max = Double.NaN;
+	}
+
+	private void merge() {
+		if (buffered == 0) {
+			return;
+		}
+		sort(buffer, buffered);
+
+		// two-way merge of existing centroids and the sorted buffer
+		int n = 0;
+		int c = 0;
+		int b = 0;
+		while (c < centroidCount || b < buffered) {
+			if (b == buffered || (c < centroidCount && means[c] <= buffer[b])) {
+				scratchMeans[n] = means[c];
+				scratchWeights[n++] = weights[c++];
+			} else {
+				scratchMeans[n] = buffer[b++];
+				scratchWeights[n++] = 1;
+			}
+		}
+		totalWeight += buffered;
+		buffered = 0;
+
+		double weightSoFar = 0;
+		double weightLimit = totalWeight * qForK(kForQ(0) + 1);
+		int out = 0;
+		means[0] = scratchMeans[0];
+		weights[0] = scratchWeights[0];
+		for (int i = 1; i < n; i++) {
+			double proposed = weights[out] + scratchWeights[i];
+			if (weightSoFar + proposed <= weightLimit || out == means.length - 1) {
+				means[out] += (scratchMeans[i] - means[out]) * scratchWeights[i] / proposed;
+				weights[out] = proposed;
+			} else {
+				weightSoFar += weights[out];
+				weightLimit = totalWeight * qForK(kForQ(weightSoFar / totalWeight) + 1);
+				out++;
+				means[out] = scratchMeans[i];
+				weights[out] = scratchWeights[i];
+			}
+		}
+		centroidCount = out + 1;
+	}
+
+	private double kForQ(double q) {
+		return normalizer * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+	}
+
+	private double qForK(double k) {
+		double limit = compression / 4;
+		return (Math.sin(Math.min(k, limit) / normalizer) + 1) / 2;
+	}
+
+	private static double interpolate(double x, double x0, double y0, double x1, double y1) {
+		if (x1 <= x0) {
+			return y0;
+		}
+		return y0 + (x - x0) * (y1 - y0) / (x1 - x0);
+	}
+
+	// in-place heapsort so merging stays allocation-free
+	private static void sort(double[] values, int length) {
+		for (int i = length / 2 - 1; i >= 0; i--) {
+			siftDown(values, i, length);
+		}
+		for (int end = length - 1; end > 0; end--) {
+			double top = values[0];
+			values[0] = values[end];
+			values[end] = top;
+			siftDown(values, 0, end);
+		}
+	}
+
+	private static void siftDown(double[] values, int root, int length) {
+		double value = values[root];
+		int child;
+		while ((child = 2 * root + 1) < length) {
+			if (child + 1 < length && values[child + 1] > values[child]) {
+				child++;
+			}
+			if (values[child] <= value) {
+				break;
+			}
+			values[root] = values[child];
+			root = child;
+		}
+		values[root] = value;
+	}
+}
@@ -0,0 +1,11 @@
+package com.syos.analytics;
+
+/**
+ * Receives one sold bill line at a time so aggregations can run while rows are
+ * streamed from the database instead of after materialising them.
+ */
+@FunctionalInterface
+public interface SaleLineHandler {
+	void onLine(int billId, long billTimeMillis, int hourOfDay, String productCode, int quantity, double totalPrice,
+			double discountAmount);
+}
@@ -0,0 +1,67 @@
+package com.syos.analytics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Single-pass aggregation of bill lines into per-product totals and an
+ * hour-of-day histogram. Rows are folded in as they arrive, so memory grows
+ * with the number of distinct products rather than the number of lines.
+ */
+public class SalesAggregator implements SaleLineHandler {
+	private static final Comparator<ProductSales> BY_UNITS = Comparator.comparingLong(ProductSales::getUnits)
+			.thenComparing(ProductSales::getProductCode, Comparator.reverseOrder());
+
+	private final Map<String, ProductSales> byProduct = new HashMap<>();
+	private final HourlySalesHistogram histogram = new HourlySalesHistogram();
+	private long lineCount;
+
+	@Override
+	public void onLine(int billId, long billTimeMillis, int hourOfDay, String productCode, int quantity,
+			double totalPrice, double discountAmount) {
+		byProduct.computeIfAbsent(productCode, ProductSales::new).add(quantity, totalPrice);
+		histogram.record(hourOfDay, quantity, totalPrice);
+		lineCount++;
+	}
+
+	// bounded min-heap: the smallest of the current top n sits at the head and is
+	// evicted whenever a bigger seller shows up
+	public List<ProductSales> topSellers(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("Top-N size must be positive.");
+		}
+		PriorityQueue<ProductSales> heap = new PriorityQueue<>(n, BY_UNITS);
+		for (ProductSales sales : byProduct.values()) {
+			if (heap.size() < n) {
+				heap.add(sales);
+			} else if (BY_UNITS.compare(sales, heap.peek()) > 0) {
+				heap.poll();
+				heap.add(sales);
+			}
+		}
+
+		List<ProductSales> result = new ArrayList<>(heap.size());
+		for (ProductSales sales : heap) {
+			result.add(new ProductSales(sales.getProductCode(), sales.getUnits(), sales.getRevenue()));
+		}
+		result.sort(Collections.reverseOrder(BY_UNITS));
+		return result;
+	}
+
+	public HourlySalesHistogram getHistogram() {
+		return histogram;
+	}
+
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	public int getProductCount() {
+		return byProduct.size();
+	}
+}
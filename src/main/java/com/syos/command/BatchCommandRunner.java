@@ -0,0 +1,347 @@
+package com.syos.command;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.syos.config.ConfigLoader;
+import com.syos.db.QueryTracker;
+import com.syos.model.GoodsReceiptReport;
+import com.syos.model.ImportReport;
+import com.syos.model.WriteOff;
+import com.syos.repository.StorageProvider;
+import com.syos.repository.StorageTransaction;
+import com.syos.service.GoodsReceiptImportService;
+import com.syos.service.ProductImportService;
+import com.syos.service.ProductService;
+import com.syos.singleton.InventoryManager;
+
+/**
+ * Runs inventory operations from a script instead of interactive prompts, one
+ * command per line:
+ *
+ * <pre>
+ * # comments and blank lines are ignored; quote arguments that contain spaces
+ * add-product P001 "Full cream milk" 450.00
+ * receive P001 40 2024-03-01 2024-04-01
+ * move P001 25
+ * remove-expired-shelf P001 [asOf]
+ * write-off-expired [productCode|*] [asOf]
+ * import-products catalogue.csv
+ * receive-file delivery.json [shelf]
+ * BEGIN
+ * ...
+ * COMMIT
+ * </pre>
+ *
+ * Each command goes through the same service and {@link InventoryManager}
+ * calls, and so the same validation, as its interactive counterpart. The
+ * manager, services and their caches are built once and shared by every
+ * line, and commands between BEGIN and COMMIT share one connection and commit
+ * together. When one of them fails the group is rolled back, the rest of it is
+ * skipped and the script carries on after its COMMIT. Commands outside a group
+ * commit one by one. File arguments are relative to the script's directory.
+ */
+public class BatchCommandRunner {
+	private final StorageProvider storage;
+	private final InventoryManager inventoryManager;
+	private final ProductService productService;
+	private final ProductImportService productImportService;
+	private final GoodsReceiptImportService goodsReceiptImportService;
+
+	public BatchCommandRunner(StorageProvider storage, InventoryManager inventoryManager) {
+		this(storage, inventoryManager, new ProductService(storage.products()),
+				new ProductImportService(storage.products(), ConfigLoader.getInt("import.products.chunk.size", 1000)),
+				new GoodsReceiptImportService(inventoryManager, storage.products()));
+	}
+
+	public BatchCommandRunner(StorageProvider storage, InventoryManager inventoryManager,
+			ProductService productService, ProductImportService productImportService,
+			GoodsReceiptImportService goodsReceiptImportService) {
+		this.storage = storage;
+		this.inventoryManager = inventoryManager;
+		this.productService = productService;
+		this.productImportService = productImportService;
+		this.goodsReceiptImportService = goodsReceiptImportService;
+	}
+
+	public ImportReport run(Path script) {
+		Path baseDir = script.toAbsolutePath().getParent();
+		try (Reader reader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+			return run(reader, baseDir);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading script " + script, e);
+		}
+	}
+
+	public ImportReport run(Reader script, Path baseDir) {
+		ImportReport report = new ImportReport();
+		BufferedReader lines = script instanceof BufferedReader ? (BufferedReader) script : new BufferedReader(script);
+		StorageTransaction transaction = null;
+		int groupStart = 0;
+		int groupCommands = 0;
+		boolean skipping = false;
+		int lineNumber = 0;
+
+		try {
+			String line;
+			while ((line = lines.readLine()) != null) {
+				lineNumber++;
+				String trimmed = line.trim();
+				if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+					continue;
+				}
+
+				if ("BEGIN".equalsIgnoreCase(trimmed)) {
+					if (groupStart != 0) {
+						report.reject(lineNumber, "BEGIN inside the transaction started on line " + groupStart);
+						continue;
+					}
+					groupStart = lineNumber;
+					groupCommands = 0;
+					skipping = false;
+					try {
+						transaction = storage.beginTransaction();
+					} catch (RuntimeException e) {
+						report.reject(lineNumber, "Could not start transaction: " + e.getMessage());
+						skipping = true;
+					}
+					continue;
+				}
+				if ("COMMIT".equalsIgnoreCase(trimmed)) {
+					if (groupStart == 0) {
+						report.reject(lineNumber, "COMMIT without BEGIN");
+						continue;
+					}
+					boolean commitFailed = false;
+					if (!skipping) {
+						try {
+							transaction.commit();
+							report.imported(groupCommands);
+						} catch (RuntimeException e) {
+							report.reject(lineNumber, "Commit failed, transaction from line " + groupStart
+									+ " rolled back: " + e.getMessage());
+							commitFailed = true;
+						}
+					}
+					closeQuietly(transaction);
+					transaction = null;
+					groupStart = 0;
+					skipping = false;
+					// reread outside the transaction, once it has been rolled back
+					if (commitFailed) {
+						reloadCaches();
+					}
+					continue;
+				}
+
+				report.rowRead();
+				if (skipping) {
+					continue;
+				}
+				try (QueryTracker.Scope scope = QueryTracker.begin("script." + firstWord(trimmed))) {
+					execute(tokenize(trimmed), baseDir);
+					if (groupStart == 0) {
+						report.imported(1);
+					} else {
+						groupCommands++;
+					}
+				} catch (RuntimeException e) {
+					if (groupStart == 0) {
+						report.reject(lineNumber, e.getMessage());
+					} else {
+						report.reject(lineNumber, e.getMessage() + " (transaction from line " + groupStart
+								+ " rolled back)");
+						closeQuietly(transaction);
+						transaction = null;
+						skipping = true;
+						reloadCaches();
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading script", e);
+		} finally {
+			if (transaction != null) {
+				closeQuietly(transaction);
+				reloadCaches();
+			}
+		}
+
+		if (groupStart != 0 && !skipping) {
+			report.reject(groupStart, "Transaction never committed, rolled back");
+		}
+		return report;
+	}
+
+	private void execute(List<String> args, Path baseDir) {
+		String verb = args.get(0).toLowerCase();
+		switch (verb) {
+		case "add-product" -> {
+			expectArgs(args, 3, 3, "add-product <code> <name> <price>");
+			productService.addProduct(args.get(1), args.get(2), parsePrice(args.get(3)));
+		}
+		case "receive" -> {
+			expectArgs(args, 4, 4, "receive <code> <quantity> <purchaseDate> <expiryDate>");
+			inventoryManager.receiveStock(args.get(1), parseDate(args.get(3)), parseDate(args.get(4)),
+					parseQuantity(args.get(2)));
+		}
+		case "move" -> {
+			expectArgs(args, 2, 2, "move <code> <quantity>");
+			inventoryManager.moveToShelf(args.get(1), parseQuantity(args.get(2)));
+		}
+		case "remove-expired-shelf" -> {
+			expectArgs(args, 1, 2, "remove-expired-shelf <code> [asOf]");
+			LocalDate asOf = args.size() > 2 ? parseDate(args.get(2)) : LocalDate.now();
+			int removed = inventoryManager.removeExpiredFromShelf(args.get(1), asOf);
+			System.out.printf("Removed %d expiring units of %s from the shelf%n", removed, args.get(1));
+		}
+		case "write-off-expired" -> {
+			expectArgs(args, 0, 2, "write-off-expired [productCode|*] [asOf]");
+			String code = args.size() > 1 && !"*".equals(args.get(1)) ? args.get(1) : null;
+			LocalDate asOf = args.size() > 2 ? parseDate(args.get(2)) : LocalDate.now();
+			List<WriteOff> writeOffs = inventoryManager.writeOffExpired(asOf, code);
+			System.out.printf("Wrote off %d expired batches%n", writeOffs.size());
+		}
+		case "import-products" -> {
+			expectArgs(args, 1, 1, "import-products <file>");
+			ImportReport result;
+			try (Reader reader = Files.newBufferedReader(baseDir.resolve(args.get(1)), StandardCharsets.UTF_8)) {
+				result = productImportService.importCsv(reader);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			System.out.printf("Imported %d of %d products%n", result.getRowsImported(), result.getRowsRead());
+			failOnErrors(result);
+		}
+		case "receive-file" -> {
+			expectArgs(args, 1, 2, "receive-file <file> [shelf]");
+			boolean moveToShelf = args.size() > 2 && "shelf".equalsIgnoreCase(args.get(2));
+			Path file = baseDir.resolve(args.get(1));
+			GoodsReceiptReport result;
+			try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				result = file.getFileName().toString().toLowerCase().endsWith(".json")
+						? goodsReceiptImportService.importJson(reader, moveToShelf)
+						: goodsReceiptImportService.importCsv(reader, moveToShelf);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			failOnErrors(result);
+			System.out.printf("Received %d batches%n", result.getRowsImported());
+			// the command asked for the shelf too, so it fails; outside BEGIN/COMMIT the batches stay received
+			if (!result.getShelfFailures().isEmpty()) {
+				throw new IllegalStateException(result.getShelfFailures().size()
+						+ " products received but not moved to the shelf, first " + result.getShelfFailures().get(0));
+			}
+		}
+		default -> throw new IllegalArgumentException("Unknown command: " + args.get(0));
+		}
+	}
+
+	// a file command with rejected rows fails, so its transaction does not commit a partial load
+	private static void failOnErrors(ImportReport result) {
+		if (result.hasErrors()) {
+			throw new IllegalArgumentException(result.getErrors().size() + " rows rejected, first at "
+					+ result.getErrors().get(0));
+		}
+	}
+
+	private static void expectArgs(List<String> args, int min, int max, String usage) {
+		int given = args.size() - 1;
+		if (given < min || given > max) {
+			throw new IllegalArgumentException("Usage: " + usage);
+		}
+	}
+
+	private static int parseQuantity(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid quantity: " + value);
+		}
+	}
+
+	private static double parsePrice(String value) {
+		try {
+			double price = Double.parseDouble(value);
+			if (!Double.isFinite(price) || price < 0) {
+				throw new IllegalArgumentException("Price must be a non-negative number: " + value);
+			}
+			return price;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid price: " + value);
+		}
+	}
+
+	private static LocalDate parseDate(String value) {
+		try {
+			return LocalDate.parse(value);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid date (use YYYY-MM-DD): " + value);
+		}
+	}
+
+	private static String firstWord(String line) {
+		int space = line.indexOf(' ');
+		return (space < 0 ? line : line.substring(0, space)).toLowerCase();
+	}
+
+	// whitespace separated, with double quotes around arguments that contain spaces
+	static List<String> tokenize(String line) {
+		List<String> tokens = new ArrayList<>();
+		StringBuilder token = new StringBuilder();
+		boolean quoted = false;
+		boolean inToken = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+				inToken = true;
+			} else if (Character.isWhitespace(c) && !quoted) {
+				if (inToken) {
+					tokens.add(token.toString());
+					token.setLength(0);
+					inToken = false;
+				}
+			} else {
+				token.append(c);
+				inToken = true;
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("Unterminated quote");
+		}
+		if (inToken) {
+			tokens.add(token.toString());
+		}
+		return tokens;
+	}
+
+	// a failure here must not end the script; the next command reloads what it needs
+	private void reloadCaches() {
+		try {
+			inventoryManager.reloadCaches();
+		} catch (RuntimeException e) {
+			System.err.println("Reloading inventory caches failed: " + e.getMessage());
+		}
+	}
+
+	private static void closeQuietly(StorageTransaction transaction) {
+		if (transaction == null) {
+			return;
+		}
+		try {
+			transaction.close();
+		} catch (RuntimeException e) {
+			System.err.println("Rollback failed: " + e.getMessage());
+		}
+	}
+}
@@ -1,7 +1,9 @@
 package com.syos.command;
 
 import com.syos.model.StockBatch;
+import com.syos.model.WriteOff;
 import com.syos.singleton.InventoryManager;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Scanner;
 
@@ -53,10 +55,15 @@ public class DiscardExpiringBatchesCommand implements Command {
 		System.out.println(
 				"--------------------------------------------------------------------------------------------------");
 
-		System.out.print("\nEnter Batch ID to discard (0 to cancel): ");
+		System.out.print("\nEnter Batch ID to discard, A to write off every batch already expired (0 to cancel): ");
+		String selection = scanner.nextLine().trim();
+		if (selection.equalsIgnoreCase("A")) {
+			writeOffAll();
+			return;
+		}
 		int batchId;
 		try {
-			batchId = Integer.parseInt(scanner.nextLine().trim());
+			batchId = Integer.parseInt(selection);
 			if (batchId == 0) {
 				System.out.println("Discard operation cancelled.");
 				return;
@@ -113,4 +120,32 @@ public class DiscardExpiringBatchesCommand implements Command {
 			System.out.println("An unexpected error occurred: " + e.getMessage());
 		}
 	}
+
+	// one set-based write-off instead of a prompt and two round trips per batch. Only batches past their
+	// expiry date are written off as expired; ones merely close to it are discarded one at a time above
+	private void writeOffAll() {
+		System.out.print("Enter product code to limit the write-off (or leave blank for all products): ");
+		String productCode = scanner.nextLine().trim();
+		LocalDate asOf = LocalDate.now();
+
+		try {
+			List<WriteOff> writeOffs = inventoryManager.writeOffExpired(asOf, productCode);
+			if (writeOffs.isEmpty()) {
+				System.out.println("Nothing to write off: no batch has passed its expiry date.");
+				return;
+			}
+			int units = 0;
+			for (WriteOff writeOff : writeOffs) {
+				System.out.printf("Wrote off %d units from Batch ID %d (%s, exp. %s).%n", writeOff.getQuantity(),
+						writeOff.getBatchId(), writeOff.getProductCode(), writeOff.getExpiryDate());
+				units += writeOff.getQuantity();
+			}
+			System.out.printf("Successfully wrote off %d units across %d batches expired as of %s.%n", units,
+					writeOffs.size(), asOf);
+		} catch (IllegalArgumentException e) {
+			System.out.println("Error writing off stock: " + e.getMessage());
+		} catch (Exception e) {
+			System.out.println("An unexpected error occurred: " + e.getMessage());
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.syos.command;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Scanner;
+
+import com.syos.model.GoodsReceiptReport;
+import com.syos.service.GoodsReceiptImportService;
+
+public class ImportGoodsReceiptCommand implements Command {
+	private final GoodsReceiptImportService importService;
+	private final Scanner scanner;
+
+	public ImportGoodsReceiptCommand(GoodsReceiptImportService importService, Scanner scanner) {
+		this.importService = importService;
+		this.scanner = scanner;
+	}
+
+	@Override
+	public void execute() {
+		System.out.println("\n=== Receive Stock from Delivery Note ===");
+		System.out.println("CSV columns: productCode,quantity,purchaseDate,expiryDate (header optional)");
+		System.out.println("JSON: an array of objects with the same keys");
+		System.out.print("File path (.csv or .json): ");
+		String pathInput = scanner.nextLine().trim();
+		if (pathInput.isEmpty()) {
+			System.out.println("Error: File path cannot be empty.");
+			return;
+		}
+		Path path = Paths.get(pathInput);
+		if (!Files.isReadable(path)) {
+			System.out.println("Error: Cannot read file " + path);
+			return;
+		}
+
+		System.out.print("Move received stock to the shelf now? (y/N): ");
+		boolean moveToShelf = scanner.nextLine().trim().equalsIgnoreCase("y");
+
+		boolean json = path.getFileName().toString().toLowerCase().endsWith(".json");
+		GoodsReceiptReport report;
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			report = json ? importService.importJson(reader, moveToShelf) : importService.importCsv(reader, moveToShelf);
+		} catch (IOException | UncheckedIOException e) {
+			System.out.println("Error reading file: " + e.getMessage());
+			return;
+		} catch (IllegalArgumentException e) {
+			System.out.println("Failed to read delivery note: " + e.getMessage());
+			return;
+		} catch (RuntimeException e) {
+			System.out.println("An unexpected error occurred: " + e.getMessage());
+			e.printStackTrace();
+			return;
+		}
+
+		if (!report.isReceived()) {
+			if (report.hasErrors()) {
+				System.out.printf("Nothing received: %d of %d lines need fixing.%n", report.getErrors().size(),
+						report.getRowsRead());
+			} else {
+				System.out.println("Nothing received: the delivery note has no lines.");
+			}
+			ImportProductsCommand.printErrors(report.getErrors(), path);
+			return;
+		}
+		System.out.printf("Received %d batches.%n", report.getRowsImported());
+		if (!report.getShelfFailures().isEmpty()) {
+			System.out.println("These products were received but are still in the back-store (not moved to the shelf):");
+			for (GoodsReceiptReport.ShelfFailure failure : report.getShelfFailures()) {
+				System.out.println("  " + failure);
+			}
+		}
+	}
+}
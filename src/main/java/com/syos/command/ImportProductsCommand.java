@@ -0,0 +1,83 @@
+package com.syos.command;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Scanner;
+
+import com.syos.model.ImportReport;
+import com.syos.service.ProductImportService;
+
+public class ImportProductsCommand implements Command {
+	// errors beyond this many go to a report file next to the input
+	private static final int MAX_ERRORS_SHOWN = 20;
+
+	private final ProductImportService importService;
+	private final Scanner scanner;
+
+	public ImportProductsCommand(ProductImportService importService, Scanner scanner) {
+		this.importService = importService;
+		this.scanner = scanner;
+	}
+
+	@Override
+	public void execute() {
+		System.out.println("\n=== Import Products from CSV ===");
+		System.out.println("Expected columns: code,name,price (a header line is optional)");
+		System.out.print("CSV file path: ");
+		String pathInput = scanner.nextLine().trim();
+		if (pathInput.isEmpty()) {
+			System.out.println("Error: File path cannot be empty.");
+			return;
+		}
+		Path path = Paths.get(pathInput);
+		if (!Files.isReadable(path)) {
+			System.out.println("Error: Cannot read file " + path);
+			return;
+		}
+
+		ImportReport report;
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			report = importService.importCsv(reader);
+		} catch (IOException | UncheckedIOException e) {
+			System.out.println("Error reading file: " + e.getMessage());
+			return;
+		} catch (RuntimeException e) {
+			System.out.println("Import stopped: " + e.getMessage());
+			return;
+		}
+
+		System.out.printf("Rows read: %d | Imported: %d | Rejected: %d%n", report.getRowsRead(),
+				report.getRowsImported(), report.getErrors().size());
+		printErrors(report.getErrors(), path);
+	}
+
+	static void printErrors(List<ImportReport.RowError> errors, Path input) {
+		if (errors.isEmpty()) {
+			return;
+		}
+		for (ImportReport.RowError error : errors.subList(0, Math.min(errors.size(), MAX_ERRORS_SHOWN))) {
+			System.out.println("  " + error);
+		}
+		if (errors.size() <= MAX_ERRORS_SHOWN) {
+			return;
+		}
+		Path reportFile = input.resolveSibling(input.getFileName() + ".errors.txt");
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8))) {
+			for (ImportReport.RowError error : errors) {
+				out.println(error);
+			}
+			System.out.printf("  ... %d more. Full error report written to %s%n", errors.size() - MAX_ERRORS_SHOWN,
+					reportFile);
+		} catch (IOException e) {
+			System.out.printf("  ... %d more (could not write error report: %s)%n", errors.size() - MAX_ERRORS_SHOWN,
+					e.getMessage());
+		}
+	}
+}
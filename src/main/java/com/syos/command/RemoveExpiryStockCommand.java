@@ -1,8 +1,12 @@
 package com.syos.command;
 
-import com.syos.model.StockBatch;
+import com.syos.model.ShelfLot;
 import com.syos.singleton.InventoryManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class RemoveExpiryStockCommand implements Command {
@@ -30,59 +34,81 @@ public class RemoveExpiryStockCommand implements Command {
             return;
         }
 
-        List<String> productsWithExpiringBatches = inventoryManager.getAllProductCodesWithExpiringBatches(daysThreshold);
+        // shelf lots carry their batch's expiry date, so this lists exactly what is on the shelf
+        List<ShelfLot> expiringLots = inventoryManager.getExpiringShelfLots(daysThreshold);
+        // units shelved before lots were tracked have no expiry date and are listed for checking by hand
+        Map<String, Integer> untracked = inventoryManager.getUntrackedShelfQuantities();
 
-        if (productsWithExpiringBatches.isEmpty()) {
-            System.out.printf("No products found with batches expiring within %d days. Nothing to consider for removal.%n", daysThreshold);
+        if (expiringLots.isEmpty() && untracked.isEmpty()) {
+            System.out.printf("No shelf stock found expiring within %d days. Nothing to consider for removal.%n", daysThreshold);
             return;
         }
 
-        System.out.printf("%nProducts identified with batches expiring in next %d days:%n", daysThreshold);
-        for (String productCode : productsWithExpiringBatches) {
-            int shelfQty = inventoryManager.getQuantityOnShelf(productCode);
-            System.out.printf("  - %s (Current Shelf Qty: %d)%n", productCode, shelfQty);
-            List<StockBatch> expiringBatches = inventoryManager.getExpiringBatchesForProduct(productCode, daysThreshold);
-            for (StockBatch batch : expiringBatches) {
-                System.out.printf("    Batch ID: %d, Exp. Date: %s, Remaining Qty (Back-Store): %d%n",
-                        batch.getId(), batch.getExpiryDate(), batch.getQuantityRemaining());
+        Map<String, List<ShelfLot>> lotsByProduct = new LinkedHashMap<>();
+        for (ShelfLot lot : expiringLots) {
+            lotsByProduct.computeIfAbsent(lot.getProductCode(), code -> new ArrayList<>()).add(lot);
+        }
+
+        if (lotsByProduct.isEmpty()) {
+            System.out.printf("%nNo shelf stock with a recorded expiry date expires in the next %d days.%n", daysThreshold);
+        } else {
+            System.out.printf("%nShelf stock expiring in next %d days:%n", daysThreshold);
+        }
+        for (Map.Entry<String, List<ShelfLot>> entry : lotsByProduct.entrySet()) {
+            int expiringQty = entry.getValue().stream().mapToInt(ShelfLot::getQuantity).sum();
+            System.out.printf("  - %s (Expiring Qty on Shelf: %d)%n", entry.getKey(), expiringQty);
+            for (ShelfLot lot : entry.getValue()) {
+                System.out.printf("    Batch ID: %d, Exp. Date: %s, Qty on Shelf: %d%n",
+                        lot.getBatchId(), lot.getExpiryDate(), lot.getQuantity());
             }
         }
+        if (!untracked.isEmpty()) {
+            System.out.println("\nShelf stock with no recorded expiry date (check the labels by hand):");
+            untracked.forEach((code, qty) -> System.out.printf("  - %s (Qty on Shelf: %d)%n", code, qty));
+        }
 
-        System.out.print("\nEnter product code to remove from shelf (from the list above): ");
+        System.out.print("\nEnter product code to remove its expiring stock from shelf (from the lists above): ");
         String productCodeToRemove = scanner.nextLine().trim();
 
-        if (productCodeToRemove.isEmpty() || !productsWithExpiringBatches.contains(productCodeToRemove)) {
+        if (productCodeToRemove.isEmpty()
+                || !(lotsByProduct.containsKey(productCodeToRemove) || untracked.containsKey(productCodeToRemove))) {
             System.out.println("Invalid or unlisted product code. No stock removed.");
             return;
         }
 
-        int currentShelfQuantity = inventoryManager.getQuantityOnShelf(productCodeToRemove);
-        if (currentShelfQuantity == 0) {
-            System.out.printf("Product %s is not currently on the shelf. No stock removed.%n", productCodeToRemove);
-            return;
-        }
-
-        System.out.printf("Current quantity of %s on shelf: %d%n", productCodeToRemove, currentShelfQuantity);
-        System.out.print("Enter quantity to remove from shelf: ");
-        int quantityToRemove;
         try {
-            quantityToRemove = Integer.parseInt(scanner.nextLine().trim());
-            if (quantityToRemove <= 0 || quantityToRemove > currentShelfQuantity) {
-                System.out.printf("Invalid quantity. Must be positive and not exceed current shelf quantity (%d).%n", currentShelfQuantity);
-                return;
+            if (lotsByProduct.containsKey(productCodeToRemove)) {
+                int removed = inventoryManager.removeExpiredFromShelf(productCodeToRemove, LocalDate.now().plusDays(daysThreshold));
+                if (removed == 0) {
+                    System.out.printf("Expiring stock of %s is no longer on the shelf.%n", productCodeToRemove);
+                } else {
+                    System.out.printf("Successfully removed %d expiring units of %s from shelf.%n", removed, productCodeToRemove);
+                }
+            }
+            if (untracked.containsKey(productCodeToRemove)) {
+                removeUntracked(productCodeToRemove, untracked.get(productCodeToRemove));
             }
-        } catch (NumberFormatException e) {
-            System.out.println("Invalid input. Please enter a number for quantity.");
-            return;
-        }
-
-        try {
-            inventoryManager.removeQuantityFromShelf(productCodeToRemove, quantityToRemove);
-            System.out.printf("Successfully removed %d units of %s from shelf, assumed to be close-to-expiry stock.%n", quantityToRemove, productCodeToRemove);
         } catch (IllegalArgumentException e) {
             System.out.println("Error removing stock: " + e.getMessage());
         } catch (Exception e) {
             System.out.println("An unexpected error occurred: " + e.getMessage());
         }
     }
+
+    private void removeUntracked(String productCode, int untrackedQty) {
+        System.out.printf("How many of the %d units of %s with no expiry date are expiring? (0 to keep them): ",
+                untrackedQty, productCode);
+        int qty;
+        try {
+            qty = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input. No units without an expiry date removed.");
+            return;
+        }
+        if (qty <= 0) {
+            return;
+        }
+        inventoryManager.removeUntrackedFromShelf(productCode, qty);
+        System.out.printf("Successfully removed %d units of %s with no expiry date from shelf.%n", qty, productCode);
+    }
 }
\ No newline at end of file
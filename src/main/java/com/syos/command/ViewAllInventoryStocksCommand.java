@@ -3,7 +3,6 @@ package com.syos.command;
 import com.syos.singleton.InventoryManager;
 import com.syos.model.StockBatch;
 
-import java.util.List;
 import java.util.Scanner;
 
 public class ViewAllInventoryStocksCommand implements Command {
@@ -16,27 +15,28 @@ public class ViewAllInventoryStocksCommand implements Command {
 	@Override
 	public void execute() {
 		System.out.println("\n--- All Inventory Stock Batches ---");
-		List<String> allProductCodes = inventoryManager.getAllProductCodes();
+		int[] productsWithBatches = { 0 };
 
-		if (allProductCodes.isEmpty()) {
+		// one streamed query for every product instead of a batch lookup per code
+		inventoryManager.streamStockOverview(null, stock -> {
+			if (stock.getBatches().isEmpty()) {
+				return;
+			}
+			productsWithBatches[0]++;
+			System.out.println("\nProduct Code: " + stock.getProductCode());
+			System.out.printf("%-5s %-15s %-15s %-10s %-10s%n", "ID", "Purchase Date", "Expiry Date", "Quantity",
+					"Remaining");
+			System.out.println("----- --------------- --------------- ---------- ----------");
+			for (StockBatch batch : stock.getBatches()) {
+				System.out.printf("%-5d %-15s %-15s %-10d %-10d%n", batch.getId(), batch.getPurchaseDate(),
+						batch.getExpiryDate(), batch.getQuantityRemaining(), batch.getQuantityRemaining());
+			}
+		});
+
+		if (productsWithBatches[0] == 0) {
 			System.out.println("No products with back-store stock found.");
 			return;
 		}
-
-		for (String productCode : allProductCodes) {
-			List<StockBatch> batches = inventoryManager.getBatchesForProduct(productCode);
-
-			if (!batches.isEmpty()) {
-				System.out.println("\nProduct Code: " + productCode);
-				System.out.printf("%-5s %-15s %-15s %-10s %-10s%n", "ID", "Purchase Date", "Expiry Date", "Quantity",
-						"Remaining");
-				System.out.println("----- --------------- --------------- ---------- ----------");
-				for (StockBatch batch : batches) {
-					System.out.printf("%-5d %-15s %-15s %-10d %-10d%n", batch.getId(), batch.getPurchaseDate(),
-							batch.getExpiryDate(), batch.getQuantityRemaining(), batch.getQuantityRemaining());
-				}
-			}
-		}
 		System.out.println("------------------------------------");
 	}
 }
@@ -1,5 +1,6 @@
 package com.syos.command;
 
+import com.syos.model.ProductStock;
 import com.syos.model.StockBatch;
 import com.syos.singleton.InventoryManager;
 import java.util.List;
@@ -33,21 +34,12 @@ public class ViewExpiryStockCommand implements Command {
         System.out.print("Enter product code to filter (or leave blank to view all products): ");
         String productCodeFilter = scanner.nextLine().trim();
 
-        List<String> productCodesToDisplay;
-        if (productCodeFilter.isEmpty()) {
-            // Get all product codes that *might* have expiring batches
-            productCodesToDisplay = inventoryManager.getAllProductCodesWithExpiringBatches(daysThreshold);
-        } else {
-            productCodesToDisplay = List.of(productCodeFilter);
-        }
+        // products, shelf quantities and expiring batches come back together in one query
+        List<ProductStock> dashboard = inventoryManager.getExpiryDashboard(daysThreshold,
+                productCodeFilter.isEmpty() ? null : productCodeFilter);
 
-        if (productCodesToDisplay.isEmpty()) {
-            System.out.printf("No products found with batches expiring within %d days", daysThreshold);
-            if (!productCodeFilter.isEmpty()) {
-                System.out.printf(" for product code '%s'.%n", productCodeFilter);
-            } else {
-                System.out.println(".");
-            }
+        if (dashboard.isEmpty() && productCodeFilter.isEmpty()) {
+            System.out.printf("No products found with batches expiring within %d days.%n", daysThreshold);
             return;
         }
 
@@ -57,49 +49,41 @@ public class ViewExpiryStockCommand implements Command {
                           "Product Code", "Shelf Qty", "Batch ID", "Exp. Date", "Purch. Date", "Batch Rem. Qty");
         System.out.println("-------------------------------------------------------------------------------------------------------------");
 
-        boolean foundAnyExpiring = false;
-
-        for (String productCode : productCodesToDisplay) {
-            List<StockBatch> expiringBatches = inventoryManager.getExpiringBatchesForProduct(productCode, daysThreshold);
+        for (ProductStock stock : dashboard) {
+            List<StockBatch> expiringBatches = stock.getBatches();
 
-            if (!expiringBatches.isEmpty()) {
-                foundAnyExpiring = true;
-                int quantityOnShelf = inventoryManager.getQuantityOnShelf(productCode);
+            // Print the first row for this product with its shelf quantity
+            StockBatch firstBatch = expiringBatches.get(0);
+            System.out.printf("%-15s %-15d %-15d %-15s %-15s %-15d%n",
+                              stock.getProductCode(),
+                              stock.getQuantityOnShelf(),
+                              firstBatch.getId(),
+                              firstBatch.getExpiryDate(),
+                              firstBatch.getPurchaseDate(),
+                              firstBatch.getQuantityRemaining());
 
-                // Print the first row for this product with its shelf quantity
-                StockBatch firstBatch = expiringBatches.get(0);
-                System.out.printf("%-15s %-15d %-15d %-15s %-15s %-15d%n",
-                                  productCode,
-                                  quantityOnShelf,
-                                  firstBatch.getId(),
-                                  firstBatch.getExpiryDate(),
-                                  firstBatch.getPurchaseDate(),
-                                  firstBatch.getQuantityRemaining());
-
-                // Print subsequent batches for the same product, leaving Product Code and Shelf Qty blank
-                for (int i = 1; i < expiringBatches.size(); i++) {
-                    StockBatch batch = expiringBatches.get(i);
-                    System.out.printf("%-15s %-15s %-15d %-15s %-15s %-15d%n",
-                                      "", // Blank for subsequent rows of the same product
-                                      "", // Blank for subsequent rows of the same product
-                                      batch.getId(),
-                                      batch.getExpiryDate(),
-                                      batch.getPurchaseDate(),
-                                      batch.getQuantityRemaining());
-                }
-            } else if (!productCodeFilter.isEmpty()) {
-                // If a specific product was requested but has no expiring batches, show its shelf qty
-                int quantityOnShelf = inventoryManager.getQuantityOnShelf(productCode);
-                System.out.printf("%-15s %-15d %-15s %-15s %-15s %-15s%n",
-                                  productCode,
-                                  quantityOnShelf,
-                                  "N/A", "N/A", "N/A", "N/A"); // Indicate no expiring batches
+            // Print subsequent batches for the same product, leaving Product Code and Shelf Qty blank
+            for (int i = 1; i < expiringBatches.size(); i++) {
+                StockBatch batch = expiringBatches.get(i);
+                System.out.printf("%-15s %-15s %-15d %-15s %-15s %-15d%n",
+                                  "", // Blank for subsequent rows of the same product
+                                  "", // Blank for subsequent rows of the same product
+                                  batch.getId(),
+                                  batch.getExpiryDate(),
+                                  batch.getPurchaseDate(),
+                                  batch.getQuantityRemaining());
             }
         }
 
-        if (!foundAnyExpiring && productCodeFilter.isEmpty()) {
-            System.out.println("No products found with batches expiring within the specified threshold.");
+        if (dashboard.isEmpty()) {
+            // If a specific product was requested but has no expiring batches, show its shelf qty
+            int quantityOnShelf = inventoryManager.getQuantityOnShelf(productCodeFilter);
+            System.out.printf("%-15s %-15d %-15s %-15s %-15s %-15s%n",
+                              productCodeFilter,
+                              quantityOnShelf,
+                              "N/A", "N/A", "N/A", "N/A"); // Indicate no expiring batches
         }
+
         System.out.println("-------------------------------------------------------------------------------------------------------------");
         System.out.println("Note: 'Batch Rem. Qty' refers to stock remaining in back-store. 'Shelf Qty' is total on shelf.");
     }
@@ -0,0 +1,56 @@
+package com.syos.command;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Scanner;
+
+import com.syos.model.ProductStock;
+import com.syos.singleton.InventoryManager;
+
+public class ViewStockAsOfCommand implements Command {
+	private final InventoryManager inventoryManager;
+	private final Scanner scanner;
+
+	public ViewStockAsOfCommand(InventoryManager inventoryManager, Scanner scanner) {
+		this.inventoryManager = inventoryManager;
+		this.scanner = scanner;
+	}
+
+	@Override
+	public void execute() {
+		System.out.println("\n--- Stock As Of ---");
+		System.out.print("Date and time (YYYY-MM-DD HH:MM, or YYYY-MM-DD for the end of that day): ");
+		String input = scanner.nextLine().trim();
+
+		LocalDateTime moment;
+		try {
+			moment = input.length() <= 10 ? LocalDate.parse(input).plusDays(1).atStartOfDay().minusNanos(1)
+					: LocalDateTime.parse(input.replace(' ', 'T'));
+		} catch (DateTimeParseException e) {
+			System.out.println("Error: Invalid date. Please use YYYY-MM-DD or YYYY-MM-DD HH:MM.");
+			return;
+		}
+
+		List<ProductStock> stock;
+		try {
+			stock = inventoryManager.getStockAsOf(moment.atZone(ZoneId.systemDefault()).toInstant());
+		} catch (IllegalStateException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+
+		if (stock.isEmpty()) {
+			System.out.println("No stock recorded at that time.");
+			return;
+		}
+		System.out.printf("%-12s %-10s %-10s%n", "Product", "Shelf", "Back-store");
+		System.out.println("------------ ---------- ----------");
+		for (ProductStock product : stock) {
+			System.out.printf("%-12s %-10d %-10d%n", product.getProductCode(), product.getQuantityOnShelf(),
+					product.getBackStoreQuantity());
+		}
+	}
+}
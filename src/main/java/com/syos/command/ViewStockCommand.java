@@ -3,6 +3,7 @@ package com.syos.command;
 import com.syos.singleton.InventoryManager;
 import java.util.Scanner;
 import java.util.List;
+import com.syos.model.ProductStock;
 import com.syos.model.StockBatch;
 
 public class ViewStockCommand implements Command {
@@ -16,93 +17,89 @@ public class ViewStockCommand implements Command {
 
 	@Override
 	public void execute() {
-		System.out.print("Enter product code to view stock details (or leave blank to view all products): ");
+		System.out.print(
+				"Enter product code to view stock details, a prefix ending in * (e.g. BEV*), or leave blank to view all products: ");
 		String productCode = scanner.nextLine().trim();
 
 		if (productCode.isEmpty()) {
-			displayAllStockDetailsInTable();
+			displayStockOverview(null);
+		} else if (productCode.endsWith("*")) {
+			displayStockOverview(productCode.substring(0, productCode.length() - 1));
 		} else {
 			displayStockDetailsInTable(productCode);
 		}
 	}
 
-	private void displayAllStockDetailsInTable() {
+	// the whole overview is one query; rows are printed as each product's group arrives
+	private void displayStockOverview(String codePrefix) {
 		try {
-			List<String> allProductCodes = inventoryManager.getAllProductCodes();
-
-			if (allProductCodes.isEmpty()) {
+			if (codePrefix == null) {
+				System.out.println("\n--- Current Shelf and Back-Store Stock Details (All Products) ---");
+			} else {
+				System.out.printf("\n--- Current Shelf and Back-Store Stock Details (Products Starting '%s') ---%n",
+						codePrefix);
+			}
+			printTableHeader();
+			int[] products = { 0 };
+			inventoryManager.streamStockOverview(codePrefix, stock -> {
+				printStockRows(stock);
+				products[0]++;
+			});
+			if (products[0] == 0) {
 				System.out.println("No products found in the system.");
-				return;
 			}
-
-			System.out.println("\n--- Current Shelf and Back-Store Stock Details (All Products) ---");
-			printStockTable(allProductCodes);
-
+			printTableFooter();
 		} catch (Exception e) {
 			System.out.println("Error fetching all stock information: " + e.getMessage());
 		}
 	}
 
 	private void displayStockDetailsInTable(String productCode) {
-		List<String> singleProductList = List.of(productCode);
 		System.out.printf("\n--- Current Stock Details for Product: %s ---%n", productCode);
-		printStockTable(singleProductList);
+		try {
+			// the exact code sorts first among codes that start with it
+			List<ProductStock> page = inventoryManager.getStockOverview(productCode, null, 1);
+			printTableHeader();
+			if (!page.isEmpty() && page.get(0).getProductCode().equals(productCode)) {
+				printStockRows(page.get(0));
+			} else {
+				System.out.printf("%-15s %-15d %-15s %-15s %-15s %-15s%n", productCode, 0, "N/A", "N/A", "N/A", "N/A");
+			}
+			printTableFooter();
+		} catch (Exception e) {
+			System.out.printf("An unexpected error occurred for product %s: %s%n", productCode, e.getMessage());
+		}
 	}
 
-	private void printStockTable(List<String> productCodes) {
+	private void printTableHeader() {
 		System.out.println(
 				"-----------------------------------------------------------------------------------------------------------------");
 		System.out.printf("%-15s %-15s %-15s %-15s %-15s %-15s%n", "Product Code", "Shelf Qty", "Batch ID",
 				"Purch. Date", "Exp. Date", "Batch Rem. Qty");
 		System.out.println(
 				"-----------------------------------------------------------------------------------------------------------------");
+	}
 
-		boolean anyProductFoundWithStock = false;
-
-		for (String productCode : productCodes) {
-			try {
-				int quantityOnShelf = inventoryManager.getQuantityOnShelf(productCode);
-				List<StockBatch> batches = inventoryManager.getBatchesForProduct(productCode);
-
-				if (batches.isEmpty() && quantityOnShelf == 0) {
-					if (productCodes.size() == 1) {
-						System.out.printf("%-15s %-15d %-15s %-15s %-15s %-15s%n", productCode, 0, "N/A", "N/A", "N/A",
-								"N/A");
-						anyProductFoundWithStock = true;
-					}
-				}
-
-				anyProductFoundWithStock = true;
-
-				if (batches.isEmpty()) {
-					System.out.printf("%-15s %-15d %-15s %-15s %-15s %-15s%n", productCode, quantityOnShelf, "N/A",
-							"N/A", "N/A", "N/A");
-				} else {
-					StockBatch firstBatch = batches.get(0);
-					System.out.printf("%-15s %-15d %-15d %-15s %-15s %-15d%n", productCode, quantityOnShelf,
-							firstBatch.getId(), firstBatch.getPurchaseDate(), firstBatch.getExpiryDate(),
-							firstBatch.getQuantityRemaining());
-
-					for (int i = 1; i < batches.size(); i++) {
-						StockBatch batch = batches.get(i);
-						System.out.printf("%-15s %-15s %-15d %-15s %-15s %-15d%n", "", "", batch.getId(),
-								batch.getPurchaseDate(), batch.getExpiryDate(), batch.getQuantityRemaining());
-					}
-				}
-			} catch (IllegalArgumentException e) {
-				if (productCodes.size() == 1) {
-					System.out.printf("Error: Product code '%s' not found or issue retrieving details: %s%n",
-							productCode, e.getMessage());
-				} else {
-				}
-			} catch (Exception e) {
-				System.out.printf("An unexpected error occurred for product %s: %s%n", productCode, e.getMessage());
-			}
+	private void printStockRows(ProductStock stock) {
+		List<StockBatch> batches = stock.getBatches();
+		if (batches.isEmpty()) {
+			System.out.printf("%-15s %-15d %-15s %-15s %-15s %-15s%n", stock.getProductCode(),
+					stock.getQuantityOnShelf(), "N/A", "N/A", "N/A", "N/A");
+			return;
 		}
-
-		if (!anyProductFoundWithStock && !productCodes.isEmpty()) {
-			System.out.println("No stock data found for the selected products.");
+		StockBatch firstBatch = batches.get(0);
+		System.out.printf("%-15s %-15d %-15d %-15s %-15s %-15d%n", stock.getProductCode(), stock.getQuantityOnShelf(),
+				firstBatch.getId(), firstBatch.getPurchaseDate(), firstBatch.getExpiryDate(),
+				firstBatch.getQuantityRemaining());
+
+		for (int i = 1; i < batches.size(); i++) {
+			StockBatch batch = batches.get(i);
+			System.out.printf("%-15s %-15s %-15d %-15s %-15s %-15d%n", "", "", batch.getId(), batch.getPurchaseDate(),
+					batch.getExpiryDate(), batch.getQuantityRemaining());
 		}
+	}
+
+	private void printTableFooter() {
 		System.out.println(
 				"-----------------------------------------------------------------------------------------------------------------");
 		System.out.println(
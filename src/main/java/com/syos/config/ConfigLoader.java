@@ -22,4 +22,16 @@ public class ConfigLoader {
 	public static String get(String key) {
 		return props.getProperty(key);
 	}
+
+	public static int getInt(String key, int defaultValue) {
+		String value = props.getProperty(key);
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new RuntimeException("Invalid integer for " + key + ": " + value, e);
+		}
+	}
 }
@@ -1,31 +1,330 @@
 package com.syos.db;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import com.syos.config.ConfigLoader;
+import com.syos.metrics.ConnectionPoolMonitor;
+import com.syos.metrics.Jmx;
 
+/**
+ * Small blocking connection pool. Callers keep the existing
+ * try-with-resources pattern; closing a pooled connection hands it back
+ * (rolled back and reset to auto-commit) instead of closing the socket.
+ * A thread can also hold one connection across many calls with
+ * {@link #beginTransaction()}.
+ */
 public class DatabaseManager {
 	private static final String URL = ConfigLoader.get("db.url");
 	private static final String USER = ConfigLoader.get("db.username");
 	private static final String PASSWORD = ConfigLoader.get("db.password");
+	private static final long ACQUIRE_TIMEOUT_MILLIS = ConfigLoader.getInt("db.pool.timeout.ms", 30_000);
 
 	private static DatabaseManager instance;
-	private Connection connection;
+	// open transaction of each thread; getConnection hands out its connection until it ends
+	private static final ThreadLocal<Transaction> TRANSACTION = new ThreadLocal<>();
 
-	private DatabaseManager() throws SQLException {
-		this.connection = DriverManager.getConnection(URL, USER, PASSWORD);
+	private final Deque<Connection> idle = new ArrayDeque<>();
+	private int maxPoolSize = ConfigLoader.getInt("db.pool.size", 10);
+	private int open;
+	private int active;
+	private int waiting;
+	private long acquired;
+	private long timeouts;
+
+	private DatabaseManager() {
 	}
 
 	public static synchronized DatabaseManager getInstance() throws SQLException {
-		if (instance == null || instance.connection.isClosed()) {
+		if (instance == null) {
 			instance = new DatabaseManager();
+			Jmx.register("com.syos:type=ConnectionPool", new ConnectionPoolMonitor(instance));
 		}
 		return instance;
 	}
 
-	public Connection getConnection() {
-		return connection;
+	public Connection getConnection() throws SQLException {
+		Transaction transaction = TRANSACTION.get();
+		if (transaction != null) {
+			return transaction.enlist();
+		}
+		long start = System.nanoTime();
+		Connection physical = borrow();
+		long elapsed = System.nanoTime() - start;
+		if (SlowQueryLog.isSlow(elapsed)) {
+			SlowQueryLog.logSlowAcquire(elapsed);
+		}
+		return pooled(physical);
+	}
+
+	private Connection borrow() throws SQLException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ACQUIRE_TIMEOUT_MILLIS);
+		synchronized (this) {
+			while (true) {
+				Connection candidate = idle.pollFirst();
+				if (candidate != null) {
+					if (!candidate.isClosed()) {
+						active++;
+						acquired++;
+						return candidate;
+					}
+					open--;
+					continue;
+				}
+				if (open < maxPoolSize) {
+					open++;
+					break;
+				}
+
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					timeouts++;
+					throw new SQLException("Timed out after " + ACQUIRE_TIMEOUT_MILLIS
+							+ " ms waiting for a database connection (pool size " + maxPoolSize + ")");
+				}
+				waiting++;
+				try {
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SQLException("Interrupted while waiting for a database connection", e);
+				} finally {
+					waiting--;
+				}
+			}
+		}
+
+		// open the new physical connection outside the lock; the slot is already reserved
+		try {
+			Connection physical = QueryTrackingProxy.wrap(DriverManager.getConnection(URL, USER, PASSWORD));
+			synchronized (this) {
+				active++;
+				acquired++;
+			}
+			return physical;
+		} catch (SQLException | RuntimeException e) {
+			synchronized (this) {
+				open--;
+				notifyAll();
+			}
+			throw e;
+		}
+	}
+
+	private void release(Connection physical) {
+		boolean reusable;
+		try {
+			if (!physical.getAutoCommit()) {
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+			reusable = !physical.isClosed();
+		} catch (SQLException e) {
+			reusable = false;
+		}
+
+		synchronized (this) {
+			active--;
+			if (reusable && open <= maxPoolSize) {
+				idle.addFirst(physical);
+			} else {
+				open--;
+				closeQuietly(physical);
+			}
+			notifyAll();
+		}
+	}
+
+	private Connection pooled(Connection physical) {
+		boolean[] released = new boolean[1];
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "close":
+						if (!released[0]) {
+							released[0] = true;
+							release(physical);
+						}
+						return null;
+					case "isClosed":
+						return released[0] || physical.isClosed();
+					default:
+						if (released[0]) {
+							throw new SQLException("Connection has been returned to the pool.");
+						}
+						try {
+							return method.invoke(physical, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+				});
+	}
+
+	// the calling thread's open transaction, or null
+	public Transaction currentTransaction() {
+		return TRANSACTION.get();
+	}
+
+	// binds one connection to the calling thread with auto-commit off
+	public Transaction beginTransaction() throws SQLException {
+		if (TRANSACTION.get() != null) {
+			throw new IllegalStateException("A transaction is already open on this thread.");
+		}
+		Connection physical = borrow();
+		try {
+			physical.setAutoCommit(false);
+		} catch (SQLException e) {
+			release(physical);
+			throw e;
+		}
+		Transaction transaction = new Transaction(physical);
+		TRANSACTION.set(transaction);
+		return transaction;
+	}
+
+	/**
+	 * Connections handed out while a transaction is open all share its physical
+	 * connection. Their own commit, auto-commit changes and close are ignored so
+	 * repository code written for one statement per connection joins the
+	 * transaction unchanged; a rollback undoes the whole transaction and stops
+	 * it from committing.
+	 */
+	public final class Transaction implements AutoCloseable {
+		private final Connection physical;
+		private final List<Runnable> afterCommit = new ArrayList<>();
+		private boolean rolledBack;
+		private boolean ended;
+
+		private Transaction(Connection physical) {
+			this.physical = physical;
+		}
+
+		public void commit() throws SQLException {
+			if (ended) {
+				throw new SQLException("Transaction has already ended.");
+			}
+			if (rolledBack) {
+				throw new SQLException("Transaction was rolled back and cannot be committed.");
+			}
+			physical.commit();
+			end();
+			afterCommit.forEach(Runnable::run);
+		}
+
+		// run once commit has succeeded; dropped if the transaction is rolled back
+		public void afterCommit(Runnable action) {
+			afterCommit.add(action);
+		}
+
+		// the transaction can then only be rolled back
+		public void setRollbackOnly() {
+			rolledBack = true;
+		}
+
+		// without a commit, everything done since beginTransaction is rolled back
+		@Override
+		public void close() {
+			if (!ended) {
+				end();
+			}
+		}
+
+		private void end() {
+			ended = true;
+			TRANSACTION.remove();
+			release(physical);
+		}
+
+		private Connection enlist() {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+						switch (method.getName()) {
+						case "close":
+						case "commit":
+						case "setAutoCommit":
+							return null;
+						case "getAutoCommit":
+							return false;
+						case "isClosed":
+							return ended || physical.isClosed();
+						default:
+							if (ended) {
+								throw new SQLException("Transaction has already ended.");
+							}
+							if ("rollback".equals(method.getName()) && args == null) {
+								rolledBack = true;
+							}
+							try {
+								return method.invoke(physical, args);
+							} catch (InvocationTargetException e) {
+								throw e.getCause();
+							}
+						}
+					});
+		}
+	}
+
+	public synchronized int getActiveConnections() {
+		return active;
+	}
+
+	public synchronized int getIdleConnections() {
+		return idle.size();
+	}
+
+	public synchronized int getWaitingThreads() {
+		return waiting;
+	}
+
+	public synchronized int getOpenConnections() {
+		return open;
+	}
+
+	public synchronized long getAcquiredCount() {
+		return acquired;
+	}
+
+	public synchronized long getTimeoutCount() {
+		return timeouts;
+	}
+
+	public synchronized int getMaxPoolSize() {
+		return maxPoolSize;
+	}
+
+	// shrinking closes idle connections now and busy ones as they are returned
+	public synchronized void setMaxPoolSize(int maxPoolSize) {
+		if (maxPoolSize <= 0) {
+			throw new IllegalArgumentException("Pool size must be positive.");
+		}
+		this.maxPoolSize = maxPoolSize;
+		while (open > maxPoolSize && !idle.isEmpty()) {
+			closeQuietly(idle.pollLast());
+			open--;
+		}
+		notifyAll();
+	}
+
+	private static void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			// already unusable; nothing to recover
+		}
+	}
+
+	// a fresh connection outside the pool and outside query tracking, for
+	// diagnostics that must not disturb the caller's transaction
+	static Connection openUntrackedConnection() throws SQLException {
+		return DriverManager.getConnection(URL, USER, PASSWORD);
 	}
 }
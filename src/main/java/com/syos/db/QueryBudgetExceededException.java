@@ -0,0 +1,9 @@
+package com.syos.db;
+
+public class QueryBudgetExceededException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public QueryBudgetExceededException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,146 @@
+package com.syos.db;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import com.syos.config.ConfigLoader;
+import com.syos.metrics.MetricsRegistry;
+
+/**
+ * Counts the statements and round trips issued on the current thread while a
+ * logical operation (a menu command, a checkout) is in progress. Scopes nest;
+ * a statement is charged to every open scope on the thread.
+ *
+ * When a scope closes, statement shapes executed at least query.repeat.threshold
+ * times are logged as likely N+1 loops, and the round trips are checked
+ * against query.budget.&lt;operation&gt; (falling back to query.budget.default,
+ * 0 meaning unlimited). Over-budget scopes are logged, or fail with
+ * QueryBudgetExceededException when the syos.query.budget.strict system
+ * property is set, as it is for the test run.
+ */
+public final class QueryTracker {
+	public static final String STRICT_PROPERTY = "syos.query.budget.strict";
+
+	private static final Logger LOGGER = Logger.getLogger(QueryTracker.class.getName());
+	private static final int REPEAT_THRESHOLD = ConfigLoader.getInt("query.repeat.threshold", 5);
+	private static final int DEFAULT_BUDGET = ConfigLoader.getInt("query.budget.default", 0);
+
+	private static final ThreadLocal<Deque<Scope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+	private static final ThreadLocal<long[]> THREAD_ROUND_TRIPS = ThreadLocal.withInitial(() -> new long[1]);
+
+	private QueryTracker() {
+	}
+
+	public static Scope begin(String operation) {
+		return begin(operation, ConfigLoader.getInt("query.budget." + operation, DEFAULT_BUDGET));
+	}
+
+	public static Scope begin(String operation, int roundTripBudget) {
+		Scope scope = new Scope(operation, roundTripBudget);
+		SCOPES.get().push(scope);
+		return scope;
+	}
+
+	// innermost open scope on this thread, or null outside any operation
+	public static Scope current() {
+		return SCOPES.get().peek();
+	}
+
+	// running total of round trips issued by this thread, for callers that diff two readings
+	public static long roundTripsOnThread() {
+		return THREAD_ROUND_TRIPS.get()[0];
+	}
+
+	static void recordExecution(String shape, int statements) {
+		MetricsRegistry.getInstance().counter("db.roundtrips").increment();
+		THREAD_ROUND_TRIPS.get()[0]++;
+		for (Scope scope : SCOPES.get()) {
+			scope.roundTrips++;
+			scope.statements += statements;
+			if (shape != null) {
+				scope.shapes.merge(shape, 1, Integer::sum);
+			}
+		}
+	}
+
+	// one repository call of a backend without JDBC, charged as a single statement so budgets hold there too
+	static void recordCall(String shape) {
+		recordExecution(shape, 1);
+	}
+
+	static void recordRoundTrip() {
+		recordExecution(null, 0);
+	}
+
+	// collapse whitespace and replace inline literals so that statements differing
+	// only in their values share a shape
+	static String normalize(String sql) {
+		return sql.replaceAll("'(?:[^']|'')*'", "?")
+				.replaceAll("\\b\\d+(?:\\.\\d+)?\\b", "?")
+				.replaceAll("\\s+", " ")
+				.trim();
+	}
+
+	public static final class Scope implements AutoCloseable {
+		private final String operation;
+		private final int budget;
+		private final Map<String, Integer> shapes = new LinkedHashMap<>();
+		private int statements;
+		private int roundTrips;
+		private boolean closed;
+
+		private Scope(String operation, int budget) {
+			this.operation = operation;
+			this.budget = budget;
+		}
+
+		public String getOperation() {
+			return operation;
+		}
+
+		public int getStatements() {
+			return statements;
+		}
+
+		public int getRoundTrips() {
+			return roundTrips;
+		}
+
+		public int getExecutions(String sql) {
+			return shapes.getOrDefault(normalize(sql), 0);
+		}
+
+		public Map<String, Integer> getShapes() {
+			return Collections.unmodifiableMap(shapes);
+		}
+
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			SCOPES.get().remove(this);
+
+			for (Map.Entry<String, Integer> e : shapes.entrySet()) {
+				if (e.getValue() >= REPEAT_THRESHOLD) {
+					LOGGER.warning(String.format("%s executed the same statement %d times (possible N+1): %s",
+							operation, e.getValue(), e.getKey()));
+				}
+			}
+
+			if (budget > 0 && roundTrips > budget) {
+				String message = String.format("%s used %d round trips (%d statements), budget is %d", operation,
+						roundTrips, statements, budget);
+				if (Boolean.getBoolean(STRICT_PROPERTY)) {
+					throw new QueryBudgetExceededException(message);
+				}
+				LOGGER.warning(message);
+			}
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.syos.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dynamic-proxy wrapper around a JDBC connection and the statements it creates,
+ * reporting every execution to {@link QueryTracker} and handing executions over
+ * the slow-query threshold to {@link SlowQueryLog} together with their bind
+ * values. Results and exceptions pass through unchanged.
+ *
+ * Backends without JDBC wrap their repositories instead, so each repository
+ * call is charged as one statement and query budgets hold there too.
+ */
+public final class QueryTrackingProxy {
+
+	private QueryTrackingProxy() {
+	}
+
+	public static Connection wrap(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+	}
+
+	public static <T> T wrapRepository(Class<T> type, T repository) {
+		String prefix = type.getSimpleName() + ".";
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> {
+					if (method.getDeclaringClass() != Object.class) {
+						QueryTracker.recordCall(prefix + method.getName());
+					}
+					return invoke(repository, method, args);
+				}));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static final class ConnectionHandler implements InvocationHandler {
+		private final Connection target;
+
+		ConnectionHandler(Connection target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = QueryTrackingProxy.invoke(target, method, args);
+			switch (method.getName()) {
+			case "prepareStatement":
+				return wrapStatement(result, PreparedStatement.class, (String) args[0]);
+			case "prepareCall":
+				return wrapStatement(result, CallableStatement.class, (String) args[0]);
+			case "createStatement":
+				return wrapStatement(result, Statement.class, null);
+			case "commit":
+			case "rollback":
+				QueryTracker.recordRoundTrip();
+				return result;
+			default:
+				return result;
+			}
+		}
+
+		private static Object wrapStatement(Object statement, Class<?> type, String sql) {
+			return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+					new StatementHandler(statement, sql));
+		}
+	}
+
+	private static final class StatementHandler implements InvocationHandler {
+		private final Object target;
+		private final String sql;
+		private final String shape;
+		private final Map<Integer, Object> binds = new TreeMap<>();
+		private int pendingBatch;
+
+		StatementHandler(Object target, String sql) {
+			this.target = target;
+			this.sql = sql;
+			this.shape = sql != null ? QueryTracker.normalize(sql) : null;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			switch (name) {
+			case "execute":
+			case "executeQuery":
+			case "executeUpdate":
+			case "executeLargeUpdate":
+				return timed(method, args, 1);
+			case "executeBatch":
+			case "executeLargeBatch":
+				int statements = pendingBatch;
+				pendingBatch = 0;
+				return timed(method, args, statements);
+			case "addBatch":
+				pendingBatch++;
+				break;
+			case "clearBatch":
+				pendingBatch = 0;
+				break;
+			case "clearParameters":
+				binds.clear();
+				break;
+			default:
+				// setString(1, ...), setInt(2, ...) and friends
+				if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+					binds.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+				}
+				break;
+			}
+			return QueryTrackingProxy.invoke(target, method, args);
+		}
+
+		private Object timed(Method method, Object[] args, int statements) throws Throwable {
+			boolean inline = args != null && args.length > 0 && args[0] instanceof String;
+			String executedSql = inline ? (String) args[0] : sql;
+			String executedShape = inline ? QueryTracker.normalize(executedSql) : shape;
+			QueryTracker.recordExecution(executedShape, statements);
+
+			long start = System.nanoTime();
+			try {
+				return QueryTrackingProxy.invoke(target, method, args);
+			} finally {
+				long elapsed = System.nanoTime() - start;
+				if (SlowQueryLog.isSlow(elapsed)) {
+					SlowQueryLog.logStatement(executedSql, executedShape, inline ? Map.of() : binds, statements,
+							elapsed);
+				}
+			}
+		}
+	}
+}
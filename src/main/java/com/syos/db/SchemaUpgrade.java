@@ -0,0 +1,132 @@
+package com.syos.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates missing tables (db/schema.sql) and backfills data that new tables
+ * need (db/upgrade.sql), in one transaction. Each script is recorded in
+ * schema_version once it has been applied and is skipped afterwards, so the
+ * backfill and the table lock it takes run once per database; a later change
+ * therefore goes into a new script. Opt in with db.schema.upgrade=true, or
+ * apply the scripts by hand.
+ */
+public final class SchemaUpgrade {
+	private static final String[] SCRIPTS = { "db/schema.sql", "db/upgrade.sql" };
+
+	private SchemaUpgrade() {
+	}
+
+	public static void apply() {
+		try (Connection connection = DatabaseManager.getInstance().getConnection()) {
+			try (Statement st = connection.createStatement()) {
+				st.execute("CREATE TABLE IF NOT EXISTS schema_version (script VARCHAR(100) PRIMARY KEY, "
+						+ "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+			}
+			connection.setAutoCommit(false);
+			int applied = 0;
+			for (String script : SCRIPTS) {
+				// claiming the script first makes a second instance starting alongside wait here, then skip it
+				try (PreparedStatement ps = connection.prepareStatement(
+						"INSERT INTO schema_version (script) VALUES (?) ON CONFLICT (script) DO NOTHING")) {
+					ps.setString(1, script);
+					if (ps.executeUpdate() == 0) {
+						continue;
+					}
+				}
+				runScript(connection, script);
+				applied++;
+			}
+			connection.commit();
+			if (applied > 0) {
+				System.out.printf("Applied %d database schema script(s).%n", applied);
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException("Error upgrading database schema", e);
+		}
+	}
+
+	public static void runScript(Connection connection, String resource) throws SQLException {
+		String script;
+		try (InputStream in = SchemaUpgrade.class.getClassLoader().getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new IllegalStateException("Missing resource " + resource);
+			}
+			script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading " + resource, e);
+		}
+		try (Statement st = connection.createStatement()) {
+			for (String statement : splitStatements(script)) {
+				st.execute(statement);
+			}
+		}
+	}
+
+	// splits on ';' outside quotes, quoted identifiers, dollar-quoted bodies and comments; comments are
+	// dropped and blank statements skipped
+	public static List<String> splitStatements(String script) {
+		List<String> statements = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		int i = 0;
+		int n = script.length();
+		while (i < n) {
+			char c = script.charAt(i);
+			String tag = c == '$' ? dollarTag(script, i) : null;
+			if (c == '-' && i + 1 < n && script.charAt(i + 1) == '-') {
+				int end = script.indexOf('\n', i);
+				i = end < 0 ? n : end;
+			} else if (c == '/' && i + 1 < n && script.charAt(i + 1) == '*') {
+				int end = script.indexOf("*/", i + 2);
+				i = end < 0 ? n : end + 2;
+				current.append(' ');
+			} else if (c == '\'' || c == '"') {
+				// a doubled quote inside is an escaped one and simply reopens the literal
+				int end = script.indexOf(c, i + 1);
+				end = end < 0 ? n : end + 1;
+				current.append(script, i, end);
+				i = end;
+			} else if (tag != null) {
+				int end = script.indexOf(tag, i + tag.length());
+				end = end < 0 ? n : end + tag.length();
+				current.append(script, i, end);
+				i = end;
+			} else if (c == ';') {
+				addStatement(statements, current);
+				i++;
+			} else {
+				current.append(c);
+				i++;
+			}
+		}
+		addStatement(statements, current);
+		return statements;
+	}
+
+	// "$$" or "$tag$" opening a dollar-quoted string at i, else null (e.g. a $1 parameter)
+	private static String dollarTag(String script, int i) {
+		int j = i + 1;
+		while (j < script.length()
+				&& (Character.isLetter(script.charAt(j)) || script.charAt(j) == '_'
+						|| j > i + 1 && Character.isDigit(script.charAt(j)))) {
+			j++;
+		}
+		return j < script.length() && script.charAt(j) == '$' ? script.substring(i, j + 1) : null;
+	}
+
+	private static void addStatement(List<String> statements, StringBuilder current) {
+		String statement = current.toString().trim();
+		if (!statement.isEmpty()) {
+			statements.add(statement);
+		}
+		current.setLength(0);
+	}
+}
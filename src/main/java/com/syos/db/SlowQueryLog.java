@@ -0,0 +1,168 @@
+package com.syos.db;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import com.syos.config.ConfigLoader;
+
+/**
+ * Rotating log of statements slower than slowquery.threshold.ms, with their
+ * bind values and the repository method that issued them. Slow connection
+ * acquisition is logged here too, so a slow plan can be told apart from
+ * waiting on the database.
+ *
+ * With slowquery.explain enabled, the first slow execution of each SELECT
+ * shape is re-run as EXPLAIN (ANALYZE, BUFFERS) on a separate connection in
+ * the background and the plan is appended to the log.
+ */
+public final class SlowQueryLog {
+	private static final long THRESHOLD_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(ConfigLoader.getInt("slowquery.threshold.ms", 200));
+	private static final boolean EXPLAIN = Boolean.parseBoolean(ConfigLoader.get("slowquery.explain"));
+	private static final int MAX_BIND_LENGTH = 100;
+	private static final Pattern READ_ONLY = Pattern.compile("^\\s*(SELECT|WITH)\\b(?!.*\\b(INSERT|UPDATE|DELETE)\\b).*",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private static final Logger LOGGER = createLogger();
+	private static final Set<String> explainedShapes = ConcurrentHashMap.newKeySet();
+	private static final ExecutorService explainExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "slow-query-explain");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private SlowQueryLog() {
+	}
+
+	public static boolean isSlow(long elapsedNanos) {
+		return elapsedNanos >= THRESHOLD_NANOS;
+	}
+
+	static void logStatement(String sql, String shape, Map<Integer, Object> binds, int statements,
+			long elapsedNanos) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%.1f ms  %s", elapsedNanos / 1_000_000.0, callingRepositoryMethod()));
+		if (statements > 1) {
+			sb.append("  batch=").append(statements);
+		}
+		sb.append(System.lineSeparator()).append("  sql:   ").append(shape);
+		if (!binds.isEmpty()) {
+			sb.append(System.lineSeparator()).append("  binds: ").append(formatBinds(binds));
+		}
+		LOGGER.warning(sb.toString());
+
+		if (EXPLAIN && sql != null && READ_ONLY.matcher(sql).matches() && explainedShapes.add(shape)) {
+			Map<Integer, Object> bindCopy = Map.copyOf(binds);
+			explainExecutor.execute(() -> explain(sql, shape, bindCopy));
+		}
+	}
+
+	static void logSlowAcquire(long elapsedNanos) {
+		LOGGER.warning(String.format("%.1f ms  waiting for a database connection  %s",
+				elapsedNanos / 1_000_000.0, callingRepositoryMethod()));
+	}
+
+	private static void explain(String sql, String shape, Map<Integer, Object> binds) {
+		StringBuilder plan = new StringBuilder("EXPLAIN (ANALYZE, BUFFERS) ").append(shape);
+		try (Connection conn = DatabaseManager.openUntrackedConnection()) {
+			conn.setAutoCommit(false);
+			try (PreparedStatement ps = conn.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql)) {
+				for (Map.Entry<Integer, Object> e : binds.entrySet()) {
+					ps.setObject(e.getKey(), e.getValue());
+				}
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						plan.append(System.lineSeparator()).append("  ").append(rs.getString(1));
+					}
+				}
+			} finally {
+				// ANALYZE really runs the statement; never keep anything it did
+				conn.rollback();
+			}
+			LOGGER.info(plan.toString());
+		} catch (SQLException e) {
+			LOGGER.log(Level.INFO, "Could not explain " + shape + ": " + e.getMessage());
+		}
+	}
+
+	private static String callingRepositoryMethod() {
+		return StackWalker.getInstance()
+				.walk(frames -> frames.filter(f -> f.getClassName().startsWith("com.syos.repository."))
+						.findFirst()
+						.map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "."
+								+ f.getMethodName() + ":" + f.getLineNumber())
+						.orElse("(outside repositories)"));
+	}
+
+	private static String formatBinds(Map<Integer, Object> binds) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<Integer, Object> e : binds.entrySet()) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			Object value = e.getValue();
+			String text;
+			if (value == null) {
+				text = "NULL";
+			} else if (value instanceof CharSequence) {
+				text = "'" + value + "'";
+			} else {
+				text = String.valueOf(value);
+			}
+			if (text.length() > MAX_BIND_LENGTH) {
+				text = text.substring(0, MAX_BIND_LENGTH) + "...";
+			}
+			sb.append('$').append(e.getKey()).append('=').append(text);
+		}
+		return sb.toString();
+	}
+
+	private static Logger createLogger() {
+		Logger logger = Logger.getLogger("com.syos.db.slowquery");
+		logger.setUseParentHandlers(false);
+		String pattern = ConfigLoader.get("slowquery.log.file");
+		if (pattern == null || pattern.isBlank()) {
+			logger.setUseParentHandlers(true);
+			return logger;
+		}
+		try {
+			Path dir = Paths.get(pattern.trim()).toAbsolutePath().getParent();
+			if (dir != null) {
+				Files.createDirectories(dir);
+			}
+			FileHandler handler = new FileHandler(pattern.trim(),
+					ConfigLoader.getInt("slowquery.log.limit.bytes", 10 * 1024 * 1024),
+					ConfigLoader.getInt("slowquery.log.count", 5), true);
+			handler.setFormatter(new Formatter() {
+				@Override
+				public String format(LogRecord record) {
+					return LocalDateTime.now() + "  " + record.getMessage() + System.lineSeparator();
+				}
+			});
+			logger.addHandler(handler);
+		} catch (IOException e) {
+			System.err.println("Slow-query log unavailable, using console: " + e.getMessage());
+			logger.setUseParentHandlers(true);
+		}
+		return logger;
+	}
+}
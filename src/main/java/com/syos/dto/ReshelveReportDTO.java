@@ -0,0 +1,45 @@
+package com.syos.dto;
+
+public class ReshelveReportDTO {
+	private final String productCode;
+	private final String productName;
+	private final int unitsSold;
+	private final int shelfQuantity;
+	private final int backStoreQuantity;
+
+	public ReshelveReportDTO(String productCode, String productName, int unitsSold, int shelfQuantity,
+			int backStoreQuantity) {
+		this.productCode = productCode;
+		this.productName = productName;
+		this.unitsSold = unitsSold;
+		this.shelfQuantity = shelfQuantity;
+		this.backStoreQuantity = backStoreQuantity;
+	}
+
+	public String getProductCode() {
+		return productCode;
+	}
+
+	public String getProductName() {
+		return productName;
+	}
+
+	public int getUnitsSold() {
+		return unitsSold;
+	}
+
+	public int getShelfQuantity() {
+		return shelfQuantity;
+	}
+
+	public int getBackStoreQuantity() {
+		return backStoreQuantity;
+	}
+
+	// units needed to bring the shelf back up to one day of sales, capped by what
+	// the back-store still holds
+	public int getSuggestedMoveQuantity() {
+		int shortfall = Math.max(0, unitsSold - shelfQuantity);
+		return Math.min(shortfall, backStoreQuantity);
+	}
+}
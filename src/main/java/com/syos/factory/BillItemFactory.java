@@ -1,5 +1,6 @@
 package com.syos.factory;
 
+import com.syos.metrics.jfr.PricingEvent;
 import com.syos.model.BillItem;
 import com.syos.model.Product;
 import com.syos.strategy.PricingStrategy;
@@ -12,6 +13,12 @@ public class BillItemFactory {
     }
 
     public BillItem create(Product product, int quantity) {
-        return new BillItem.BillItemBuilder(product, quantity, pricingStrategy).build();
+        PricingEvent event = new PricingEvent();
+        event.start();
+        BillItem item = new BillItem.BillItemBuilder(product, quantity, pricingStrategy).build();
+        event.setProductCode(product.getCode());
+        event.setQuantity(quantity);
+        event.finish();
+        return item;
     }
 }
@@ -0,0 +1,431 @@
+package com.syos.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import com.syos.metrics.MetricsRegistry;
+import com.syos.model.ShelfLot;
+import com.syos.model.StockBatch;
+
+/**
+ * Append-only record of every stock movement, written through memory-mapped
+ * segment files that are rotated when full. Each entry carries the next
+ * sequence number and a timestamp that never goes backwards, and is framed by
+ * its length and a CRC so a write torn by a crash is detected and dropped on
+ * the next open.
+ *
+ * The folded shelf and batch state is kept in memory and written out as a
+ * snapshot every so many entries and on close, so opening the journal loads
+ * the newest snapshot and replays only what came after it. "Stock as of" a
+ * moment starts from the newest snapshot taken before it and replays up to
+ * it. Segments and snapshots are never deleted, which keeps the whole history
+ * queryable.
+ *
+ * Mapped writes survive the process dying but reach the disk when the OS
+ * flushes them, or when a segment is rotated or the journal closed.
+ */
+public class InventoryJournal implements Closeable {
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".bin";
+	private static final int SNAPSHOT_MAGIC = 0x534E4150;
+	// version 2 adds the shelf lots; version 1 snapshots still load, with no lots
+	private static final int SNAPSHOT_VERSION = 2;
+	// length before the payload and CRC after it
+	private static final int FRAME_BYTES = 8;
+	// sequence, timestamp, type, batch id, quantity, two dates and the code length
+	private static final int FIXED_PAYLOAD_BYTES = 8 + 8 + 1 + 4 + 4 + 8 + 8 + 2;
+	private static final long NO_DATE = Long.MIN_VALUE;
+
+	private final Path directory;
+	private final int segmentBytes;
+	private final int snapshotEvery;
+	// first sequence number of each segment -> its file
+	private final NavigableMap<Long, Path> segments = new TreeMap<>();
+	private final List<Snapshot> snapshots = new ArrayList<>();
+	private final boolean emptyWhenOpened;
+
+	private StockState state = new StockState();
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long lastSequence;
+	private long lastTimestamp;
+	private int sinceSnapshot;
+
+	private static final class Snapshot {
+		final long sequence;
+		final long timestamp;
+		final Path file;
+
+		Snapshot(long sequence, long timestamp, Path file) {
+			this.sequence = sequence;
+			this.timestamp = timestamp;
+			this.file = file;
+		}
+	}
+
+	private InventoryJournal(Path directory, int segmentBytes, int snapshotEvery) {
+		if (segmentBytes < FRAME_BYTES + FIXED_PAYLOAD_BYTES + 1024) {
+			throw new IllegalArgumentException("Journal segments must be at least a few kilobytes.");
+		}
+		if (snapshotEvery <= 0) {
+			throw new IllegalArgumentException("Snapshot interval must be positive.");
+		}
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		this.snapshotEvery = snapshotEvery;
+		try {
+			Files.createDirectories(directory);
+			scanDirectory();
+			recover();
+			this.emptyWhenOpened = snapshots.isEmpty() && lastSequence == 0;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error opening inventory journal in " + directory, e);
+		}
+	}
+
+	public static InventoryJournal open(Path directory, int segmentBytes, int snapshotEvery) {
+		return new InventoryJournal(directory, segmentBytes, snapshotEvery);
+	}
+
+	// true when the directory held neither entries nor snapshots, i.e. the journal knows no starting stock
+	public boolean isEmpty() {
+		return emptyWhenOpened;
+	}
+
+	public synchronized long getLastSequence() {
+		return lastSequence;
+	}
+
+	public synchronized JournalEntry append(JournalEntry.Type type, String productCode, int batchId, int quantity,
+			LocalDate purchaseDate, LocalDate expiryDate) {
+		byte[] code = productCode.getBytes(StandardCharsets.UTF_8);
+		if (code.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Product code too long for the journal.");
+		}
+		JournalEntry entry = new JournalEntry(lastSequence + 1, Math.max(System.currentTimeMillis(), lastTimestamp),
+				type, productCode, batchId, quantity, purchaseDate, expiryDate);
+		int payloadBytes = FIXED_PAYLOAD_BYTES + code.length;
+		if (buffer.remaining() < FRAME_BYTES + payloadBytes) {
+			rotate(entry.getSequence());
+		}
+
+		ByteBuffer payload = ByteBuffer.allocate(payloadBytes);
+		payload.putLong(entry.getSequence()).putLong(entry.getTimestampMillis()).put((byte) type.ordinal())
+				.putInt(batchId).putInt(quantity).putLong(epochDay(purchaseDate)).putLong(epochDay(expiryDate))
+				.putShort((short) code.length).put(code);
+		CRC32 crc = new CRC32();
+		crc.update(payload.array());
+		buffer.putInt(payloadBytes).put(payload.array()).putInt((int) crc.getValue());
+
+		lastSequence = entry.getSequence();
+		lastTimestamp = entry.getTimestampMillis();
+		state.apply(entry);
+		MetricsRegistry.getInstance().counter("inventory.journal.entries").increment();
+		if (++sinceSnapshot >= snapshotEvery) {
+			snapshot();
+		}
+		return entry;
+	}
+
+	// the stock as of the last entry
+	public synchronized StockState getState() {
+		return state.copy();
+	}
+
+	// the stock as it stood at the given moment; before the first entry or snapshot it is empty
+	public StockState stateAsOf(long timestampMillis) {
+		long upTo;
+		Snapshot start = null;
+		synchronized (this) {
+			if (timestampMillis >= lastTimestamp) {
+				return state.copy();
+			}
+			upTo = lastSequence;
+			for (Snapshot snapshot : snapshots) {
+				if (snapshot.timestamp <= timestampMillis) {
+					start = snapshot;
+				}
+			}
+		}
+
+		try {
+			StockState asOf = start == null ? new StockState() : readSnapshot(start.file);
+			long from = start == null ? 0 : start.sequence;
+			// timestamps never go backwards, so the first later entry ends the replay
+			replay(from, entry -> {
+				if (entry.getSequence() > upTo || entry.getTimestampMillis() > timestampMillis) {
+					return false;
+				}
+				asOf.apply(entry);
+				return true;
+			});
+			return asOf;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading inventory journal", e);
+		}
+	}
+
+	// writes the current state out so opening and "as of" queries can start from here
+	public synchronized void snapshot() {
+		writeSnapshot();
+	}
+
+	// replaces the folded state with stock read from storage, e.g. to seed a new journal or when it missed
+	// movements storage holds; recorded as a snapshot at the current sequence number
+	public synchronized void rebase(StockState fromStorage) {
+		state = fromStorage.copy();
+		lastTimestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+		writeSnapshot();
+	}
+
+	@Override
+	public synchronized void close() {
+		if (channel == null) {
+			return;
+		}
+		if (sinceSnapshot > 0) {
+			writeSnapshot();
+		}
+		buffer.force();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error closing inventory journal", e);
+		} finally {
+			channel = null;
+		}
+	}
+
+	private void scanDirectory() throws IOException {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+					segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+							name.length() - SEGMENT_SUFFIX.length())), file);
+				} else if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX)) {
+					String[] parts = name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())
+							.split("-");
+					snapshots.add(new Snapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]), file));
+				}
+			}
+		}
+		snapshots.sort((a, b) -> a.sequence != b.sequence ? Long.compare(a.sequence, b.sequence)
+				: Long.compare(a.timestamp, b.timestamp));
+	}
+
+	// newest snapshot, then every entry after it; the write position is left after the last good entry
+	private void recover() throws IOException {
+		if (!snapshots.isEmpty()) {
+			Snapshot newest = snapshots.get(snapshots.size() - 1);
+			state = readSnapshot(newest.file);
+			lastSequence = newest.sequence;
+			lastTimestamp = newest.timestamp;
+		}
+		int[] end = new int[1];
+		Long from = segments.floorKey(lastSequence + 1);
+		for (Map.Entry<Long, Path> segment : (from == null ? segments : segments.tailMap(from, true)).entrySet()) {
+			end[0] = readSegment(segment.getValue(), entry -> {
+				if (entry.getSequence() == lastSequence + 1) {
+					state.apply(entry);
+					lastSequence = entry.getSequence();
+					lastTimestamp = entry.getTimestampMillis();
+					sinceSnapshot++;
+				}
+				return true;
+			});
+		}
+
+		if (segments.isEmpty() || segments.lastKey() > lastSequence + 1) {
+			openSegment(lastSequence + 1, 0);
+		} else {
+			openSegment(segments.lastKey(), end[0]);
+		}
+	}
+
+	private void rotate(long firstSequence) {
+		buffer.force();
+		try {
+			channel.close();
+			openSegment(firstSequence, 0);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error rotating inventory journal", e);
+		}
+	}
+
+	// maps the segment and clears everything after the write position, so stale bytes past a torn
+	// write can never be read back as entries
+	private void openSegment(long firstSequence, int position) throws IOException {
+		Path file = segments.computeIfAbsent(firstSequence,
+				seq -> directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, seq, SEGMENT_SUFFIX)));
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+		buffer.position(position);
+		byte[] zeros = new byte[8192];
+		while (buffer.hasRemaining()) {
+			buffer.put(zeros, 0, Math.min(zeros.length, buffer.remaining()));
+		}
+		buffer.position(position);
+	}
+
+	// entries after the sequence number, in order, until the handler returns false
+	private void replay(long afterSequence, Predicate<JournalEntry> handler) throws IOException {
+		List<Path> files;
+		synchronized (this) {
+			Long from = segments.floorKey(afterSequence + 1);
+			files = new ArrayList<>((from == null ? segments : segments.tailMap(from, true)).values());
+		}
+		boolean[] stopped = new boolean[1];
+		for (Path file : files) {
+			readSegment(file, entry -> {
+				if (entry.getSequence() <= afterSequence) {
+					return true;
+				}
+				stopped[0] = !handler.test(entry);
+				return !stopped[0];
+			});
+			if (stopped[0]) {
+				return;
+			}
+		}
+	}
+
+	// hands intact entries to the handler until it returns false; returns the offset just past the last one
+	private static int readSegment(Path file, Predicate<JournalEntry> handler) throws IOException {
+		try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+			int end = 0;
+			while (data.remaining() >= FRAME_BYTES + FIXED_PAYLOAD_BYTES) {
+				int length = data.getInt();
+				if (length < FIXED_PAYLOAD_BYTES || length > data.remaining() - 4) {
+					break;
+				}
+				byte[] payload = new byte[length];
+				data.get(payload);
+				CRC32 crc = new CRC32();
+				crc.update(payload);
+				if (data.getInt() != (int) crc.getValue()) {
+					break;
+				}
+				end = data.position();
+				if (!handler.test(decode(ByteBuffer.wrap(payload)))) {
+					break;
+				}
+			}
+			return end;
+		}
+	}
+
+	private static JournalEntry decode(ByteBuffer payload) {
+		long sequence = payload.getLong();
+		long timestamp = payload.getLong();
+		JournalEntry.Type type = JournalEntry.Type.values()[payload.get()];
+		int batchId = payload.getInt();
+		int quantity = payload.getInt();
+		LocalDate purchaseDate = date(payload.getLong());
+		LocalDate expiryDate = date(payload.getLong());
+		byte[] code = new byte[payload.getShort()];
+		payload.get(code);
+		return new JournalEntry(sequence, timestamp, type, new String(code, StandardCharsets.UTF_8), batchId,
+				quantity, purchaseDate, expiryDate);
+	}
+
+	// written beside the final name and moved into place, so a reader never sees half a snapshot
+	private void writeSnapshot() {
+		Path file = directory.resolve(String.format("%s%020d-%013d%s", SNAPSHOT_PREFIX, lastSequence, lastTimestamp,
+				SNAPSHOT_SUFFIX));
+		Path partial = directory.resolve(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			Map<String, Integer> shelf = state.getShelf();
+			out.writeInt(shelf.size());
+			for (Map.Entry<String, Integer> entry : shelf.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue());
+			}
+			List<StockBatch> batches = state.getOpenBatches();
+			out.writeInt(batches.size());
+			for (StockBatch batch : batches) {
+				out.writeInt(batch.getId());
+				out.writeUTF(batch.getProductCode());
+				out.writeLong(epochDay(batch.getPurchaseDate()));
+				out.writeLong(epochDay(batch.getExpiryDate()));
+				out.writeInt(batch.getQuantityRemaining());
+			}
+			List<ShelfLot> lots = new ArrayList<>();
+			state.getShelfLots().values().forEach(lots::addAll);
+			out.writeInt(lots.size());
+			for (ShelfLot lot : lots) {
+				out.writeUTF(lot.getProductCode());
+				out.writeInt(lot.getBatchId());
+				out.writeLong(epochDay(lot.getExpiryDate()));
+				out.writeInt(lot.getQuantity());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error writing journal snapshot", e);
+		}
+		try {
+			Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error writing journal snapshot", e);
+		}
+		snapshots.removeIf(snapshot -> snapshot.file.equals(file));
+		snapshots.add(new Snapshot(lastSequence, lastTimestamp, file));
+		sinceSnapshot = 0;
+	}
+
+	private static StockState readSnapshot(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			int version = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : -1;
+			if (version < 1 || version > SNAPSHOT_VERSION) {
+				throw new IOException("Not a journal snapshot: " + file);
+			}
+			StockState state = new StockState();
+			for (int i = in.readInt(); i > 0; i--) {
+				state.setShelfQuantity(in.readUTF(), in.readInt());
+			}
+			for (int i = in.readInt(); i > 0; i--) {
+				state.putBatch(new StockBatch(in.readInt(), in.readUTF(), date(in.readLong()), date(in.readLong()),
+						in.readInt()));
+			}
+			for (int i = version >= 2 ? in.readInt() : 0; i > 0; i--) {
+				state.putLot(new ShelfLot(in.readUTF(), in.readInt(), date(in.readLong()), in.readInt()));
+			}
+			return state;
+		}
+	}
+
+	private static long epochDay(LocalDate date) {
+		return date == null ? NO_DATE : date.toEpochDay();
+	}
+
+	private static LocalDate date(long epochDay) {
+		return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+	}
+}
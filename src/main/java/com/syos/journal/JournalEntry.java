@@ -0,0 +1,77 @@
+package com.syos.journal;
+
+import java.time.LocalDate;
+
+// one stock movement as recorded in the inventory journal; quantities are the units moved, never totals
+public class JournalEntry {
+
+	public enum Type {
+		// a new batch into the back-store
+		RECEIVE,
+		// units from a batch onto the shelf
+		MOVE_TO_SHELF,
+		// units sold off the shelf
+		DEDUCT,
+		// expiring units taken off the shelf
+		SHELF_REMOVE,
+		// units thrown away from a batch by hand
+		DISCARD,
+		// expired units written off a batch
+		WRITE_OFF
+	}
+
+	private final long sequence;
+	private final long timestampMillis;
+	private final Type type;
+	private final String productCode;
+	// 0 for shelf movements of units that are in no shelf lot
+	private final int batchId;
+	private final int quantity;
+	// only set for RECEIVE, and the expiry also for MOVE_TO_SHELF
+	private final LocalDate purchaseDate;
+	private final LocalDate expiryDate;
+
+	public JournalEntry(long sequence, long timestampMillis, Type type, String productCode, int batchId, int quantity,
+			LocalDate purchaseDate, LocalDate expiryDate) {
+		this.sequence = sequence;
+		this.timestampMillis = timestampMillis;
+		this.type = type;
+		this.productCode = productCode;
+		this.batchId = batchId;
+		this.quantity = quantity;
+		this.purchaseDate = purchaseDate;
+		this.expiryDate = expiryDate;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public long getTimestampMillis() {
+		return timestampMillis;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getProductCode() {
+		return productCode;
+	}
+
+	public int getBatchId() {
+		return batchId;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public LocalDate getPurchaseDate() {
+		return purchaseDate;
+	}
+
+	public LocalDate getExpiryDate() {
+		return expiryDate;
+	}
+}
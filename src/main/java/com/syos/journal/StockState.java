@@ -0,0 +1,245 @@
+package com.syos.journal;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import com.syos.model.ProductStock;
+import com.syos.model.ShelfLot;
+import com.syos.model.StockBatch;
+import com.syos.model.StockTotals;
+
+/**
+ * Shelf quantities, open batches and shelf lots as folded from the inventory
+ * journal. Not thread-safe; the journal guards its live copy and hands out
+ * copies.
+ */
+public class StockState {
+	private static final Comparator<StockBatch> EXPIRY_ORDER = Comparator.comparing(StockBatch::getExpiryDate)
+			.thenComparing(StockBatch::getProductCode).thenComparingInt(StockBatch::getId);
+	private static final Comparator<ShelfLot> FEFO = Comparator.comparing(ShelfLot::getExpiryDate)
+			.thenComparingInt(ShelfLot::getBatchId);
+
+	private final Map<String, Integer> shelf = new HashMap<>();
+	private final Map<Integer, StockBatch> batches = new HashMap<>();
+	// product -> batch id -> shelf lot
+	private final Map<String, Map<Integer, ShelfLot>> lots = new HashMap<>();
+
+	public void apply(JournalEntry entry) {
+		switch (entry.getType()) {
+		case RECEIVE -> putBatch(new StockBatch(entry.getBatchId(), entry.getProductCode(), entry.getPurchaseDate(),
+				entry.getExpiryDate(), entry.getQuantity()));
+		case MOVE_TO_SHELF -> {
+			// entries written before lots were journalled carry no expiry; the batch still knows it
+			StockBatch batch = batches.get(entry.getBatchId());
+			LocalDate expiry = entry.getExpiryDate() != null ? entry.getExpiryDate()
+					: batch != null ? batch.getExpiryDate() : null;
+			takeFromBatch(entry.getBatchId(), entry.getQuantity());
+			addToShelf(entry.getProductCode(), entry.getQuantity());
+			if (expiry != null) {
+				addToLot(entry.getProductCode(), entry.getBatchId(), expiry, entry.getQuantity());
+			}
+		}
+		case DEDUCT, SHELF_REMOVE -> {
+			addToShelf(entry.getProductCode(), -entry.getQuantity());
+			if (entry.getBatchId() != 0) {
+				addToLot(entry.getProductCode(), entry.getBatchId(), null, -entry.getQuantity());
+			}
+		}
+		case DISCARD, WRITE_OFF -> takeFromBatch(entry.getBatchId(), entry.getQuantity());
+		}
+	}
+
+	public void setShelfQuantity(String productCode, int quantity) {
+		if (quantity == 0) {
+			shelf.remove(productCode);
+		} else {
+			shelf.put(productCode, quantity);
+		}
+	}
+
+	// a batch with nothing left is dropped
+	public void putBatch(StockBatch batch) {
+		if (batch.getQuantityRemaining() > 0) {
+			batches.put(batch.getId(), copyOf(batch));
+		} else {
+			batches.remove(batch.getId());
+		}
+	}
+
+	// a lot with nothing left is dropped
+	public void putLot(ShelfLot lot) {
+		Map<Integer, ShelfLot> productLots = lots.computeIfAbsent(lot.getProductCode(), code -> new HashMap<>());
+		if (lot.getQuantity() > 0) {
+			productLots.put(lot.getBatchId(), copyOf(lot));
+		} else {
+			productLots.remove(lot.getBatchId());
+		}
+		if (productLots.isEmpty()) {
+			lots.remove(lot.getProductCode());
+		}
+	}
+
+	public int getShelfQuantity(String productCode) {
+		return shelf.getOrDefault(productCode, 0);
+	}
+
+	public Map<String, Integer> getShelf() {
+		return new HashMap<>(shelf);
+	}
+
+	// open batches, by expiry date then product
+	public List<StockBatch> getOpenBatches() {
+		List<StockBatch> out = new ArrayList<>(batches.size());
+		for (StockBatch batch : batches.values()) {
+			out.add(copyOf(batch));
+		}
+		out.sort(EXPIRY_ORDER);
+		return out;
+	}
+
+	// shelf lots of each product that has any, first to expire first
+	public Map<String, List<ShelfLot>> getShelfLots() {
+		Map<String, List<ShelfLot>> out = new TreeMap<>();
+		for (Map.Entry<String, Map<Integer, ShelfLot>> entry : lots.entrySet()) {
+			List<ShelfLot> productLots = new ArrayList<>(entry.getValue().size());
+			for (ShelfLot lot : entry.getValue().values()) {
+				productLots.add(copyOf(lot));
+			}
+			productLots.sort(FEFO);
+			out.put(entry.getKey(), productLots);
+		}
+		return out;
+	}
+
+	// the same fingerprint storage computes, to check the two agree without reading all of storage
+	public StockTotals totals() {
+		long shelfUnits = 0;
+		for (int units : shelf.values()) {
+			shelfUnits += units;
+		}
+		long batchUnits = 0;
+		long batchWeight = 0;
+		for (StockBatch batch : batches.values()) {
+			batchUnits += batch.getQuantityRemaining();
+			batchWeight += (long) batch.getId() * batch.getQuantityRemaining();
+		}
+		long lotCount = 0;
+		long lotUnits = 0;
+		long lotWeight = 0;
+		for (Map<Integer, ShelfLot> productLots : lots.values()) {
+			for (ShelfLot lot : productLots.values()) {
+				lotCount++;
+				lotUnits += lot.getQuantity();
+				lotWeight += (long) lot.getBatchId() * lot.getQuantity();
+			}
+		}
+		return new StockTotals(shelf.size(), shelfUnits, batches.size(), batchUnits, batchWeight, lotCount, lotUnits,
+				lotWeight);
+	}
+
+	// per product in code order, shaped like the live stock overview
+	public List<ProductStock> toProductStock() {
+		Map<String, List<StockBatch>> byCode = new TreeMap<>();
+		for (String code : shelf.keySet()) {
+			byCode.put(code, new ArrayList<>());
+		}
+		for (StockBatch batch : getOpenBatches()) {
+			byCode.computeIfAbsent(batch.getProductCode(), code -> new ArrayList<>()).add(batch);
+		}
+		List<ProductStock> out = new ArrayList<>(byCode.size());
+		for (Map.Entry<String, List<StockBatch>> entry : byCode.entrySet()) {
+			out.add(new ProductStock(entry.getKey(), getShelfQuantity(entry.getKey()), entry.getValue()));
+		}
+		return out;
+	}
+
+	// same shelf quantities, the same open batches with the same quantities left and the same shelf lots
+	public boolean sameStockAs(StockState other) {
+		if (!shelf.equals(other.shelf) || !batches.keySet().equals(other.batches.keySet())
+				|| !sameLots(other)) {
+			return false;
+		}
+		for (StockBatch batch : batches.values()) {
+			StockBatch theirs = other.batches.get(batch.getId());
+			if (!batch.getProductCode().equals(theirs.getProductCode())
+					|| !Objects.equals(batch.getExpiryDate(), theirs.getExpiryDate())
+					|| batch.getQuantityRemaining() != theirs.getQuantityRemaining()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public StockState copy() {
+		StockState copy = new StockState();
+		copy.shelf.putAll(shelf);
+		for (StockBatch batch : batches.values()) {
+			copy.batches.put(batch.getId(), copyOf(batch));
+		}
+		for (Map<Integer, ShelfLot> productLots : lots.values()) {
+			for (ShelfLot lot : productLots.values()) {
+				copy.putLot(lot);
+			}
+		}
+		return copy;
+	}
+
+	private boolean sameLots(StockState other) {
+		if (!lots.keySet().equals(other.lots.keySet())) {
+			return false;
+		}
+		for (Map.Entry<String, Map<Integer, ShelfLot>> entry : lots.entrySet()) {
+			Map<Integer, ShelfLot> theirs = other.lots.get(entry.getKey());
+			if (!entry.getValue().keySet().equals(theirs.keySet())) {
+				return false;
+			}
+			for (ShelfLot lot : entry.getValue().values()) {
+				if (lot.getQuantity() != theirs.get(lot.getBatchId()).getQuantity()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private void addToShelf(String productCode, int delta) {
+		setShelfQuantity(productCode, getShelfQuantity(productCode) + delta);
+	}
+
+	// lots the journal never saw shelved are ignored when taken from
+	private void addToLot(String productCode, int batchId, LocalDate expiryDate, int delta) {
+		ShelfLot lot = lots.getOrDefault(productCode, Map.of()).get(batchId);
+		if (lot == null && expiryDate == null) {
+			return;
+		}
+		putLot(new ShelfLot(productCode, batchId, lot != null ? lot.getExpiryDate() : expiryDate,
+				(lot != null ? lot.getQuantity() : 0) + delta));
+	}
+
+	// batches the journal never saw received are ignored
+	private void takeFromBatch(int batchId, int quantity) {
+		StockBatch batch = batches.get(batchId);
+		if (batch == null) {
+			return;
+		}
+		batch.setQuantityRemaining(batch.getQuantityRemaining() - quantity);
+		if (batch.getQuantityRemaining() <= 0) {
+			batches.remove(batchId);
+		}
+	}
+
+	private static ShelfLot copyOf(ShelfLot lot) {
+		return new ShelfLot(lot.getProductCode(), lot.getBatchId(), lot.getExpiryDate(), lot.getQuantity());
+	}
+
+	private static StockBatch copyOf(StockBatch batch) {
+		return new StockBatch(batch.getId(), batch.getProductCode(), batch.getPurchaseDate(), batch.getExpiryDate(),
+				batch.getQuantityRemaining());
+	}
+}
@@ -0,0 +1,23 @@
+package com.syos.metrics;
+
+public interface CacheMXBean {
+	int getSize();
+
+	int getMaxSize();
+
+	void setMaxSize(int maxSize);
+
+	long getTtlSeconds();
+
+	void setTtlSeconds(long ttlSeconds);
+
+	long getHits();
+
+	long getMisses();
+
+	long getEvictions();
+
+	double getHitRatio();
+
+	void clear();
+}
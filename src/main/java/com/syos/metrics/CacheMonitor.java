@@ -0,0 +1,61 @@
+package com.syos.metrics;
+
+import com.syos.util.LruCache;
+
+public class CacheMonitor implements CacheMXBean {
+	private final LruCache<?, ?> cache;
+
+	public CacheMonitor(LruCache<?, ?> cache) {
+		this.cache = cache;
+	}
+
+	@Override
+	public int getSize() {
+		return cache.size();
+	}
+
+	@Override
+	public int getMaxSize() {
+		return cache.getMaxSize();
+	}
+
+	@Override
+	public void setMaxSize(int maxSize) {
+		cache.setMaxSize(maxSize);
+	}
+
+	@Override
+	public long getTtlSeconds() {
+		return cache.getTtlMillis() / 1000;
+	}
+
+	@Override
+	public void setTtlSeconds(long ttlSeconds) {
+		cache.setTtlMillis(ttlSeconds * 1000);
+	}
+
+	@Override
+	public long getHits() {
+		return cache.getHits();
+	}
+
+	@Override
+	public long getMisses() {
+		return cache.getMisses();
+	}
+
+	@Override
+	public long getEvictions() {
+		return cache.getEvictions();
+	}
+
+	@Override
+	public double getHitRatio() {
+		return cache.getHitRatio();
+	}
+
+	@Override
+	public void clear() {
+		cache.invalidateAll();
+	}
+}
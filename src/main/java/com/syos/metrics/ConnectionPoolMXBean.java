@@ -0,0 +1,19 @@
+package com.syos.metrics;
+
+public interface ConnectionPoolMXBean {
+	int getActiveConnections();
+
+	int getIdleConnections();
+
+	int getWaitingThreads();
+
+	int getOpenConnections();
+
+	long getAcquiredCount();
+
+	long getTimeoutCount();
+
+	int getMaxPoolSize();
+
+	void setMaxPoolSize(int maxPoolSize);
+}
@@ -0,0 +1,51 @@
+package com.syos.metrics;
+
+import com.syos.db.DatabaseManager;
+
+public class ConnectionPoolMonitor implements ConnectionPoolMXBean {
+	private final DatabaseManager pool;
+
+	public ConnectionPoolMonitor(DatabaseManager pool) {
+		this.pool = pool;
+	}
+
+	@Override
+	public int getActiveConnections() {
+		return pool.getActiveConnections();
+	}
+
+	@Override
+	public int getIdleConnections() {
+		return pool.getIdleConnections();
+	}
+
+	@Override
+	public int getWaitingThreads() {
+		return pool.getWaitingThreads();
+	}
+
+	@Override
+	public int getOpenConnections() {
+		return pool.getOpenConnections();
+	}
+
+	@Override
+	public long getAcquiredCount() {
+		return pool.getAcquiredCount();
+	}
+
+	@Override
+	public long getTimeoutCount() {
+		return pool.getTimeoutCount();
+	}
+
+	@Override
+	public int getMaxPoolSize() {
+		return pool.getMaxPoolSize();
+	}
+
+	@Override
+	public void setMaxPoolSize(int maxPoolSize) {
+		pool.setMaxPoolSize(maxPoolSize);
+	}
+}
@@ -0,0 +1,19 @@
+package com.syos.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter {
+	private final LongAdder count = new LongAdder();
+
+	public void increment() {
+		count.increment();
+	}
+
+	public void add(long n) {
+		count.add(n);
+	}
+
+	public long get() {
+		return count.sum();
+	}
+}
@@ -0,0 +1,6 @@
+package com.syos.metrics;
+
+@FunctionalInterface
+public interface Gauge {
+	double value();
+}
@@ -0,0 +1,20 @@
+package com.syos.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+public interface InventoryMXBean {
+	int getLowStockThreshold();
+
+	void setLowStockThreshold(int threshold);
+
+	int getObserverCount();
+
+	int getPendingLowStockCount();
+
+	List<String> getPendingLowStockProducts();
+
+	long getTotalLockContentions();
+
+	Map<String, Long> getLockContentionCounts();
+}
@@ -0,0 +1,50 @@
+package com.syos.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.syos.singleton.InventoryManager;
+
+public class InventoryMonitor implements InventoryMXBean {
+	private final InventoryManager inventoryManager;
+
+	public InventoryMonitor(InventoryManager inventoryManager) {
+		this.inventoryManager = inventoryManager;
+	}
+
+	@Override
+	public int getLowStockThreshold() {
+		return inventoryManager.getLowStockThreshold();
+	}
+
+	@Override
+	public void setLowStockThreshold(int threshold) {
+		inventoryManager.setLowStockThreshold(threshold);
+	}
+
+	@Override
+	public int getObserverCount() {
+		return inventoryManager.getObserverCount();
+	}
+
+	@Override
+	public int getPendingLowStockCount() {
+		return inventoryManager.getPendingLowStockProducts().size();
+	}
+
+	@Override
+	public List<String> getPendingLowStockProducts() {
+		return new ArrayList<>(inventoryManager.getPendingLowStockProducts());
+	}
+
+	@Override
+	public long getTotalLockContentions() {
+		return inventoryManager.getLockContentionCounts().values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	@Override
+	public Map<String, Long> getLockContentionCounts() {
+		return inventoryManager.getLockContentionCounts();
+	}
+}
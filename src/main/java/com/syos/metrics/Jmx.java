@@ -0,0 +1,27 @@
+package com.syos.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class Jmx {
+
+	private Jmx() {
+	}
+
+	// registers the bean under the name, replacing whatever was there before
+	public static void register(String objectName, Object bean) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(objectName);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(bean, name);
+		} catch (JMException e) {
+			System.err.println("Failed to register MBean " + objectName + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.syos.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * Read-only JMX view of the registry. The attribute set is rebuilt on every
+ * getMBeanInfo call, so metrics created after registration still show up.
+ */
+public class MetricsMBean implements DynamicMBean {
+	private static final String[] HISTOGRAM_FIELDS = { "count", "meanMicros", "p50Micros", "p99Micros",
+			"p999Micros", "maxMicros" };
+
+	private final MetricsRegistry registry;
+
+	public MetricsMBean(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Counter counter = registry.getCounters().get(attribute);
+		if (counter != null) {
+			return counter.get();
+		}
+		Gauge gauge = registry.getGauges().get(attribute);
+		if (gauge != null) {
+			return gauge.value();
+		}
+
+		int dot = attribute.lastIndexOf('.');
+		if (dot > 0) {
+			LatencyHistogram h = registry.getHistograms().get(attribute.substring(0, dot));
+			if (h != null) {
+				switch (attribute.substring(dot + 1)) {
+				case "count":
+					return (double) h.getCount();
+				case "meanMicros":
+					return h.getMeanNanos() / 1000.0;
+				case "p50Micros":
+					return h.percentileNanos(50) / 1000.0;
+				case "p99Micros":
+					return h.percentileNanos(99) / 1000.0;
+				case "p999Micros":
+					return h.percentileNanos(99.9) / 1000.0;
+				case "maxMicros":
+					return h.getMaxNanos() / 1000.0;
+				default:
+					break;
+				}
+			}
+		}
+		throw new AttributeNotFoundException("No metric named " + attribute);
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList list = new AttributeList();
+		for (String name : attributes) {
+			try {
+				list.add(new Attribute(name, getAttribute(name)));
+			} catch (AttributeNotFoundException e) {
+				// skip unknown names, as the JMX contract allows
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) {
+		throw new UnsupportedOperationException("Metrics are read-only.");
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) {
+		throw new UnsupportedOperationException("No operations on metrics.");
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<>();
+		for (String name : registry.getCounters().keySet()) {
+			attributes.add(new MBeanAttributeInfo(name, "long", "counter", true, false, false));
+		}
+		for (String name : registry.getGauges().keySet()) {
+			attributes.add(new MBeanAttributeInfo(name, "double", "gauge", true, false, false));
+		}
+		for (Map.Entry<String, LatencyHistogram> e : registry.getHistograms().entrySet()) {
+			for (String field : HISTOGRAM_FIELDS) {
+				attributes.add(new MBeanAttributeInfo(e.getKey() + "." + field, "double", "latency " + field, true,
+						false, false));
+			}
+		}
+		return new MBeanInfo(getClass().getName(), "SYOS operation metrics",
+				attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+	}
+}
@@ -0,0 +1,82 @@
+package com.syos.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of named counters, gauges and latency histograms.
+ * Metrics are created on first use, so instrumented code only needs a name.
+ */
+public class MetricsRegistry {
+	private static MetricsRegistry instance;
+
+	private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+	private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+	private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+	public MetricsRegistry() {
+		gauge("jvm.heap.used.bytes", () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+		gauge("jvm.threads.live", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+	}
+
+	public static synchronized MetricsRegistry getInstance() {
+		if (instance == null) {
+			instance = new MetricsRegistry();
+		}
+		return instance;
+	}
+
+	public static synchronized void resetInstance() {
+		instance = null;
+	}
+
+	// shorthand for the common try-with-resources case
+	public static LatencyHistogram.Timer timer(String name) {
+		return getInstance().histogram(name).time();
+	}
+
+	public Counter counter(String name) {
+		return counters.computeIfAbsent(name, n -> new Counter());
+	}
+
+	public void gauge(String name, Gauge gauge) {
+		gauges.put(name, gauge);
+	}
+
+	public LatencyHistogram histogram(String name) {
+		return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+	}
+
+	public Map<String, Counter> getCounters() {
+		return new TreeMap<>(counters);
+	}
+
+	public Map<String, Gauge> getGauges() {
+		return new TreeMap<>(gauges);
+	}
+
+	public Map<String, LatencyHistogram> getHistograms() {
+		return new TreeMap<>(histograms);
+	}
+
+	// plain-text snapshot, histograms sorted by name with times in microseconds
+	public String snapshot() {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Counter> e : getCounters().entrySet()) {
+			sb.append(String.format("counter   %-50s %d%n", e.getKey(), e.getValue().get()));
+		}
+		for (Map.Entry<String, Gauge> e : getGauges().entrySet()) {
+			sb.append(String.format("gauge     %-50s %.2f%n", e.getKey(), e.getValue().value()));
+		}
+		for (Map.Entry<String, LatencyHistogram> e : getHistograms().entrySet()) {
+			LatencyHistogram h = e.getValue();
+			sb.append(String.format(
+					"histogram %-50s count=%d mean=%.1fus p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+					e.getKey(), h.getCount(), h.getMeanNanos() / 1000.0, h.percentileNanos(50) / 1000.0,
+					h.percentileNanos(99) / 1000.0, h.percentileNanos(99.9) / 1000.0, h.getMaxNanos() / 1000.0));
+		}
+		return sb.toString();
+	}
+}
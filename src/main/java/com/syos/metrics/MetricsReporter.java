@@ -0,0 +1,59 @@
+package com.syos.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.syos.config.ConfigLoader;
+
+/**
+ * Publishes the registry over JMX and rewrites a dump file on a fixed
+ * interval. The file is replaced atomically, so a reader never sees a
+ * half-written snapshot.
+ */
+public class MetricsReporter {
+	public static final String OBJECT_NAME = "com.syos:type=Metrics";
+
+	private static ScheduledExecutorService scheduler;
+
+	public static synchronized void start(MetricsRegistry registry) {
+		if (scheduler != null) {
+			return;
+		}
+		Jmx.register(OBJECT_NAME, new MetricsMBean(registry));
+
+		String file = ConfigLoader.get("metrics.dump.file");
+		int interval = ConfigLoader.getInt("metrics.dump.interval.seconds", 60);
+		if (file == null || file.isBlank() || interval <= 0) {
+			return;
+		}
+		Path target = Paths.get(file.trim());
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "metrics-dump");
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleAtFixedRate(() -> dump(registry, target), interval, interval, TimeUnit.SECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(registry, target), "metrics-final-dump"));
+	}
+
+	public static void dump(MetricsRegistry registry, Path target) {
+		try {
+			Path dir = target.toAbsolutePath().getParent();
+			Files.createDirectories(dir);
+			Path tmp = Files.createTempFile(dir, "metrics", ".tmp");
+			String text = "# " + LocalDateTime.now() + System.lineSeparator() + registry.snapshot();
+			Files.write(tmp, text.getBytes(StandardCharsets.UTF_8));
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			System.err.println("Failed to write metrics dump to " + target + ": " + e.getMessage());
+		}
+	}
+}
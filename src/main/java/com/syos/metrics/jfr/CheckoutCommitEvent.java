@@ -0,0 +1,33 @@
+package com.syos.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.syos.CheckoutCommit")
+@Label("Checkout Commit")
+@Category({ "SYOS", "Billing" })
+@Description("Serial allocation, bill insert and shelf deductions for one paid bill; quantity is total units")
+public class CheckoutCommitEvent extends SyosEvent {
+	@Label("Checkout Id")
+	private long checkoutId;
+
+	@Label("Serial Number")
+	private int serialNumber;
+
+	@Label("Line Count")
+	private int lineCount;
+
+	public void setCheckoutId(long checkoutId) {
+		this.checkoutId = checkoutId;
+	}
+
+	public void setSerialNumber(int serialNumber) {
+		this.serialNumber = serialNumber;
+	}
+
+	public void setLineCount(int lineCount) {
+		this.lineCount = lineCount;
+	}
+}
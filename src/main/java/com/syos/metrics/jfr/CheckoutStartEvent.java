@@ -0,0 +1,19 @@
+package com.syos.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.syos.CheckoutStart")
+@Label("Checkout Start")
+@Category({ "SYOS", "Billing" })
+@Description("A new bill was opened at the till; the checkout id matches its Checkout Commit event")
+public class CheckoutStartEvent extends SyosEvent {
+	@Label("Checkout Id")
+	private long checkoutId;
+
+	public void setCheckoutId(long checkoutId) {
+		this.checkoutId = checkoutId;
+	}
+}
@@ -0,0 +1,19 @@
+package com.syos.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.syos.DiscountLookup")
+@Label("Discount Lookup")
+@Category({ "SYOS", "Billing" })
+@Description("Lookup of the discounts active today for one product")
+public class DiscountLookupEvent extends SyosEvent {
+	@Label("Discounts Found")
+	private int discountCount;
+
+	public void setDiscountCount(int discountCount) {
+		this.discountCount = discountCount;
+	}
+}
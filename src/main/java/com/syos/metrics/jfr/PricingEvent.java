@@ -0,0 +1,13 @@
+package com.syos.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.syos.Pricing")
+@Label("Line Pricing")
+@Category({ "SYOS", "Billing" })
+@Description("Pricing of one bill line, including any discount lookup")
+public class PricingEvent extends SyosEvent {
+}
@@ -0,0 +1,19 @@
+package com.syos.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.syos.Report")
+@Label("Report Generation")
+@Category({ "SYOS", "Reports" })
+@Description("Data gathering for one report, excluding time spent at the prompt; quantity is rows produced")
+public class ReportEvent extends SyosEvent {
+	@Label("Report")
+	private final String report;
+
+	public ReportEvent(String report) {
+		this.report = report;
+	}
+}
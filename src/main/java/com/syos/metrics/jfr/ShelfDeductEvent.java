@@ -0,0 +1,13 @@
+package com.syos.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.syos.ShelfDeduct")
+@Label("Deduct From Shelf")
+@Category({ "SYOS", "Inventory" })
+@Description("Units sold off the shelf")
+public class ShelfDeductEvent extends SyosEvent {
+}
@@ -0,0 +1,13 @@
+package com.syos.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.syos.ShelfMove")
+@Label("Move To Shelf")
+@Category({ "SYOS", "Inventory" })
+@Description("Units moved from back-store batches to the shelf; batch count is the number of batches drawn from")
+public class ShelfMoveEvent extends SyosEvent {
+}
@@ -0,0 +1,58 @@
+package com.syos.metrics.jfr;
+
+import com.syos.db.QueryTracker;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Common shape of the SYOS flight-recorder events. Call start() before the
+ * operation and finish() after it; when no recording has the event enabled
+ * both are a couple of branches and nothing is written.
+ */
+@Category("SYOS")
+@StackTrace(false)
+public abstract class SyosEvent extends Event {
+	@Label("Product Code")
+	protected String productCode;
+
+	@Label("Quantity")
+	protected int quantity;
+
+	@Label("Batch Count")
+	protected int batchCount;
+
+	@Label("Query Count")
+	protected long queryCount;
+
+	private transient long roundTripsAtStart;
+
+	public void start() {
+		if (isEnabled()) {
+			roundTripsAtStart = QueryTracker.roundTripsOnThread();
+			begin();
+		}
+	}
+
+	public void finish() {
+		end();
+		if (shouldCommit()) {
+			queryCount = QueryTracker.roundTripsOnThread() - roundTripsAtStart;
+			commit();
+		}
+	}
+
+	public void setProductCode(String productCode) {
+		this.productCode = productCode;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+	public void setBatchCount(int batchCount) {
+		this.batchCount = batchCount;
+	}
+}
@@ -0,0 +1,52 @@
+package com.syos.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// outcome of receiving a delivery note; line errors mean nothing was received, shelf failures come after
+// the batches were received and leave that product's stock in the back-store
+public class GoodsReceiptReport extends ImportReport {
+	private final List<ShelfFailure> shelfFailures = new ArrayList<>();
+
+	public void notMovedToShelf(String productCode, int quantity, String message) {
+		shelfFailures.add(new ShelfFailure(productCode, quantity, message));
+	}
+
+	public boolean isReceived() {
+		return getRowsImported() > 0;
+	}
+
+	public List<ShelfFailure> getShelfFailures() {
+		return Collections.unmodifiableList(shelfFailures);
+	}
+
+	public static class ShelfFailure {
+		private final String productCode;
+		private final int quantity;
+		private final String message;
+
+		public ShelfFailure(String productCode, int quantity, String message) {
+			this.productCode = productCode;
+			this.quantity = quantity;
+			this.message = message;
+		}
+
+		public String getProductCode() {
+			return productCode;
+		}
+
+		public int getQuantity() {
+			return quantity;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return productCode + " x" + quantity + ": " + message;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.syos.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// outcome of a file import or script run: how many rows were read and applied, and why the others were not
+public class ImportReport {
+	private int rowsRead;
+	private int rowsImported;
+	private final List<RowError> errors = new ArrayList<>();
+
+	public void rowRead() {
+		rowsRead++;
+	}
+
+	public void imported(int rows) {
+		rowsImported += rows;
+	}
+
+	public void reject(int lineNumber, String message) {
+		errors.add(new RowError(lineNumber, message));
+	}
+
+	public int getRowsRead() {
+		return rowsRead;
+	}
+
+	public int getRowsImported() {
+		return rowsImported;
+	}
+
+	public List<RowError> getErrors() {
+		return Collections.unmodifiableList(errors);
+	}
+
+	public boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+
+	public static class RowError {
+		private final int lineNumber;
+		private final String message;
+
+		public RowError(int lineNumber, String message) {
+			this.lineNumber = lineNumber;
+			this.message = message;
+		}
+
+		public int getLineNumber() {
+			return lineNumber;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return "line " + lineNumber + ": " + message;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.syos.model;
+
+import java.util.List;
+
+// one product's shelf quantity with open back-store batches (all of them, or only the expiring ones
+// on the expiry screens)
+public class ProductStock {
+	private final String productCode;
+	private final int quantityOnShelf;
+	private final List<StockBatch> batches;
+
+	public ProductStock(String productCode, int quantityOnShelf, List<StockBatch> batches) {
+		this.productCode = productCode;
+		this.quantityOnShelf = quantityOnShelf;
+		this.batches = List.copyOf(batches);
+	}
+
+	public String getProductCode() {
+		return productCode;
+	}
+
+	public int getQuantityOnShelf() {
+		return quantityOnShelf;
+	}
+
+	public List<StockBatch> getBatches() {
+		return batches;
+	}
+
+	public int getBackStoreQuantity() {
+		int total = 0;
+		for (StockBatch batch : batches) {
+			total += batch.getQuantityRemaining();
+		}
+		return total;
+	}
+}
@@ -0,0 +1,38 @@
+package com.syos.model;
+
+import java.time.LocalDate;
+
+// units on the shelf that came from one back-store batch, so shelf stock keeps its expiry date
+public class ShelfLot {
+	private final String productCode;
+	private final int batchId;
+	private final LocalDate expiryDate;
+	private int quantity;
+
+	public ShelfLot(String productCode, int batchId, LocalDate expiryDate, int quantity) {
+		this.productCode = productCode;
+		this.batchId = batchId;
+		this.expiryDate = expiryDate;
+		this.quantity = quantity;
+	}
+
+	public String getProductCode() {
+		return productCode;
+	}
+
+	public int getBatchId() {
+		return batchId;
+	}
+
+	public LocalDate getExpiryDate() {
+		return expiryDate;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+}
@@ -0,0 +1,65 @@
+package com.syos.model;
+
+// counts and sums over the shelf, the open batches and the shelf lots, as a cheap fingerprint of the
+// whole stock: two stocks with different totals differ. Weights are id times quantity, so units moved
+// between batches or lots change them even when the unit sums stay the same
+public class StockTotals {
+	private final long shelfProducts;
+	private final long shelfUnits;
+	private final long openBatches;
+	private final long batchUnits;
+	private final long batchWeight;
+	private final long shelfLots;
+	private final long lotUnits;
+	private final long lotWeight;
+
+	public StockTotals(long shelfProducts, long shelfUnits, long openBatches, long batchUnits, long batchWeight,
+			long shelfLots, long lotUnits, long lotWeight) {
+		this.shelfProducts = shelfProducts;
+		this.shelfUnits = shelfUnits;
+		this.openBatches = openBatches;
+		this.batchUnits = batchUnits;
+		this.batchWeight = batchWeight;
+		this.shelfLots = shelfLots;
+		this.lotUnits = lotUnits;
+		this.lotWeight = lotWeight;
+	}
+
+	public long getShelfUnits() {
+		return shelfUnits;
+	}
+
+	public long getBatchUnits() {
+		return batchUnits;
+	}
+
+	public long getLotUnits() {
+		return lotUnits;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof StockTotals)) {
+			return false;
+		}
+		StockTotals other = (StockTotals) o;
+		return shelfProducts == other.shelfProducts && shelfUnits == other.shelfUnits
+				&& openBatches == other.openBatches && batchUnits == other.batchUnits
+				&& batchWeight == other.batchWeight && shelfLots == other.shelfLots && lotUnits == other.lotUnits
+				&& lotWeight == other.lotWeight;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(shelfUnits) * 31 * 31 + Long.hashCode(batchWeight) * 31 + Long.hashCode(lotWeight);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("shelf %d units in %d products, %d units in %d batches, %d units in %d lots",
+				shelfUnits, shelfProducts, batchUnits, openBatches, lotUnits, shelfLots);
+	}
+}
@@ -0,0 +1,42 @@
+package com.syos.model;
+
+import java.time.LocalDate;
+
+// stock taken out of a batch without being sold, as recorded in the write-off ledger
+public class WriteOff {
+	public static final String REASON_EXPIRED = "EXPIRED";
+
+	private final int batchId;
+	private final String productCode;
+	private final LocalDate expiryDate;
+	private final int quantity;
+	private final String reason;
+
+	public WriteOff(int batchId, String productCode, LocalDate expiryDate, int quantity, String reason) {
+		this.batchId = batchId;
+		this.productCode = productCode;
+		this.expiryDate = expiryDate;
+		this.quantity = quantity;
+		this.reason = reason;
+	}
+
+	public int getBatchId() {
+		return batchId;
+	}
+
+	public String getProductCode() {
+		return productCode;
+	}
+
+	public LocalDate getExpiryDate() {
+		return expiryDate;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+}
@@ -0,0 +1,7 @@
+package com.syos.observer;
+
+import com.syos.model.Bill;
+
+public interface BillObserver {
+	void onBillSaved(Bill bill);
+}
@@ -0,0 +1,11 @@
+package com.syos.observer;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.syos.model.StockBatch;
+
+public interface ExpiryObserver {
+	// batches still holding stock whose expiry date passed when the day rolled over to today
+	void onBatchesExpired(LocalDate today, List<StockBatch> expired);
+}
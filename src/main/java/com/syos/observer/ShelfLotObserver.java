@@ -0,0 +1,6 @@
+package com.syos.observer;
+
+public interface ShelfLotObserver {
+	// the product's shelf lots were added to, sold from or taken off the shelf, and that has been committed
+	void onShelfLotsChanged(String productCode);
+}
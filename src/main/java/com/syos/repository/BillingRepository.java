@@ -1,84 +1,16 @@
 package com.syos.repository;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Timestamp;
-
-import com.syos.db.DatabaseManager;
 import com.syos.model.Bill;
-import com.syos.model.BillItem;
-
-public class BillingRepository {
-
-	public void save(Bill bill) {
-		String insertBill = """
-				INSERT INTO bill
-				  (serial_number, bill_date, total_amount, cash_tendered, change_returned, transaction_type)
-				VALUES (?, ?, ?, ?, ?, ?)
-				RETURNING id
-				""";
-
-		String insertItem = """
-				INSERT INTO bill_item (bill_id, product_code, quantity, total_price, discount_amount)
-				VALUES (?, ?, ?, ?, ?)
-				""";
-
-		try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-			conn.setAutoCommit(false);
-
-			int generatedBillId;
-			try (PreparedStatement psBill = conn.prepareStatement(insertBill)) {
-				psBill.setInt(1, bill.getSerialNumber());
-				psBill.setTimestamp(2, new Timestamp(bill.getBillDate().getTime()));
-				psBill.setDouble(3, bill.getTotalAmount());
-				psBill.setDouble(4, bill.getCashTendered());
-				psBill.setDouble(5, bill.getChangeReturned());
-				psBill.setString(6, bill.getTransactionType());
-
-				ResultSet rs = psBill.executeQuery();
-				if (!rs.next()) {
-					throw new RuntimeException("Failed to retrieve generated bill ID.");
-				}
-				generatedBillId = rs.getInt(1);
+import com.syos.observer.BillObserver;
 
-				bill.setId(generatedBillId);
-			}
+public interface BillingRepository {
 
-			try (PreparedStatement psItem = conn.prepareStatement(insertItem)) {
-				for (BillItem item : bill.getItems()) {
-					psItem.setInt(1, generatedBillId);
-					psItem.setString(2, item.getProduct().getCode());
-					psItem.setInt(3, item.getQuantity());
-					psItem.setDouble(4, item.getTotalPrice());
-					psItem.setDouble(5, item.getDiscountAmount());
-					psItem.addBatch();
-				}
-				psItem.executeBatch();
-			}
+	// observers are told about every bill after it has been stored
+	void addObserver(BillObserver observer);
 
-			conn.commit();
-		} catch (SQLException e) {
-			throw new RuntimeException("Error saving bill & items", e);
-		}
-	}
+	// stores the bill with its items and sets the generated id on it
+	void save(Bill bill);
 
-	public int nextSerial() {
-		String sql = """
-				SELECT COALESCE(MAX(serial_number), 0) + 1
-				  FROM bill
-				 WHERE DATE(bill_date) = CURRENT_DATE
-				""";
-		try (Connection conn = DatabaseManager.getInstance().getConnection();
-				PreparedStatement ps = conn.prepareStatement(sql);
-				ResultSet rs = ps.executeQuery()) {
-			if (rs.next()) {
-				return rs.getInt(1);
-			}
-		} catch (SQLException e) {
-			throw new RuntimeException("Error generating daily serial", e);
-		}
-		return 1;
-	}
+	// next serial number for today's bills
+	int nextSerial();
 }
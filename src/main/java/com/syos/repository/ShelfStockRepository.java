@@ -1,85 +1,46 @@
 package com.syos.repository;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.ArrayList;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
-import com.syos.db.DatabaseManager;
+import com.syos.model.ProductStock;
+import com.syos.model.ShelfLot;
+import com.syos.model.StockTotals;
 
-public class ShelfStockRepository {
+public interface ShelfStockRepository {
 
-    // get current shelf quantity returns 0 if none.
-    public int getQuantity(String productCode) {
-        String sql = "SELECT quantity_on_shelf FROM shelf_stock WHERE product_code = ?";
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+	// 0 when the product has never been on the shelf
+	int getQuantity(String productCode);
 
-            ps.setString(1, productCode);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-				return rs.getInt(1);
-			}
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return 0;
-    }
+	// adds to the shelf quantity, creating the row on first use
+	void upsertQuantity(String productCode, int qty);
 
-    // increase or insert shelf quantity.
-    public void upsertQuantity(String productCode, int qty) {
-        String sql = """
-            INSERT INTO shelf_stock(product_code,quantity_on_shelf)
-            VALUES(?,?)
-            ON CONFLICT(product_code) DO UPDATE
-              SET quantity_on_shelf = shelf_stock.quantity_on_shelf + EXCLUDED.quantity_on_shelf
-            """;
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+	// unchecked: callers verify the quantity first
+	void deductQuantity(String productCode, int qty);
 
-            ps.setString(1, productCode);
-            ps.setInt(2, qty);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
+	List<String> getAllProductCodes();
 
-    // deduct shelf stock on purchase.
-    public void deductQuantity(String productCode, int qty) {
-        String sql = """
-            UPDATE shelf_stock
-            SET quantity_on_shelf = quantity_on_shelf - ?
-            WHERE product_code = ?
-            """;
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+	// adds units from a batch to the product's shelf lot, creating it on first use
+	void addLot(String productCode, int batchId, LocalDate expiryDate, int qty);
 
-            ps.setInt(1, qty);
-            ps.setString(2, productCode);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-    
-    public List<String> getAllProductCodes() {
-        String sql = "SELECT DISTINCT product_code FROM shelf_stock";
-        List<String> productCodes = new ArrayList<>();
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+	// sets what is left of a shelf lot; 0 removes it
+	void updateLotQuantity(String productCode, int batchId, int qty);
 
-            while (rs.next()) {
-                productCodes.add(rs.getString("product_code"));
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException("Error getting all product codes", e);
-        }
-        return productCodes;
-    }
-    
-    
-}
\ No newline at end of file
+	// the product's shelf lots, first to expire first
+	List<ShelfLot> findLots(String productCode);
+
+	// shelf lots of every product expiring on or before asOf, by expiry date then product
+	List<ShelfLot> findLotsExpiringBy(LocalDate asOf);
+
+	// shelf units not covered by a lot, for each product that has any, in code order
+	Map<String, Integer> findUntrackedQuantities();
+
+	// counts and sums over the whole shelf, the open batches and the shelf lots, in one round trip
+	StockTotals getStockTotals();
+
+	// every product on the shelf or with open batches, in code order, one callback per product. A null
+	// prefix or afterCode means no filter, and limit <= 0 means no limit; afterCode is the keyset for the next page
+	void streamStockOverview(String codePrefix, String afterCode, int limit, Consumer<ProductStock> handler);
+}
@@ -0,0 +1,60 @@
+package com.syos.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import com.syos.config.ConfigLoader;
+
+/**
+ * Resolves the active {@link StorageProvider}. The name comes from the
+ * {@code storage.provider} system property, then the setting of the same name
+ * in application.properties, and defaults to {@code jdbc}.
+ */
+public final class Storage {
+	public static final String PROVIDER_PROPERTY = "storage.provider";
+	private static final String DEFAULT_PROVIDER = "jdbc";
+
+	private static StorageProvider instance;
+
+	private Storage() {
+	}
+
+	public static synchronized StorageProvider getInstance() {
+		if (instance == null) {
+			instance = load(configuredName());
+		}
+		return instance;
+	}
+
+	// replaces the active provider, e.g. with the in-memory one for a simulation
+	public static synchronized void use(StorageProvider provider) {
+		if (provider == null) {
+			throw new IllegalArgumentException("Storage provider cannot be null.");
+		}
+		instance = provider;
+	}
+
+	public static synchronized void resetInstance() {
+		instance = null;
+	}
+
+	public static StorageProvider load(String name) {
+		List<String> available = new ArrayList<>();
+		for (StorageProvider provider : ServiceLoader.load(StorageProvider.class)) {
+			if (provider.name().equalsIgnoreCase(name)) {
+				return provider;
+			}
+			available.add(provider.name());
+		}
+		throw new IllegalArgumentException("Unknown storage provider '" + name + "'. Available: " + available);
+	}
+
+	private static String configuredName() {
+		String name = System.getProperty(PROVIDER_PROPERTY);
+		if (name == null || name.isBlank()) {
+			name = ConfigLoader.get(PROVIDER_PROPERTY);
+		}
+		return name == null || name.isBlank() ? DEFAULT_PROVIDER : name.trim();
+	}
+}
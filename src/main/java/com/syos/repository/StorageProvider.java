@@ -0,0 +1,41 @@
+package com.syos.repository;
+
+/**
+ * Storage backend behind the repository interfaces. Implementations are found
+ * with {@link java.util.ServiceLoader} and chosen by name through the
+ * {@code storage.provider} setting (see {@link Storage}).
+ *
+ * Repositories handed out are cheap views over the provider's backend: every
+ * call may return a new instance, but all instances of one provider see the
+ * same data. Observers registered on a {@link BillingRepository} belong to
+ * that instance only.
+ */
+public interface StorageProvider {
+
+	// the value of storage.provider that selects this backend
+	String name();
+
+	ProductRepository products();
+
+	StockBatchRepository stockBatches();
+
+	ShelfStockRepository shelfStock();
+
+	BillingRepository billing();
+
+	DiscountRepository discounts();
+
+	CustomerRepository customers();
+
+	ReportRepository reports();
+
+	// groups the calling thread's repository calls until commit or close; see StorageTransaction for nesting
+	StorageTransaction beginTransaction();
+
+	// runs the action once the calling thread's transaction commits, or now if it has none; dropped on rollback
+	void afterCommit(Runnable action);
+
+	// brings the backend's tables up to what the repositories expect; called once at startup
+	default void upgradeSchema() {
+	}
+}
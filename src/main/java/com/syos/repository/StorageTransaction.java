@@ -0,0 +1,21 @@
+package com.syos.repository;
+
+/**
+ * A unit of work begun with {@link StorageProvider#beginTransaction()}. It
+ * belongs to the thread that began it: every repository call that thread
+ * makes until the transaction ends joins it, including ones that commit on
+ * their own. Closing without {@link #commit()} undoes that work.
+ *
+ * Beginning a transaction while the thread already has one joins it: the
+ * inner commit leaves the outcome to the outer transaction, and closing the
+ * inner one without a commit makes the outer one roll back. Actions handed
+ * to {@link StorageProvider#afterCommit(Runnable)} meanwhile run when the
+ * outermost transaction commits and are dropped if it rolls back.
+ */
+public interface StorageTransaction extends AutoCloseable {
+
+	void commit();
+
+	@Override
+	void close();
+}
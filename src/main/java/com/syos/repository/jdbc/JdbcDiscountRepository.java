@@ -0,0 +1,163 @@
+package com.syos.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.syos.db.DatabaseManager;
+import com.syos.enums.DiscountType;
+import com.syos.metrics.LatencyHistogram;
+import com.syos.metrics.MetricsRegistry;
+import com.syos.model.Discount;
+import com.syos.repository.DiscountRepository;
+
+public class JdbcDiscountRepository implements DiscountRepository {
+    // shared by every instance; counted again when an enclosing transaction commits
+    private static final AtomicLong CHANGES = new AtomicLong();
+
+	@Override
+	public Discount findById(int discountId) {
+        String sql = """
+            SELECT id, name, type, value, start_date, end_date
+            FROM discounts
+            WHERE id = ?
+        """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.DiscountRepository.findById");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, discountId);
+            ResultSet rs = ps.executeQuery();
+
+            if (rs.next()) {
+                DiscountType type = DiscountType.valueOf(rs.getString("type"));
+                return new Discount(
+                    rs.getInt("id"),
+                    rs.getString("name"),
+                    type,
+                    rs.getDouble("value"),
+                    rs.getDate("start_date").toLocalDate(),
+                    rs.getDate("end_date").toLocalDate()
+                );
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding discount by ID: " + discountId, e);
+        }
+        return null;
+    }
+
+    @Override
+    public List<Discount> findActiveDiscounts(String productCode, LocalDate date) {
+        String sql = """
+            SELECT d.id,
+                   d.name,
+                   d.type,
+                   d.value,
+                   d.start_date,
+                   d.end_date
+            FROM discounts d
+            JOIN product_discounts pd ON pd.discount_id = d.id
+            WHERE pd.product_code = ?
+              AND d.start_date <= ?
+              AND d.end_date >= ?
+        """;
+
+        List<Discount> result = new ArrayList<>();
+
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.DiscountRepository.findActiveDiscounts");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, productCode);
+            ps.setDate(2, Date.valueOf(date));
+            ps.setDate(3, Date.valueOf(date));
+
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                DiscountType type = DiscountType.valueOf(rs.getString("type"));
+                result.add(new Discount(
+                    rs.getInt("id"),
+                    rs.getString("name"),
+                    type,
+                    rs.getDouble("value"),
+                    rs.getDate("start_date").toLocalDate(),
+                    rs.getDate("end_date").toLocalDate()
+                ));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading active discounts for product " + productCode, e);
+        }
+
+        return result;
+    }
+
+    @Override
+    public int createDiscount(String discountName, DiscountType discountType, double discountValue, LocalDate startDate,
+            LocalDate endDate) {
+        String sql = """
+                INSERT INTO discounts (name, type, value, start_date, end_date)
+                VALUES (?, ?, ?, ?, ?)
+                RETURNING id
+                """;
+
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.DiscountRepository.createDiscount");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, discountName);
+            ps.setString(2, discountType.name());
+            ps.setDouble(3, discountValue);
+            ps.setDate(4, Date.valueOf(startDate));
+            ps.setDate(5, Date.valueOf(endDate));
+
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                changed();
+                return rs.getInt("id");
+            } else {
+                throw new RuntimeException("Failed to create discount (no ID returned).");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error inserting discount into database", e);
+        }
+    }
+
+
+    @Override
+    public void linkProductToDiscount(String productCode, int discountId) {
+        String sql = """
+                INSERT INTO product_discounts (product_code, discount_id)
+                VALUES (?, ?)
+                """;
+
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.DiscountRepository.linkProductToDiscount");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, productCode);
+            ps.setInt(2, discountId);
+            ps.executeUpdate();
+            changed();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error linking product " + productCode + " to discount " + discountId, e);
+        }
+    }
+
+    @Override
+    public long getChangeCount() {
+        return CHANGES.get();
+    }
+
+    // readers outside the transaction only see the write once it commits
+    private static void changed() throws SQLException {
+        CHANGES.incrementAndGet();
+        DatabaseManager.Transaction transaction = DatabaseManager.getInstance().currentTransaction();
+        if (transaction != null) {
+            transaction.afterCommit(CHANGES::incrementAndGet);
+        }
+    }
+}
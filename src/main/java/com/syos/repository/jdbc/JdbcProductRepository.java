@@ -0,0 +1,109 @@
+package com.syos.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.syos.db.DatabaseManager;
+import com.syos.metrics.LatencyHistogram;
+import com.syos.metrics.MetricsRegistry;
+import com.syos.model.Product;
+import com.syos.repository.ProductRepository;
+
+public class JdbcProductRepository implements ProductRepository {
+
+	// Find one product by its code
+	@Override
+	public Product findByCode(String code) {
+		String sql = "SELECT code, name, price FROM product WHERE code = ?";
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ProductRepository.findByCode");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setString(1, code);
+			ResultSet rs = ps.executeQuery();
+			if (rs.next()) {
+				return new Product(rs.getString("code"), rs.getString("name"), rs.getDouble("price"));
+			}
+		} catch (Exception e) {
+			throw new RuntimeException("Error loading product by code", e);
+		}
+		return null;
+	}
+
+	// Load all products from the product table
+	@Override
+	public List<Product> findAll() {
+		String sql = "SELECT code, name, price FROM product";
+		List<Product> products = new ArrayList<>();
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ProductRepository.findAll");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ResultSet rs = ps.executeQuery();
+			while (rs.next()) {
+				products.add(new Product(rs.getString("code"), rs.getString("name"), rs.getDouble("price")));
+			}
+		} catch (Exception e) {
+			throw new RuntimeException("Error loading all products", e);
+		}
+		return products;
+	}
+
+	@Override
+	public void add(Product product) {
+		if (findByCode(product.getCode()) != null) {
+			throw new RuntimeException("Product code already exists: " + product.getCode());
+		}
+
+		String sql = "INSERT INTO product(code, name, price) VALUES (?, ?, ?)";
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ProductRepository.add");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setString(1, product.getCode());
+			ps.setString(2, product.getName());
+			ps.setDouble(3, product.getPrice());
+			ps.executeUpdate();
+		} catch (SQLException e) {
+			throw new RuntimeException("Error adding new product", e);
+		}
+	}
+
+	// one multi-row statement: existing codes are left alone by ON CONFLICT and
+	// RETURNING reports the rows that went in
+	@Override
+	public Set<String> addAll(List<Product> products) {
+		Set<String> added = new HashSet<>();
+		if (products.isEmpty()) {
+			return added;
+		}
+		StringBuilder sql = new StringBuilder("INSERT INTO product(code, name, price) VALUES ");
+		for (int i = 0; i < products.size(); i++) {
+			sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+		}
+		sql.append(" ON CONFLICT (code) DO NOTHING RETURNING code");
+
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ProductRepository.addAll");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+			int index = 1;
+			for (Product product : products) {
+				ps.setString(index++, product.getCode());
+				ps.setString(index++, product.getName());
+				ps.setDouble(index++, product.getPrice());
+			}
+			ResultSet rs = ps.executeQuery();
+			while (rs.next()) {
+				added.add(rs.getString("code"));
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException("Error adding products", e);
+		}
+		return added;
+	}
+}
@@ -0,0 +1,335 @@
+package com.syos.repository.jdbc;
+
+import com.syos.analytics.SaleLineHandler;
+import com.syos.db.DatabaseManager;
+import com.syos.dto.ReshelveReportDTO;
+import com.syos.metrics.LatencyHistogram;
+import com.syos.metrics.MetricsRegistry;
+import com.syos.model.Bill;
+import com.syos.model.BillItem;
+import com.syos.model.Product;
+import com.syos.repository.ProductRepository;
+import com.syos.repository.ReportRepository;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JdbcReportRepository implements ReportRepository {
+
+    private static final int STREAM_FETCH_SIZE = 5000;
+
+    private final ProductRepository productRepository = new JdbcProductRepository();
+
+    @Override
+    public double getTotalRevenue(LocalDate date) {
+        String sql = """
+                SELECT SUM(total_amount)
+                FROM bill
+                WHERE DATE(bill_date) = ?
+                """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ReportRepository.getTotalRevenue");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setDate(1, Date.valueOf(date));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getDouble(1);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching total revenue for date: " + date, e);
+        }
+        return 0.0;
+    }
+
+    @Override
+    public List<Bill> getBillsByDate(LocalDate date) {
+        String sql = """
+                SELECT id, serial_number, bill_date, total_amount, cash_tendered, change_returned, transaction_type
+                FROM bill
+                WHERE DATE(bill_date) = ?
+                ORDER BY serial_number ASC
+                """;
+        List<Bill> bills = new ArrayList<>();
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ReportRepository.getBillsByDate");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setDate(1, Date.valueOf(date));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Bill bill = new Bill(
+                        rs.getInt("id"),
+                        rs.getInt("serial_number"),
+                        rs.getTimestamp("bill_date"),
+                        rs.getDouble("total_amount"),
+                        rs.getDouble("cash_tendered"),
+                        rs.getDouble("change_returned"),
+                        rs.getString("transaction_type")
+                    );
+                    bills.add(bill);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching bills for date: " + date, e);
+        }
+        return bills;
+    }
+
+    @Override
+    public List<BillItem> getBillItemsByBillId(int billId) {
+        String sql = """
+                SELECT id, bill_id, product_code, quantity, total_price, discount_amount
+                FROM bill_item  -- CHANGED from 'bill_items' to 'bill_item'
+                WHERE bill_id = ?
+                ORDER BY id ASC
+                """;
+        List<BillItem> items = new ArrayList<>();
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ReportRepository.getBillItemsByBillId");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, billId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String productCode = rs.getString("product_code");
+                    Product product = productRepository.findByCode(productCode);
+
+                    if (product == null) {
+                        System.err.println("Warning: Product with code '" + productCode + "' not found for bill item ID " + rs.getInt("id") + ". Using placeholder.");
+                        product = new Product(productCode, "[Product Not Found]", 0.0);
+                    }
+
+                    items.add(new BillItem(
+                            rs.getInt("id"),
+                            rs.getInt("bill_id"),
+                            product,
+                            rs.getInt("quantity"),
+                            rs.getDouble("total_price"),
+                            rs.getDouble("discount_amount")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching bill items for bill ID: " + billId, e);
+        }
+        return items;
+    }
+
+    // keyset page of the day's bills ordered by (bill_date, serial_number); pass null for the first page
+    @Override
+    public List<Bill> getBillsAfter(LocalDate date, Bill after, int limit) {
+        String sql = """
+                SELECT id, serial_number, bill_date, total_amount, cash_tendered, change_returned, transaction_type
+                FROM bill
+                WHERE bill_date >= ? AND bill_date < ?
+                  AND (bill_date, serial_number) > (?, ?)
+                ORDER BY bill_date ASC, serial_number ASC
+                LIMIT ?
+                """;
+        Timestamp afterDate = after != null ? new Timestamp(after.getBillDate().getTime())
+                : Timestamp.valueOf(date.atStartOfDay().minusNanos(1000));
+        int afterSerial = after != null ? after.getSerialNumber() : Integer.MIN_VALUE;
+        return queryBillPage(sql, date, afterDate, afterSerial, limit);
+    }
+
+    // the page immediately before the given bill, returned in ascending order
+    @Override
+    public List<Bill> getBillsBefore(LocalDate date, Bill before, int limit) {
+        String sql = """
+                SELECT id, serial_number, bill_date, total_amount, cash_tendered, change_returned, transaction_type
+                FROM bill
+                WHERE bill_date >= ? AND bill_date < ?
+                  AND (bill_date, serial_number) < (?, ?)
+                ORDER BY bill_date DESC, serial_number DESC
+                LIMIT ?
+                """;
+        List<Bill> page = queryBillPage(sql, date, new Timestamp(before.getBillDate().getTime()),
+                before.getSerialNumber(), limit);
+        Collections.reverse(page);
+        return page;
+    }
+
+    private List<Bill> queryBillPage(String sql, LocalDate date, Timestamp keyDate, int keySerial, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        List<Bill> bills = new ArrayList<>(limit);
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ReportRepository.queryBillPage");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setTimestamp(1, Timestamp.valueOf(date.atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(date.plusDays(1).atStartOfDay()));
+            ps.setTimestamp(3, keyDate);
+            ps.setInt(4, keySerial);
+            ps.setInt(5, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    bills.add(new Bill(
+                        rs.getInt("id"),
+                        rs.getInt("serial_number"),
+                        rs.getTimestamp("bill_date"),
+                        rs.getDouble("total_amount"),
+                        rs.getDouble("cash_tendered"),
+                        rs.getDouble("change_returned"),
+                        rs.getString("transaction_type")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching bill page for date: " + date, e);
+        }
+        return bills;
+    }
+
+    // items for a set of bills in one round trip, products joined in rather than looked up per line
+    @Override
+    public Map<Integer, List<BillItem>> getBillItemsByBillIds(List<Integer> billIds) {
+        Map<Integer, List<BillItem>> itemsByBill = new HashMap<>();
+        if (billIds.isEmpty()) {
+            return itemsByBill;
+        }
+        String sql = """
+                SELECT bi.id, bi.bill_id, bi.product_code, bi.quantity, bi.total_price, bi.discount_amount,
+                       p.name, p.price
+                FROM bill_item bi
+                LEFT JOIN product p ON p.code = bi.product_code
+                WHERE bi.bill_id = ANY(?)
+                ORDER BY bi.bill_id ASC, bi.id ASC
+                """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ReportRepository.getBillItemsByBillIds");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setArray(1, conn.createArrayOf("integer", billIds.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String productCode = rs.getString("product_code");
+                    String name = rs.getString("name");
+                    Product product = name != null
+                            ? new Product(productCode, name, rs.getDouble("price"))
+                            : new Product(productCode, "[Product Not Found]", 0.0);
+
+                    itemsByBill.computeIfAbsent(rs.getInt("bill_id"), id -> new ArrayList<>()).add(new BillItem(
+                            rs.getInt("id"),
+                            rs.getInt("bill_id"),
+                            product,
+                            rs.getInt("quantity"),
+                            rs.getDouble("total_price"),
+                            rs.getDouble("discount_amount")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching bill items for bills: " + billIds, e);
+        }
+        return itemsByBill;
+    }
+
+    // one aggregate over the day's bill lines joined with shelf and back-store levels
+    @Override
+    public List<ReshelveReportDTO> getReshelveReport(LocalDate date) {
+        String sql = """
+                WITH sold AS (
+                    SELECT bi.product_code, SUM(bi.quantity) AS units_sold
+                    FROM bill_item bi
+                    JOIN bill b ON b.id = bi.bill_id
+                    WHERE b.bill_date >= ? AND b.bill_date < ?
+                    GROUP BY bi.product_code
+                ), back_store AS (
+                    SELECT product_code, SUM(quantity_remaining) AS back_qty
+                    FROM stock_batches
+                    WHERE quantity_remaining > 0
+                    GROUP BY product_code
+                )
+                SELECT s.product_code,
+                       p.name,
+                       s.units_sold,
+                       COALESCE(ss.quantity_on_shelf, 0) AS shelf_qty,
+                       COALESCE(bs.back_qty, 0) AS back_qty
+                FROM sold s
+                LEFT JOIN product p ON p.code = s.product_code
+                LEFT JOIN shelf_stock ss ON ss.product_code = s.product_code
+                LEFT JOIN back_store bs ON bs.product_code = s.product_code
+                ORDER BY s.product_code ASC
+                """;
+        List<ReshelveReportDTO> rows = new ArrayList<>();
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ReportRepository.getReshelveReport");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setTimestamp(1, Timestamp.valueOf(date.atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(date.plusDays(1).atStartOfDay()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString("name");
+                    rows.add(new ReshelveReportDTO(
+                            rs.getString("product_code"),
+                            name != null ? name : "[Product Not Found]",
+                            rs.getInt("units_sold"),
+                            rs.getInt("shelf_qty"),
+                            rs.getInt("back_qty")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error building reshelve report for date: " + date, e);
+        }
+        return rows;
+    }
+
+    // streams every bill line in [from, toExclusive) into the handler without building a list
+    @Override
+    public void streamSaleLines(LocalDate from, LocalDate toExclusive, SaleLineHandler handler) {
+        String sql = """
+                SELECT b.id AS bill_id,
+                       b.bill_date,
+                       EXTRACT(HOUR FROM b.bill_date)::int AS bill_hour,
+                       bi.product_code,
+                       bi.quantity,
+                       bi.total_price,
+                       bi.discount_amount
+                FROM bill_item bi
+                JOIN bill b ON b.id = bi.bill_id
+                WHERE b.bill_date >= ? AND b.bill_date < ?
+                """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ReportRepository.streamSaleLines");
+             Connection conn = DatabaseManager.getInstance().getConnection()) {
+            // the driver only honours the fetch size (cursor mode) outside auto-commit
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(STREAM_FETCH_SIZE);
+                ps.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+                ps.setTimestamp(2, Timestamp.valueOf(toExclusive.atStartOfDay()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        handler.onLine(
+                                rs.getInt(1),
+                                rs.getTimestamp(2).getTime(),
+                                rs.getInt(3),
+                                rs.getString(4),
+                                rs.getInt(5),
+                                rs.getDouble(6),
+                                rs.getDouble(7)
+                        );
+                    }
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error streaming sale lines from " + from + " to " + toExclusive, e);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.syos.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.syos.db.DatabaseManager;
+import com.syos.metrics.LatencyHistogram;
+import com.syos.metrics.MetricsRegistry;
+import com.syos.model.ProductStock;
+import com.syos.model.ShelfLot;
+import com.syos.model.StockBatch;
+import com.syos.model.StockTotals;
+import com.syos.repository.ShelfStockRepository;
+
+public class JdbcShelfStockRepository implements ShelfStockRepository {
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    // get current shelf quantity returns 0 if none.
+    @Override
+    public int getQuantity(String productCode) {
+        String sql = "SELECT quantity_on_shelf FROM shelf_stock WHERE product_code = ?";
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.getQuantity");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, productCode);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+				return rs.getInt(1);
+			}
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return 0;
+    }
+
+    // increase or insert shelf quantity.
+    @Override
+    public void upsertQuantity(String productCode, int qty) {
+        String sql = """
+            INSERT INTO shelf_stock(product_code,quantity_on_shelf)
+            VALUES(?,?)
+            ON CONFLICT(product_code) DO UPDATE
+              SET quantity_on_shelf = shelf_stock.quantity_on_shelf + EXCLUDED.quantity_on_shelf
+            """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.upsertQuantity");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, productCode);
+            ps.setInt(2, qty);
+            ps.executeUpdate();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // deduct shelf stock on purchase.
+    @Override
+    public void deductQuantity(String productCode, int qty) {
+        String sql = """
+            UPDATE shelf_stock
+            SET quantity_on_shelf = quantity_on_shelf - ?
+            WHERE product_code = ?
+            """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.deductQuantity");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, qty);
+            ps.setString(2, productCode);
+            ps.executeUpdate();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    @Override
+    public List<String> getAllProductCodes() {
+        String sql = "SELECT DISTINCT product_code FROM shelf_stock";
+        List<String> productCodes = new ArrayList<>();
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.getAllProductCodes");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                productCodes.add(rs.getString("product_code"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting all product codes", e);
+        }
+        return productCodes;
+    }
+
+    @Override
+    public void addLot(String productCode, int batchId, LocalDate expiryDate, int qty) {
+        String sql = """
+            INSERT INTO shelf_lots(product_code, batch_id, expiry_date, quantity)
+            VALUES(?,?,?,?)
+            ON CONFLICT(product_code, batch_id) DO UPDATE
+              SET quantity = shelf_lots.quantity + EXCLUDED.quantity
+            """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.addLot");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, productCode);
+            ps.setInt(2, batchId);
+            ps.setDate(3, Date.valueOf(expiryDate));
+            ps.setInt(4, qty);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error adding shelf lot for " + productCode, e);
+        }
+    }
+
+    @Override
+    public void updateLotQuantity(String productCode, int batchId, int qty) {
+        String sql = qty > 0
+                ? "UPDATE shelf_lots SET quantity = ? WHERE product_code = ? AND batch_id = ?"
+                : "DELETE FROM shelf_lots WHERE product_code = ? AND batch_id = ?";
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.updateLotQuantity");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (qty > 0) {
+                ps.setInt(index++, qty);
+            }
+            ps.setString(index++, productCode);
+            ps.setInt(index, batchId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating shelf lot for " + productCode, e);
+        }
+    }
+
+    @Override
+    public List<ShelfLot> findLots(String productCode) {
+        String sql = """
+            SELECT product_code, batch_id, expiry_date, quantity
+            FROM shelf_lots
+            WHERE product_code = ?
+            ORDER BY expiry_date, batch_id
+            """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.findLots");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, productCode);
+            return readLots(ps);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading shelf lots for " + productCode, e);
+        }
+    }
+
+    // served by idx_shelf_lots_expiry; shelf_lots alone carries the expiry, so nothing else is scanned
+    @Override
+    public List<ShelfLot> findLotsExpiringBy(LocalDate asOf) {
+        String sql = """
+            SELECT product_code, batch_id, expiry_date, quantity
+            FROM shelf_lots
+            WHERE expiry_date <= ?
+            ORDER BY expiry_date, product_code, batch_id
+            """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.findLotsExpiringBy");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setDate(1, Date.valueOf(asOf));
+            return readLots(ps);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading expiring shelf lots", e);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> findUntrackedQuantities() {
+        String sql = """
+            SELECT s.product_code, s.quantity_on_shelf - COALESCE(SUM(l.quantity), 0) AS untracked
+            FROM shelf_stock s
+            LEFT JOIN shelf_lots l ON l.product_code = s.product_code
+            GROUP BY s.product_code, s.quantity_on_shelf
+            HAVING s.quantity_on_shelf > COALESCE(SUM(l.quantity), 0)
+            ORDER BY s.product_code
+            """;
+        Map<String, Integer> untracked = new LinkedHashMap<>();
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.findUntrackedQuantities");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                untracked.put(rs.getString("product_code"), rs.getInt("untracked"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading untracked shelf quantities", e);
+        }
+        return untracked;
+    }
+
+    @Override
+    public StockTotals getStockTotals() {
+        String sql = """
+            SELECT s.products, s.units AS shelf_units,
+                   b.batches, b.units AS batch_units, b.weight AS batch_weight,
+                   l.lots, l.units AS lot_units, l.weight AS lot_weight
+            FROM (SELECT COUNT(*) AS products, COALESCE(SUM(quantity_on_shelf), 0) AS units
+                  FROM shelf_stock WHERE quantity_on_shelf <> 0) s
+            CROSS JOIN (SELECT COUNT(*) AS batches, COALESCE(SUM(quantity_remaining), 0) AS units,
+                               COALESCE(SUM(id::bigint * quantity_remaining), 0) AS weight
+                        FROM stock_batches WHERE quantity_remaining > 0) b
+            CROSS JOIN (SELECT COUNT(*) AS lots, COALESCE(SUM(quantity), 0) AS units,
+                               COALESCE(SUM(batch_id::bigint * quantity), 0) AS weight
+                        FROM shelf_lots WHERE quantity > 0) l
+            """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.getStockTotals");
+             Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            rs.next();
+            return new StockTotals(rs.getLong("products"), rs.getLong("shelf_units"), rs.getLong("batches"),
+                    rs.getLong("batch_units"), rs.getLong("batch_weight"), rs.getLong("lots"),
+                    rs.getLong("lot_units"), rs.getLong("lot_weight"));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading stock totals", e);
+        }
+    }
+
+    private static List<ShelfLot> readLots(PreparedStatement ps) throws SQLException {
+        List<ShelfLot> lots = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                lots.add(new ShelfLot(rs.getString("product_code"), rs.getInt("batch_id"),
+                        rs.getDate("expiry_date").toLocalDate(), rs.getInt("quantity")));
+            }
+        }
+        return lots;
+    }
+
+    // shelf and open batches for a page of products in one query; rows arrive ordered by product
+    // and are grouped as they stream, so no product needs a second round trip
+    @Override
+    public void streamStockOverview(String codePrefix, String afterCode, int limit, Consumer<ProductStock> handler) {
+        String sql = """
+            WITH page AS (
+                SELECT product_code FROM (
+                    SELECT product_code FROM shelf_stock
+                    UNION
+                    SELECT product_code FROM stock_batches WHERE quantity_remaining > 0
+                ) codes
+                WHERE product_code LIKE ? ESCAPE '\\' AND product_code > ?
+                ORDER BY product_code
+                LIMIT ?
+            )
+            SELECT p.product_code, COALESCE(s.quantity_on_shelf, 0) AS quantity_on_shelf,
+                   b.id, b.purchase_date, b.expiry_date, b.quantity_remaining
+            FROM page p
+            LEFT JOIN shelf_stock s ON s.product_code = p.product_code
+            LEFT JOIN stock_batches b ON b.product_code = p.product_code AND b.quantity_remaining > 0
+            ORDER BY p.product_code, b.id
+            """;
+        try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.ShelfStockRepository.streamStockOverview");
+             Connection conn = DatabaseManager.getInstance().getConnection()) {
+            // the driver only honours the fetch size (cursor mode) outside auto-commit
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(STREAM_FETCH_SIZE);
+                ps.setString(1, likePrefix(codePrefix));
+                ps.setString(2, afterCode == null ? "" : afterCode);
+                if (limit > 0) {
+                    ps.setInt(3, limit);
+                } else {
+                    ps.setNull(3, Types.INTEGER);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    String currentCode = null;
+                    int currentShelf = 0;
+                    List<StockBatch> batches = new ArrayList<>();
+                    while (rs.next()) {
+                        String code = rs.getString("product_code");
+                        if (!code.equals(currentCode)) {
+                            if (currentCode != null) {
+                                handler.accept(new ProductStock(currentCode, currentShelf, batches));
+                                batches.clear();
+                            }
+                            currentCode = code;
+                            currentShelf = rs.getInt("quantity_on_shelf");
+                        }
+                        int batchId = rs.getInt("id");
+                        if (!rs.wasNull()) {
+                            batches.add(new StockBatch(batchId, code, rs.getDate("purchase_date").toLocalDate(),
+                                    rs.getDate("expiry_date").toLocalDate(), rs.getInt("quantity_remaining")));
+                        }
+                    }
+                    if (currentCode != null) {
+                        handler.accept(new ProductStock(currentCode, currentShelf, batches));
+                    }
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error streaming stock overview", e);
+        }
+    }
+
+    private static String likePrefix(String codePrefix) {
+        if (codePrefix == null) {
+            return "%";
+        }
+        return codePrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
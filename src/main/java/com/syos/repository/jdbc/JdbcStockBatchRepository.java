@@ -0,0 +1,407 @@
+package com.syos.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.syos.db.DatabaseManager;
+import com.syos.metrics.LatencyHistogram;
+import com.syos.metrics.MetricsRegistry;
+import com.syos.model.ProductStock;
+import com.syos.model.StockBatch;
+import com.syos.model.WriteOff;
+import com.syos.repository.StockBatchRepository;
+
+public class JdbcStockBatchRepository implements StockBatchRepository {
+	private static final int STREAM_FETCH_SIZE = 1000;
+
+	// fetch all batches for a product that still have quantity.
+	@Override
+	public List<StockBatch> findByProduct(String code) {
+		String sql = """
+				    SELECT id, product_code, purchase_date, expiry_date, quantity_remaining
+				    FROM stock_batches
+				    WHERE product_code = ? AND quantity_remaining > 0
+				""";
+		List<StockBatch> out = new ArrayList<>();
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.findByProduct");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setString(1, code);
+			ResultSet rs = ps.executeQuery();
+			while (rs.next()) {
+				out.add(new StockBatch(rs.getInt("id"), rs.getString("product_code"),
+						rs.getDate("purchase_date").toLocalDate(), rs.getDate("expiry_date").toLocalDate(),
+						rs.getInt("quantity_remaining")));
+			}
+		} catch (Exception e) {
+			throw new RuntimeException("Error loading stock batches", e);
+		}
+		return out;
+	}
+
+	@Override
+	public List<StockBatch> findByProductAllBatches(String code) {
+		String sql = """
+				    SELECT id, product_code, purchase_date, expiry_date, quantity_remaining
+				    FROM stock_batches
+				    WHERE product_code = ?
+				""";
+		List<StockBatch> out = new ArrayList<>();
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.findByProductAllBatches");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setString(1, code);
+			ResultSet rs = ps.executeQuery();
+			while (rs.next()) {
+				out.add(new StockBatch(rs.getInt("id"), rs.getString("product_code"),
+						rs.getDate("purchase_date").toLocalDate(), rs.getDate("expiry_date").toLocalDate(),
+						rs.getInt("quantity_remaining")));
+			}
+		} catch (Exception e) {
+			throw new RuntimeException("Error loading all stock batches for product", e);
+		}
+		return out;
+	}
+
+	// update the remaining quantity on a batch after moving to shelf.
+	@Override
+	public void updateQuantity(int batchId, int newQty) {
+		String sql = "UPDATE stock_batches SET quantity_remaining = ? WHERE id = ?";
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.updateQuantity");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setInt(1, newQty);
+			ps.setInt(2, batchId);
+			ps.executeUpdate();
+		} catch (Exception e) {
+			throw new RuntimeException("Error updating batch qty", e);
+		}
+	}
+
+	@Override
+	public int createBatch(String productCode, LocalDate purchaseDate, LocalDate expiryDate, int quantity) {
+		String sql = """
+				INSERT INTO stock_batches
+				(product_code, purchase_date, expiry_date,
+				quantity_received, quantity_remaining)
+				VALUES (?,?,?,?,?)
+				RETURNING id
+				""";
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.createBatch");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setString(1, productCode);
+			ps.setDate(2, Date.valueOf(purchaseDate));
+			ps.setDate(3, Date.valueOf(expiryDate));
+			ps.setInt(4, quantity);
+			ps.setInt(5, quantity);
+			try (ResultSet rs = ps.executeQuery()) {
+				rs.next();
+				return rs.getInt(1);
+			}
+		} catch (Exception e) {
+			throw new RuntimeException("Error inserting new batch", e);
+		}
+	}
+
+	// one executeBatch in one transaction; the driver hands back the generated ids in order
+	@Override
+	public List<Integer> createBatches(List<StockBatch> batches) {
+		List<Integer> ids = new ArrayList<>(batches.size());
+		if (batches.isEmpty()) {
+			return ids;
+		}
+		String sql = """
+				INSERT INTO stock_batches
+				(product_code, purchase_date, expiry_date,
+				quantity_received, quantity_remaining)
+				VALUES (?,?,?,?,?)
+				""";
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.createBatches");
+				Connection conn = DatabaseManager.getInstance().getConnection()) {
+			conn.setAutoCommit(false);
+
+			try (PreparedStatement ps = conn.prepareStatement(sql, new String[] { "id" })) {
+				for (StockBatch batch : batches) {
+					ps.setString(1, batch.getProductCode());
+					ps.setDate(2, Date.valueOf(batch.getPurchaseDate()));
+					ps.setDate(3, Date.valueOf(batch.getExpiryDate()));
+					ps.setInt(4, batch.getQuantityRemaining());
+					ps.setInt(5, batch.getQuantityRemaining());
+					ps.addBatch();
+				}
+				ps.executeBatch();
+				try (ResultSet rs = ps.getGeneratedKeys()) {
+					while (rs.next()) {
+						ids.add(rs.getInt(1));
+					}
+				}
+			}
+
+			conn.commit();
+		} catch (SQLException e) {
+			throw new RuntimeException("Error inserting batches", e);
+		}
+		return ids;
+	}
+
+	@Override
+	public List<String> getAllProductCodesWithBatches() {
+		String sql = "SELECT DISTINCT product_code FROM stock_batches";
+		List<String> productCodes = new ArrayList<>();
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.getAllProductCodesWithBatches");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql);
+				ResultSet rs = ps.executeQuery()) {
+
+			while (rs.next()) {
+				productCodes.add(rs.getString("product_code"));
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException("Error getting all product codes with batches", e);
+		}
+		return productCodes;
+	}
+
+	// fetch batches that are close to expiry for a specific product
+	@Override
+	public List<StockBatch> findExpiringBatches(String productCode, int daysThreshold) {
+		String sql = """
+				SELECT id, product_code, purchase_date, expiry_date, quantity_remaining
+				FROM stock_batches
+				WHERE product_code = ? AND quantity_remaining > 0 AND expiry_date <= ?
+				ORDER BY expiry_date ASC
+				""";
+		List<StockBatch> out = new ArrayList<>();
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.findExpiringBatches");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setString(1, productCode);
+			ps.setDate(2, Date.valueOf(LocalDate.now().plusDays(daysThreshold)));
+			ResultSet rs = ps.executeQuery();
+			while (rs.next()) {
+				out.add(new StockBatch(rs.getInt("id"), rs.getString("product_code"),
+						rs.getDate("purchase_date").toLocalDate(), rs.getDate("expiry_date").toLocalDate(),
+						rs.getInt("quantity_remaining")));
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException("Error loading expiring stock batches for product " + productCode, e);
+		}
+		return out;
+	}
+
+	// fetch aLL batches that are close to expire
+	@Override
+	public List<StockBatch> findAllExpiringBatches(int daysThreshold) {
+		String sql = """
+				SELECT id, product_code, purchase_date, expiry_date, quantity_remaining
+				FROM stock_batches
+				WHERE quantity_remaining > 0 AND expiry_date <= ?
+				ORDER BY expiry_date ASC, product_code ASC
+				""";
+		List<StockBatch> out = new ArrayList<>();
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.findAllExpiringBatches");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setDate(1, Date.valueOf(LocalDate.now().plusDays(daysThreshold)));
+			ResultSet rs = ps.executeQuery();
+			while (rs.next()) {
+				out.add(new StockBatch(rs.getInt("id"), rs.getString("product_code"),
+						rs.getDate("purchase_date").toLocalDate(), rs.getDate("expiry_date").toLocalDate(),
+						rs.getInt("quantity_remaining")));
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException("Error loading all expiring stock batches", e);
+		}
+		return out;
+	}
+
+	// loads the in-memory expiry index; streamed because it covers the whole back-store
+	@Override
+	public List<StockBatch> findAllOpenBatches() {
+		String sql = """
+				SELECT id, product_code, purchase_date, expiry_date, quantity_remaining
+				FROM stock_batches
+				WHERE quantity_remaining > 0
+				ORDER BY expiry_date ASC, product_code ASC
+				""";
+		List<StockBatch> out = new ArrayList<>();
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.findAllOpenBatches");
+				Connection conn = DatabaseManager.getInstance().getConnection()) {
+			// the driver only honours the fetch size (cursor mode) outside auto-commit
+			conn.setAutoCommit(false);
+			try (PreparedStatement ps = conn.prepareStatement(sql)) {
+				ps.setFetchSize(STREAM_FETCH_SIZE);
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						out.add(new StockBatch(rs.getInt("id"), rs.getString("product_code"),
+								rs.getDate("purchase_date").toLocalDate(), rs.getDate("expiry_date").toLocalDate(),
+								rs.getInt("quantity_remaining")));
+					}
+				}
+			}
+			conn.commit();
+		} catch (SQLException e) {
+			throw new RuntimeException("Error loading open stock batches", e);
+		}
+		return out;
+	}
+
+	// one round trip for the whole dashboard; the partial index on open batches' expiry dates
+	// (performance_indexes.sql) keeps it from scanning drawn-down history
+	@Override
+	public List<ProductStock> findExpiryDashboard(int daysThreshold, String productCode) {
+		String sql = """
+				SELECT b.product_code, COALESCE(s.quantity_on_shelf, 0) AS quantity_on_shelf,
+				       b.id, b.purchase_date, b.expiry_date, b.quantity_remaining,
+				       MIN(b.expiry_date) OVER (PARTITION BY b.product_code) AS first_expiry
+				FROM stock_batches b
+				LEFT JOIN shelf_stock s ON s.product_code = b.product_code
+				WHERE b.quantity_remaining > 0 AND b.expiry_date <= ?
+				""" + (productCode != null ? "AND b.product_code = ?\n" : "") + """
+				ORDER BY first_expiry, b.product_code, b.expiry_date, b.id
+				""";
+		List<ProductStock> out = new ArrayList<>();
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.findExpiryDashboard");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setDate(1, Date.valueOf(LocalDate.now().plusDays(daysThreshold)));
+			if (productCode != null) {
+				ps.setString(2, productCode);
+			}
+			try (ResultSet rs = ps.executeQuery()) {
+				String currentCode = null;
+				int currentShelf = 0;
+				List<StockBatch> batches = new ArrayList<>();
+				while (rs.next()) {
+					String code = rs.getString("product_code");
+					if (!code.equals(currentCode)) {
+						if (currentCode != null) {
+							out.add(new ProductStock(currentCode, currentShelf, batches));
+							batches.clear();
+						}
+						currentCode = code;
+						currentShelf = rs.getInt("quantity_on_shelf");
+					}
+					batches.add(new StockBatch(rs.getInt("id"), code, rs.getDate("purchase_date").toLocalDate(),
+							rs.getDate("expiry_date").toLocalDate(), rs.getInt("quantity_remaining")));
+				}
+				if (currentCode != null) {
+					out.add(new ProductStock(currentCode, currentShelf, batches));
+				}
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException("Error loading expiry dashboard", e);
+		}
+		return out;
+	}
+
+	// a single statement, so the batch updates and the ledger rows commit or fail together; the
+	// subquery locks the rows and keeps the quantities they held before the update
+	@Override
+	public List<String> findProductCodesWithExpiredBatches(LocalDate asOf) {
+		String sql = """
+				SELECT DISTINCT product_code
+				FROM stock_batches
+				WHERE quantity_remaining > 0 AND expiry_date <= ?
+				ORDER BY product_code
+				""";
+		List<String> productCodes = new ArrayList<>();
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.findProductCodesWithExpiredBatches");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setDate(1, Date.valueOf(asOf));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					productCodes.add(rs.getString("product_code"));
+				}
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException("Error finding products with expired stock batches", e);
+		}
+		return productCodes;
+	}
+
+	@Override
+	public List<WriteOff> writeOffExpired(LocalDate asOf, List<String> productCodes) {
+		List<WriteOff> out = new ArrayList<>();
+		if (productCodes.isEmpty()) {
+			return out;
+		}
+		String sql = """
+				WITH expired AS (
+				    UPDATE stock_batches b
+				    SET quantity_remaining = 0
+				    FROM (
+				        SELECT id, quantity_remaining
+				        FROM stock_batches
+				        WHERE quantity_remaining > 0 AND expiry_date <= ? AND product_code = ANY(?)
+				        FOR UPDATE
+				    ) old
+				    WHERE b.id = old.id
+				    RETURNING b.id, b.product_code, b.expiry_date, old.quantity_remaining AS quantity
+				), ledger AS (
+				    INSERT INTO stock_write_offs (batch_id, product_code, expiry_date, quantity, reason)
+				    SELECT id, product_code, expiry_date, quantity, ? FROM expired
+				)
+				SELECT id, product_code, expiry_date, quantity
+				FROM expired
+				ORDER BY expiry_date, product_code, id
+				""";
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.writeOffExpired");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setDate(1, Date.valueOf(asOf));
+			ps.setArray(2, conn.createArrayOf("varchar", productCodes.toArray()));
+			ps.setString(3, WriteOff.REASON_EXPIRED);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					out.add(new WriteOff(rs.getInt("id"), rs.getString("product_code"),
+							rs.getDate("expiry_date").toLocalDate(), rs.getInt("quantity"), WriteOff.REASON_EXPIRED));
+				}
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException("Error writing off expired stock batches", e);
+		}
+		return out;
+	}
+
+	@Override
+	public StockBatch findById(int batchId) {
+		String sql = """
+				SELECT id, product_code, purchase_date, expiry_date, quantity_remaining
+				FROM stock_batches
+				WHERE id = ?
+				""";
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("repository.StockBatchRepository.findById");
+				Connection conn = DatabaseManager.getInstance().getConnection();
+				PreparedStatement ps = conn.prepareStatement(sql)) {
+
+			ps.setInt(1, batchId);
+			ResultSet rs = ps.executeQuery();
+			if (rs.next()) {
+				return new StockBatch(rs.getInt("id"), rs.getString("product_code"),
+						rs.getDate("purchase_date").toLocalDate(), rs.getDate("expiry_date").toLocalDate(),
+						rs.getInt("quantity_remaining"));
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException("Error finding batch by ID", e);
+		}
+		return null; // Return null if not found
+	}
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.syos.repository.jdbc;
+
+import java.sql.SQLException;
+
+import com.syos.config.ConfigLoader;
+import com.syos.db.DatabaseManager;
+import com.syos.db.SchemaUpgrade;
+import com.syos.repository.BillingRepository;
+import com.syos.repository.CustomerRepository;
+import com.syos.repository.DiscountRepository;
+import com.syos.repository.ProductRepository;
+import com.syos.repository.ReportRepository;
+import com.syos.repository.ShelfStockRepository;
+import com.syos.repository.StockBatchRepository;
+import com.syos.repository.StorageProvider;
+import com.syos.repository.StorageTransaction;
+
+// PostgreSQL through the DatabaseManager connection pool
+public class JdbcStorageProvider implements StorageProvider {
+
+	@Override
+	public String name() {
+		return "jdbc";
+	}
+
+	@Override
+	public ProductRepository products() {
+		return new JdbcProductRepository();
+	}
+
+	@Override
+	public StockBatchRepository stockBatches() {
+		return new JdbcStockBatchRepository();
+	}
+
+	@Override
+	public ShelfStockRepository shelfStock() {
+		return new JdbcShelfStockRepository();
+	}
+
+	@Override
+	public BillingRepository billing() {
+		return new JdbcBillingRepository();
+	}
+
+	@Override
+	public DiscountRepository discounts() {
+		return new JdbcDiscountRepository();
+	}
+
+	@Override
+	public CustomerRepository customers() {
+		return new JdbcCustomerRepository();
+	}
+
+	@Override
+	public ReportRepository reports() {
+		return new JdbcReportRepository();
+	}
+
+	// one pooled connection held by the thread until the transaction ends
+	@Override
+	public StorageTransaction beginTransaction() {
+		DatabaseManager.Transaction transaction;
+		try {
+			DatabaseManager db = DatabaseManager.getInstance();
+			DatabaseManager.Transaction current = db.currentTransaction();
+			if (current != null) {
+				return joined(current);
+			}
+			transaction = db.beginTransaction();
+		} catch (SQLException e) {
+			throw new RuntimeException("Error starting transaction", e);
+		}
+		return new StorageTransaction() {
+			@Override
+			public void commit() {
+				try {
+					transaction.commit();
+				} catch (SQLException e) {
+					throw new RuntimeException("Error committing transaction", e);
+				}
+			}
+
+			@Override
+			public void close() {
+				transaction.close();
+			}
+		};
+	}
+
+	@Override
+	public void afterCommit(Runnable action) {
+		DatabaseManager.Transaction current;
+		try {
+			current = DatabaseManager.getInstance().currentTransaction();
+		} catch (SQLException e) {
+			throw new RuntimeException("Error reading the current transaction", e);
+		}
+		if (current != null) {
+			current.afterCommit(action);
+		} else {
+			action.run();
+		}
+	}
+
+	@Override
+	public void upgradeSchema() {
+		if ("true".equalsIgnoreCase(ConfigLoader.get("db.schema.upgrade"))) {
+			SchemaUpgrade.apply();
+		}
+	}
+
+	private static StorageTransaction joined(DatabaseManager.Transaction outer) {
+		return new StorageTransaction() {
+			private boolean committed;
+
+			@Override
+			public void commit() {
+				committed = true;
+			}
+
+			@Override
+			public void close() {
+				if (!committed) {
+					outer.setRollbackOnly();
+				}
+			}
+		};
+	}
+}
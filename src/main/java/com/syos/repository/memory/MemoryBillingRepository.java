@@ -0,0 +1,65 @@
+package com.syos.repository.memory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.syos.metrics.MetricsRegistry;
+import com.syos.model.Bill;
+import com.syos.model.BillItem;
+import com.syos.observer.BillObserver;
+import com.syos.repository.BillingRepository;
+
+public class MemoryBillingRepository implements BillingRepository {
+	private final MemoryStore store;
+	private final List<BillObserver> observers = new ArrayList<>();
+
+	public MemoryBillingRepository(MemoryStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public void addObserver(BillObserver observer) {
+		observers.add(observer);
+	}
+
+	@Override
+	public void save(Bill bill) {
+		int billId = store.billIds.incrementAndGet();
+		List<BillItem> items = new ArrayList<>(bill.getItems().size());
+		for (BillItem item : bill.getItems()) {
+			items.add(new BillItem(store.billItemIds.incrementAndGet(), billId, item.getProduct(), item.getQuantity(),
+					item.getTotalPrice(), item.getDiscountAmount()));
+		}
+		bill.setId(billId);
+
+		// lines are in place before the bill becomes visible to the report indexes
+		Bill stored = new Bill(billId, bill.getSerialNumber(), bill.getBillDate(), bill.getTotalAmount(),
+				bill.getCashTendered(), bill.getChangeReturned(), bill.getTransactionType());
+		store.itemsByBill.put(billId, List.copyOf(items));
+		store.billsById.put(billId, stored);
+		store.billsByTime.put(MemoryStore.BillKey.of(stored), stored);
+		LocalDate day = bill.getBillDate().toInstant().atZone(MemoryStore.ZONE).toLocalDate();
+		store.maxSerialByDay.computeIfAbsent(day, d -> new AtomicInteger()).accumulateAndGet(bill.getSerialNumber(),
+				Math::max);
+		// serial numbers already handed out stay used, like ids
+		store.onRollback(() -> {
+			store.billsByTime.remove(MemoryStore.BillKey.of(stored));
+			store.billsById.remove(billId);
+			store.itemsByBill.remove(billId);
+		});
+
+		MetricsRegistry.getInstance().counter("billing.bills.saved").increment();
+		MetricsRegistry.getInstance().counter("billing.lines.saved").add(items.size());
+		for (BillObserver observer : observers) {
+			observer.onBillSaved(bill);
+		}
+	}
+
+	@Override
+	public int nextSerial() {
+		AtomicInteger max = store.maxSerialByDay.get(LocalDate.now());
+		return (max == null ? 0 : max.get()) + 1;
+	}
+}
@@ -0,0 +1,30 @@
+package com.syos.repository.memory;
+
+import com.syos.model.Customer;
+import com.syos.repository.CustomerRepository;
+
+public class MemoryCustomerRepository implements CustomerRepository {
+	private final MemoryStore store;
+
+	public MemoryCustomerRepository(MemoryStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public void save(Customer customer) {
+		if (store.customersByEmail.putIfAbsent(customer.getEmail(), customer) != null) {
+			throw new RuntimeException("Error saving customer: email already registered");
+		}
+		store.onRollback(() -> store.customersByEmail.remove(customer.getEmail(), customer));
+	}
+
+	@Override
+	public Customer findByEmail(String email) {
+		return store.customersByEmail.get(email.toLowerCase());
+	}
+
+	@Override
+	public boolean existsByEmail(String email) {
+		return store.customersByEmail.containsKey(email.toLowerCase());
+	}
+}
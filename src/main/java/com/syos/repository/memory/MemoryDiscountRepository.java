@@ -0,0 +1,69 @@
+package com.syos.repository.memory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.syos.enums.DiscountType;
+import com.syos.model.Discount;
+import com.syos.repository.DiscountRepository;
+
+public class MemoryDiscountRepository implements DiscountRepository {
+	private final MemoryStore store;
+
+	public MemoryDiscountRepository(MemoryStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public Discount findById(int discountId) {
+		return store.discounts.get(discountId);
+	}
+
+	@Override
+	public List<Discount> findActiveDiscounts(String productCode, LocalDate date) {
+		List<Discount> result = new ArrayList<>();
+		for (Integer id : store.discountsByProduct.getOrDefault(productCode, Set.of())) {
+			Discount discount = store.discounts.get(id);
+			if (discount != null && discount.isActiveOn(date)) {
+				result.add(discount);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public int createDiscount(String discountName, DiscountType discountType, double discountValue,
+			LocalDate startDate, LocalDate endDate) {
+		int id = store.discountIds.incrementAndGet();
+		store.discounts.put(id, new Discount(id, discountName, discountType, discountValue, startDate, endDate));
+		store.discountChanges.incrementAndGet();
+		store.onRollback(() -> {
+			store.discounts.remove(id);
+			store.discountChanges.incrementAndGet();
+		});
+		return id;
+	}
+
+	@Override
+	public void linkProductToDiscount(String productCode, int discountId) {
+		Set<Integer> linked = store.discountsByProduct.computeIfAbsent(productCode,
+				code -> ConcurrentHashMap.newKeySet());
+		if (!linked.add(discountId)) {
+			throw new RuntimeException("Error linking product " + productCode + " to discount " + discountId
+					+ ": already linked");
+		}
+		store.discountChanges.incrementAndGet();
+		store.onRollback(() -> {
+			linked.remove(discountId);
+			store.discountChanges.incrementAndGet();
+		});
+	}
+
+	@Override
+	public long getChangeCount() {
+		return store.discountChanges.get();
+	}
+}
@@ -0,0 +1,47 @@
+package com.syos.repository.memory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.syos.model.Product;
+import com.syos.repository.ProductRepository;
+
+public class MemoryProductRepository implements ProductRepository {
+	private final MemoryStore store;
+
+	public MemoryProductRepository(MemoryStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public Product findByCode(String code) {
+		return store.products.get(code);
+	}
+
+	@Override
+	public List<Product> findAll() {
+		return new ArrayList<>(store.products.values());
+	}
+
+	@Override
+	public void add(Product product) {
+		if (store.products.putIfAbsent(product.getCode(), product) != null) {
+			throw new RuntimeException("Product code already exists: " + product.getCode());
+		}
+		store.onRollback(() -> store.products.remove(product.getCode(), product));
+	}
+
+	@Override
+	public Set<String> addAll(List<Product> products) {
+		Set<String> added = new HashSet<>();
+		for (Product product : products) {
+			if (store.products.putIfAbsent(product.getCode(), product) == null) {
+				added.add(product.getCode());
+				store.onRollback(() -> store.products.remove(product.getCode(), product));
+			}
+		}
+		return added;
+	}
+}
@@ -0,0 +1,133 @@
+package com.syos.repository.memory;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.syos.analytics.SaleLineHandler;
+import com.syos.dto.ReshelveReportDTO;
+import com.syos.model.Bill;
+import com.syos.model.BillItem;
+import com.syos.repository.ReportRepository;
+import com.syos.repository.memory.MemoryStore.BillKey;
+
+public class MemoryReportRepository implements ReportRepository {
+	private final MemoryStore store;
+
+	public MemoryReportRepository(MemoryStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public double getTotalRevenue(LocalDate date) {
+		double total = 0;
+		for (Bill bill : store.billsBetween(date, date.plusDays(1)).values()) {
+			total += bill.getTotalAmount();
+		}
+		return total;
+	}
+
+	@Override
+	public List<Bill> getBillsByDate(LocalDate date) {
+		List<Bill> bills = new ArrayList<>(store.billsBetween(date, date.plusDays(1)).values());
+		bills.sort(Comparator.comparingInt(Bill::getSerialNumber));
+		return bills;
+	}
+
+	@Override
+	public List<BillItem> getBillItemsByBillId(int billId) {
+		List<BillItem> items = new ArrayList<>();
+		for (BillItem item : store.itemsByBill.getOrDefault(billId, List.of())) {
+			items.add(withCurrentProduct(item));
+		}
+		return items;
+	}
+
+	@Override
+	public List<Bill> getBillsAfter(LocalDate date, Bill after, int limit) {
+		checkLimit(limit);
+		NavigableMap<BillKey, Bill> day = store.billsBetween(date, date.plusDays(1));
+		if (after != null) {
+			day = day.tailMap(new BillKey(after.getBillDate().getTime(), after.getSerialNumber(), Integer.MAX_VALUE),
+					false);
+		}
+		return firstN(day.values(), limit);
+	}
+
+	@Override
+	public List<Bill> getBillsBefore(LocalDate date, Bill before, int limit) {
+		checkLimit(limit);
+		NavigableMap<BillKey, Bill> earlier = store.billsBetween(date, date.plusDays(1)).headMap(
+				new BillKey(before.getBillDate().getTime(), before.getSerialNumber(), Integer.MIN_VALUE), false);
+		List<Bill> page = firstN(earlier.descendingMap().values(), limit);
+		Collections.reverse(page);
+		return page;
+	}
+
+	@Override
+	public Map<Integer, List<BillItem>> getBillItemsByBillIds(List<Integer> billIds) {
+		Map<Integer, List<BillItem>> itemsByBill = new HashMap<>();
+		for (Integer billId : billIds) {
+			List<BillItem> items = getBillItemsByBillId(billId);
+			if (!items.isEmpty()) {
+				itemsByBill.put(billId, items);
+			}
+		}
+		return itemsByBill;
+	}
+
+	@Override
+	public List<ReshelveReportDTO> getReshelveReport(LocalDate date) {
+		Map<String, Integer> unitsSold = new TreeMap<>();
+		for (Bill bill : store.billsBetween(date, date.plusDays(1)).values()) {
+			for (BillItem item : store.itemsByBill.getOrDefault(bill.getId(), List.of())) {
+				unitsSold.merge(item.getProduct().getCode(), item.getQuantity(), Integer::sum);
+			}
+		}
+		List<ReshelveReportDTO> rows = new ArrayList<>(unitsSold.size());
+		unitsSold.forEach((code, sold) -> rows.add(new ReshelveReportDTO(code, store.currentProduct(code).getName(),
+				sold, store.shelfQuantity(code), store.backStoreQuantity(code))));
+		return rows;
+	}
+
+	@Override
+	public void streamSaleLines(LocalDate from, LocalDate toExclusive, SaleLineHandler handler) {
+		for (Bill bill : store.billsBetween(from, toExclusive).values()) {
+			long billTime = bill.getBillDate().getTime();
+			int hour = LocalDateTime.ofInstant(bill.getBillDate().toInstant(), MemoryStore.ZONE).getHour();
+			for (BillItem item : store.itemsByBill.getOrDefault(bill.getId(), List.of())) {
+				handler.onLine(bill.getId(), billTime, hour, item.getProduct().getCode(), item.getQuantity(),
+						item.getTotalPrice(), item.getDiscountAmount());
+			}
+		}
+	}
+
+	private BillItem withCurrentProduct(BillItem item) {
+		return new BillItem(item.getId(), item.getBillId(), store.currentProduct(item.getProduct().getCode()),
+				item.getQuantity(), item.getTotalPrice(), item.getDiscountAmount());
+	}
+
+	private static List<Bill> firstN(Iterable<Bill> bills, int limit) {
+		List<Bill> page = new ArrayList<>(limit);
+		for (Bill bill : bills) {
+			if (page.size() == limit) {
+				break;
+			}
+			page.add(bill);
+		}
+		return page;
+	}
+
+	private static void checkLimit(int limit) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("Page size must be positive.");
+		}
+	}
+}
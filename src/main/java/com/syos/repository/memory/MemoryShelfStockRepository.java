@@ -0,0 +1,208 @@
+package com.syos.repository.memory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.syos.model.ProductStock;
+import com.syos.model.ShelfLot;
+import com.syos.model.StockBatch;
+import com.syos.model.StockTotals;
+import com.syos.repository.ShelfStockRepository;
+import com.syos.repository.memory.MemoryStore.BatchRow;
+
+public class MemoryShelfStockRepository implements ShelfStockRepository {
+	private static final Comparator<ShelfLot> FEFO = Comparator.comparing(ShelfLot::getExpiryDate)
+			.thenComparing(ShelfLot::getProductCode).thenComparingInt(ShelfLot::getBatchId);
+
+	private final MemoryStore store;
+
+	public MemoryShelfStockRepository(MemoryStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public int getQuantity(String productCode) {
+		return store.shelfQuantity(productCode);
+	}
+
+	@Override
+	public void upsertQuantity(String productCode, int qty) {
+		AtomicInteger quantity = store.shelf.computeIfAbsent(productCode, code -> new AtomicInteger());
+		quantity.addAndGet(qty);
+		store.onRollback(() -> quantity.addAndGet(-qty));
+	}
+
+	@Override
+	public void deductQuantity(String productCode, int qty) {
+		AtomicInteger quantity = store.shelf.get(productCode);
+		if (quantity != null) {
+			quantity.addAndGet(-qty);
+			store.onRollback(() -> quantity.addAndGet(qty));
+		}
+	}
+
+	@Override
+	public List<String> getAllProductCodes() {
+		return new ArrayList<>(store.shelf.keySet());
+	}
+
+	@Override
+	public void addLot(String productCode, int batchId, LocalDate expiryDate, int qty) {
+		Map<Integer, ShelfLot> lots = store.shelfLots.computeIfAbsent(productCode, code -> new ConcurrentHashMap<>());
+		ShelfLot previous = lots.get(batchId);
+		lots.merge(batchId, new ShelfLot(productCode, batchId, expiryDate, qty),
+				(lot, added) -> new ShelfLot(productCode, batchId, expiryDate, lot.getQuantity() + qty));
+		store.onRollback(() -> restoreLot(lots, batchId, previous));
+	}
+
+	@Override
+	public void updateLotQuantity(String productCode, int batchId, int qty) {
+		Map<Integer, ShelfLot> lots = store.shelfLots.get(productCode);
+		if (lots == null) {
+			return;
+		}
+		ShelfLot previous = lots.get(batchId);
+		if (qty > 0) {
+			lots.computeIfPresent(batchId, (id, lot) -> new ShelfLot(productCode, id, lot.getExpiryDate(), qty));
+		} else {
+			lots.remove(batchId);
+		}
+		store.onRollback(() -> restoreLot(lots, batchId, previous));
+	}
+
+	private static void restoreLot(Map<Integer, ShelfLot> lots, int batchId, ShelfLot previous) {
+		if (previous == null) {
+			lots.remove(batchId);
+		} else {
+			lots.put(batchId, previous);
+		}
+	}
+
+	@Override
+	public List<ShelfLot> findLots(String productCode) {
+		List<ShelfLot> out = copies(store.shelfLots.getOrDefault(productCode, Map.of()).values());
+		out.sort(FEFO);
+		return out;
+	}
+
+	@Override
+	public List<ShelfLot> findLotsExpiringBy(LocalDate asOf) {
+		List<ShelfLot> out = new ArrayList<>();
+		for (Map<Integer, ShelfLot> lots : store.shelfLots.values()) {
+			for (ShelfLot lot : copies(lots.values())) {
+				if (!lot.getExpiryDate().isAfter(asOf)) {
+					out.add(lot);
+				}
+			}
+		}
+		out.sort(FEFO);
+		return out;
+	}
+
+	@Override
+	public Map<String, Integer> findUntrackedQuantities() {
+		Map<String, Integer> out = new TreeMap<>();
+		for (String code : store.shelf.keySet()) {
+			int untracked = store.shelfQuantity(code);
+			for (ShelfLot lot : store.shelfLots.getOrDefault(code, Map.of()).values()) {
+				untracked -= lot.getQuantity();
+			}
+			if (untracked > 0) {
+				out.put(code, untracked);
+			}
+		}
+		return out;
+	}
+
+	@Override
+	public StockTotals getStockTotals() {
+		long shelfProducts = 0;
+		long shelfUnits = 0;
+		for (AtomicInteger quantity : store.shelf.values()) {
+			int units = quantity.get();
+			if (units != 0) {
+				shelfProducts++;
+				shelfUnits += units;
+			}
+		}
+		long openBatches = 0;
+		long batchUnits = 0;
+		long batchWeight = 0;
+		for (BatchRow row : store.batchesByExpiry) {
+			if (row.remaining > 0) {
+				openBatches++;
+				batchUnits += row.remaining;
+				batchWeight += (long) row.id * row.remaining;
+			}
+		}
+		long lots = 0;
+		long lotUnits = 0;
+		long lotWeight = 0;
+		for (Map<Integer, ShelfLot> productLots : store.shelfLots.values()) {
+			for (ShelfLot lot : productLots.values()) {
+				if (lot.getQuantity() > 0) {
+					lots++;
+					lotUnits += lot.getQuantity();
+					lotWeight += (long) lot.getBatchId() * lot.getQuantity();
+				}
+			}
+		}
+		return new StockTotals(shelfProducts, shelfUnits, openBatches, batchUnits, batchWeight, lots, lotUnits,
+				lotWeight);
+	}
+
+	@Override
+	public void streamStockOverview(String codePrefix, String afterCode, int limit, Consumer<ProductStock> handler) {
+		TreeSet<String> codes = new TreeSet<>(store.shelf.keySet());
+		for (Map.Entry<String, Set<BatchRow>> entry : store.batchesByProduct.entrySet()) {
+			for (BatchRow row : entry.getValue()) {
+				if (row.remaining > 0) {
+					codes.add(entry.getKey());
+					break;
+				}
+			}
+		}
+		int emitted = 0;
+		for (String code : afterCode == null ? codes : codes.tailSet(afterCode, false)) {
+			if (codePrefix != null && !code.startsWith(codePrefix)) {
+				continue;
+			}
+			if (limit > 0 && emitted == limit) {
+				return;
+			}
+			handler.accept(new ProductStock(code, store.shelfQuantity(code), openBatches(code)));
+			emitted++;
+		}
+	}
+
+	// by id, as the SQL overview orders them
+	private List<StockBatch> openBatches(String productCode) {
+		List<StockBatch> out = new ArrayList<>();
+		for (BatchRow row : store.batchesByProduct.getOrDefault(productCode, Set.of())) {
+			if (row.remaining > 0) {
+				out.add(row.toModel());
+			}
+		}
+		out.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+		return out;
+	}
+
+	// stored lots are replaced rather than changed, but callers may change the copies they get
+	private static List<ShelfLot> copies(Collection<ShelfLot> lots) {
+		List<ShelfLot> out = new ArrayList<>(lots.size());
+		for (ShelfLot lot : lots) {
+			out.add(new ShelfLot(lot.getProductCode(), lot.getBatchId(), lot.getExpiryDate(), lot.getQuantity()));
+		}
+		return out;
+	}
+}
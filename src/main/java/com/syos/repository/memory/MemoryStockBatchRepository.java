@@ -0,0 +1,176 @@
+package com.syos.repository.memory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.syos.model.ProductStock;
+import com.syos.model.StockBatch;
+import com.syos.model.WriteOff;
+import com.syos.repository.StockBatchRepository;
+import com.syos.repository.memory.MemoryStore.BatchRow;
+
+public class MemoryStockBatchRepository implements StockBatchRepository {
+	private final MemoryStore store;
+
+	public MemoryStockBatchRepository(MemoryStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public List<StockBatch> findByProduct(String code) {
+		List<StockBatch> out = new ArrayList<>();
+		for (BatchRow row : batchesOf(code)) {
+			if (row.remaining > 0) {
+				out.add(row.toModel());
+			}
+		}
+		return out;
+	}
+
+	@Override
+	public List<StockBatch> findByProductAllBatches(String code) {
+		List<StockBatch> out = new ArrayList<>();
+		for (BatchRow row : batchesOf(code)) {
+			out.add(row.toModel());
+		}
+		return out;
+	}
+
+	@Override
+	public void updateQuantity(int batchId, int newQty) {
+		BatchRow row = store.batchesById.get(batchId);
+		if (row != null) {
+			int previous = row.remaining;
+			row.remaining = newQty;
+			store.onRollback(() -> row.remaining = previous);
+		}
+	}
+
+	@Override
+	public int createBatch(String productCode, LocalDate purchaseDate, LocalDate expiryDate, int quantity) {
+		return store.addBatch(productCode, purchaseDate, expiryDate, quantity).id;
+	}
+
+	@Override
+	public List<Integer> createBatches(List<StockBatch> batches) {
+		List<Integer> ids = new ArrayList<>(batches.size());
+		for (StockBatch batch : batches) {
+			ids.add(store.addBatch(batch.getProductCode(), batch.getPurchaseDate(), batch.getExpiryDate(),
+					batch.getQuantityRemaining()).id);
+		}
+		return ids;
+	}
+
+	@Override
+	public List<String> getAllProductCodesWithBatches() {
+		return new ArrayList<>(store.batchesByProduct.keySet());
+	}
+
+	@Override
+	public List<StockBatch> findExpiringBatches(String productCode, int daysThreshold) {
+		return expiring(batchesOf(productCode), LocalDate.now().plusDays(daysThreshold));
+	}
+
+	@Override
+	public List<StockBatch> findAllExpiringBatches(int daysThreshold) {
+		return expiring(store.batchesByExpiry, LocalDate.now().plusDays(daysThreshold));
+	}
+
+	@Override
+	public List<StockBatch> findAllOpenBatches() {
+		return expiring(store.batchesByExpiry, LocalDate.MAX);
+	}
+
+	// batchesByExpiry is ordered by (expiry, product, id), so first-seen order is most urgent product first
+	@Override
+	public List<ProductStock> findExpiryDashboard(int daysThreshold, String productCode) {
+		LocalDate cutoff = LocalDate.now().plusDays(daysThreshold);
+		Set<BatchRow> batches = productCode == null ? store.batchesByExpiry : batchesOf(productCode);
+		Map<String, List<StockBatch>> byProduct = new LinkedHashMap<>();
+		for (BatchRow row : batches) {
+			if (row.expiryDate.isAfter(cutoff)) {
+				break;
+			}
+			if (row.remaining > 0) {
+				byProduct.computeIfAbsent(row.productCode, code -> new ArrayList<>()).add(row.toModel());
+			}
+		}
+		List<ProductStock> out = new ArrayList<>(byProduct.size());
+		byProduct.forEach((code, expiring) -> out.add(new ProductStock(code, store.shelfQuantity(code), expiring)));
+		return out;
+	}
+
+	@Override
+	public List<String> findProductCodesWithExpiredBatches(LocalDate asOf) {
+		Set<String> codes = new TreeSet<>();
+		for (BatchRow row : store.batchesByExpiry) {
+			if (row.expiryDate.isAfter(asOf)) {
+				break;
+			}
+			if (row.remaining > 0) {
+				codes.add(row.productCode);
+			}
+		}
+		return new ArrayList<>(codes);
+	}
+
+	@Override
+	public List<WriteOff> writeOffExpired(LocalDate asOf, List<String> productCodes) {
+		List<WriteOff> out = new ArrayList<>();
+		synchronized (store.writeOffs) {
+			for (String productCode : productCodes) {
+				for (BatchRow row : batchesOf(productCode)) {
+					if (row.expiryDate.isAfter(asOf)) {
+						break;
+					}
+					int quantity = row.remaining;
+					if (quantity > 0) {
+						row.remaining = 0;
+						WriteOff writeOff = new WriteOff(row.id, row.productCode, row.expiryDate, quantity,
+								WriteOff.REASON_EXPIRED);
+						out.add(writeOff);
+						store.onRollback(() -> {
+							store.writeOffs.remove(writeOff);
+							row.remaining = quantity;
+						});
+					}
+				}
+			}
+			// the same order the JDBC statement returns
+			out.sort(Comparator.comparing(WriteOff::getExpiryDate).thenComparing(WriteOff::getProductCode)
+					.thenComparingInt(WriteOff::getBatchId));
+			store.writeOffs.addAll(out);
+		}
+		return out;
+	}
+
+	@Override
+	public StockBatch findById(int batchId) {
+		BatchRow row = store.batchesById.get(batchId);
+		return row == null ? null : row.toModel();
+	}
+
+	private Set<BatchRow> batchesOf(String productCode) {
+		return store.batchesByProduct.getOrDefault(productCode, Set.of());
+	}
+
+	// the sets are in expiry order, so the walk stops at the first batch past the cutoff
+	private static List<StockBatch> expiring(Set<BatchRow> batches, LocalDate cutoff) {
+		List<StockBatch> out = new ArrayList<>();
+		for (BatchRow row : batches) {
+			if (row.expiryDate.isAfter(cutoff)) {
+				break;
+			}
+			if (row.remaining > 0) {
+				out.add(row.toModel());
+			}
+		}
+		return out;
+	}
+}
@@ -0,0 +1,85 @@
+package com.syos.repository.memory;
+
+import com.syos.db.QueryTrackingProxy;
+import com.syos.repository.BillingRepository;
+import com.syos.repository.CustomerRepository;
+import com.syos.repository.DiscountRepository;
+import com.syos.repository.ProductRepository;
+import com.syos.repository.ReportRepository;
+import com.syos.repository.ShelfStockRepository;
+import com.syos.repository.StockBatchRepository;
+import com.syos.repository.StorageProvider;
+import com.syos.repository.StorageTransaction;
+
+/**
+ * Everything kept in one {@link MemoryStore} for the life of the provider, so
+ * benchmarks and simulations run without a database and the gap to the JDBC
+ * numbers is the database's share. Nothing is persisted. Every repository
+ * call counts as one statement towards the open query budgets.
+ */
+public class MemoryStorageProvider implements StorageProvider {
+	private final MemoryStore store;
+
+	public MemoryStorageProvider() {
+		this(new MemoryStore());
+	}
+
+	public MemoryStorageProvider(MemoryStore store) {
+		this.store = store;
+	}
+
+	public MemoryStore getStore() {
+		return store;
+	}
+
+	@Override
+	public String name() {
+		return "memory";
+	}
+
+	@Override
+	public ProductRepository products() {
+		return QueryTrackingProxy.wrapRepository(ProductRepository.class, new MemoryProductRepository(store));
+	}
+
+	@Override
+	public StockBatchRepository stockBatches() {
+		return QueryTrackingProxy.wrapRepository(StockBatchRepository.class, new MemoryStockBatchRepository(store));
+	}
+
+	@Override
+	public ShelfStockRepository shelfStock() {
+		return QueryTrackingProxy.wrapRepository(ShelfStockRepository.class, new MemoryShelfStockRepository(store));
+	}
+
+	@Override
+	public BillingRepository billing() {
+		return QueryTrackingProxy.wrapRepository(BillingRepository.class, new MemoryBillingRepository(store));
+	}
+
+	@Override
+	public DiscountRepository discounts() {
+		return QueryTrackingProxy.wrapRepository(DiscountRepository.class, new MemoryDiscountRepository(store));
+	}
+
+	@Override
+	public CustomerRepository customers() {
+		return QueryTrackingProxy.wrapRepository(CustomerRepository.class, new MemoryCustomerRepository(store));
+	}
+
+	@Override
+	public ReportRepository reports() {
+		return QueryTrackingProxy.wrapRepository(ReportRepository.class, new MemoryReportRepository(store));
+	}
+
+	// changes are applied as they are made and undone again if the transaction is closed without a commit
+	@Override
+	public StorageTransaction beginTransaction() {
+		return store.beginTransaction();
+	}
+
+	@Override
+	public void afterCommit(Runnable action) {
+		store.afterCommit(action);
+	}
+}
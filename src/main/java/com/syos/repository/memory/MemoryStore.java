@@ -0,0 +1,257 @@
+package com.syos.repository.memory;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.syos.model.Bill;
+import com.syos.model.BillItem;
+import com.syos.model.Customer;
+import com.syos.model.Discount;
+import com.syos.model.Product;
+import com.syos.model.ShelfLot;
+import com.syos.model.StockBatch;
+import com.syos.model.WriteOff;
+import com.syos.repository.StorageTransaction;
+
+/**
+ * Tables of the in-memory backend, held in concurrent maps with the indexes
+ * the repositories need: batches by product and by expiry date, shelf
+ * counters, bills by time and lines by bill. Individual operations are atomic
+ * per row, the way single SQL statements are; multi-step sequences (read a
+ * serial, then save) race exactly as they do against the database.
+ *
+ * A transaction keeps an undo action for every change the thread makes and
+ * runs them newest first when it is closed without a commit. There is no
+ * isolation: other threads see the changes as they are made, and ids handed
+ * out are not reused, as with database sequences.
+ */
+public class MemoryStore {
+	static final ZoneId ZONE = ZoneId.systemDefault();
+
+	final Map<String, Product> products = new ConcurrentHashMap<>();
+
+	final Map<Integer, BatchRow> batchesById = new ConcurrentHashMap<>();
+	final Map<String, Set<BatchRow>> batchesByProduct = new ConcurrentHashMap<>();
+	final Set<BatchRow> batchesByExpiry = new ConcurrentSkipListSet<>(BatchRow.EXPIRY_ORDER);
+	final AtomicInteger batchIds = new AtomicInteger();
+
+	final List<WriteOff> writeOffs = new CopyOnWriteArrayList<>();
+
+	final Map<String, AtomicInteger> shelf = new ConcurrentHashMap<>();
+	// product -> batch id -> shelf lot
+	final Map<String, Map<Integer, ShelfLot>> shelfLots = new ConcurrentHashMap<>();
+
+	final Map<Integer, Bill> billsById = new ConcurrentHashMap<>();
+	final ConcurrentNavigableMap<BillKey, Bill> billsByTime = new ConcurrentSkipListMap<>();
+	final Map<Integer, List<BillItem>> itemsByBill = new ConcurrentHashMap<>();
+	final Map<LocalDate, AtomicInteger> maxSerialByDay = new ConcurrentHashMap<>();
+	final AtomicInteger billIds = new AtomicInteger();
+	final AtomicInteger billItemIds = new AtomicInteger();
+
+	final Map<Integer, Discount> discounts = new ConcurrentHashMap<>();
+	final Map<String, Set<Integer>> discountsByProduct = new ConcurrentHashMap<>();
+	final AtomicInteger discountIds = new AtomicInteger();
+	final AtomicLong discountChanges = new AtomicLong();
+
+	final Map<String, Customer> customersByEmail = new ConcurrentHashMap<>();
+
+	// the calling thread's open transaction
+	private final ThreadLocal<UndoLog> undoLog = new ThreadLocal<>();
+
+	private static final class UndoLog {
+		// oldest first
+		final Deque<Runnable> actions = new ArrayDeque<>();
+		// set when a joined transaction was closed without a commit
+		boolean rollbackOnly;
+		final List<Runnable> afterCommit = new ArrayList<>();
+	}
+
+	StorageTransaction beginTransaction() {
+		UndoLog current = undoLog.get();
+		if (current != null) {
+			return joined(current);
+		}
+		UndoLog log = new UndoLog();
+		undoLog.set(log);
+		return new StorageTransaction() {
+			private boolean ended;
+
+			@Override
+			public void commit() {
+				if (ended) {
+					throw new IllegalStateException("Transaction has already ended.");
+				}
+				if (log.rollbackOnly) {
+					throw new IllegalStateException("Transaction was rolled back and cannot be committed.");
+				}
+				ended = true;
+				undoLog.remove();
+				log.afterCommit.forEach(Runnable::run);
+			}
+
+			@Override
+			public void close() {
+				if (ended) {
+					return;
+				}
+				ended = true;
+				undoLog.remove();
+				while (!log.actions.isEmpty()) {
+					log.actions.pollLast().run();
+				}
+			}
+		};
+	}
+
+	private static StorageTransaction joined(UndoLog outer) {
+		return new StorageTransaction() {
+			private boolean committed;
+
+			@Override
+			public void commit() {
+				committed = true;
+			}
+
+			@Override
+			public void close() {
+				if (!committed) {
+					outer.rollbackOnly = true;
+				}
+			}
+		};
+	}
+
+	void afterCommit(Runnable action) {
+		UndoLog log = undoLog.get();
+		if (log != null) {
+			log.afterCommit.add(action);
+		} else {
+			action.run();
+		}
+	}
+
+	// called by the repositories after each change with what reverses it; ignored outside a transaction
+	void onRollback(Runnable action) {
+		UndoLog log = undoLog.get();
+		if (log != null) {
+			log.actions.addLast(action);
+		}
+	}
+
+	BatchRow addBatch(String productCode, LocalDate purchaseDate, LocalDate expiryDate, int quantity) {
+		BatchRow row = new BatchRow(batchIds.incrementAndGet(), productCode, purchaseDate, expiryDate, quantity);
+		batchesById.put(row.id, row);
+		batchesByProduct.computeIfAbsent(productCode, code -> new ConcurrentSkipListSet<>(BatchRow.EXPIRY_ORDER))
+				.add(row);
+		batchesByExpiry.add(row);
+		onRollback(() -> {
+			batchesByExpiry.remove(row);
+			batchesByProduct.getOrDefault(productCode, Set.of()).remove(row);
+			batchesById.remove(row.id);
+		});
+		return row;
+	}
+
+	int shelfQuantity(String productCode) {
+		AtomicInteger quantity = shelf.get(productCode);
+		return quantity == null ? 0 : quantity.get();
+	}
+
+	int backStoreQuantity(String productCode) {
+		int total = 0;
+		for (BatchRow row : batchesByProduct.getOrDefault(productCode, Set.of())) {
+			total += Math.max(0, row.remaining);
+		}
+		return total;
+	}
+
+	// bills in [from, toExclusive) in (bill_date, serial_number) order
+	ConcurrentNavigableMap<BillKey, Bill> billsBetween(LocalDate from, LocalDate toExclusive) {
+		long start = from.atStartOfDay(ZONE).toInstant().toEpochMilli();
+		long end = toExclusive.atStartOfDay(ZONE).toInstant().toEpochMilli();
+		return billsByTime.subMap(new BillKey(start, Integer.MIN_VALUE, Integer.MIN_VALUE), true,
+				new BillKey(end, Integer.MIN_VALUE, Integer.MIN_VALUE), false);
+	}
+
+	// lines keep the product as sold; reports show the current catalogue entry like the SQL join does
+	Product currentProduct(String productCode) {
+		Product product = products.get(productCode);
+		return product != null ? product : new Product(productCode, "[Product Not Found]", 0.0);
+	}
+
+	static final class BatchRow {
+		static final Comparator<BatchRow> EXPIRY_ORDER = Comparator.comparing((BatchRow row) -> row.expiryDate)
+				.thenComparing(row -> row.productCode).thenComparingInt(row -> row.id);
+
+		final int id;
+		final String productCode;
+		final LocalDate purchaseDate;
+		final LocalDate expiryDate;
+		final int quantityReceived;
+		volatile int remaining;
+
+		BatchRow(int id, String productCode, LocalDate purchaseDate, LocalDate expiryDate, int quantity) {
+			this.id = id;
+			this.productCode = productCode;
+			this.purchaseDate = purchaseDate;
+			this.expiryDate = expiryDate;
+			this.quantityReceived = quantity;
+			this.remaining = quantity;
+		}
+
+		// a detached copy, as a row read from the database would be
+		StockBatch toModel() {
+			return new StockBatch(id, productCode, purchaseDate, expiryDate, remaining);
+		}
+	}
+
+	static final class BillKey implements Comparable<BillKey> {
+		final long billTimeMillis;
+		final int serialNumber;
+		final int id;
+
+		BillKey(long billTimeMillis, int serialNumber, int id) {
+			this.billTimeMillis = billTimeMillis;
+			this.serialNumber = serialNumber;
+			this.id = id;
+		}
+
+		static BillKey of(Bill bill) {
+			return new BillKey(bill.getBillDate().getTime(), bill.getSerialNumber(), bill.getId());
+		}
+
+		@Override
+		public int compareTo(BillKey other) {
+			int byTime = Long.compare(billTimeMillis, other.billTimeMillis);
+			if (byTime != 0) {
+				return byTime;
+			}
+			int bySerial = Integer.compare(serialNumber, other.serialNumber);
+			return bySerial != 0 ? bySerial : Integer.compare(id, other.id);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof BillKey && compareTo((BillKey) o) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(billTimeMillis) * 31 + serialNumber * 17 + id;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.syos.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.syos.model.StockBatch;
+import com.syos.observer.ExpiryObserver;
+
+public class ExpiryAlertService implements ExpiryObserver {
+
+	@Override
+	public void onBatchesExpired(LocalDate today, List<StockBatch> expired) {
+		int units = 0;
+		for (StockBatch batch : expired) {
+			System.out.printf("!EXPIRED: %s batch=%d remaining=%d (expiry=%s)%n", batch.getProductCode(),
+					batch.getId(), batch.getQuantityRemaining(), batch.getExpiryDate());
+			units += batch.getQuantityRemaining();
+		}
+		System.out.printf("!EXPIRED: %d batches (%d units) expired as of %s; write them off from the Inventory menu%n",
+				expired.size(), units, today);
+	}
+}
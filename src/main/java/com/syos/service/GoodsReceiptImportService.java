@@ -0,0 +1,186 @@
+package com.syos.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.syos.model.GoodsReceiptReport;
+import com.syos.model.ImportReport;
+import com.syos.model.StockBatch;
+import com.syos.repository.ProductRepository;
+import com.syos.repository.Storage;
+import com.syos.singleton.InventoryManager;
+import com.syos.util.CsvReader;
+import com.syos.util.Json;
+
+/**
+ * Receives a supplier delivery note from a file. CSV files have
+ * {@code productCode,quantity,purchaseDate,expiryDate} columns with an
+ * optional header; JSON files hold an array of objects with those keys, or an
+ * object with such an array under {@code "lines"}. Every line is checked the
+ * way {@link InventoryManager#receiveStock} checks a single receipt and
+ * against the product list, and the note is only received if all of it is
+ * valid, so fixing the file and running it again never receives a line twice.
+ * Moving received stock to the shelf comes after that: a product that cannot
+ * be moved is reported as a shelf failure, and its batches stay received.
+ */
+public class GoodsReceiptImportService {
+	private final InventoryManager inventoryManager;
+	private final ProductRepository productRepository;
+
+	public GoodsReceiptImportService(InventoryManager inventoryManager) {
+		this(inventoryManager, Storage.getInstance().products());
+	}
+
+	public GoodsReceiptImportService(InventoryManager inventoryManager, ProductRepository productRepository) {
+		this.inventoryManager = inventoryManager;
+		this.productRepository = productRepository;
+	}
+
+	public GoodsReceiptReport importCsv(Reader input, boolean moveToShelf) {
+		GoodsReceiptReport report = new GoodsReceiptReport();
+		List<StockBatch> lines = new ArrayList<>();
+		Map<String, Boolean> knownProducts = new HashMap<>();
+
+		try (CsvReader csv = new CsvReader(input)) {
+			boolean first = true;
+			while (true) {
+				List<String> fields;
+				try {
+					fields = csv.next();
+				} catch (IllegalArgumentException e) {
+					report.rowRead();
+					report.reject(csv.getLineNumber(), e.getMessage());
+					continue;
+				}
+				if (fields == null) {
+					break;
+				}
+				if (first && "productCode".equalsIgnoreCase(fields.get(0))) {
+					first = false;
+					continue;
+				}
+				first = false;
+				report.rowRead();
+				if (fields.size() != 4) {
+					report.reject(csv.getLineNumber(), "Expected 4 fields (productCode, quantity, purchaseDate, "
+							+ "expiryDate) but found " + fields.size());
+					continue;
+				}
+				accept(fields.get(0), fields.get(1), fields.get(2), fields.get(3), csv.getLineNumber(), knownProducts,
+						lines, report);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading goods receipt", e);
+		}
+		return receive(lines, moveToShelf, report);
+	}
+
+	// entries are numbered from 1 in the report
+	public GoodsReceiptReport importJson(Reader input, boolean moveToShelf) {
+		GoodsReceiptReport report = new GoodsReceiptReport();
+		List<StockBatch> lines = new ArrayList<>();
+		Map<String, Boolean> knownProducts = new HashMap<>();
+
+		Object document = Json.parse(readAll(input));
+		if (document instanceof Map) {
+			document = ((Map<?, ?>) document).get("lines");
+		}
+		if (!(document instanceof List)) {
+			throw new IllegalArgumentException("Expected an array of receipt lines.");
+		}
+		int entry = 0;
+		for (Object item : (List<?>) document) {
+			entry++;
+			report.rowRead();
+			if (!(item instanceof Map)) {
+				report.reject(entry, "Expected an object");
+				continue;
+			}
+			Map<?, ?> fields = (Map<?, ?>) item;
+			accept(text(fields.get("productCode")), text(fields.get("quantity")), text(fields.get("purchaseDate")),
+					text(fields.get("expiryDate")), entry, knownProducts, lines, report);
+		}
+		return receive(lines, moveToShelf, report);
+	}
+
+	private void accept(String code, String quantity, String purchaseDate, String expiryDate, int lineNumber,
+			Map<String, Boolean> knownProducts, List<StockBatch> lines, ImportReport report) {
+		try {
+			int qty;
+			try {
+				qty = Integer.parseInt(quantity);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid quantity: " + quantity);
+			}
+			LocalDate pd = parseDate("purchase", purchaseDate);
+			LocalDate ed = parseDate("expiry", expiryDate);
+			InventoryManager.validateReceipt(code, pd, ed, qty);
+			if (!knownProducts.computeIfAbsent(code, c -> productRepository.findByCode(c) != null)) {
+				throw new IllegalArgumentException("Unknown product code: " + code);
+			}
+			lines.add(new StockBatch(0, code, pd, ed, qty));
+		} catch (IllegalArgumentException e) {
+			report.reject(lineNumber, e.getMessage());
+		}
+	}
+
+	private GoodsReceiptReport receive(List<StockBatch> lines, boolean moveToShelf, GoodsReceiptReport report) {
+		if (report.hasErrors() || lines.isEmpty()) {
+			return report;
+		}
+		inventoryManager.receiveStock(lines);
+		report.imported(lines.size());
+		if (!moveToShelf) {
+			return report;
+		}
+
+		// one move per product for everything it received
+		Map<String, Integer> received = new LinkedHashMap<>();
+		for (StockBatch line : lines) {
+			received.merge(line.getProductCode(), line.getQuantityRemaining(), Integer::sum);
+		}
+		for (Map.Entry<String, Integer> entry : received.entrySet()) {
+			try {
+				inventoryManager.moveToShelf(entry.getKey(), entry.getValue());
+			} catch (RuntimeException e) {
+				report.notMovedToShelf(entry.getKey(), entry.getValue(), e.getMessage());
+			}
+		}
+		return report;
+	}
+
+	private static LocalDate parseDate(String which, String value) {
+		try {
+			return value == null ? null : LocalDate.parse(value);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid " + which + " date (use YYYY-MM-DD): " + value);
+		}
+	}
+
+	// JSON numbers arrive as doubles; whole ones are written without the fraction
+	private static String text(Object value) {
+		if (value instanceof Double && (Double) value == Math.rint((Double) value)) {
+			return String.valueOf(((Double) value).longValue());
+		}
+		return value == null ? null : value.toString();
+	}
+
+	private static String readAll(Reader input) {
+		StringWriter out = new StringWriter();
+		try (Reader in = input) {
+			in.transferTo(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading goods receipt", e);
+		}
+		return out.toString();
+	}
+}
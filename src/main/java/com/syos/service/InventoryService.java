@@ -10,16 +10,21 @@ import com.syos.command.Command;
 import com.syos.command.CreateDiscountCommand;
 import com.syos.command.MoveToShelfCommand;
 import com.syos.command.ReceiveStockCommand;
+import com.syos.command.ViewStockAsOfCommand;
 import com.syos.command.ViewStockCommand;
 import com.syos.command.ViewExpiryStockCommand;
 import com.syos.command.RemoveExpiryStockCommand;
 import com.syos.command.ViewAllInventoryStocksCommand;
 import com.syos.command.ViewExpiringBatchesCommand;
 import com.syos.command.DiscardExpiringBatchesCommand;
+import com.syos.command.ImportGoodsReceiptCommand;
+import com.syos.command.ImportProductsCommand;
 import com.syos.command.ViewAllProductsCommand;
 
+import com.syos.db.QueryTracker;
 import com.syos.repository.DiscountRepository;
 import com.syos.repository.ProductRepository;
+import com.syos.repository.Storage;
 import com.syos.singleton.InventoryManager;
 import com.syos.strategy.ExpiryAwareFifoStrategy;
 
@@ -30,11 +35,11 @@ public class InventoryService {
 
 	public InventoryService() {
 		this.inventoryManager = InventoryManager.getInstance(new ExpiryAwareFifoStrategy());
-		inventoryManager.addObserver(new StockAlertService(50));
+		inventoryManager.addObserver(new StockAlertService(inventoryManager::getLowStockThreshold));
 
 		ProductService productService = new ProductService();
-		ProductRepository productRepository = new ProductRepository();
-		DiscountRepository discountRepository = new DiscountRepository();
+		ProductRepository productRepository = Storage.getInstance().products();
+		DiscountRepository discountRepository = Storage.getInstance().discounts();
 
 		commandMap.put("1", new AddProductCommand(productService, scanner, productRepository));
 		commandMap.put("2", new ViewAllProductsCommand(productRepository, scanner));
@@ -48,6 +53,9 @@ public class InventoryService {
 		commandMap.put("10", new DiscardExpiringBatchesCommand(inventoryManager, scanner));
 		commandMap.put("11", new CreateDiscountCommand(scanner, discountRepository));
 		commandMap.put("12", new AssignDiscountCommand(scanner, discountRepository, productRepository));
+		commandMap.put("13", new ImportProductsCommand(new ProductImportService(), scanner));
+		commandMap.put("14", new ImportGoodsReceiptCommand(new GoodsReceiptImportService(inventoryManager), scanner));
+		commandMap.put("15", new ViewStockAsOfCommand(inventoryManager, scanner));
 	}
 
 	public void run() {
@@ -69,18 +77,24 @@ public class InventoryService {
 			System.out.println("11) Create a new discount");
 			System.out.println("12) Assign discount to products");
 			System.out.println();
-			System.out.println("13) Exit");
+			System.out.println("13) Import products from CSV");
+			System.out.println("14) Receive stock from a delivery note (CSV/JSON)");
+			System.out.println("15) View stock as of a past date");
+			System.out.println();
+			System.out.println("16) Exit");
 			System.out.print("Choose an option: ");
 
 			String choice = scanner.nextLine().trim();
-			if ("13".equals(choice)) {
+			if ("16".equals(choice)) {
 				System.out.println("Exiting Inventory Menu.");
 				break;
 			}
 
 			Command cmd = commandMap.get(choice);
 			if (cmd != null) {
-				cmd.execute();
+				try (QueryTracker.Scope scope = QueryTracker.begin("command." + cmd.getClass().getSimpleName())) {
+					cmd.execute();
+				}
 			} else {
 				System.out.println("Invalid option. Please choose from the available numbers.");
 			}
@@ -9,13 +9,14 @@ import com.syos.model.Customer;
 import com.syos.model.Product;
 import com.syos.repository.CustomerRepository;
 import com.syos.repository.ProductRepository;
+import com.syos.repository.Storage;
 import org.mindrot.jbcrypt.BCrypt;
 
 public class OnlineStoreService {
 	private final Scanner scanner = new Scanner(System.in);
 	private final CustomerRegistrationService registrationService = new CustomerRegistrationService();
-	private final CustomerRepository customerRepository = new CustomerRepository();
-	private final ProductRepository productRepository = new ProductRepository();
+	private final CustomerRepository customerRepository = Storage.getInstance().customers();
+	private final ProductRepository productRepository = Storage.getInstance().products();
 
 	public void run() {
 		System.out.println("=== Welcome to SYOS Online Store ===");
@@ -0,0 +1,143 @@
+package com.syos.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.syos.config.ConfigLoader;
+import com.syos.metrics.MetricsRegistry;
+import com.syos.model.ImportReport;
+import com.syos.model.Product;
+import com.syos.repository.ProductRepository;
+import com.syos.repository.Storage;
+import com.syos.util.CsvReader;
+
+/**
+ * Loads a product catalogue from CSV with {@code code,name,price} columns and
+ * an optional header line. Rows are validated with the same rules as
+ * {@link ProductService#addProduct}, codes repeated within the file are
+ * caught in memory, and the accepted rows go to the database a chunk at a
+ * time in one statement each, so there is no per-product existence check.
+ * Every rejected row is listed in the report with its line number.
+ */
+public class ProductImportService {
+	private final ProductRepository productRepository;
+	private final int chunkSize;
+
+	public ProductImportService() {
+		this(Storage.getInstance().products(), ConfigLoader.getInt("import.products.chunk.size", 1000));
+	}
+
+	public ProductImportService(ProductRepository productRepository, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive.");
+		}
+		this.productRepository = productRepository;
+		this.chunkSize = chunkSize;
+	}
+
+	public ImportReport importCsv(Reader input) {
+		ImportReport report = new ImportReport();
+		// code -> line it was first seen on
+		Map<String, Integer> seen = new HashMap<>();
+		List<Product> chunk = new ArrayList<>(chunkSize);
+		List<Integer> chunkLines = new ArrayList<>(chunkSize);
+
+		try (CsvReader csv = new CsvReader(input)) {
+			boolean first = true;
+			while (true) {
+				List<String> fields;
+				try {
+					fields = csv.next();
+				} catch (IllegalArgumentException e) {
+					report.rowRead();
+					report.reject(csv.getLineNumber(), e.getMessage());
+					continue;
+				}
+				if (fields == null) {
+					break;
+				}
+				if (first && !fields.isEmpty() && "code".equalsIgnoreCase(fields.get(0))) {
+					first = false;
+					continue;
+				}
+				first = false;
+				report.rowRead();
+				int line = csv.getLineNumber();
+
+				Product product;
+				try {
+					product = parse(fields);
+				} catch (IllegalArgumentException e) {
+					report.reject(line, e.getMessage());
+					continue;
+				}
+				Integer firstLine = seen.putIfAbsent(product.getCode(), line);
+				if (firstLine != null) {
+					report.reject(line, "Duplicate product code " + product.getCode() + ", first given on line "
+							+ firstLine);
+					continue;
+				}
+
+				chunk.add(product);
+				chunkLines.add(line);
+				if (chunk.size() == chunkSize) {
+					flush(chunk, chunkLines, report);
+				}
+			}
+			flush(chunk, chunkLines, report);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading product import", e);
+		}
+
+		MetricsRegistry.getInstance().counter("import.products.rows").add(report.getRowsImported());
+		return report;
+	}
+
+	private void flush(List<Product> chunk, List<Integer> chunkLines, ImportReport report) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		Set<String> added = productRepository.addAll(chunk);
+		report.imported(added.size());
+		for (int i = 0; i < chunk.size(); i++) {
+			String code = chunk.get(i).getCode();
+			if (!added.contains(code)) {
+				report.reject(chunkLines.get(i), "Product code already exists: " + code);
+			}
+		}
+		chunk.clear();
+		chunkLines.clear();
+	}
+
+	private static Product parse(List<String> fields) {
+		if (fields.size() != 3) {
+			throw new IllegalArgumentException("Expected 3 fields (code, name, price) but found " + fields.size());
+		}
+		String code = fields.get(0);
+		String name = fields.get(1);
+		if (code.isEmpty()) {
+			throw new IllegalArgumentException("Product code cannot be empty");
+		}
+		if (name.isEmpty()) {
+			throw new IllegalArgumentException("Product name cannot be empty");
+		}
+		ProductService.validate(code, name);
+
+		double price;
+		try {
+			price = Double.parseDouble(fields.get(2));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid price: " + fields.get(2));
+		}
+		if (!Double.isFinite(price) || price < 0) {
+			throw new IllegalArgumentException("Price must be a non-negative number: " + fields.get(2));
+		}
+		return new Product(code, name, price);
+	}
+}
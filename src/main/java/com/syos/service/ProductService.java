@@ -2,17 +2,21 @@ package com.syos.service;
 
 import com.syos.model.Product;
 import com.syos.repository.ProductRepository;
+import com.syos.repository.Storage;
 
 public class ProductService {
-	private final ProductRepository productRepository = new ProductRepository();
+	private final ProductRepository productRepository;
+
+	public ProductService() {
+		this(Storage.getInstance().products());
+	}
+
+	public ProductService(ProductRepository productRepository) {
+		this.productRepository = productRepository;
+	}
 
 	public Product addProduct(String code, String name, double price) {
-		if (code.length() > 10) {
-			throw new IllegalArgumentException("Product code must be at most 10 characters");
-		}
-		if (name.length() > 100) {
-			throw new IllegalArgumentException("Product name must be at most 100 characters");
-		}
+		validate(code, name);
 
 		if (productRepository.findByCode(code) != null) {
 			throw new IllegalArgumentException("Product code already exists: " + code);
@@ -24,4 +28,14 @@ public class ProductService {
 
 		return p;
 	}
+
+	// length rules shared with the bulk import
+	static void validate(String code, String name) {
+		if (code.length() > 10) {
+			throw new IllegalArgumentException("Product code must be at most 10 characters");
+		}
+		if (name.length() > 100) {
+			throw new IllegalArgumentException("Product name must be at most 100 characters");
+		}
+	}
 }
@@ -1,35 +1,80 @@
 package com.syos.service;
 
+import com.syos.analytics.ColumnarSalesStore;
+import com.syos.analytics.HourlySalesHistogram;
+import com.syos.analytics.ProductSales;
+import com.syos.analytics.SalesAggregator;
+import com.syos.config.ConfigLoader;
+import com.syos.db.QueryTracker;
 import com.syos.dto.BillReportDTO;
 import com.syos.dto.BillItemReportDTO;
 import com.syos.dto.ReportDTOMapper;
+import com.syos.dto.ReshelveReportDTO;
+import com.syos.metrics.jfr.ReportEvent;
 import com.syos.model.Bill;
 import com.syos.model.BillItem;
 import com.syos.repository.ReportRepository;
+import com.syos.repository.Storage;
+import com.syos.singleton.InventoryManager;
+import com.syos.singleton.SalesAnalytics;
+import com.syos.strategy.ExpiryAwareFifoStrategy;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.stream.Collectors;
 
 public class ReportService {
+	private static final int DEFAULT_TOP_N = 10;
+	private static final int HISTOGRAM_WIDTH = 40;
+	private static final int PAGE_SIZE = ConfigLoader.getInt("report.page.size", 20);
+
 	private final Scanner scanner = new Scanner(System.in);
-	private final ReportRepository reportRepository = new ReportRepository();
+	private final ReportRepository reportRepository;
+	private final InventoryManager inventoryManager;
+
+	public ReportService() {
+		this(Storage.getInstance().reports(), InventoryManager.getInstance(new ExpiryAwareFifoStrategy()));
+	}
+
+	public ReportService(ReportRepository reportRepository, InventoryManager inventoryManager) {
+		this.reportRepository = reportRepository;
+		this.inventoryManager = inventoryManager;
+	}
 
 	public void run() {
 		while (true) {
 			System.out.println("\n=== Report Menu ===");
 			System.out.println("1) Daily Sales Report (Detailed)");
-			System.out.println("2) Exit");
+			System.out.println("2) Reshelve Report (Units Sold vs. Shelf)");
+			System.out.println("3) Top Selling Products");
+			System.out.println("4) Hourly Sales Histogram");
+			System.out.println("5) Live Sales (Today)");
+			System.out.println("6) Revenue by Product (In-Memory Analytics)");
+			System.out.println("7) Discount Spend by Week (In-Memory Analytics)");
+			System.out.println("8) Live Dashboard (Approximate)");
+			System.out.println("9) Browse Bills by Day (Paged)");
+			System.out.println("10) Exit");
 			System.out.print("Choose an option: ");
 			String choice = scanner.nextLine();
 
 			switch (choice) {
 			case "1" -> generateDailySalesReport();
-			case "2" -> {
+			case "2" -> generateReshelveReport();
+			case "3" -> generateTopSellersReport();
+			case "4" -> generateHourlyHistogramReport();
+			case "5" -> displayLiveSales();
+			case "6" -> generateRevenueByProductReport();
+			case "7" -> generateDiscountByWeekReport();
+			case "8" -> displayLiveDashboard();
+			case "9" -> browseBills();
+			case "10" -> {
 				System.out.println("Exiting report menu.");
 				return;
 			}
@@ -40,42 +85,356 @@ public class ReportService {
 
 	private void generateDailySalesReport() {
 		System.out.println("\n--- Daily Sales Report ---");
-		LocalDate reportDate = null;
-		while (reportDate == null) {
+		LocalDate reportDate = promptReportDate();
 
-			System.out.print("Enter date for report (YYYY-MM-DD) or press Enter for today's report: ");
-			String dateString = scanner.nextLine().trim();
+		List<BillReportDTO> billReportDTOs = getDailySales(reportDate);
+		if (billReportDTOs.isEmpty()) {
+			System.out.println("No sales records found for " + reportDate.format(DateTimeFormatter.ISO_DATE));
+			return;
+		}
+		double totalDailyRevenue = billReportDTOs.stream().mapToDouble(BillReportDTO::getTotalAmount).sum();
+		displaySalesReport(reportDate, billReportDTOs, totalDailyRevenue);
+	}
 
-			if (dateString.isEmpty()) {
-				reportDate = LocalDate.now(); 
-			} else {
-				try {
-					reportDate = LocalDate.parse(dateString);
-				} catch (DateTimeParseException e) {
-					System.out.println("Invalid date format. Please use YYYY-MM-DD.");
-				}
+	// the day's bills with their lines, in two round trips however many bills there are
+	public List<BillReportDTO> getDailySales(LocalDate reportDate) {
+		List<BillReportDTO> billReportDTOs = new ArrayList<>();
+		try (QueryTracker.Scope scope = QueryTracker.begin("report.dailySales")) {
+			ReportEvent event = startReport("dailySales");
+			List<Bill> bills = reportRepository.getBillsByDate(reportDate);
+			if (bills.isEmpty()) {
+				return billReportDTOs;
+			}
+
+			List<Integer> billIds = bills.stream().map(Bill::getId).collect(Collectors.toList());
+			Map<Integer, List<BillItem>> itemsByBill = reportRepository.getBillItemsByBillIds(billIds);
+			for (Bill bill : bills) {
+				List<BillItemReportDTO> itemDTOs = itemsByBill.getOrDefault(bill.getId(), List.of()).stream()
+						.map(ReportDTOMapper::toBillItemReportDTO).collect(Collectors.toList());
+				billReportDTOs.add(ReportDTOMapper.toBillReportDTO(bill, itemDTOs));
 			}
+			finishReport(event, billReportDTOs.size());
 		}
+		return billReportDTOs;
+	}
 
-		List<Bill> bills = reportRepository.getBillsByDate(reportDate);
+	private void browseBills() {
+		System.out.println("\n--- Browse Bills ---");
+		LocalDate reportDate = promptReportDate();
 
-		if (bills.isEmpty()) {
+		// one extra row tells us whether another page follows without a count query
+		List<Bill> page = reportRepository.getBillsAfter(reportDate, null, PAGE_SIZE + 1);
+		if (page.isEmpty()) {
 			System.out.println("No sales records found for " + reportDate.format(DateTimeFormatter.ISO_DATE));
 			return;
 		}
 
-		List<BillReportDTO> billReportDTOs = new ArrayList<>();
-		double totalDailyRevenue = 0.0;
+		int pageNumber = 1;
+		while (true) {
+			boolean hasNext = page.size() > PAGE_SIZE;
+			if (hasNext) {
+				page = page.subList(0, PAGE_SIZE);
+			}
+			displayBillPage(reportDate, pageNumber, page);
+
+			System.out.printf("%s%s(q) back to menu: ", hasNext ? "(n) next page  " : "",
+					pageNumber > 1 ? "(p) previous page  " : "");
+			String choice = scanner.nextLine().trim().toLowerCase();
+			if ("n".equals(choice) && hasNext) {
+				page = reportRepository.getBillsAfter(reportDate, page.get(page.size() - 1), PAGE_SIZE + 1);
+				pageNumber++;
+			} else if ("p".equals(choice) && pageNumber > 1) {
+				Bill firstOnPage = page.get(0);
+				page = new ArrayList<>(reportRepository.getBillsBefore(reportDate, firstOnPage, PAGE_SIZE));
+				// the page we just left is the look-ahead row for the previous one
+				page.add(firstOnPage);
+				pageNumber--;
+			} else if ("q".equals(choice)) {
+				return;
+			} else {
+				System.out.println("Invalid option.");
+			}
+		}
+	}
 
+	private void displayBillPage(LocalDate reportDate, int pageNumber, List<Bill> bills) {
+		ReportEvent event = startReport("billPage");
+		List<Integer> billIds = bills.stream().map(Bill::getId).collect(Collectors.toList());
+		Map<Integer, List<BillItem>> itemsByBill = reportRepository.getBillItemsByBillIds(billIds);
+		finishReport(event, bills.size());
+
+		System.out.printf("%nBills for %s - page %d%n", reportDate.format(DateTimeFormatter.ISO_DATE), pageNumber);
+		System.out.println("===================================================================================");
 		for (Bill bill : bills) {
-			List<BillItem> billItems = reportRepository.getBillItemsByBillId(bill.getId());
-			List<BillItemReportDTO> itemDTOs = billItems.stream().map(ReportDTOMapper::toBillItemReportDTO)
-					.collect(Collectors.toList());
-			BillReportDTO billDTO = ReportDTOMapper.toBillReportDTO(bill, itemDTOs);
-			billReportDTOs.add(billDTO);
-			totalDailyRevenue += billDTO.getTotalAmount();
+			List<BillItemReportDTO> itemDTOs = itemsByBill.getOrDefault(bill.getId(), List.of()).stream()
+					.map(ReportDTOMapper::toBillItemReportDTO).collect(Collectors.toList());
+			displayBill(ReportDTOMapper.toBillReportDTO(bill, itemDTOs));
+		}
+	}
+
+	private LocalDate promptReportDate() {
+		return promptDate("Enter date for report (YYYY-MM-DD) or press Enter for today's report: ", LocalDate.now());
+	}
+
+	private void generateReshelveReport() {
+		System.out.println("\n--- Reshelve Report ---");
+		LocalDate reportDate = promptReportDate();
+
+		ReportEvent event = startReport("reshelve");
+		List<ReshelveReportDTO> rows = reportRepository.getReshelveReport(reportDate);
+		finishReport(event, rows.size());
+		if (rows.isEmpty()) {
+			System.out.println("No units sold on " + reportDate.format(DateTimeFormatter.ISO_DATE));
+			return;
+		}
+
+		System.out.println("\nReshelve Report for: " + reportDate.format(DateTimeFormatter.ISO_DATE));
+		System.out.println("===================================================================================");
+		System.out.printf("%-12s %-25s %-10s %-10s %-12s %-10s%n", "Code", "Product", "Sold", "Shelf", "Back-Store",
+				"To Move");
+		System.out.println("-----------------------------------------------------------------------------------");
+
+		Map<String, Integer> toMove = new LinkedHashMap<>();
+		for (ReshelveReportDTO row : rows) {
+			System.out.printf("%-12s %-25s %-10d %-10d %-12d %-10d%n", row.getProductCode(), row.getProductName(),
+					row.getUnitsSold(), row.getShelfQuantity(), row.getBackStoreQuantity(),
+					row.getSuggestedMoveQuantity());
+			if (row.getSuggestedMoveQuantity() > 0) {
+				toMove.put(row.getProductCode(), row.getSuggestedMoveQuantity());
+			}
+		}
+		System.out.println("===================================================================================");
+
+		if (toMove.isEmpty()) {
+			System.out.println("Shelves already cover today's sales. Nothing to move.");
+			return;
+		}
+
+		System.out.print("Move the suggested quantities to shelf now? (yes/no): ");
+		if (!"yes".equalsIgnoreCase(scanner.nextLine().trim())) {
+			return;
+		}
+
+		try {
+			Map<String, Integer> moved = inventoryManager.moveAllToShelf(toMove);
+			System.out.printf("Reshelved %d of %d products.%n", moved.size(), toMove.size());
+		} catch (RuntimeException e) {
+			System.out.println("Error while reshelving: " + e.getMessage());
+		}
+	}
+
+	private void generateTopSellersReport() {
+		System.out.println("\n--- Top Selling Products ---");
+		LocalDate from = promptDate("Start date (YYYY-MM-DD) or press Enter for today: ", LocalDate.now());
+		LocalDate to = promptDate("End date (YYYY-MM-DD, inclusive) or press Enter for the start date: ", from);
+		if (to.isBefore(from)) {
+			System.out.println("End date cannot be before start date.");
+			return;
+		}
+		int n = promptTopN();
+
+		ReportEvent event = startReport("topSellers");
+		SalesAggregator aggregator = new SalesAggregator();
+		reportRepository.streamSaleLines(from, to.plusDays(1), aggregator);
+		List<ProductSales> topSellers = aggregator.topSellers(n);
+		finishReport(event, topSellers.size());
+		displayTopSellers(String.format("Top %d products from %s to %s", n, from, to), topSellers);
+	}
+
+	private void generateHourlyHistogramReport() {
+		System.out.println("\n--- Hourly Sales Histogram ---");
+		LocalDate from = promptDate("Start date (YYYY-MM-DD) or press Enter for today: ", LocalDate.now());
+		LocalDate to = promptDate("End date (YYYY-MM-DD, inclusive) or press Enter for the start date: ", from);
+		if (to.isBefore(from)) {
+			System.out.println("End date cannot be before start date.");
+			return;
+		}
+
+		ReportEvent event = startReport("hourlyHistogram");
+		SalesAggregator aggregator = new SalesAggregator();
+		reportRepository.streamSaleLines(from, to.plusDays(1), aggregator);
+		finishReport(event, HourlySalesHistogram.HOURS);
+		displayHistogram(String.format("Units sold by hour from %s to %s", from, to), aggregator.getHistogram());
+	}
+
+	private void displayLiveSales() {
+		SalesAnalytics analytics = SalesAnalytics.getInstance();
+		System.out.printf("%n--- Live Sales for %s (%d lines since start-up) ---%n", LocalDate.now(),
+				analytics.liveLineCount());
+		displayTopSellers("Top " + DEFAULT_TOP_N + " products today", analytics.liveTopSellers(DEFAULT_TOP_N));
+		displayHistogram("Units sold by hour today", analytics.liveHistogram());
+	}
+
+	private void generateRevenueByProductReport() {
+		System.out.println("\n--- Revenue by Product ---");
+		int days = promptPositiveInt("Look back how many days? (press Enter for 90): ", 90);
+		ReportEvent event = startReport("revenueByProduct");
+		ColumnarSalesStore store = SalesAnalytics.getInstance().columnarStore(reportRepository);
+
+		LocalDate from = LocalDate.now().minusDays(days - 1L);
+		long fromMillis = toEpochMillis(from);
+		long toMillis = toEpochMillis(LocalDate.now().plusDays(1));
+		List<ProductSales> sales = store.salesByProduct(fromMillis, toMillis);
+		finishReport(event, sales.size());
+
+		System.out.printf("%nRevenue by product from %s to %s (%d lines in memory)%n", from, LocalDate.now(),
+				store.getRowCount());
+		System.out.println("===================================================================================");
+		if (sales.isEmpty()) {
+			System.out.println("No sales recorded.");
+			return;
+		}
+		System.out.printf("%-15s %-12s %-12s%n", "Product Code", "Units", "Revenue");
+		System.out.println("-----------------------------------------------------------------------------------");
+		for (ProductSales row : sales) {
+			System.out.printf("%-15s %-12d %-12.2f%n", row.getProductCode(), row.getUnits(), row.getRevenue());
+		}
+		System.out.println("-----------------------------------------------------------------------------------");
+		System.out.printf("Total revenue: %.2f%n", store.totalRevenue(fromMillis, toMillis));
+		System.out.println("===================================================================================");
+	}
+
+	private void generateDiscountByWeekReport() {
+		System.out.println("\n--- Discount Spend by Week ---");
+		int weeks = promptPositiveInt("Look back how many weeks? (press Enter for 12): ", 12);
+		ReportEvent event = startReport("discountByWeek");
+		ColumnarSalesStore store = SalesAnalytics.getInstance().columnarStore(reportRepository);
+
+		LocalDate from = LocalDate.now().plusDays(1).minusWeeks(weeks);
+		double[] discountByWeek = store.discountByWeek(toEpochMillis(from), weeks);
+		finishReport(event, weeks);
+
+		System.out.println("\nDiscount given per week");
+		System.out.println("===================================================================================");
+		System.out.printf("%-25s %-12s%n", "Week", "Discount");
+		System.out.println("-----------------------------------------------------------------------------------");
+		for (int week = 0; week < weeks; week++) {
+			LocalDate weekStart = from.plusWeeks(week);
+			System.out.printf("%-25s %-12.2f%n", weekStart + " to " + weekStart.plusDays(6), discountByWeek[week]);
+		}
+		System.out.println("===================================================================================");
+	}
+
+	private void displayLiveDashboard() {
+		SalesAnalytics analytics = SalesAnalytics.getInstance();
+		System.out.printf("%n--- Live Dashboard for %s (approximate) ---%n", LocalDate.now());
+		System.out.println("===================================================================================");
+		long bills = analytics.sketchedBillCount();
+		if (bills == 0) {
+			System.out.println("No bills committed since start-up.");
+			return;
+		}
+
+		System.out.printf("Bills: %d | Units: %d%n", bills, analytics.sketchedUnitCount());
+		System.out.printf("Basket value  p50: %.2f | p90: %.2f | p99: %.2f | max: %.2f%n",
+				analytics.basketValueQuantile(0.50), analytics.basketValueQuantile(0.90),
+				analytics.basketValueQuantile(0.99), analytics.maxBasketValue());
+		System.out.println("-----------------------------------------------------------------------------------");
+		System.out.printf("%-8s %-12s%n", "Hour", "~Baskets");
+		for (int hour = 0; hour < HourlySalesHistogram.HOURS; hour++) {
+			long baskets = analytics.estimateBaskets(hour);
+			if (baskets > 0) {
+				System.out.printf("%02d:00    %-12d%n", hour, baskets);
+			}
+		}
+		System.out.println("===================================================================================");
+
+		while (true) {
+			System.out.print("Product code to estimate units sold today (press Enter to return): ");
+			String code = scanner.nextLine().trim();
+			if (code.isEmpty()) {
+				return;
+			}
+			System.out.printf("  ~%d units of %s sold today%n", analytics.estimateUnitsSold(code), code);
+		}
+	}
+
+	private static long toEpochMillis(LocalDate date) {
+		return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private static ReportEvent startReport(String report) {
+		ReportEvent event = new ReportEvent(report);
+		event.start();
+		return event;
+	}
+
+	private static void finishReport(ReportEvent event, int rows) {
+		event.setQuantity(rows);
+		event.finish();
+	}
+
+	private void displayTopSellers(String title, List<ProductSales> topSellers) {
+		System.out.println("\n" + title);
+		System.out.println("===================================================================================");
+		if (topSellers.isEmpty()) {
+			System.out.println("No sales recorded.");
+			return;
+		}
+		System.out.printf("%-6s %-15s %-12s %-12s%n", "Rank", "Product Code", "Units", "Revenue");
+		System.out.println("-----------------------------------------------------------------------------------");
+		int rank = 1;
+		for (ProductSales sales : topSellers) {
+			System.out.printf("%-6d %-15s %-12d %-12.2f%n", rank++, sales.getProductCode(), sales.getUnits(),
+					sales.getRevenue());
+		}
+		System.out.println("===================================================================================");
+	}
+
+	private void displayHistogram(String title, HourlySalesHistogram histogram) {
+		System.out.println("\n" + title);
+		System.out.println("===================================================================================");
+		long peak = histogram.getPeakUnits();
+		if (peak == 0) {
+			System.out.println("No sales recorded.");
+			return;
+		}
+		for (int hour = 0; hour < HourlySalesHistogram.HOURS; hour++) {
+			long units = histogram.getUnits(hour);
+			int barLength = (int) Math.round(units * (double) HISTOGRAM_WIDTH / peak);
+			System.out.printf("%02d:00 %-" + HISTOGRAM_WIDTH + "s %8d units %10.2f%n", hour, "#".repeat(barLength),
+					units, histogram.getRevenue(hour));
+		}
+		System.out.println("===================================================================================");
+	}
+
+	private LocalDate promptDate(String prompt, LocalDate defaultDate) {
+		while (true) {
+			System.out.print(prompt);
+			String dateString = scanner.nextLine().trim();
+			if (dateString.isEmpty()) {
+				return defaultDate;
+			}
+			try {
+				return LocalDate.parse(dateString);
+			} catch (DateTimeParseException e) {
+				System.out.println("Invalid date format. Please use YYYY-MM-DD.");
+			}
+		}
+	}
+
+	private int promptTopN() {
+		return promptPositiveInt(String.format("How many products to list? (press Enter for %d): ", DEFAULT_TOP_N),
+				DEFAULT_TOP_N);
+	}
+
+	private int promptPositiveInt(String prompt, int defaultValue) {
+		while (true) {
+			System.out.print(prompt);
+			String input = scanner.nextLine().trim();
+			if (input.isEmpty()) {
+				return defaultValue;
+			}
+			try {
+				int n = Integer.parseInt(input);
+				if (n > 0) {
+					return n;
+				}
+				System.out.println("Please enter a positive number.");
+			} catch (NumberFormatException e) {
+				System.out.println("Invalid number. Please enter a positive integer.");
+			}
 		}
-		displaySalesReport(reportDate, billReportDTOs, totalDailyRevenue);
 	}
 
 	private void displaySalesReport(LocalDate reportDate, List<BillReportDTO> billReportDTOs,
@@ -84,32 +443,36 @@ public class ReportService {
 		System.out.println("===================================================================================");
 
 		for (BillReportDTO billDTO : billReportDTOs) {
-			System.out.printf(
-					"Bill #%d - Date: %s - Type: %s%n", billDTO.getSerialNumber(), billDTO.getBillDate().toInstant()
-							.atZone(java.time.ZoneId.systemDefault()).toLocalDate().format(DateTimeFormatter.ISO_DATE),
-					billDTO.getTransactionType());
-			System.out.printf("  Cash Tendered: %.2f | Change Returned: %.2f%n", billDTO.getCashTendered(),
-					billDTO.getChangeReturned());
-
-			List<BillItemReportDTO> itemDTOs = billDTO.getItems();
-			if (itemDTOs != null && !itemDTOs.isEmpty()) {
-				System.out.printf("  %-25s %-10s %-10s %-12s %-10s%n", "Item", "Qty", "Unit Price", "Subtotal",
-						"Discount");
-				System.out.println("  ---------------------------------------------------------------------------------");
-				for (BillItemReportDTO itemDTO : itemDTOs) {
-					System.out.printf("  %-25s %-10d %-10.2f %-12.2f %-10.2f%n", itemDTO.getProductName(),
-							itemDTO.getQuantity(), itemDTO.getUnitPrice(), itemDTO.getCalculatedSubtotal(),
-							itemDTO.getDiscountAmount());
-				}
-				System.out.printf("  %-50s Total for Bill #%d: %.2f%n", "", billDTO.getSerialNumber(),
-						billDTO.getTotalAmount());
-			} else {
-				System.out.println("  No items found for this bill.");
-			}
-			System.out.println("-----------------------------------------------------------------------------------");
+			displayBill(billDTO);
 		}
 		System.out.printf("Total revenue for %s: %.2f%n", reportDate.format(DateTimeFormatter.ISO_DATE),
 				totalDailyRevenue);
 		System.out.println("===================================================================================");
 	}
-}
\ No newline at end of file
+
+	private void displayBill(BillReportDTO billDTO) {
+		System.out.printf(
+				"Bill #%d - Date: %s - Type: %s%n", billDTO.getSerialNumber(), billDTO.getBillDate().toInstant()
+						.atZone(java.time.ZoneId.systemDefault()).toLocalDate().format(DateTimeFormatter.ISO_DATE),
+				billDTO.getTransactionType());
+		System.out.printf("  Cash Tendered: %.2f | Change Returned: %.2f%n", billDTO.getCashTendered(),
+				billDTO.getChangeReturned());
+
+		List<BillItemReportDTO> itemDTOs = billDTO.getItems();
+		if (itemDTOs != null && !itemDTOs.isEmpty()) {
+			System.out.printf("  %-25s %-10s %-10s %-12s %-10s%n", "Item", "Qty", "Unit Price", "Subtotal",
+					"Discount");
+			System.out.println("  ---------------------------------------------------------------------------------");
+			for (BillItemReportDTO itemDTO : itemDTOs) {
+				System.out.printf("  %-25s %-10d %-10.2f %-12.2f %-10.2f%n", itemDTO.getProductName(),
+						itemDTO.getQuantity(), itemDTO.getUnitPrice(), itemDTO.getCalculatedSubtotal(),
+						itemDTO.getDiscountAmount());
+			}
+			System.out.printf("  %-50s Total for Bill #%d: %.2f%n", "", billDTO.getSerialNumber(),
+					billDTO.getTotalAmount());
+		} else {
+			System.out.println("  No items found for this bill.");
+		}
+		System.out.println("-----------------------------------------------------------------------------------");
+	}
+}
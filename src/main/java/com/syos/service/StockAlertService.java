@@ -1,16 +1,20 @@
 package com.syos.service;
 
+import java.util.function.IntSupplier;
+
 import com.syos.observer.StockObserver;
 
 public class StockAlertService implements StockObserver {
-	private final int threshold;
+	// read on every alert, so a threshold changed at runtime shows up in the message
+	private final IntSupplier threshold;
 
-	public StockAlertService(int threshold) {
+	public StockAlertService(IntSupplier threshold) {
 		this.threshold = threshold;
 	}
 
 	@Override
 	public void onStockLow(String productCode, int remaining) {
-		System.out.printf("!LOW STOCK: %s remaining=%d (threshold=%d)%n", productCode, remaining, threshold);
+		System.out.printf("!LOW STOCK: %s remaining=%d (threshold=%d)%n", productCode, remaining,
+				threshold.getAsInt());
 	}
 }
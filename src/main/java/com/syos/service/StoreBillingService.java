@@ -3,36 +3,93 @@ package com.syos.service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.syos.db.QueryTracker;
 import com.syos.factory.BillItemFactory;
+import com.syos.metrics.jfr.CheckoutCommitEvent;
+import com.syos.metrics.jfr.CheckoutStartEvent;
 import com.syos.model.Bill;
 import com.syos.model.BillItem;
 import com.syos.model.Product;
 import com.syos.repository.BillingRepository;
 import com.syos.repository.ProductRepository;
+import com.syos.repository.Storage;
 import com.syos.singleton.InventoryManager;
+import com.syos.singleton.SalesAnalytics;
 import com.syos.strategy.DiscountPricingStrategy;
 import com.syos.strategy.ExpiryAwareFifoStrategy;
+import com.syos.strategy.MarkdownPricingStrategy;
 import com.syos.strategy.NoDiscountStrategy;
 
 public class StoreBillingService {
-	private final ProductRepository productReposiotry = new ProductRepository();
-	private final BillingRepository billRepository = new BillingRepository();
-	private final BillItemFactory billItemFactory = new BillItemFactory(
-			new DiscountPricingStrategy(new NoDiscountStrategy()));
+	// numbers the bills opened at the tills of this process, to pair their start and commit events
+	private static final AtomicLong CHECKOUT_IDS = new AtomicLong();
+
+	private final ProductRepository productReposiotry;
+	private final BillingRepository billRepository;
+	private final BillItemFactory billItemFactory;
 	private final Scanner inputScanner = new Scanner(System.in);
 	private final InventoryManager inventoryManager;
-	private static final int STOCK_ALERT_THRESHOLD = 50;
 
 	public StoreBillingService() {
-		inventoryManager = InventoryManager.getInstance(new ExpiryAwareFifoStrategy());
-		inventoryManager.addObserver(new StockAlertService(STOCK_ALERT_THRESHOLD));
+		this(new MarkdownPricingStrategy(new DiscountPricingStrategy(new NoDiscountStrategy())));
+	}
+
+	// expiry markdowns stack on top of any configured discount
+	private StoreBillingService(MarkdownPricingStrategy pricingStrategy) {
+		this(Storage.getInstance().products(), Storage.getInstance().billing(), new BillItemFactory(pricingStrategy),
+				InventoryManager.getInstance(new ExpiryAwareFifoStrategy()));
+		inventoryManager.addObserver(new StockAlertService(inventoryManager::getLowStockThreshold));
+		billRepository.addObserver(SalesAnalytics.getInstance());
+		pricingStrategy.startRefresher();
+	}
+
+	public StoreBillingService(ProductRepository productRepository, BillingRepository billRepository,
+			BillItemFactory billItemFactory, InventoryManager inventoryManager) {
+		this.productReposiotry = productRepository;
+		this.billRepository = billRepository;
+		this.billItemFactory = billItemFactory;
+		this.inventoryManager = inventoryManager;
+	}
+
+	// non-interactive part of a sale: allocate the serial, store the bill and take
+	// the items off the shelf
+	public Bill checkout(List<BillItem> billItems, double cashTendered) {
+		return checkout(billItems, cashTendered, 0);
+	}
+
+	// checkoutId is the one the bill was opened with at the till, 0 when it was not
+	public Bill checkout(List<BillItem> billItems, double cashTendered, long checkoutId) {
+		try (QueryTracker.Scope scope = QueryTracker.begin("checkout")) {
+			CheckoutCommitEvent event = new CheckoutCommitEvent();
+			event.start();
+			event.setCheckoutId(checkoutId);
+			int serialNumber = billRepository.nextSerial();
+			Bill bill = new Bill.BillBuilder(serialNumber, billItems).withCashTendered(cashTendered).build();
+
+			billRepository.save(bill);
+
+			for (BillItem item : billItems) {
+				inventoryManager.deductFromShelf(item.getProduct().getCode(), item.getQuantity());
+			}
+
+			event.setSerialNumber(serialNumber);
+			event.setLineCount(billItems.size());
+			event.setQuantity(billItems.stream().mapToInt(BillItem::getQuantity).sum());
+			event.finish();
+			return bill;
+		}
 	}
 
 	public void run() {
 		while (true) {
 			List<BillItem> billItems = new ArrayList<>();
 			System.out.println("\n--- Start New Bill ---");
+			long checkoutId = CHECKOUT_IDS.incrementAndGet();
+			CheckoutStartEvent started = new CheckoutStartEvent();
+			started.setCheckoutId(checkoutId);
+			started.commit();
 			System.out.println("Enter product details. Type 'done' to finish and proceed to payment.");
 
 			while (true) {
@@ -121,16 +178,9 @@ public class StoreBillingService {
 				continue;
 			}
 
-			int serialNumber = billRepository.nextSerial();
-			Bill bill = new Bill.BillBuilder(serialNumber, billItems).withCashTendered(cashTendered).build();
-
-			billRepository.save(bill);
+			Bill bill = checkout(billItems, cashTendered, checkoutId);
 			System.out.println("\nBill saved successfully!");
 
-			for (BillItem item : billItems) {
-				inventoryManager.deductFromShelf(item.getProduct().getCode(), item.getQuantity());
-			}
-
 			System.out.println("\n--- Final Bill #" + bill.getSerialNumber() + " ---");
 			System.out.println("Date: " + bill.getBillDate());
 			System.out.println("---------------------------------------------------------------------------");
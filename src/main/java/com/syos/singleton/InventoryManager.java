@@ -1,32 +1,138 @@
 package com.syos.singleton;
 
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.syos.config.ConfigLoader;
+import com.syos.journal.InventoryJournal;
+import com.syos.journal.JournalEntry;
+import com.syos.journal.StockState;
+import com.syos.metrics.InventoryMonitor;
+import com.syos.metrics.Jmx;
+import com.syos.metrics.LatencyHistogram;
+import com.syos.metrics.MetricsRegistry;
+import com.syos.metrics.jfr.ShelfDeductEvent;
+import com.syos.metrics.jfr.ShelfMoveEvent;
+import com.syos.model.ProductStock;
+import com.syos.model.ShelfLot;
 import com.syos.model.StockBatch;
+import com.syos.model.StockTotals;
+import com.syos.model.WriteOff;
+import com.syos.observer.ExpiryObserver;
+import com.syos.observer.ShelfLotObserver;
 import com.syos.observer.StockObserver;
 import com.syos.repository.ShelfStockRepository;
 import com.syos.repository.StockBatchRepository;
+import com.syos.repository.Storage;
+import com.syos.repository.StorageProvider;
+import com.syos.repository.StorageTransaction;
 import com.syos.strategy.ShelfStrategy;
+import com.syos.util.ExpiryWheel;
 
 public class InventoryManager {
+	// later than any expiry date, to read every shelf lot
+	private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+	private static final Comparator<ShelfLot> FEFO = Comparator.comparing(ShelfLot::getExpiryDate)
+			.thenComparingInt(ShelfLot::getBatchId);
+	// for repositories handed in without their provider: each write stands alone
+	private static final StorageTransaction NO_TRANSACTION = new StorageTransaction() {
+		@Override
+		public void commit() {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
 	private static InventoryManager instance;
 
 	private final StockBatchRepository batchRepository;
 	private final ShelfStockRepository shelfRepository;
 	private final ShelfStrategy strategy;
-	private final List<StockObserver> observers = new ArrayList<>();
+	// the writes of one movement commit together
+	private final Supplier<StorageTransaction> transactions;
+	// journal appends wait for the enclosing transaction, so rolled-back work is never journalled
+	private final Consumer<Runnable> afterCommit;
+	private final List<StockObserver> observers = new CopyOnWriteArrayList<>();
+	private final List<ExpiryObserver> expiryObservers = new CopyOnWriteArrayList<>();
+	private final List<ShelfLotObserver> shelfLotObservers = new CopyOnWriteArrayList<>();
+
+	// in-memory expiry index, loaded from the back-store on first use; 0 slots turns it off
+	private final int expiryWheelSlots = ConfigLoader.getInt("inventory.expiry.wheel.slots", 64);
+	private volatile ExpiryWheel expiryWheel;
+	private final Object expiryWheelLock = new Object();
+	private ScheduledExecutorService expiryTicker;
+
+	private volatile int lowStockThreshold = ConfigLoader.getInt("inventory.lowstock.threshold", 50);
+	// products that went below the threshold and have not been restocked above it since
+	private final Set<String> pendingLowStock = ConcurrentHashMap.newKeySet();
+	// shelf updates are read-check-write, so each product is serialised on its own lock
+	private final Map<String, ReentrantLock> productLocks = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> lockContentions = new ConcurrentHashMap<>();
+	// shelf lots per product, first to expire at the head; loaded on first use and only changed under the product lock
+	private final Map<String, Deque<ShelfLot>> shelfLots = new ConcurrentHashMap<>();
+	// movement journal, off unless inventory.journal.dir is set or one is handed in
+	private volatile InventoryJournal journal;
+
+	private static final class HeldLock implements AutoCloseable {
+		private final ReentrantLock lock;
+
+		HeldLock(ReentrantLock lock) {
+			this.lock = lock;
+		}
+
+		@Override
+		public void close() {
+			lock.unlock();
+		}
+	}
+
+	public InventoryManager(ShelfStrategy strategy, StorageProvider storage) {
+		this(strategy, storage.stockBatches(), storage.shelfStock(), storage::beginTransaction, storage::afterCommit);
+	}
 
 	public InventoryManager(ShelfStrategy strategy, StockBatchRepository batchRepository,
 			ShelfStockRepository shelfRepository) {
+		this(strategy, batchRepository, shelfRepository, () -> NO_TRANSACTION, Runnable::run);
+	}
+
+	private InventoryManager(ShelfStrategy strategy, StockBatchRepository batchRepository,
+			ShelfStockRepository shelfRepository, Supplier<StorageTransaction> transactions,
+			Consumer<Runnable> afterCommit) {
 		this.strategy = strategy;
 		this.batchRepository = batchRepository;
 		this.shelfRepository = shelfRepository;
+		this.transactions = transactions;
+		this.afterCommit = afterCommit;
 	}
 
 	public static synchronized InventoryManager getInstance(ShelfStrategy strat) {
 		if (instance == null) {
-			instance = new InventoryManager(strat, new StockBatchRepository(), new ShelfStockRepository());
+			instance = new InventoryManager(strat, Storage.getInstance());
+			Jmx.register("com.syos:type=InventoryManager", new InventoryMonitor(instance));
 		}
 		return instance;
 	}
@@ -39,13 +145,111 @@ public class InventoryManager {
 		observers.add(obs);
 	}
 
+	public int getObserverCount() {
+		return observers.size();
+	}
+
+	public void addExpiryObserver(ExpiryObserver obs) {
+		expiryObservers.add(obs);
+	}
+
+	public void addShelfLotObserver(ShelfLotObserver obs) {
+		shelfLotObservers.add(obs);
+	}
+
+	public int getLowStockThreshold() {
+		return lowStockThreshold;
+	}
+
+	public void setLowStockThreshold(int lowStockThreshold) {
+		if (lowStockThreshold < 0) {
+			throw new IllegalArgumentException("Low-stock threshold cannot be negative.");
+		}
+		this.lowStockThreshold = lowStockThreshold;
+	}
+
+	public Set<String> getPendingLowStockProducts() {
+		return Collections.unmodifiableSet(pendingLowStock);
+	}
+
+	public Map<String, Long> getLockContentionCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		lockContentions.forEach((code, count) -> counts.put(code, count.sum()));
+		return counts;
+	}
+
+	private HeldLock lockProduct(String productCode) {
+		ReentrantLock lock = productLocks.computeIfAbsent(productCode, code -> new ReentrantLock());
+		if (!lock.tryLock()) {
+			lockContentions.computeIfAbsent(productCode, code -> new LongAdder()).increment();
+			lock.lock();
+		}
+		return new HeldLock(lock);
+	}
+
+	// once the change is committed, so observers never see lots a rollback takes back
+	private void notifyLotsChanged(String productCode) {
+		if (shelfLotObservers.isEmpty()) {
+			return;
+		}
+		afterCommit.accept(() -> {
+			for (ShelfLotObserver o : shelfLotObservers) {
+				o.onShelfLotsChanged(productCode);
+			}
+		});
+	}
+
 	protected void notifyLow(String code, int remaining) {
+		MetricsRegistry.getInstance().counter("inventory.lowstock.notifications").increment();
 		for (var o : observers) {
 			o.onStockLow(code, remaining);
 		}
 	}
 
 	public void receiveStock(String productCode, LocalDate purchaseDate, LocalDate expiryDate, int quantity) {
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.receiveStock")) {
+			validateReceipt(productCode, purchaseDate, expiryDate, quantity);
+
+			int batchId = batchRepository.createBatch(productCode, purchaseDate, expiryDate, quantity);
+			ExpiryWheel wheel = expiryWheel;
+			if (wheel != null) {
+				wheel.put(new StockBatch(batchId, productCode, purchaseDate, expiryDate, quantity));
+			}
+			record(JournalEntry.Type.RECEIVE, productCode, batchId, quantity, purchaseDate, expiryDate);
+			System.out.printf("Received batch: %s qty=%d exp=%s%n", productCode, quantity, expiryDate);
+		}
+	}
+
+	// a whole delivery at once: every line is checked as receiveStock checks it before any is stored,
+	// then all go in one transaction. Returns the new batch ids in line order
+	public List<Integer> receiveStock(List<StockBatch> deliveryLines) {
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.receiveStockBulk")) {
+			for (StockBatch line : deliveryLines) {
+				validateReceipt(line.getProductCode(), line.getPurchaseDate(), line.getExpiryDate(),
+						line.getQuantityRemaining());
+			}
+
+			List<Integer> batchIds = batchRepository.createBatches(deliveryLines);
+			ExpiryWheel wheel = expiryWheel;
+			if (wheel != null) {
+				for (int i = 0; i < batchIds.size(); i++) {
+					StockBatch line = deliveryLines.get(i);
+					wheel.put(new StockBatch(batchIds.get(i), line.getProductCode(), line.getPurchaseDate(),
+							line.getExpiryDate(), line.getQuantityRemaining()));
+				}
+			}
+			for (int i = 0; i < batchIds.size(); i++) {
+				StockBatch line = deliveryLines.get(i);
+				record(JournalEntry.Type.RECEIVE, line.getProductCode(), batchIds.get(i), line.getQuantityRemaining(),
+						line.getPurchaseDate(), line.getExpiryDate());
+			}
+			MetricsRegistry.getInstance().counter("inventory.received.batches").add(batchIds.size());
+			return batchIds;
+		}
+	}
+
+	public static void validateReceipt(String productCode, LocalDate purchaseDate, LocalDate expiryDate,
+			int quantity) {
 		if (productCode == null || productCode.trim().isEmpty()) {
 			throw new IllegalArgumentException("Product code cannot be empty.");
 		}
@@ -58,81 +262,360 @@ public class InventoryManager {
 		if (expiryDate.isBefore(purchaseDate)) {
 			throw new IllegalArgumentException("Expiry date cannot be before purchase date.");
 		}
-
-		batchRepository.createBatch(productCode, purchaseDate, expiryDate, quantity);
-		System.out.printf("Received batch: %s qty=%d exp=%s%n", productCode, quantity, expiryDate);
 	}
 
 	public void moveToShelf(String productCode, int qtyToMove) {
-		if (productCode == null || productCode.trim().isEmpty()) {
-			throw new IllegalArgumentException("Product code cannot be empty.");
-		}
-		if (qtyToMove <= 0) {
-			throw new IllegalArgumentException("Quantity to move must be positive.");
-		}
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.moveToShelf")) {
+			if (productCode == null || productCode.trim().isEmpty()) {
+				throw new IllegalArgumentException("Product code cannot be empty.");
+			}
+			if (qtyToMove <= 0) {
+				throw new IllegalArgumentException("Quantity to move must be positive.");
+			}
 
-		int remainingToMove = qtyToMove;
+			try (HeldLock lock = lockProduct(productCode)) {
+				ShelfMoveEvent event = new ShelfMoveEvent();
+				event.start();
+				int remainingToMove = qtyToMove;
+
+				List<StockBatch> batches = batchRepository.findByProduct(productCode);
+
+				if (batches == null || batches.isEmpty()) {
+					throw new IllegalArgumentException("No stock batches found for product: " + productCode);
+				}
+
+				int totalAvailableInBatches = batches.stream().mapToInt(StockBatch::getQuantityRemaining).sum();
+				if (totalAvailableInBatches < qtyToMove) {
+					throw new IllegalArgumentException(
+							String.format("Insufficient stock in back-store for %s. Available: %d, Requested: %d.",
+									productCode, totalAvailableInBatches, qtyToMove));
+				}
+
+				// everything is read and the draws are chosen before the first write
+				Deque<ShelfLot> lots = lotsOf(productCode);
+				List<StockBatch> drawnFrom = new ArrayList<>();
+				List<Integer> drawn = new ArrayList<>();
+				while (remainingToMove > 0 && !batches.isEmpty()) {
+					StockBatch chosenBatch = strategy.selectBatch(batches);
+					if (chosenBatch == null) {
+						throw new IllegalStateException("Shelf strategy returned null batch unexpectedly.");
+					}
+
+					int availableInBatch = chosenBatch.getQuantityRemaining();
+					int usedFromBatch = Math.min(availableInBatch, remainingToMove);
+					chosenBatch.setQuantityRemaining(availableInBatch - usedFromBatch);
+					drawnFrom.add(chosenBatch);
+					drawn.add(usedFromBatch);
+
+					remainingToMove -= usedFromBatch;
+					if (chosenBatch.getQuantityRemaining() == 0) {
+						batches.remove(chosenBatch);
+					}
+				}
+
+				try (StorageTransaction transaction = transactions.get()) {
+					for (int i = 0; i < drawnFrom.size(); i++) {
+						StockBatch batch = drawnFrom.get(i);
+						batchRepository.updateQuantity(batch.getId(), batch.getQuantityRemaining());
+						shelfRepository.addLot(productCode, batch.getId(), batch.getExpiryDate(), drawn.get(i));
+					}
+					shelfRepository.upsertQuantity(productCode, qtyToMove);
+					transaction.commit();
+				}
+
+				for (int i = 0; i < drawnFrom.size(); i++) {
+					StockBatch batch = drawnFrom.get(i);
+					syncExpiryWheel(batch.getId(), batch.getQuantityRemaining());
+					addToLots(lots, productCode, batch, drawn.get(i));
+					record(JournalEntry.Type.MOVE_TO_SHELF, productCode, batch.getId(), drawn.get(i), null,
+							batch.getExpiryDate());
+					System.out.printf("Moved %d units from batch %d to shelf for %s.%n", drawn.get(i), batch.getId(),
+							productCode);
+				}
+				notifyLotsChanged(productCode);
+				System.out.printf("Successfully moved %d units of %s to shelf.%n", qtyToMove, productCode);
+
+				if (pendingLowStock.contains(productCode)
+						&& shelfRepository.getQuantity(productCode) >= lowStockThreshold) {
+					pendingLowStock.remove(productCode);
+				}
+
+				event.setProductCode(productCode);
+				event.setQuantity(qtyToMove);
+				event.setBatchCount(drawnFrom.size());
+				event.finish();
+			}
+		}
+	}
 
-		List<StockBatch> batches = batchRepository.findByProduct(productCode);
+	// move several products in one call; a product that cannot be moved is skipped
+	// so the rest of the list still reaches the shelf
+	public Map<String, Integer> moveAllToShelf(Map<String, Integer> quantitiesByProduct) {
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.moveAllToShelf")) {
+			if (quantitiesByProduct == null) {
+				throw new IllegalArgumentException("Quantities to move cannot be null.");
+			}
 
-		if (batches == null || batches.isEmpty()) {
-			throw new IllegalArgumentException("No stock batches found for product: " + productCode);
+			Map<String, Integer> moved = new LinkedHashMap<>();
+			for (Map.Entry<String, Integer> entry : quantitiesByProduct.entrySet()) {
+				Integer qty = entry.getValue();
+				if (qty == null || qty <= 0) {
+					continue;
+				}
+				try {
+					moveToShelf(entry.getKey(), qty);
+					moved.put(entry.getKey(), qty);
+				} catch (IllegalArgumentException | IllegalStateException e) {
+					System.out.printf("Skipped %s: %s%n", entry.getKey(), e.getMessage());
+				}
+			}
+			return moved;
 		}
+	}
 
-		int totalAvailableInBatches = batches.stream().mapToInt(StockBatch::getQuantityRemaining).sum();
-		if (totalAvailableInBatches < qtyToMove) {
-			throw new IllegalArgumentException(
-					String.format("Insufficient stock in back-store for %s. Available: %d, Requested: %d.", productCode,
-							totalAvailableInBatches, qtyToMove));
+	public void deductFromShelf(String productCode, int qty) {
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.deductFromShelf")) {
+			if (productCode == null || productCode.trim().isEmpty()) {
+				throw new IllegalArgumentException("Product code cannot be empty.");
+			}
+			if (qty <= 0) {
+				throw new IllegalArgumentException("Quantity to deduct must be positive.");
+			}
+
+			try (HeldLock lock = lockProduct(productCode)) {
+				ShelfDeductEvent event = new ShelfDeductEvent();
+				event.start();
+				int currentShelfQuantity = shelfRepository.getQuantity(productCode);
+				if (currentShelfQuantity < qty) {
+					throw new IllegalArgumentException(
+							String.format("Insufficient stock on shelf for %s. Available: %d, Requested: %d.",
+									productCode, currentShelfQuantity, qty));
+				}
+
+				Deque<ShelfLot> lots = lotsOf(productCode);
+				List<ShelfLot> consumed = consumeLots(lots, currentShelfQuantity, qty);
+				Map<Integer, Integer> usedByBatch = new LinkedHashMap<>();
+				int fromLots = 0;
+				for (ShelfLot lot : consumed) {
+					int used = quantityOf(lots, lot.getBatchId()) - lot.getQuantity();
+					usedByBatch.put(lot.getBatchId(), used);
+					fromLots += used;
+				}
+				try (StorageTransaction transaction = transactions.get()) {
+					shelfRepository.deductQuantity(productCode, qty);
+					for (ShelfLot lot : consumed) {
+						shelfRepository.updateLotQuantity(productCode, lot.getBatchId(), lot.getQuantity());
+					}
+					transaction.commit();
+				}
+				applyToLots(lots, consumed);
+				if (!consumed.isEmpty()) {
+					notifyLotsChanged(productCode);
+				}
+				// per lot, so the journal can follow the lots; units in no lot go under batch 0
+				if (qty > fromLots) {
+					record(JournalEntry.Type.DEDUCT, productCode, 0, qty - fromLots, null, null);
+				}
+				for (Map.Entry<Integer, Integer> used : usedByBatch.entrySet()) {
+					record(JournalEntry.Type.DEDUCT, productCode, used.getKey(), used.getValue(), null, null);
+				}
+				int remain = shelfRepository.getQuantity(productCode);
+				System.out.printf("Deducted %d units of %s from shelf. Remaining: %d.%n", qty, productCode, remain);
+
+				if (remain < lowStockThreshold) {
+					pendingLowStock.add(productCode);
+					notifyLow(productCode, remain);
+				}
+
+				event.setProductCode(productCode);
+				event.setQuantity(qty);
+				event.finish();
+			}
 		}
+	}
 
-		while (remainingToMove > 0 && !batches.isEmpty()) {
-			StockBatch chosenBatch = strategy.selectBatch(batches);
-			if (chosenBatch == null) {
-				throw new IllegalStateException("Shelf strategy returned null batch unexpectedly.");
+	// take every shelf lot of the product expiring on or before asOf off the shelf; returns the units removed
+	public int removeExpiredFromShelf(String productCode, LocalDate asOf) {
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.removeExpiredFromShelf")) {
+			if (productCode == null || productCode.trim().isEmpty()) {
+				throw new IllegalArgumentException("Product code cannot be empty.");
+			}
+			if (asOf == null) {
+				throw new IllegalArgumentException("Expiry date cannot be null.");
 			}
 
-			int availableInBatch = chosenBatch.getQuantityRemaining();
-			int usedFromBatch = Math.min(availableInBatch, remainingToMove);
+			try (HeldLock lock = lockProduct(productCode)) {
+				Deque<ShelfLot> lots = lotsOf(productCode);
+				List<ShelfLot> expired = new ArrayList<>();
+				List<Integer> expiredUnits = new ArrayList<>();
+				int removed = 0;
+				for (ShelfLot lot : lots) {
+					if (lot.getExpiryDate().isAfter(asOf)) {
+						break;
+					}
+					expired.add(new ShelfLot(productCode, lot.getBatchId(), lot.getExpiryDate(), 0));
+					expiredUnits.add(lot.getQuantity());
+					removed += lot.getQuantity();
+				}
+				if (removed == 0) {
+					return 0;
+				}
+
+				try (StorageTransaction transaction = transactions.get()) {
+					for (ShelfLot lot : expired) {
+						shelfRepository.updateLotQuantity(productCode, lot.getBatchId(), 0);
+					}
+					shelfRepository.deductQuantity(productCode, removed);
+					transaction.commit();
+				}
+				applyToLots(lots, expired);
+				notifyLotsChanged(productCode);
+				for (int i = 0; i < expired.size(); i++) {
+					record(JournalEntry.Type.SHELF_REMOVE, productCode, expired.get(i).getBatchId(), expiredUnits.get(i),
+							null, null);
+				}
+				int remain = shelfRepository.getQuantity(productCode);
+				System.out.printf("Removed %d expiring units of %s from shelf. Remaining: %d.%n", removed, productCode,
+						remain);
+				if (remain < lowStockThreshold) {
+					pendingLowStock.add(productCode);
+					notifyLow(productCode, remain);
+				}
+				return removed;
+			}
+		}
+	}
 
-			chosenBatch.setQuantityRemaining(availableInBatch - usedFromBatch);
-			batchRepository.updateQuantity(chosenBatch.getId(), chosenBatch.getQuantityRemaining());
+	// shelf units of each product with no recorded expiry date: shelved before lots were tracked and
+	// not attributed to a batch by db/upgrade.sql, so expiry removal cannot find them
+	public Map<String, Integer> getUntrackedShelfQuantities() {
+		return shelfRepository.findUntrackedQuantities();
+	}
 
-			shelfRepository.upsertQuantity(productCode, usedFromBatch);
-			System.out.printf("Moved %d units from batch %d to shelf for %s.%n", usedFromBatch, chosenBatch.getId(),
-					productCode);
+	// takes units with no recorded expiry off the shelf once they have been checked by hand
+	public void removeUntrackedFromShelf(String productCode, int qty) {
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.removeUntrackedFromShelf")) {
+			if (productCode == null || productCode.trim().isEmpty()) {
+				throw new IllegalArgumentException("Product code cannot be empty.");
+			}
+			if (qty <= 0) {
+				throw new IllegalArgumentException("Quantity to remove must be positive.");
+			}
 
-			remainingToMove -= usedFromBatch;
+			try (HeldLock lock = lockProduct(productCode)) {
+				int untracked = untracked(lotsOf(productCode), shelfRepository.getQuantity(productCode));
+				if (untracked < qty) {
+					throw new IllegalArgumentException(String.format(
+							"Only %d units of %s on the shelf have no recorded expiry. Requested: %d.", untracked,
+							productCode, qty));
+				}
+
+				shelfRepository.deductQuantity(productCode, qty);
+				record(JournalEntry.Type.SHELF_REMOVE, productCode, 0, qty, null, null);
+				int remain = shelfRepository.getQuantity(productCode);
+				if (remain < lowStockThreshold) {
+					pendingLowStock.add(productCode);
+					notifyLow(productCode, remain);
+				}
+			}
+		}
+	}
 
-			if (chosenBatch.getQuantityRemaining() == 0) {
-				batches.remove(chosenBatch);
+	// the product's shelf lots, first to expire first
+	public List<ShelfLot> getShelfLots(String productCode) {
+		try (HeldLock lock = lockProduct(productCode)) {
+			List<ShelfLot> copies = new ArrayList<>();
+			for (ShelfLot lot : lotsOf(productCode)) {
+				copies.add(new ShelfLot(lot.getProductCode(), lot.getBatchId(), lot.getExpiryDate(), lot.getQuantity()));
 			}
+			return copies;
 		}
-		System.out.printf("Successfully moved %d units of %s to shelf.%n", qtyToMove, productCode);
 	}
 
-	public void deductFromShelf(String productCode, int qty) {
-		if (productCode == null || productCode.trim().isEmpty()) {
-			throw new IllegalArgumentException("Product code cannot be empty.");
+	// shelf lots of every product expiring within the threshold, by expiry date then product
+	public List<ShelfLot> getExpiringShelfLots(int daysThreshold) {
+		if (daysThreshold < 0) {
+			throw new IllegalArgumentException("Expiry threshold must be a non-negative number.");
 		}
-		if (qty <= 0) {
-			throw new IllegalArgumentException("Quantity to deduct must be positive.");
+		return shelfRepository.findLotsExpiringBy(LocalDate.now().plusDays(daysThreshold));
+	}
+
+	// caller holds the product lock
+	private Deque<ShelfLot> lotsOf(String productCode) {
+		Deque<ShelfLot> lots = shelfLots.get(productCode);
+		if (lots == null) {
+			lots = new ArrayDeque<>(shelfRepository.findLots(productCode));
+			shelfLots.put(productCode, lots);
+		}
+		return lots;
+	}
+
+	// batches are mostly drawn in expiry order, so a new lot usually belongs at the tail
+	private static void addToLots(Deque<ShelfLot> lots, String productCode, StockBatch batch, int qty) {
+		for (ShelfLot lot : lots) {
+			if (lot.getBatchId() == batch.getId()) {
+				lot.setQuantity(lot.getQuantity() + qty);
+				return;
+			}
+		}
+		ShelfLot added = new ShelfLot(productCode, batch.getId(), batch.getExpiryDate(), qty);
+		if (lots.isEmpty() || FEFO.compare(lots.peekLast(), added) <= 0) {
+			lots.addLast(added);
+			return;
+		}
+		List<ShelfLot> sorted = new ArrayList<>(lots);
+		sorted.add(added);
+		sorted.sort(FEFO);
+		lots.clear();
+		lots.addAll(sorted);
+	}
+
+	// shelf units not covered by a lot were shelved before lots were tracked and go first; the rest
+	// come off the lots that expire first. Returns the lots touched with what will be left of them,
+	// without changing the deque
+	private static List<ShelfLot> consumeLots(Deque<ShelfLot> lots, int shelfBefore, int qty) {
+		int remaining = qty - Math.min(qty, untracked(lots, shelfBefore));
+		List<ShelfLot> consumed = new ArrayList<>();
+		for (ShelfLot lot : lots) {
+			if (remaining == 0) {
+				break;
+			}
+			int used = Math.min(lot.getQuantity(), remaining);
+			consumed.add(new ShelfLot(lot.getProductCode(), lot.getBatchId(), lot.getExpiryDate(),
+					lot.getQuantity() - used));
+			remaining -= used;
 		}
+		return consumed;
+	}
 
-		int currentShelfQuantity = shelfRepository.getQuantity(productCode);
-		if (currentShelfQuantity < qty) {
-			throw new IllegalArgumentException(
-					String.format("Insufficient stock on shelf for %s. Available: %d, Requested: %d.", productCode,
-							currentShelfQuantity, qty));
+	// once storage has the new quantities; lots left with nothing are dropped
+	private static void applyToLots(Deque<ShelfLot> lots, List<ShelfLot> changed) {
+		for (ShelfLot update : changed) {
+			for (ShelfLot lot : lots) {
+				if (lot.getBatchId() == update.getBatchId()) {
+					lot.setQuantity(update.getQuantity());
+					break;
+				}
+			}
 		}
+		lots.removeIf(lot -> lot.getQuantity() <= 0);
+	}
 
-		shelfRepository.deductQuantity(productCode, qty);
-		int remain = shelfRepository.getQuantity(productCode);
-		System.out.printf("Deducted %d units of %s from shelf. Remaining: %d.%n", qty, productCode, remain);
+	private static int quantityOf(Deque<ShelfLot> lots, int batchId) {
+		for (ShelfLot lot : lots) {
+			if (lot.getBatchId() == batchId) {
+				return lot.getQuantity();
+			}
+		}
+		return 0;
+	}
 
-		if (remain < 50) {
-			notifyLow(productCode, remain);
+	private static int untracked(Deque<ShelfLot> lots, int shelfQuantity) {
+		int tracked = 0;
+		for (ShelfLot lot : lots) {
+			tracked += lot.getQuantity();
 		}
+		return Math.max(0, shelfQuantity - tracked);
 	}
 
 	public int getQuantityOnShelf(String productCode) {
@@ -150,20 +633,56 @@ public class InventoryManager {
 		return shelfRepository.getAllProductCodes();
 	}
 
+	// shelf quantity and open batches for every product matching the prefix, in code order, in one query
+	public void streamStockOverview(String codePrefix, Consumer<ProductStock> handler) {
+		streamStockOverview(codePrefix, null, 0, handler);
+	}
+
+	public void streamStockOverview(String codePrefix, String afterCode, int limit, Consumer<ProductStock> handler) {
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.streamStockOverview")) {
+			shelfRepository.streamStockOverview(codePrefix, afterCode, limit, handler);
+		}
+	}
+
+	// keyset page of the overview; pass the last code of the previous page, or null for the first
+	public List<ProductStock> getStockOverview(String codePrefix, String afterCode, int limit) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("Page size must be positive.");
+		}
+		List<ProductStock> page = new ArrayList<>(limit);
+		streamStockOverview(codePrefix, afterCode, limit, page::add);
+		return page;
+	}
+
 	public List<String> getAllProductCodesWithExpiringBatches(int daysThreshold) {
-		List<StockBatch> allExpiringBatches = batchRepository.findAllExpiringBatches(daysThreshold);
-		List<String> productCodes = new ArrayList<>();
-		for (StockBatch batch : allExpiringBatches) {
-			if (!productCodes.contains(batch.getProductCode())) {
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.getAllProductCodesWithExpiringBatches")) {
+			Set<String> productCodes = new LinkedHashSet<>();
+			for (StockBatch batch : getAllExpiringBatches(daysThreshold)) {
 				productCodes.add(batch.getProductCode());
 			}
+			return new ArrayList<>(productCodes);
+		}
+	}
+
+	// expiring batches grouped by product with shelf quantities, most urgent product first, in one query
+	public List<ProductStock> getExpiryDashboard(int daysThreshold) {
+		return getExpiryDashboard(daysThreshold, null);
+	}
+
+	public List<ProductStock> getExpiryDashboard(int daysThreshold, String productCode) {
+		if (daysThreshold < 0) {
+			throw new IllegalArgumentException("Expiry threshold must be a non-negative number.");
+		}
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.getExpiryDashboard")) {
+			return batchRepository.findExpiryDashboard(daysThreshold, productCode);
 		}
-		return productCodes;
 	}
 
 	// get specific batches close to expiry for a given product
 	public List<StockBatch> getExpiringBatchesForProduct(String productCode, int daysThreshold) {
-		return batchRepository.findExpiringBatches(productCode, daysThreshold);
+		ExpiryWheel wheel = currentExpiryWheel();
+		return wheel != null ? wheel.expiringWithin(productCode, daysThreshold)
+				: batchRepository.findExpiringBatches(productCode, daysThreshold);
 	}
 
 	// remove quantity from shelf (used by RemoveExpiryStockCommand)
@@ -172,31 +691,278 @@ public class InventoryManager {
 	}
 
 	public List<StockBatch> getAllExpiringBatches(int daysThreshold) {
-		return batchRepository.findAllExpiringBatches(daysThreshold);
+		ExpiryWheel wheel = currentExpiryWheel();
+		return wheel != null ? wheel.expiringWithin(daysThreshold)
+				: batchRepository.findAllExpiringBatches(daysThreshold);
+	}
+
+	// rolls the expiry index over to today and tells the expiry observers about batches that have just expired
+	public List<StockBatch> tickExpiry() {
+		ExpiryWheel wheel = loadExpiryWheel();
+		if (wheel == null) {
+			return List.of();
+		}
+		List<StockBatch> expired = wheel.advanceTo(LocalDate.now());
+		if (!expired.isEmpty()) {
+			MetricsRegistry.getInstance().counter("inventory.expiry.batchesExpired").add(expired.size());
+			for (ExpiryObserver o : expiryObservers) {
+				o.onBatchesExpired(wheel.getToday(), expired);
+			}
+		}
+		return expired;
+	}
+
+	// ticks well inside a day so the rollover is picked up shortly after midnight whatever the clock does
+	public synchronized void startExpiryTicker() {
+		int minutes = ConfigLoader.getInt("inventory.expiry.tick.minutes", 15);
+		if (expiryTicker != null || expiryWheelSlots <= 0 || minutes <= 0) {
+			return;
+		}
+		expiryTicker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "expiry-tick");
+			t.setDaemon(true);
+			return t;
+		});
+		expiryTicker.scheduleAtFixedRate(() -> {
+			try {
+				tickExpiry();
+			} catch (RuntimeException e) {
+				System.err.println("Expiry tick failed: " + e.getMessage());
+			}
+		}, 0, minutes, TimeUnit.MINUTES);
+	}
+
+	public synchronized void stopExpiryTicker() {
+		if (expiryTicker != null) {
+			expiryTicker.shutdownNow();
+			expiryTicker = null;
+		}
+	}
+
+	// the index as of today; the first caller to see a new day publishes that day's expiries
+	private ExpiryWheel currentExpiryWheel() {
+		ExpiryWheel wheel = loadExpiryWheel();
+		if (wheel != null && wheel.getToday().isBefore(LocalDate.now())) {
+			tickExpiry();
+		}
+		return wheel;
+	}
+
+	// the wheel is published before the back-store is read and filled while holding its lock, so a
+	// writer either changed the row before the read or waits and applies its absolute quantity after it
+	private ExpiryWheel loadExpiryWheel() {
+		if (expiryWheelSlots <= 0) {
+			return null;
+		}
+		ExpiryWheel wheel = expiryWheel;
+		if (wheel != null) {
+			return wheel;
+		}
+		synchronized (expiryWheelLock) {
+			if (expiryWheel == null) {
+				ExpiryWheel loaded = new ExpiryWheel(expiryWheelSlots, LocalDate.now());
+				synchronized (loaded) {
+					expiryWheel = loaded;
+					try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.loadExpiryWheel")) {
+						loaded.putAll(batchRepository.findAllOpenBatches());
+					} catch (RuntimeException e) {
+						expiryWheel = null;
+						throw e;
+					}
+				}
+			}
+			return expiryWheel;
+		}
+	}
+
+	// drops the shelf lots and expiry index kept in memory so they are read again from storage, e.g.
+	// after a transaction they were updated in has been rolled back
+	public void reloadCaches() {
+		shelfLots.clear();
+		synchronized (expiryWheelLock) {
+			expiryWheel = null;
+		}
+	}
+
+	// opens the journal in inventory.journal.dir, if set, and closes it again when the JVM exits
+	public synchronized void startJournal() {
+		String dir = ConfigLoader.get("inventory.journal.dir");
+		if (journal != null || dir == null || dir.isBlank()) {
+			return;
+		}
+		useJournal(InventoryJournal.open(Paths.get(dir.trim()),
+				ConfigLoader.getInt("inventory.journal.segment.mb", 16) * 1024 * 1024,
+				ConfigLoader.getInt("inventory.journal.snapshot.every", 10_000)));
+		Runtime.getRuntime().addShutdownHook(new Thread(this::stopJournal, "journal-close"));
+	}
+
+	// from here on every committed stock movement is journalled. Storage stays the source of truth: the
+	// journal's totals are checked against storage's in one query, and a journal that does not end at what
+	// storage holds (new, or it missed movements) is rebased onto a full read of it. The checked state then
+	// fills the expiry index and shelf lots, so they need no reads of their own. Called at start-up,
+	// before stock moves
+	public synchronized void useJournal(InventoryJournal journal) {
+		StockState state = journal.getState();
+		StockTotals stored = shelfRepository.getStockTotals();
+		if (!state.totals().equals(stored)) {
+			if (!journal.isEmpty()) {
+				MetricsRegistry.getInstance().counter("inventory.journal.rebases").increment();
+				System.err.printf("Inventory journal (%s) differs from storage (%s); rebased onto the stored stock.%n",
+						state.totals(), stored);
+			}
+			state = stockFromStorage();
+			journal.rebase(state);
+		}
+		seedCaches(state);
+		this.journal = journal;
+	}
+
+	// caches already loaded are left alone; every product with shelf units gets its lots, even none
+	private void seedCaches(StockState state) {
+		Map<String, List<ShelfLot>> lots = state.getShelfLots();
+		for (String productCode : state.getShelf().keySet()) {
+			shelfLots.putIfAbsent(productCode, new ArrayDeque<>(lots.getOrDefault(productCode, List.of())));
+		}
+		if (expiryWheelSlots <= 0) {
+			return;
+		}
+		synchronized (expiryWheelLock) {
+			if (expiryWheel == null) {
+				ExpiryWheel seeded = new ExpiryWheel(expiryWheelSlots, LocalDate.now());
+				seeded.putAll(state.getOpenBatches());
+				expiryWheel = seeded;
+			}
+		}
+	}
+
+	public synchronized void stopJournal() {
+		if (journal != null) {
+			journal.close();
+			journal = null;
+		}
+	}
+
+	// shelf quantities and open batches of every product at that moment, as recorded by the journal
+	public List<ProductStock> getStockAsOf(Instant moment) {
+		InventoryJournal j = journal;
+		if (j == null) {
+			throw new IllegalStateException("The inventory journal is not enabled (set inventory.journal.dir).");
+		}
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.getStockAsOf")) {
+			return j.stateAsOf(moment.toEpochMilli()).toProductStock();
+		}
+	}
+
+	private StockState stockFromStorage() {
+		StockState state = new StockState();
+		shelfRepository.streamStockOverview(null, null, 0, stock -> {
+			state.setShelfQuantity(stock.getProductCode(), stock.getQuantityOnShelf());
+			for (StockBatch batch : stock.getBatches()) {
+				state.putBatch(batch);
+			}
+		});
+		for (ShelfLot lot : shelfRepository.findLotsExpiringBy(LAST_DATE)) {
+			state.putLot(lot);
+		}
+		return state;
+	}
+
+	// appended once the movement's transaction commits; a failed append is reported but does not undo a
+	// movement storage has already accepted, and the gap is rebased away the next time the journal is opened
+	private void record(JournalEntry.Type type, String productCode, int batchId, int quantity,
+			LocalDate purchaseDate, LocalDate expiryDate) {
+		InventoryJournal j = journal;
+		if (j == null) {
+			return;
+		}
+		afterCommit.accept(() -> {
+			try {
+				j.append(type, productCode, batchId, quantity, purchaseDate, expiryDate);
+			} catch (RuntimeException e) {
+				MetricsRegistry.getInstance().counter("inventory.journal.failures").increment();
+				System.err.println("Inventory journal append failed: " + e.getMessage());
+			}
+		});
+	}
+
+	private void syncExpiryWheel(int batchId, int remaining) {
+		ExpiryWheel wheel = expiryWheel;
+		if (wheel != null) {
+			wheel.updateQuantity(batchId, remaining);
+		}
 	}
 
 	public int getAvailableStock(String productCode) {
 		return shelfRepository.getQuantity(productCode);
 	}
 
+	// write off every open batch expiring on or before asOf, for one product or (null) all of them, in a
+	// single statement rather than a lookup and an update per batch
+	public List<WriteOff> writeOffExpired(LocalDate asOf, String productCode) {
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.writeOffExpired")) {
+			if (asOf == null) {
+				throw new IllegalArgumentException("Write-off date cannot be null.");
+			}
+			String code = productCode == null || productCode.trim().isEmpty() ? null : productCode.trim();
+
+			// the statement only touches products whose locks are held, so a concurrent moveToShelf cannot
+			// write back quantities read before the write-off; locks are taken in code order so two
+			// write-offs never deadlock
+			List<String> codes = code != null ? List.of(code)
+					: batchRepository.findProductCodesWithExpiredBatches(asOf);
+			List<HeldLock> locks = new ArrayList<>(codes.size());
+			List<WriteOff> writeOffs;
+			try {
+				for (String locked : new TreeSet<>(codes)) {
+					locks.add(lockProduct(locked));
+				}
+				writeOffs = batchRepository.writeOffExpired(asOf, codes);
+			} finally {
+				for (int i = locks.size() - 1; i >= 0; i--) {
+					locks.get(i).close();
+				}
+			}
+
+			int units = 0;
+			for (WriteOff writeOff : writeOffs) {
+				syncExpiryWheel(writeOff.getBatchId(), 0);
+				record(JournalEntry.Type.WRITE_OFF, writeOff.getProductCode(), writeOff.getBatchId(),
+						writeOff.getQuantity(), null, null);
+				units += writeOff.getQuantity();
+			}
+			MetricsRegistry.getInstance().counter("inventory.writeoff.batches").add(writeOffs.size());
+			MetricsRegistry.getInstance().counter("inventory.writeoff.units").add(units);
+			return writeOffs;
+		}
+	}
+
 	// discard a specific quantity from a batch (for
 	public void discardBatchQuantity(int batchId, int quantityToDiscard) {
-		StockBatch batch = batchRepository.findById(batchId);
-		if (batch == null) {
-			throw new IllegalArgumentException("Batch with ID " + batchId + " not found.");
-		}
-		if (quantityToDiscard <= 0) {
-			throw new IllegalArgumentException("Quantity to discard must be positive.");
-		}
-		if (batch.getQuantityRemaining() < quantityToDiscard) {
-			throw new IllegalArgumentException(
-					String.format("Cannot discard %d units from batch %d. Only %d remaining.", quantityToDiscard,
-							batchId, batch.getQuantityRemaining()));
-		}
+		try (LatencyHistogram.Timer timer = MetricsRegistry.timer("inventory.discardBatchQuantity")) {
+			if (quantityToDiscard <= 0) {
+				throw new IllegalArgumentException("Quantity to discard must be positive.");
+			}
+			StockBatch batch = batchRepository.findById(batchId);
+			if (batch == null) {
+				throw new IllegalArgumentException("Batch with ID " + batchId + " not found.");
+			}
 
-		int newQuantity = batch.getQuantityRemaining() - quantityToDiscard;
-		batchRepository.updateQuantity(batchId, newQuantity);
-		System.out.printf("Discarded %d units from batch ID %d. Remaining quantity: %d.%n", quantityToDiscard, batchId,
-				newQuantity);
+			// re-read under the product lock so the quantity written back is not stale
+			try (HeldLock lock = lockProduct(batch.getProductCode())) {
+				batch = batchRepository.findById(batchId);
+				if (batch.getQuantityRemaining() < quantityToDiscard) {
+					throw new IllegalArgumentException(
+							String.format("Cannot discard %d units from batch %d. Only %d remaining.", quantityToDiscard,
+									batchId, batch.getQuantityRemaining()));
+				}
+
+				int newQuantity = batch.getQuantityRemaining() - quantityToDiscard;
+				batchRepository.updateQuantity(batchId, newQuantity);
+				syncExpiryWheel(batchId, newQuantity);
+				record(JournalEntry.Type.DISCARD, batch.getProductCode(), batchId, quantityToDiscard, null, null);
+				System.out.printf("Discarded %d units from batch ID %d. Remaining quantity: %d.%n", quantityToDiscard,
+						batchId, newQuantity);
+			}
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package com.syos.singleton;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.syos.analytics.ColumnarSalesStore;
+import com.syos.analytics.HourlySalesHistogram;
+import com.syos.analytics.LiveSalesSketches;
+import com.syos.analytics.ProductSales;
+import com.syos.analytics.SalesAggregator;
+import com.syos.config.ConfigLoader;
+import com.syos.model.Bill;
+import com.syos.model.BillItem;
+import com.syos.observer.BillObserver;
+import com.syos.repository.ReportRepository;
+
+/**
+ * Live view of today's sales, folded in from each committed bill so the report
+ * menu never has to rescan bill_item for the current day. Also owns the
+ * columnar copy of recent bill lines used for ad-hoc analytics.
+ */
+public class SalesAnalytics implements BillObserver {
+	private static final int HISTORY_DAYS = ConfigLoader.getInt("analytics.columnar.history.days", 365);
+
+	private static SalesAnalytics instance;
+
+	private LocalDate currentDay = LocalDate.now();
+	private SalesAggregator today = new SalesAggregator();
+	private final LiveSalesSketches sketches = new LiveSalesSketches();
+	private ColumnarSalesStore columnarStore;
+	private List<Bill> billsDuringLoad;
+
+	public static synchronized SalesAnalytics getInstance() {
+		if (instance == null) {
+			instance = new SalesAnalytics();
+		}
+		return instance;
+	}
+
+	public static synchronized void resetInstance() {
+		instance = null;
+	}
+
+	@Override
+	public synchronized void onBillSaved(Bill bill) {
+		LocalDateTime billTime = LocalDateTime.ofInstant(bill.getBillDate().toInstant(), ZoneId.systemDefault());
+		rollOverIfNeeded(billTime.toLocalDate());
+		if (billTime.toLocalDate().equals(currentDay)) {
+			long billMillis = bill.getBillDate().getTime();
+			List<BillItem> items = bill.getItems();
+			for (int i = 0; i < items.size(); i++) {
+				BillItem item = items.get(i);
+				today.onLine(bill.getId(), billMillis, billTime.getHour(), item.getProduct().getCode(),
+						item.getQuantity(), item.getTotalPrice(), item.getDiscountAmount());
+				sketches.recordLine(item.getProduct().getCode(), item.getQuantity());
+			}
+			sketches.recordBasket(bill.getId(), billTime.getHour(), bill.getTotalAmount());
+		}
+
+		if (billsDuringLoad != null) {
+			billsDuringLoad.add(bill);
+		} else if (columnarStore != null) {
+			appendToColumns(columnarStore, bill);
+		}
+	}
+
+	// loads the configured history from bill_item on first use; later bills are
+	// appended as they are committed
+	public ColumnarSalesStore columnarStore(ReportRepository reportRepository) {
+		synchronized (this) {
+			if (columnarStore != null) {
+				return columnarStore;
+			}
+			if (billsDuringLoad == null) {
+				billsDuringLoad = new ArrayList<>();
+			}
+		}
+
+		// the scan runs outside the lock so checkout is never held up by it; bills
+		// committed meanwhile are parked and replayed below
+		ColumnarSalesStore loaded = new ColumnarSalesStore();
+		Set<Integer> loadedBillIds = new HashSet<>();
+		LocalDate tomorrow = LocalDate.now().plusDays(1);
+		try {
+			reportRepository.streamSaleLines(tomorrow.minusDays(HISTORY_DAYS + 1L), tomorrow,
+					(billId, billTimeMillis, hourOfDay, productCode, quantity, totalPrice, discountAmount) -> {
+						loadedBillIds.add(billId);
+						loaded.onLine(billId, billTimeMillis, hourOfDay, productCode, quantity, totalPrice,
+								discountAmount);
+					});
+		} catch (RuntimeException e) {
+			synchronized (this) {
+				billsDuringLoad = null;
+			}
+			throw e;
+		}
+
+		synchronized (this) {
+			if (columnarStore == null) {
+				// a parked bill the scan already read must not be appended twice; ids are not
+				// compared by size because tills commit out of id order
+				for (Bill pending : billsDuringLoad) {
+					if (!loadedBillIds.contains(pending.getId())) {
+						appendToColumns(loaded, pending);
+					}
+				}
+				columnarStore = loaded;
+			}
+			billsDuringLoad = null;
+			return columnarStore;
+		}
+	}
+
+	private static void appendToColumns(ColumnarSalesStore store, Bill bill) {
+		long billMillis = bill.getBillDate().getTime();
+		int hour = LocalDateTime.ofInstant(bill.getBillDate().toInstant(), ZoneId.systemDefault()).getHour();
+		List<BillItem> items = bill.getItems();
+		for (int i = 0; i < items.size(); i++) {
+			BillItem item = items.get(i);
+			store.onLine(bill.getId(), billMillis, hour, item.getProduct().getCode(), item.getQuantity(),
+					item.getTotalPrice(), item.getDiscountAmount());
+		}
+	}
+
+	public synchronized List<ProductSales> liveTopSellers(int n) {
+		rollOverIfNeeded(LocalDate.now());
+		return today.topSellers(n);
+	}
+
+	public synchronized HourlySalesHistogram liveHistogram() {
+		rollOverIfNeeded(LocalDate.now());
+		return today.getHistogram().copy();
+	}
+
+	public synchronized long liveLineCount() {
+		rollOverIfNeeded(LocalDate.now());
+		return today.getLineCount();
+	}
+
+	public synchronized long estimateUnitsSold(String productCode) {
+		rollOverIfNeeded(LocalDate.now());
+		return sketches.estimateUnits(productCode);
+	}
+
+	public synchronized long estimateBaskets(int hourOfDay) {
+		rollOverIfNeeded(LocalDate.now());
+		return sketches.estimateBaskets(hourOfDay);
+	}
+
+	public synchronized double basketValueQuantile(double q) {
+		rollOverIfNeeded(LocalDate.now());
+		return sketches.basketValueQuantile(q);
+	}
+
+	public synchronized double maxBasketValue() {
+		rollOverIfNeeded(LocalDate.now());
+		return sketches.maxBasketValue();
+	}
+
+	public synchronized long sketchedBillCount() {
+		rollOverIfNeeded(LocalDate.now());
+		return sketches.getBillCount();
+	}
+
+	public synchronized long sketchedUnitCount() {
+		rollOverIfNeeded(LocalDate.now());
+		return sketches.totalUnits();
+	}
+
+	private void rollOverIfNeeded(LocalDate day) {
+		if (day.isAfter(currentDay)) {
+			currentDay = day;
+			today = new SalesAggregator();
+			sketches.clear();
+		}
+	}
+}
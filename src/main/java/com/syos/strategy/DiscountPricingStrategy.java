@@ -3,19 +3,40 @@ package com.syos.strategy;
 import java.time.LocalDate;
 import java.util.List;
 
+import com.syos.config.ConfigLoader;
+import com.syos.metrics.CacheMonitor;
+import com.syos.metrics.Jmx;
+import com.syos.metrics.jfr.DiscountLookupEvent;
 import com.syos.model.Discount;
 import com.syos.model.Product;
 import com.syos.repository.DiscountRepository;
+import com.syos.repository.Storage;
 import com.syos.singleton.InventoryManager;
+import com.syos.util.LruCache;
 
 public class DiscountPricingStrategy implements PricingStrategy {
 	private final PricingStrategy basePriceStrategy;
-	private final DiscountRepository discountRepository = new DiscountRepository();
-	private final InventoryManager inventoryManager = InventoryManager.getInstance(null);
+	private final DiscountRepository discountRepository;
+	private final InventoryManager inventoryManager;
 	private static final double MIN_TOTAL_PRICE = 0.0;
 
+	// active discounts per product and day, dropped whenever the repository reports a discount write; the
+	// TTL bounds how long a discount assigned by another process can go unnoticed at the till
+	private final LruCache<String, List<Discount>> activeDiscounts = new LruCache<>(
+			ConfigLoader.getInt("cache.discounts.size", 1000),
+			ConfigLoader.getInt("cache.discounts.ttl.seconds", 60) * 1000L);
+	private volatile long cachedChangeCount;
+
 	public DiscountPricingStrategy(PricingStrategy basePriceStrategy) {
+		this(basePriceStrategy, Storage.getInstance().discounts(), InventoryManager.getInstance(null));
+	}
+
+	public DiscountPricingStrategy(PricingStrategy basePriceStrategy, DiscountRepository discountRepository,
+			InventoryManager inventoryManager) {
 		this.basePriceStrategy = basePriceStrategy;
+		this.discountRepository = discountRepository;
+		this.inventoryManager = inventoryManager;
+		Jmx.register("com.syos:type=Cache,name=activeDiscounts", new CacheMonitor(activeDiscounts));
 	}
 
 	@Override
@@ -25,15 +46,21 @@ public class DiscountPricingStrategy implements PricingStrategy {
 		if (availableStock <= 0) {
 			return baseTotal;
 		}
-		List<Discount> activeDiscounts = discountRepository.findActiveDiscounts(product.getCode(), LocalDate.now());
+		DiscountLookupEvent event = new DiscountLookupEvent();
+		event.start();
+		List<Discount> discounts = findActiveDiscounts(product.getCode());
+		event.setProductCode(product.getCode());
+		event.setQuantity(quantity);
+		event.setDiscountCount(discounts.size());
+		event.finish();
 
-		if (activeDiscounts.isEmpty()) {
+		if (discounts.isEmpty()) {
 			return baseTotal;
 		}
 
 		double bestDiscountedTotal = baseTotal;
 
-		for (Discount discount : activeDiscounts) {
+		for (Discount discount : discounts) {
 			double discountedTotal;
 			switch (discount.getType()) {
 			case PERCENT:
@@ -54,4 +81,23 @@ public class DiscountPricingStrategy implements PricingStrategy {
 
 		return Math.max(MIN_TOTAL_PRICE, bestDiscountedTotal);
 	}
+
+	private List<Discount> findActiveDiscounts(String productCode) {
+		LocalDate today = LocalDate.now();
+		String key = productCode + "@" + today;
+		// a write racing with the lookup moves the count on, and what the lookup found is not cached
+		long changeCount = discountRepository.getChangeCount();
+		if (changeCount != cachedChangeCount) {
+			activeDiscounts.invalidateAll();
+			cachedChangeCount = changeCount;
+		}
+		List<Discount> discounts = activeDiscounts.get(key);
+		if (discounts == null) {
+			discounts = discountRepository.findActiveDiscounts(productCode, today);
+			if (discountRepository.getChangeCount() == changeCount) {
+				activeDiscounts.put(key, discounts);
+			}
+		}
+		return discounts;
+	}
 }
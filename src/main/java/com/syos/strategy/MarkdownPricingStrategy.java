@@ -0,0 +1,262 @@
+package com.syos.strategy;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.syos.config.ConfigLoader;
+import com.syos.metrics.MetricsRegistry;
+import com.syos.model.Product;
+import com.syos.model.ShelfLot;
+import com.syos.singleton.InventoryManager;
+
+/**
+ * Marks products down automatically as their shelf stock nears expiry, on top
+ * of whatever the wrapped strategy charges. Windows such as "20% at 3 days,
+ * 50% at 1 day" are resolved against the shelf lots on a schedule into a
+ * table of how many units of each product qualify for which percentage, so
+ * pricing a line is a single map lookup. Only that many units of a line are
+ * marked down, deepest markdown first; the rest sell at the base price.
+ *
+ * A product's entry is rebuilt from its lots whenever they change, so units
+ * sold or taken off the shelf stop being marked down straight away. If the
+ * table cannot be built, nothing is marked down until the next refresh.
+ */
+public class MarkdownPricingStrategy implements PricingStrategy {
+	private final PricingStrategy basePriceStrategy;
+	private final InventoryManager inventoryManager;
+	// narrowest first
+	private final List<Window> windows;
+
+	private volatile Map<String, Markdown> markdowns;
+	private ScheduledExecutorService refresher;
+
+	public MarkdownPricingStrategy(PricingStrategy basePriceStrategy) {
+		this(basePriceStrategy, InventoryManager.getInstance(null),
+				Window.parseAll(ConfigLoader.get("pricing.markdown.windows")));
+	}
+
+	public MarkdownPricingStrategy(PricingStrategy basePriceStrategy, InventoryManager inventoryManager,
+			List<Window> windows) {
+		this.basePriceStrategy = basePriceStrategy;
+		this.inventoryManager = inventoryManager;
+		List<Window> sorted = new ArrayList<>(windows);
+		sorted.sort((a, b) -> Integer.compare(a.getDays(), b.getDays()));
+		this.windows = Collections.unmodifiableList(sorted);
+		if (!windows.isEmpty()) {
+			inventoryManager.addShelfLotObserver(this::rebuild);
+		}
+	}
+
+	@Override
+	public double calculate(Product product, int quantity) {
+		double baseTotal = basePriceStrategy.calculate(product, quantity);
+		Markdown markdown = currentMarkdowns().get(product.getCode());
+		if (markdown == null || quantity <= 0) {
+			return baseTotal;
+		}
+		MetricsRegistry.getInstance().counter("pricing.markdown.lines").increment();
+		return baseTotal * (1.0 - markdown.percentOff(quantity) / 100.0);
+	}
+
+	// the deepest percentage currently applied to the product, 0 when none
+	public double getMarkdownPercent(String productCode) {
+		Markdown markdown = currentMarkdowns().get(productCode);
+		return markdown == null ? 0.0 : markdown.percents[0];
+	}
+
+	// rebuilds the table from the shelf lots inside the widest window in one query; on failure the
+	// table is emptied so lines are charged the base price rather than failing at the till
+	public synchronized void refresh() {
+		if (windows.isEmpty()) {
+			markdowns = Map.of();
+			return;
+		}
+		Map<String, List<ShelfLot>> lotsByProduct = new HashMap<>();
+		try {
+			for (ShelfLot lot : inventoryManager.getExpiringShelfLots(widest())) {
+				lotsByProduct.computeIfAbsent(lot.getProductCode(), code -> new ArrayList<>()).add(lot);
+			}
+		} catch (RuntimeException e) {
+			MetricsRegistry.getInstance().counter("pricing.markdown.refreshFailures").increment();
+			System.err.println("Markdown refresh failed, no markdowns until the next one: " + e.getMessage());
+			markdowns = new ConcurrentHashMap<>();
+			return;
+		}
+		LocalDate today = LocalDate.now();
+		Map<String, Markdown> table = new ConcurrentHashMap<>();
+		lotsByProduct.forEach((code, lots) -> {
+			Markdown markdown = markdownFor(lots, today);
+			if (markdown != null) {
+				table.put(code, markdown);
+			}
+		});
+		markdowns = table;
+	}
+
+	// the product's lots changed; until the table has first been built there is nothing to update
+	private void rebuild(String productCode) {
+		if (markdowns == null) {
+			return;
+		}
+		List<ShelfLot> lots;
+		try {
+			lots = inventoryManager.getShelfLots(productCode);
+		} catch (RuntimeException e) {
+			System.err.println("Markdown update for " + productCode + " failed: " + e.getMessage());
+			lots = List.of();
+		}
+		Markdown markdown = markdownFor(lots, LocalDate.now());
+		synchronized (this) {
+			Map<String, Markdown> table = markdowns;
+			if (markdown != null) {
+				table.put(productCode, markdown);
+			} else {
+				table.remove(productCode);
+			}
+		}
+	}
+
+	// units per percentage across the lots inside a window, deepest first; null when none qualify
+	private Markdown markdownFor(List<ShelfLot> lots, LocalDate today) {
+		TreeMap<Double, Integer> units = new TreeMap<>(Comparator.reverseOrder());
+		for (ShelfLot lot : lots) {
+			double percent = percentFor(ChronoUnit.DAYS.between(today, lot.getExpiryDate()));
+			if (percent > 0 && lot.getQuantity() > 0) {
+				units.merge(percent, lot.getQuantity(), Integer::sum);
+			}
+		}
+		return units.isEmpty() ? null : new Markdown(units);
+	}
+
+	private int widest() {
+		return windows.get(windows.size() - 1).getDays();
+	}
+
+	public synchronized void startRefresher() {
+		int minutes = ConfigLoader.getInt("pricing.markdown.refresh.minutes", 15);
+		if (refresher != null || windows.isEmpty() || minutes <= 0) {
+			return;
+		}
+		refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "markdown-refresh");
+			t.setDaemon(true);
+			return t;
+		});
+		refresher.scheduleAtFixedRate(this::refresh, 0, minutes, TimeUnit.MINUTES);
+	}
+
+	public synchronized void stopRefresher() {
+		if (refresher != null) {
+			refresher.shutdownNow();
+			refresher = null;
+		}
+	}
+
+	private Map<String, Markdown> currentMarkdowns() {
+		Map<String, Markdown> table = markdowns;
+		if (table == null) {
+			synchronized (this) {
+				if (markdowns == null) {
+					refresh();
+				}
+				table = markdowns;
+			}
+		}
+		return table;
+	}
+
+	// the narrowest window the lot falls in is the deepest markdown
+	private double percentFor(long daysLeft) {
+		for (Window window : windows) {
+			if (daysLeft <= window.getDays()) {
+				return window.getPercent();
+			}
+		}
+		return 0;
+	}
+
+	// how many units of one product qualify for each percentage, deepest first
+	private static final class Markdown {
+		final double[] percents;
+		final int[] units;
+
+		Markdown(Map<Double, Integer> unitsByPercent) {
+			percents = new double[unitsByPercent.size()];
+			units = new int[unitsByPercent.size()];
+			int i = 0;
+			for (Map.Entry<Double, Integer> entry : unitsByPercent.entrySet()) {
+				percents[i] = entry.getKey();
+				units[i++] = entry.getValue();
+			}
+		}
+
+		// the markdown averaged over a line of that many units
+		double percentOff(int quantity) {
+			double off = 0;
+			int left = quantity;
+			for (int i = 0; i < percents.length && left > 0; i++) {
+				int marked = Math.min(left, units[i]);
+				off += marked * percents[i];
+				left -= marked;
+			}
+			return off / quantity;
+		}
+	}
+
+	/** A markdown of {@code percent} once stock is {@code days} or fewer days from expiry. */
+	public static final class Window {
+		private final int days;
+		private final double percent;
+
+		public Window(int days, double percent) {
+			if (days < 0) {
+				throw new IllegalArgumentException("Markdown window days cannot be negative.");
+			}
+			if (percent <= 0 || percent > 100) {
+				throw new IllegalArgumentException("Markdown percent must be between 0 and 100.");
+			}
+			this.days = days;
+			this.percent = percent;
+		}
+
+		public int getDays() {
+			return days;
+		}
+
+		public double getPercent() {
+			return percent;
+		}
+
+		// "3:20,1:50" -> 20% at 3 days, 50% at 1 day; blank means no markdowns
+		public static List<Window> parseAll(String spec) {
+			List<Window> windows = new ArrayList<>();
+			if (spec == null || spec.isBlank()) {
+				return windows;
+			}
+			for (String part : spec.split(",")) {
+				String[] fields = part.trim().split(":");
+				if (fields.length != 2) {
+					throw new IllegalArgumentException("Invalid markdown window '" + part.trim()
+							+ "', expected days:percent.");
+				}
+				try {
+					windows.add(new Window(Integer.parseInt(fields[0].trim()), Double.parseDouble(fields[1].trim())));
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Invalid markdown window '" + part.trim() + "'.", e);
+				}
+			}
+			return windows;
+		}
+	}
+}
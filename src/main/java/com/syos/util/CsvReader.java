@@ -0,0 +1,77 @@
+package com.syos.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma separated records one line at a time, so files of any size are
+ * streamed rather than loaded. Fields may be wrapped in double quotes to hold
+ * commas, with "" standing for a quote inside them; a record cannot span
+ * lines. Blank lines are skipped.
+ */
+public class CsvReader implements Closeable {
+	private final BufferedReader reader;
+	private int lineNumber;
+
+	public CsvReader(Reader reader) {
+		this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+	}
+
+	// the next record, or null at the end of the input
+	public List<String> next() throws IOException {
+		String line;
+		do {
+			line = reader.readLine();
+			if (line == null) {
+				return null;
+			}
+			lineNumber++;
+		} while (line.isBlank());
+		return parse(line, lineNumber);
+	}
+
+	// line of the record last returned by next(), counting from 1
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	static List<String> parse(String line, int lineNumber) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString().trim());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("Unterminated quoted field on line " + lineNumber + ".");
+		}
+		fields.add(field.toString().trim());
+		return fields;
+	}
+}
@@ -0,0 +1,173 @@
+package com.syos.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.syos.model.StockBatch;
+
+/**
+ * Open stock batches bucketed by expiry day, after a hierarchical timing
+ * wheel: a ring of day slots covers the near future, later days wait in an
+ * overflow map and cascade into the ring as it turns, and batches whose day
+ * has passed are kept apart until they are drawn down. "Expiring within N
+ * days" walks N buckets instead of querying, and advancing the day hands back
+ * the batches that have just expired.
+ *
+ * Entries hold absolute quantities, so replaying an update that a reload has
+ * already picked up is harmless. Batches handed out are copies.
+ */
+public class ExpiryWheel {
+	private static final Comparator<StockBatch> EXPIRY_ORDER = Comparator.comparing(StockBatch::getExpiryDate)
+			.thenComparing(StockBatch::getProductCode).thenComparingInt(StockBatch::getId);
+
+	private final List<Map<Integer, StockBatch>> slots;
+	// days at or beyond today + slot count
+	private final NavigableMap<Long, Map<Integer, StockBatch>> overflow = new TreeMap<>();
+	// open batches whose expiry date is before today
+	private final Map<Integer, StockBatch> expired = new HashMap<>();
+	private final Map<Integer, StockBatch> byId = new HashMap<>();
+	private long today;
+
+	public ExpiryWheel(int slotCount, LocalDate today) {
+		if (slotCount <= 0) {
+			throw new IllegalArgumentException("Slot count must be positive.");
+		}
+		this.slots = new ArrayList<>(slotCount);
+		for (int i = 0; i < slotCount; i++) {
+			slots.add(new HashMap<>());
+		}
+		this.today = today.toEpochDay();
+	}
+
+	public synchronized LocalDate getToday() {
+		return LocalDate.ofEpochDay(today);
+	}
+
+	public synchronized int size() {
+		return byId.size();
+	}
+
+	// adds or replaces the batch; one with nothing remaining is dropped
+	public synchronized void put(StockBatch batch) {
+		remove(batch.getId());
+		if (batch.getQuantityRemaining() <= 0) {
+			return;
+		}
+		StockBatch copy = copyOf(batch);
+		byId.put(copy.getId(), copy);
+		bucketFor(copy.getExpiryDate().toEpochDay()).put(copy.getId(), copy);
+	}
+
+	public synchronized void putAll(List<StockBatch> batches) {
+		for (StockBatch batch : batches) {
+			put(batch);
+		}
+	}
+
+	// unknown batches are ignored: without an expiry date there is no bucket to put them in
+	public synchronized void updateQuantity(int batchId, int remaining) {
+		if (remaining <= 0) {
+			remove(batchId);
+			return;
+		}
+		StockBatch batch = byId.get(batchId);
+		if (batch != null) {
+			batch.setQuantityRemaining(remaining);
+		}
+	}
+
+	public synchronized void remove(int batchId) {
+		StockBatch batch = byId.remove(batchId);
+		if (batch == null) {
+			return;
+		}
+		long day = batch.getExpiryDate().toEpochDay();
+		bucketFor(day).remove(batchId);
+		if (day >= today + slots.size()) {
+			Map<Integer, StockBatch> bucket = overflow.get(day);
+			if (bucket != null && bucket.isEmpty()) {
+				overflow.remove(day);
+			}
+		}
+	}
+
+	// open batches expiring on or before today + days, by expiry date, product and id
+	public synchronized List<StockBatch> expiringWithin(int days) {
+		return expiringWithin(null, days);
+	}
+
+	public synchronized List<StockBatch> expiringWithin(String productCode, int days) {
+		if (days < 0) {
+			throw new IllegalArgumentException("Expiry threshold must be a non-negative number.");
+		}
+		List<StockBatch> out = new ArrayList<>();
+		collect(expired, productCode, out);
+		long last = today + days;
+		long ringEnd = Math.min(last, today + slots.size() - 1);
+		for (long day = today; day <= ringEnd; day++) {
+			collect(slot(day), productCode, out);
+		}
+		if (last >= today + slots.size()) {
+			for (Map<Integer, StockBatch> bucket : overflow.headMap(last, true).values()) {
+				collect(bucket, productCode, out);
+			}
+		}
+		out.sort(EXPIRY_ORDER);
+		return out;
+	}
+
+	// turns the wheel forward to the given day and returns the batches that expired on the way
+	public synchronized List<StockBatch> advanceTo(LocalDate day) {
+		long target = day.toEpochDay();
+		List<StockBatch> newlyExpired = new ArrayList<>();
+		while (today < target) {
+			Map<Integer, StockBatch> passing = slot(today);
+			for (StockBatch batch : passing.values()) {
+				expired.put(batch.getId(), batch);
+				newlyExpired.add(copyOf(batch));
+			}
+			passing.clear();
+			today++;
+			// the slot just emptied now stands for the last day of the ring
+			Map<Integer, StockBatch> arriving = overflow.remove(today + slots.size() - 1);
+			if (arriving != null) {
+				slot(today + slots.size() - 1).putAll(arriving);
+			}
+		}
+		newlyExpired.sort(EXPIRY_ORDER);
+		return newlyExpired;
+	}
+
+	private Map<Integer, StockBatch> bucketFor(long day) {
+		if (day < today) {
+			return expired;
+		}
+		if (day < today + slots.size()) {
+			return slot(day);
+		}
+		return overflow.computeIfAbsent(day, d -> new HashMap<>());
+	}
+
+	private Map<Integer, StockBatch> slot(long day) {
+		return slots.get((int) Math.floorMod(day, (long) slots.size()));
+	}
+
+	private static void collect(Map<Integer, StockBatch> bucket, String productCode, List<StockBatch> out) {
+		for (StockBatch batch : bucket.values()) {
+			if (productCode == null || productCode.equals(batch.getProductCode())) {
+				out.add(copyOf(batch));
+			}
+		}
+	}
+
+	private static StockBatch copyOf(StockBatch batch) {
+		return new StockBatch(batch.getId(), batch.getProductCode(), batch.getPurchaseDate(), batch.getExpiryDate(),
+				batch.getQuantityRemaining());
+	}
+}
@@ -0,0 +1,116 @@
+package com.syos.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded, access-ordered cache with an optional time-to-live. Both
+ * limits can be changed while the cache is in use; hit and miss counts are
+ * kept for monitoring.
+ */
+public class LruCache<K, V> {
+	private static final class Entry<V> {
+		final V value;
+		final long storedAt;
+
+		Entry(V value, long storedAt) {
+			this.value = value;
+			this.storedAt = storedAt;
+		}
+	}
+
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+			if (size() > maxSize) {
+				evictions++;
+				return true;
+			}
+			return false;
+		}
+	};
+
+	private int maxSize;
+	private long ttlMillis;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	// ttlMillis <= 0 keeps entries until they are evicted by size
+	public LruCache(int maxSize, long ttlMillis) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive.");
+		}
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+	}
+
+	public synchronized V get(K key) {
+		Entry<V> entry = entries.get(key);
+		if (entry != null && (ttlMillis <= 0 || System.currentTimeMillis() - entry.storedAt < ttlMillis)) {
+			hits++;
+			return entry.value;
+		}
+		if (entry != null) {
+			entries.remove(key);
+		}
+		misses++;
+		return null;
+	}
+
+	public synchronized void put(K key, V value) {
+		entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+	}
+
+	public synchronized void invalidateAll() {
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized int getMaxSize() {
+		return maxSize;
+	}
+
+	public synchronized void setMaxSize(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive.");
+		}
+		this.maxSize = maxSize;
+		var it = entries.entrySet().iterator();
+		while (entries.size() > maxSize && it.hasNext()) {
+			it.next();
+			it.remove();
+			evictions++;
+		}
+	}
+
+	public synchronized long getTtlMillis() {
+		return ttlMillis;
+	}
+
+	public synchronized void setTtlMillis(long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized double getHitRatio() {
+		long total = hits + misses;
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+}
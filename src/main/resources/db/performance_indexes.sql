@@ -0,0 +1,15 @@
+-- Indexes backing the access paths used by the repositories.
+-- Safe to re-run: every statement is idempotent.
+
+-- keyset pagination of a day's bills in ReportRepository.getBillsAfter / getBillsBefore
+CREATE INDEX IF NOT EXISTS idx_bill_date_serial ON bill (bill_date, serial_number);
+
+-- bill lines of a page of bills (ReportRepository.getBillItemsByBillIds)
+CREATE INDEX IF NOT EXISTS idx_bill_item_bill_id ON bill_item (bill_id);
+
+-- open batches by expiry date (StockBatchRepository.findExpiryDashboard / findAllExpiringBatches);
+-- drawn-down batches are never expiring stock, so they stay out of the index
+CREATE INDEX IF NOT EXISTS idx_stock_batches_open_expiry ON stock_batches (expiry_date) WHERE quantity_remaining > 0;
+
+-- shelf lots expiring by a date (ShelfStockRepository.findLotsExpiringBy)
+CREATE INDEX IF NOT EXISTS idx_shelf_lots_expiry ON shelf_lots (expiry_date);
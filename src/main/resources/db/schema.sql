@@ -0,0 +1,86 @@
+-- Tables as read and written by the repositories.
+-- Safe to re-run: every statement is idempotent.
+
+CREATE TABLE IF NOT EXISTS users (
+    id          SERIAL PRIMARY KEY,
+    email       VARCHAR(255) NOT NULL UNIQUE,
+    password    VARCHAR(255) NOT NULL,
+    first_name  VARCHAR(100) NOT NULL,
+    last_name   VARCHAR(100) NOT NULL,
+    user_type   VARCHAR(20)  NOT NULL CHECK (user_type IN ('CUSTOMER', 'ADMIN', 'STAFF'))
+);
+
+CREATE TABLE IF NOT EXISTS product (
+    code   VARCHAR(50)    PRIMARY KEY,
+    name   VARCHAR(255)   NOT NULL,
+    price  NUMERIC(12, 2) NOT NULL CHECK (price >= 0)
+);
+
+CREATE TABLE IF NOT EXISTS stock_batches (
+    id                  SERIAL PRIMARY KEY,
+    product_code        VARCHAR(50) NOT NULL REFERENCES product (code),
+    purchase_date       DATE        NOT NULL,
+    expiry_date         DATE        NOT NULL,
+    quantity_received   INTEGER     NOT NULL CHECK (quantity_received > 0),
+    quantity_remaining  INTEGER     NOT NULL CHECK (quantity_remaining >= 0)
+);
+
+-- one row per batch written off; the batch itself keeps quantity_remaining = 0
+CREATE TABLE IF NOT EXISTS stock_write_offs (
+    id              SERIAL PRIMARY KEY,
+    batch_id        INTEGER     NOT NULL REFERENCES stock_batches (id),
+    product_code    VARCHAR(50) NOT NULL REFERENCES product (code),
+    expiry_date     DATE        NOT NULL,
+    quantity        INTEGER     NOT NULL CHECK (quantity > 0),
+    reason          VARCHAR(20) NOT NULL,
+    written_off_at  TIMESTAMP   NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS shelf_stock (
+    product_code       VARCHAR(50) PRIMARY KEY REFERENCES product (code),
+    quantity_on_shelf  INTEGER     NOT NULL CHECK (quantity_on_shelf >= 0)
+);
+
+-- shelf units by the batch they were moved from; quantities add up to shelf_stock except for
+-- units shelved before lots were tracked
+CREATE TABLE IF NOT EXISTS shelf_lots (
+    product_code  VARCHAR(50) NOT NULL REFERENCES product (code),
+    batch_id      INTEGER     NOT NULL REFERENCES stock_batches (id),
+    expiry_date   DATE        NOT NULL,
+    quantity      INTEGER     NOT NULL CHECK (quantity > 0),
+    PRIMARY KEY (product_code, batch_id)
+);
+
+CREATE TABLE IF NOT EXISTS bill (
+    id                SERIAL PRIMARY KEY,
+    serial_number     INTEGER        NOT NULL,
+    bill_date         TIMESTAMP      NOT NULL,
+    total_amount      NUMERIC(12, 2) NOT NULL,
+    cash_tendered     NUMERIC(12, 2) NOT NULL,
+    change_returned   NUMERIC(12, 2) NOT NULL,
+    transaction_type  VARCHAR(20)    NOT NULL DEFAULT 'COUNTER'
+);
+
+CREATE TABLE IF NOT EXISTS bill_item (
+    id               SERIAL PRIMARY KEY,
+    bill_id          INTEGER        NOT NULL REFERENCES bill (id),
+    product_code     VARCHAR(50)    NOT NULL REFERENCES product (code),
+    quantity         INTEGER        NOT NULL CHECK (quantity > 0),
+    total_price      NUMERIC(12, 2) NOT NULL,
+    discount_amount  NUMERIC(12, 2) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS discounts (
+    id          SERIAL PRIMARY KEY,
+    name        VARCHAR(255)   NOT NULL,
+    type        VARCHAR(10)    NOT NULL CHECK (type IN ('PERCENT', 'AMOUNT')),
+    value       NUMERIC(12, 2) NOT NULL CHECK (value >= 0),
+    start_date  DATE           NOT NULL,
+    end_date    DATE           NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS product_discounts (
+    product_code  VARCHAR(50) NOT NULL REFERENCES product (code),
+    discount_id   INTEGER     NOT NULL REFERENCES discounts (id),
+    PRIMARY KEY (product_code, discount_id)
+);
@@ -0,0 +1,37 @@
+-- Brings a database created before shelf lots were tracked up to date. Run after schema.sql
+-- by SchemaUpgrade at startup (db.schema.upgrade=true, once per database) or by hand with psql -f.
+-- Safe to re-run: every statement is idempotent.
+
+CREATE INDEX IF NOT EXISTS idx_shelf_lots_expiry ON shelf_lots (expiry_date);
+
+-- two instances starting together must not both backfill the same shelf units
+LOCK TABLE shelf_lots IN SHARE ROW EXCLUSIVE MODE;
+
+-- Shelf units not covered by a lot were shelved before lots were tracked. They are given lots on
+-- the batches the shelf was last filled from: the shelf sells first-expiry-first, so what is left
+-- most likely came from the latest-expiring batches drawn. A batch covers at most what it gave to
+-- the shelf (received, less remaining, written off and already in a lot). Units no batch can
+-- cover stay untracked and are listed for checking by hand.
+INSERT INTO shelf_lots (product_code, batch_id, expiry_date, quantity)
+SELECT product_code, batch_id, expiry_date, LEAST(available, untracked - covered_before)
+FROM (
+    SELECT b.product_code, b.id AS batch_id, b.expiry_date, a.available, u.untracked,
+           COALESCE(SUM(a.available) OVER (PARTITION BY b.product_code ORDER BY b.expiry_date DESC, b.id DESC
+                    ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0) AS covered_before
+    FROM stock_batches b
+    JOIN (
+        SELECT s.product_code, s.quantity_on_shelf - COALESCE(SUM(l.quantity), 0) AS untracked
+        FROM shelf_stock s
+        LEFT JOIN shelf_lots l ON l.product_code = s.product_code
+        GROUP BY s.product_code, s.quantity_on_shelf
+    ) u ON u.product_code = b.product_code
+    CROSS JOIN LATERAL (
+        SELECT b.quantity_received - b.quantity_remaining
+               - COALESCE((SELECT SUM(w.quantity) FROM stock_write_offs w WHERE w.batch_id = b.id), 0)
+               - COALESCE((SELECT l.quantity FROM shelf_lots l
+                           WHERE l.product_code = b.product_code AND l.batch_id = b.id), 0) AS available
+    ) a
+    WHERE u.untracked > 0 AND a.available > 0
+) candidates
+WHERE covered_before < untracked
+ON CONFLICT (product_code, batch_id) DO UPDATE SET quantity = shelf_lots.quantity + EXCLUDED.quantity;
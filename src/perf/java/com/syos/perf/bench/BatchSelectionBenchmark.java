@@ -0,0 +1,64 @@
+package com.syos.perf.bench;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.syos.model.StockBatch;
+import com.syos.strategy.ExpiryAwareFifoStrategy;
+import com.syos.strategy.ShelfStrategy;
+
+/**
+ * Batch selection over back-store lists of growing size. The mix puts about
+ * a fifth of the batches inside the one-week expiry window, so both the
+ * safe-batch scan and the fallback are exercised.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class BatchSelectionBenchmark {
+
+	@Param({ "4", "64", "1024" })
+	public int batchCount;
+
+	private final ShelfStrategy strategy = new ExpiryAwareFifoStrategy();
+	private List<StockBatch> batches;
+	private List<StockBatch> allExpiringSoon;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		LocalDate today = LocalDate.now();
+		batches = new ArrayList<>(batchCount);
+		allExpiringSoon = new ArrayList<>(batchCount);
+		for (int i = 0; i < batchCount; i++) {
+			LocalDate purchased = today.minusDays(random.nextInt(120));
+			int shelfLife = random.nextInt(5) == 0 ? random.nextInt(7) : 8 + random.nextInt(180);
+			batches.add(new StockBatch(i, "P0001", purchased, today.plusDays(shelfLife), 1 + random.nextInt(200)));
+			allExpiringSoon.add(new StockBatch(i, "P0001", purchased, today.plusDays(random.nextInt(7)), 10));
+		}
+	}
+
+	@Benchmark
+	public StockBatch selectBatch() {
+		return strategy.selectBatch(batches);
+	}
+
+	@Benchmark
+	public StockBatch selectBatchAllExpiringSoon() {
+		return strategy.selectBatch(allExpiringSoon);
+	}
+}
@@ -0,0 +1,68 @@
+package com.syos.perf.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.syos.factory.BillItemFactory;
+import com.syos.model.Bill;
+import com.syos.model.BillItem;
+import com.syos.model.Product;
+import com.syos.repository.memory.MemoryStorageProvider;
+import com.syos.strategy.DiscountPricingStrategy;
+import com.syos.strategy.NoDiscountStrategy;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class BillingBenchmark {
+
+	@Param({ "1", "10", "50" })
+	public int lines;
+
+	private BillItemFactory factory;
+	private Product[] products;
+	private List<BillItem> items;
+
+	@Setup
+	public void setUp() {
+		factory = new BillItemFactory(new DiscountPricingStrategy(new NoDiscountStrategy(),
+				new MemoryStorageProvider().discounts(), PricingBenchmark.stubInventory(500)));
+		products = new Product[lines];
+		items = new ArrayList<>(lines);
+		for (int i = 0; i < lines; i++) {
+			products[i] = new Product(String.format("P%04d", i), "Product " + i, 50.0 + i);
+			items.add(factory.create(products[i], 1 + i % 4));
+		}
+	}
+
+	@Benchmark
+	public BillItem createBillItem() {
+		return factory.create(products[0], 2);
+	}
+
+	@Benchmark
+	public Bill buildBill() {
+		return new Bill.BillBuilder(1, items).withCashTendered(1_000_000).build();
+	}
+
+	@Benchmark
+	public Bill priceAndBuildBill() {
+		List<BillItem> priced = new ArrayList<>(lines);
+		for (int i = 0; i < lines; i++) {
+			priced.add(factory.create(products[i], 1 + i % 4));
+		}
+		return new Bill.BillBuilder(1, priced).withCashTendered(1_000_000).build();
+	}
+}
@@ -0,0 +1,96 @@
+package com.syos.perf.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.syos.factory.BillItemFactory;
+import com.syos.model.Bill;
+import com.syos.model.BillItem;
+import com.syos.model.Product;
+import com.syos.observer.BillObserver;
+import com.syos.repository.BillingRepository;
+import com.syos.repository.memory.MemoryStorageProvider;
+import com.syos.service.StoreBillingService;
+import com.syos.singleton.InventoryManager;
+import com.syos.strategy.ExpiryAwareFifoStrategy;
+import com.syos.strategy.NoDiscountStrategy;
+
+/**
+ * {@link StoreBillingService#checkout} end to end over in-memory repositories:
+ * serial allocation, bill construction, save and one shelf deduction per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class CheckoutBenchmark {
+
+	@Param({ "1", "10" })
+	public int lines;
+
+	private StoreBillingService billing;
+	private List<BillItem> items;
+	private PrintStream console;
+
+	@Setup
+	public void setUp() {
+		console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+		InventoryManager inventory = new InventoryManager(new ExpiryAwareFifoStrategy(),
+				new InventoryBenchmark.RefillingBatches("P0000", 1), new InventoryBenchmark.BottomlessShelf());
+		BillItemFactory factory = new BillItemFactory(new NoDiscountStrategy());
+		billing = new StoreBillingService(new MemoryStorageProvider().products(), new CountingBillingRepository(),
+				factory, inventory);
+
+		items = new ArrayList<>(lines);
+		for (int i = 0; i < lines; i++) {
+			Product product = new Product(String.format("P%04d", i), "Product " + i, 50.0 + i);
+			items.add(factory.create(product, 1 + i % 4));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		System.setOut(console);
+	}
+
+	@Benchmark
+	public Bill checkout() {
+		return billing.checkout(items, 1_000_000);
+	}
+
+	// keeps only the serial, so a long run does not accumulate bills
+	static final class CountingBillingRepository implements BillingRepository {
+		private int lastSerial;
+
+		@Override
+		public void addObserver(BillObserver observer) {
+		}
+
+		@Override
+		public void save(Bill bill) {
+			bill.setId(lastSerial);
+			lastSerial = bill.getSerialNumber();
+		}
+
+		@Override
+		public int nextSerial() {
+			return lastSerial + 1;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package com.syos.perf.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.syos.model.ProductStock;
+import com.syos.model.ShelfLot;
+import com.syos.model.StockBatch;
+import com.syos.model.StockTotals;
+import com.syos.model.WriteOff;
+import com.syos.repository.ShelfStockRepository;
+import com.syos.repository.StockBatchRepository;
+import com.syos.singleton.InventoryManager;
+import com.syos.strategy.ExpiryAwareFifoStrategy;
+
+/**
+ * Shelf moves and deductions through {@link InventoryManager} with in-memory
+ * repositories, so locking, batch selection, metrics and events are measured
+ * without database latency. Emptied batches are refilled so every invocation
+ * does the same amount of work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class InventoryBenchmark {
+	private static final String PRODUCT = "P0001";
+	private static final int BATCH_SIZE = 1_000;
+
+	@Param({ "1", "16" })
+	public int batchCount;
+
+	private InventoryManager inventory;
+	private PrintStream console;
+
+	@Setup
+	public void setUp() {
+		console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		inventory = new InventoryManager(new ExpiryAwareFifoStrategy(), new RefillingBatches(PRODUCT, batchCount),
+				new BottomlessShelf());
+	}
+
+	@TearDown
+	public void tearDown() {
+		System.setOut(console);
+	}
+
+	@Benchmark
+	public void moveToShelf() {
+		inventory.moveToShelf(PRODUCT, 5);
+	}
+
+	@Benchmark
+	public void deductFromShelf() {
+		inventory.deductFromShelf(PRODUCT, 1);
+	}
+
+	static final class RefillingBatches implements StockBatchRepository {
+		private final String productCode;
+		private final LocalDate[] expiry;
+		private final int[] remaining;
+
+		RefillingBatches(String productCode, int batchCount) {
+			this.productCode = productCode;
+			this.expiry = new LocalDate[batchCount];
+			this.remaining = new int[batchCount];
+			LocalDate today = LocalDate.now();
+			for (int i = 0; i < batchCount; i++) {
+				expiry[i] = today.plusDays(10 + i * 7L);
+				remaining[i] = BATCH_SIZE;
+			}
+		}
+
+		// fresh objects on every call, as rows read from the database would be
+		@Override
+		public List<StockBatch> findByProduct(String code) {
+			List<StockBatch> batches = new ArrayList<>(remaining.length);
+			LocalDate purchased = LocalDate.now().minusDays(1);
+			for (int i = 0; i < remaining.length; i++) {
+				if (remaining[i] > 0) {
+					batches.add(new StockBatch(i, productCode, purchased, expiry[i], remaining[i]));
+				}
+			}
+			return batches;
+		}
+
+		@Override
+		public void updateQuantity(int batchId, int newQty) {
+			remaining[batchId] = newQty == 0 ? BATCH_SIZE : newQty;
+		}
+
+		@Override
+		public List<StockBatch> findByProductAllBatches(String code) {
+			return findByProduct(code);
+		}
+
+		@Override
+		public int createBatch(String productCode, LocalDate purchaseDate, LocalDate expiryDate, int quantity) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Integer> createBatches(List<StockBatch> batches) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<String> getAllProductCodesWithBatches() {
+			return List.of(productCode);
+		}
+
+		@Override
+		public List<StockBatch> findExpiringBatches(String productCode, int daysThreshold) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<StockBatch> findAllExpiringBatches(int daysThreshold) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<StockBatch> findAllOpenBatches() {
+			return findByProduct(productCode);
+		}
+
+		@Override
+		public List<ProductStock> findExpiryDashboard(int daysThreshold, String productCode) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<String> findProductCodesWithExpiredBatches(LocalDate asOf) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<WriteOff> writeOffExpired(LocalDate asOf, List<String> productCodes) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public StockBatch findById(int batchId) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	static final class BottomlessShelf implements ShelfStockRepository {
+		private final Map<String, int[]> shelf = new HashMap<>();
+
+		@Override
+		public int getQuantity(String productCode) {
+			return slot(productCode)[0];
+		}
+
+		@Override
+		public void upsertQuantity(String productCode, int qty) {
+			slot(productCode)[0] += qty;
+		}
+
+		// never runs dry, so deductions keep taking the normal path
+		@Override
+		public void deductQuantity(String productCode, int qty) {
+			int[] slot = slot(productCode);
+			slot[0] -= qty;
+			if (slot[0] < 1_000) {
+				slot[0] += 1_000_000;
+			}
+		}
+
+		@Override
+		public List<String> getAllProductCodes() {
+			return new ArrayList<>(shelf.keySet());
+		}
+
+		// no lots: every unit counts as shelved before lots were tracked
+		@Override
+		public void addLot(String productCode, int batchId, LocalDate expiryDate, int qty) {
+		}
+
+		@Override
+		public void updateLotQuantity(String productCode, int batchId, int qty) {
+		}
+
+		@Override
+		public List<ShelfLot> findLots(String productCode) {
+			return List.of();
+		}
+
+		@Override
+		public List<ShelfLot> findLotsExpiringBy(LocalDate asOf) {
+			return List.of();
+		}
+
+		@Override
+		public Map<String, Integer> findUntrackedQuantities() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public StockTotals getStockTotals() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void streamStockOverview(String codePrefix, String afterCode, int limit,
+				Consumer<ProductStock> handler) {
+			throw new UnsupportedOperationException();
+		}
+
+		private int[] slot(String productCode) {
+			return shelf.computeIfAbsent(productCode, code -> new int[] { 1_000_000 });
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.syos.perf.bench;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.syos.enums.DiscountType;
+import com.syos.model.Product;
+import com.syos.model.ProductStock;
+import com.syos.model.ShelfLot;
+import com.syos.model.StockTotals;
+import com.syos.repository.DiscountRepository;
+import com.syos.repository.ShelfStockRepository;
+import com.syos.repository.memory.MemoryStorageProvider;
+import com.syos.singleton.InventoryManager;
+import com.syos.strategy.DiscountPricingStrategy;
+import com.syos.strategy.ExpiryAwareFifoStrategy;
+import com.syos.strategy.NoDiscountStrategy;
+import com.syos.strategy.PricingStrategy;
+
+/**
+ * Line pricing over the in-memory backend, so only the strategy code (and the
+ * discount cache in front of the repository) is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class PricingBenchmark {
+
+	@Param({ "0", "3", "20" })
+	public int activeDiscounts;
+
+	private final Product product = new Product("P0001", "Benchmark Tea 100g", 240.0);
+	private PricingStrategy noDiscount;
+	private PricingStrategy discountPricing;
+
+	@Setup
+	public void setUp() {
+		DiscountRepository discounts = new MemoryStorageProvider().discounts();
+		LocalDate today = LocalDate.now();
+		for (int i = 0; i < activeDiscounts; i++) {
+			DiscountType type = i % 2 == 0 ? DiscountType.PERCENT : DiscountType.AMOUNT;
+			int id = discounts.createDiscount("D" + i, type, 5 + i, today.minusDays(1), today.plusDays(1));
+			discounts.linkProductToDiscount(product.getCode(), id);
+		}
+
+		noDiscount = new NoDiscountStrategy();
+		discountPricing = new DiscountPricingStrategy(noDiscount, discounts, stubInventory(500));
+	}
+
+	@Benchmark
+	public double noDiscount() {
+		return noDiscount.calculate(product, 3);
+	}
+
+	@Benchmark
+	public double discountPricing() {
+		return discountPricing.calculate(product, 3);
+	}
+
+	// every product shows the same shelf quantity
+	static InventoryManager stubInventory(int shelfQuantity) {
+		ShelfStockRepository shelf = new ShelfStockRepository() {
+			@Override
+			public int getQuantity(String productCode) {
+				return shelfQuantity;
+			}
+
+			@Override
+			public void upsertQuantity(String productCode, int qty) {
+			}
+
+			@Override
+			public void deductQuantity(String productCode, int qty) {
+			}
+
+			@Override
+			public List<String> getAllProductCodes() {
+				return List.of();
+			}
+
+			@Override
+			public void addLot(String productCode, int batchId, LocalDate expiryDate, int qty) {
+			}
+
+			@Override
+			public void updateLotQuantity(String productCode, int batchId, int qty) {
+			}
+
+			@Override
+			public List<ShelfLot> findLots(String productCode) {
+				return List.of();
+			}
+
+			@Override
+			public List<ShelfLot> findLotsExpiringBy(LocalDate asOf) {
+				return List.of();
+			}
+
+			@Override
+			public Map<String, Integer> findUntrackedQuantities() {
+				return Map.of();
+			}
+
+			@Override
+			public StockTotals getStockTotals() {
+				return new StockTotals(0, 0, 0, 0, 0, 0, 0, 0);
+			}
+
+			@Override
+			public void streamStockOverview(String codePrefix, String afterCode, int limit,
+					Consumer<ProductStock> handler) {
+			}
+		};
+		return new InventoryManager(new ExpiryAwareFifoStrategy(), new MemoryStorageProvider().stockBatches(), shelf);
+	}
+}
@@ -0,0 +1,60 @@
+package com.syos.perf.datagen;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Rows for one {@code COPY ... FROM STDIN} in PostgreSQL text format. Values
+ * are generated, so they never contain tabs, newlines or backslashes and need
+ * no escaping.
+ */
+class CopyBuffer {
+	private final String copySql;
+	private final StringBuilder rows = new StringBuilder(1 << 16);
+	private long rowCount;
+	private boolean rowOpen;
+
+	CopyBuffer(String table, String columns) {
+		this.copySql = "COPY " + table + " (" + columns + ") FROM STDIN";
+	}
+
+	CopyBuffer add(Object value) {
+		if (rowOpen) {
+			rows.append('\t');
+		}
+		rows.append(value == null ? "\\N" : value);
+		rowOpen = true;
+		return this;
+	}
+
+	CopyBuffer money(double value) {
+		return add(String.format(Locale.ROOT, "%.2f", value));
+	}
+
+	void endRow() {
+		rows.append('\n');
+		rowOpen = false;
+		rowCount++;
+	}
+
+	long getRowCount() {
+		return rowCount;
+	}
+
+	long copyInto(Connection connection) throws SQLException, IOException {
+		if (rowCount == 0) {
+			return 0;
+		}
+		CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+		long copied = copy.copyIn(copySql, new StringReader(rows.toString()));
+		rows.setLength(0);
+		rowCount = 0;
+		return copied;
+	}
+}
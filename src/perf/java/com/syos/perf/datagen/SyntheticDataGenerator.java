@@ -0,0 +1,450 @@
+package com.syos.perf.datagen;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.syos.config.ConfigLoader;
+import com.syos.db.SchemaUpgrade;
+import com.syos.perf.load.ZipfDistribution;
+
+/**
+ * Fills the configured database with a store-sized synthetic history so
+ * queries can be profiled against realistic row counts: a large catalogue,
+ * many stock batches per product with expiry dates spread by shelf life,
+ * years of bills and bill lines, and overlapping discount campaigns.
+ *
+ * <pre>
+ * mvn -Pperf test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.syos.perf.datagen.SyntheticDataGenerator \
+ *     -Dexec.args="--products 100000 --years 2 --end-date 2026-01-01"
+ * </pre>
+ *
+ * Options (defaults in brackets): --products [100000], --batches-per-product [20],
+ * --years of sales history [2], --bills-per-day [2000], --max-lines per bill [6],
+ * --discounts [5000], --end-date last day of history [today], --seed [42],
+ * --threads [available processors], --prefix for product codes [G],
+ * --schema create missing tables and indexes [true],
+ * --truncate empty every table first [false].
+ *
+ * Rows are written with COPY in independent chunks (a slice of the catalogue
+ * or one day of bills) loaded in parallel. Every chunk draws from its own
+ * {@code Random} seeded from --seed and the chunk number, so a given seed and
+ * end date produce the same data whatever the thread count. Ids are assigned
+ * from the current maximum, so running into a non-empty database appends;
+ * product codes must not collide with existing ones (use --prefix or --truncate).
+ */
+public class SyntheticDataGenerator {
+	private static final int PRODUCTS_PER_CHUNK = 2_000;
+	private static final int DISCOUNTS_PER_CHUNK = 1_000;
+	private static final int OPENING_HOUR = 8;
+	private static final int TRADING_SECONDS = 14 * 60 * 60;
+	private static final double BUSY_DAY_FACTOR = 1.5;
+
+	// shelf life in days by product family: fresh, chilled, packaged, household
+	private static final int[][] SHELF_LIFE_RANGES = { { 2, 7 }, { 7, 30 }, { 90, 540 }, { 365, 1095 } };
+	private static final double[] SHELF_LIFE_SHARE = { 0.15, 0.25, 0.45, 0.15 };
+	private static final String[] NAME_WORDS = { "Fresh", "Organic", "Classic", "Family", "Value", "Premium",
+			"Golden", "Farm", "Daily", "Select" };
+	private static final String[] NAME_ITEMS = { "Milk", "Bread", "Rice", "Tea", "Biscuits", "Soap", "Yoghurt",
+			"Butter", "Noodles", "Juice", "Flour", "Sugar", "Eggs", "Cheese", "Shampoo", "Detergent" };
+
+	private final Map<String, String> options;
+	private final String url;
+	private final String user;
+	private final String password;
+
+	private final int productCount;
+	private final int batchesPerProduct;
+	private final int historyDays;
+	private final int billsPerDay;
+	private final int maxLines;
+	private final int discountCount;
+	private final LocalDate endDate;
+	private final long seed;
+	private final int threads;
+	private final String prefix;
+
+	private String[] codes;
+	private double[] prices;
+	private int[] shelfLife;
+	private int[] popularityOrder;
+	private ZipfDistribution popularity;
+
+	private long batchBase;
+	private long billBase;
+	private long billItemBase;
+	private long discountBase;
+
+	public SyntheticDataGenerator(Map<String, String> options) {
+		this.options = options;
+		this.url = options.getOrDefault("url", ConfigLoader.get("db.url"));
+		this.user = options.getOrDefault("user", ConfigLoader.get("db.username"));
+		this.password = options.getOrDefault("password", ConfigLoader.get("db.password"));
+		this.productCount = intOption("products", 100_000);
+		this.batchesPerProduct = intOption("batches-per-product", 20);
+		this.historyDays = intOption("years", 2) * 365;
+		this.billsPerDay = intOption("bills-per-day", 2_000);
+		this.maxLines = intOption("max-lines", 6);
+		this.discountCount = intOption("discounts", 5_000);
+		this.endDate = options.containsKey("end-date") ? LocalDate.parse(options.get("end-date")) : LocalDate.now();
+		this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		this.threads = intOption("threads", Runtime.getRuntime().availableProcessors());
+		this.prefix = options.getOrDefault("prefix", "G");
+		if (productCount <= 0 || batchesPerProduct <= 0 || historyDays <= 0 || billsPerDay <= 0 || maxLines <= 0
+				|| discountCount < 0 || threads <= 0) {
+			throw new IllegalArgumentException("Sizes and thread count must be positive.");
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		new SyntheticDataGenerator(options).run();
+	}
+
+	public void run() throws Exception {
+		long start = System.nanoTime();
+		try (Connection connection = connect()) {
+			if (Boolean.parseBoolean(options.getOrDefault("schema", "true"))) {
+				SchemaUpgrade.runScript(connection, "db/schema.sql");
+			}
+			if (Boolean.parseBoolean(options.getOrDefault("truncate", "false"))) {
+				try (Statement st = connection.createStatement()) {
+					st.execute("TRUNCATE bill_item, bill, product_discounts, discounts, shelf_lots, shelf_stock,"
+							+ " stock_write_offs, stock_batches, product RESTART IDENTITY");
+				}
+			}
+			batchBase = maxId(connection, "stock_batches");
+			billBase = maxId(connection, "bill");
+			billItemBase = maxId(connection, "bill_item");
+			discountBase = maxId(connection, "discounts");
+		}
+		checkIdRange(batchBase + (long) productCount * batchesPerProduct, "stock_batches");
+		checkIdRange(billBase + (long) historyDays * billCapacityPerDay(), "bill");
+		checkIdRange(billItemBase + (long) historyDays * billCapacityPerDay() * maxLines, "bill_item");
+
+		buildCatalogue();
+
+		int productChunks = chunks(productCount, PRODUCTS_PER_CHUNK);
+		phase("products", productChunks, this::writeProducts);
+		phase("stock batches", productChunks, this::writeBatches);
+		phase("discounts", chunks(discountCount, DISCOUNTS_PER_CHUNK), this::writeDiscounts);
+		phase("bills", historyDays, this::writeBills);
+
+		try (Connection connection = connect()) {
+			for (String table : List.of("stock_batches", "bill", "bill_item", "discounts")) {
+				resetSequence(connection, table);
+			}
+			// the indexes are built after the load, which is far cheaper than
+			// maintaining them row by row during COPY
+			SchemaUpgrade.runScript(connection, "db/performance_indexes.sql");
+			try (Statement st = connection.createStatement()) {
+				st.execute("ANALYZE");
+			}
+		}
+		System.out.printf("Done in %.1f s%n", (System.nanoTime() - start) / 1e9);
+	}
+
+	// ---- catalogue, shared read-only by every chunk ----
+
+	private void buildCatalogue() {
+		Random random = new Random(seed);
+		codes = new String[productCount];
+		prices = new double[productCount];
+		shelfLife = new int[productCount];
+		popularityOrder = new int[productCount];
+		for (int p = 0; p < productCount; p++) {
+			codes[p] = String.format("%s%06d", prefix, p + 1);
+			// log-normal-ish price between roughly 50 and 5000
+			prices[p] = Math.round(Math.exp(4 + random.nextDouble() * 4.5)) + 0.99;
+			int family = family(random.nextDouble());
+			int[] range = SHELF_LIFE_RANGES[family];
+			shelfLife[p] = range[0] + random.nextInt(range[1] - range[0] + 1);
+			popularityOrder[p] = p;
+		}
+		// popular products are scattered through the catalogue rather than being
+		// the lowest codes
+		for (int i = productCount - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = popularityOrder[i];
+			popularityOrder[i] = popularityOrder[j];
+			popularityOrder[j] = swap;
+		}
+		popularity = new ZipfDistribution(productCount, 1.0);
+	}
+
+	private static int family(double draw) {
+		double cumulative = 0;
+		for (int f = 0; f < SHELF_LIFE_SHARE.length; f++) {
+			cumulative += SHELF_LIFE_SHARE[f];
+			if (draw < cumulative) {
+				return f;
+			}
+		}
+		return SHELF_LIFE_SHARE.length - 1;
+	}
+
+	private String code(int product) {
+		return codes[product];
+	}
+
+	// ---- chunk writers ----
+
+	private long writeProducts(Connection connection, int chunk) throws SQLException, IOException {
+		Random random = chunkRandom("products", chunk);
+		CopyBuffer products = new CopyBuffer("product", "code, name, price");
+		CopyBuffer shelves = new CopyBuffer("shelf_stock", "product_code, quantity_on_shelf");
+		for (int p = chunk * PRODUCTS_PER_CHUNK, end = Math.min(productCount, p + PRODUCTS_PER_CHUNK); p < end; p++) {
+			String name = NAME_WORDS[random.nextInt(NAME_WORDS.length)] + " "
+					+ NAME_ITEMS[random.nextInt(NAME_ITEMS.length)] + " " + (p + 1);
+			products.add(code(p)).add(name).money(prices[p]).endRow();
+			// roughly one product in ten has an empty shelf
+			int onShelf = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(120);
+			shelves.add(code(p)).add(onShelf).endRow();
+		}
+		return products.copyInto(connection) + shelves.copyInto(connection);
+	}
+
+	private long writeBatches(Connection connection, int chunk) throws SQLException, IOException {
+		Random random = chunkRandom("batches", chunk);
+		CopyBuffer batches = new CopyBuffer("stock_batches",
+				"id, product_code, purchase_date, expiry_date, quantity_received, quantity_remaining");
+		for (int p = chunk * PRODUCTS_PER_CHUNK, end = Math.min(productCount, p + PRODUCTS_PER_CHUNK); p < end; p++) {
+			// deliveries are spread over the history plus the product's own shelf life,
+			// so long-life products still have stock bought long ago
+			int window = historyDays + shelfLife[p];
+			for (int k = 0; k < batchesPerProduct; k++) {
+				long id = batchBase + (long) p * batchesPerProduct + k + 1;
+				int daysAgo = (int) (window * (batchesPerProduct - k - random.nextDouble()) / batchesPerProduct);
+				LocalDate purchased = endDate.minusDays(Math.max(0, daysAgo));
+				int life = Math.max(1, (int) Math.round(shelfLife[p] * (0.8 + random.nextDouble() * 0.4)));
+				LocalDate expiry = purchased.plusDays(life);
+				int received = 10 * (2 + random.nextInt(49));
+				batches.add(id).add(code(p)).add(purchased).add(expiry).add(received)
+						.add(remaining(random, received, purchased, expiry)).endRow();
+			}
+		}
+		return batches.copyInto(connection);
+	}
+
+	private int remaining(Random random, int received, LocalDate purchased, LocalDate expiry) {
+		if (expiry.isBefore(endDate)) {
+			// most expired batches sold out; the rest are write-off candidates
+			return random.nextInt(100) < 85 ? 0 : 1 + random.nextInt(Math.max(1, received / 4));
+		}
+		long age = endDate.toEpochDay() - purchased.toEpochDay();
+		long life = Math.max(1, expiry.toEpochDay() - purchased.toEpochDay());
+		double sold = Math.min(1.0, (double) age / life + random.nextGaussian() * 0.15);
+		return (int) Math.max(0, Math.round(received * (1 - Math.max(0, sold))));
+	}
+
+	private long writeDiscounts(Connection connection, int chunk) throws SQLException, IOException {
+		Random random = chunkRandom("discounts", chunk);
+		CopyBuffer discounts = new CopyBuffer("discounts", "id, name, type, value, start_date, end_date");
+		CopyBuffer links = new CopyBuffer("product_discounts", "product_code, discount_id");
+		for (int d = chunk * DISCOUNTS_PER_CHUNK, end = Math.min(discountCount, d + DISCOUNTS_PER_CHUNK); d < end; d++) {
+			long id = discountBase + d + 1;
+			// campaigns start anywhere in the history or up to a month ahead and
+			// last from a day to two months, so many overlap on any given date
+			LocalDate from = endDate.minusDays(historyDays).plusDays(random.nextInt(historyDays + 30));
+			LocalDate to = from.plusDays(random.nextInt(60));
+			boolean percent = random.nextInt(10) < 7;
+			double value = percent ? 5 + random.nextInt(46) : 10 * (1 + random.nextInt(50));
+			discounts.add(id).add((percent ? "Promo " : "Save ") + (d + 1)).add(percent ? "PERCENT" : "AMOUNT")
+					.money(value).add(from).add(to).endRow();
+
+			int targets = Math.min(productCount, 1 + random.nextInt(20));
+			int[] chosen = new int[targets];
+			int linked = 0;
+			while (linked < targets) {
+				// popular products are promoted more often
+				int product = popularityOrder[popularity.sample(random)];
+				if (!contains(chosen, linked, product)) {
+					chosen[linked++] = product;
+					links.add(code(product)).add(id).endRow();
+				}
+			}
+		}
+		return discounts.copyInto(connection) + links.copyInto(connection);
+	}
+
+	private long writeBills(Connection connection, int day) throws SQLException, IOException {
+		Random random = chunkRandom("bills", day);
+		LocalDate date = endDate.minusDays(historyDays - 1L - day);
+		int count = billsOn(date, random);
+
+		int[] seconds = new int[count];
+		for (int b = 0; b < count; b++) {
+			seconds[b] = random.nextInt(TRADING_SECONDS);
+		}
+		// serial numbers restart every day and follow the till time
+		Arrays.sort(seconds);
+
+		CopyBuffer bills = new CopyBuffer("bill",
+				"id, serial_number, bill_date, total_amount, cash_tendered, change_returned, transaction_type");
+		CopyBuffer items = new CopyBuffer("bill_item",
+				"id, bill_id, product_code, quantity, total_price, discount_amount");
+		LocalDateTime opening = date.atTime(OPENING_HOUR, 0);
+		for (int b = 0; b < count; b++) {
+			long billId = billBase + (long) day * billCapacityPerDay() + b + 1;
+			int lines = 1 + Math.min(maxLines - 1, (int) Math.abs(random.nextGaussian() * maxLines / 2.5));
+			double total = 0;
+			for (int line = 0; line < lines; line++) {
+				long itemId = billItemBase + (billId - billBase - 1) * maxLines + line + 1;
+				int product = popularityOrder[popularity.sample(random)];
+				int quantity = 1 + (random.nextInt(4) == 0 ? random.nextInt(5) : 0);
+				double gross = prices[product] * quantity;
+				double discount = random.nextInt(100) < 15 ? round2(gross * (0.05 + random.nextDouble() * 0.2)) : 0;
+				double price = round2(gross - discount);
+				total += price;
+				items.add(itemId).add(billId).add(code(product)).add(quantity).money(price).money(discount).endRow();
+			}
+			total = round2(total);
+			double cash = random.nextInt(10) < 3 ? total : Math.ceil(total / 500) * 500;
+			bills.add(billId).add(b + 1).add(opening.plusSeconds(seconds[b]).toString().replace('T', ' '))
+					.money(total).money(cash).money(cash - total).add("COUNTER").endRow();
+		}
+
+		connection.setAutoCommit(false);
+		try {
+			long rows = bills.copyInto(connection) + items.copyInto(connection);
+			connection.commit();
+			return rows;
+		} catch (SQLException | IOException e) {
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.setAutoCommit(true);
+		}
+	}
+
+	private int billsOn(LocalDate date, Random random) {
+		DayOfWeek weekday = date.getDayOfWeek();
+		double factor = weekday == DayOfWeek.SATURDAY || weekday == DayOfWeek.SUNDAY ? 1.3 : 0.9;
+		// a gentle yearly season peaking in December
+		factor *= 1 + 0.15 * Math.cos(2 * Math.PI * (date.getDayOfYear() - 350) / 365.0);
+		factor *= 0.95 + random.nextDouble() * 0.1;
+		return Math.min(billCapacityPerDay(), Math.max(1, (int) Math.round(billsPerDay * factor)));
+	}
+
+	// bill ids are reserved per day so days can load out of order; unused ids
+	// are simply gaps
+	private int billCapacityPerDay() {
+		return (int) Math.ceil(billsPerDay * BUSY_DAY_FACTOR);
+	}
+
+	// ---- parallel loading ----
+
+	@FunctionalInterface
+	private interface ChunkWriter {
+		long write(Connection connection, int chunk) throws SQLException, IOException;
+	}
+
+	private void phase(String name, int chunkCount, ChunkWriter writer) throws Exception {
+		if (chunkCount == 0) {
+			return;
+		}
+		long start = System.nanoTime();
+		AtomicInteger nextChunk = new AtomicInteger();
+		AtomicLong rows = new AtomicLong();
+		int workers = Math.min(threads, chunkCount);
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int w = 0; w < workers; w++) {
+				futures.add(pool.submit(() -> {
+					try (Connection connection = connect()) {
+						for (int chunk; (chunk = nextChunk.getAndIncrement()) < chunkCount;) {
+							rows.addAndGet(writer.write(connection, chunk));
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%-14s %,12d rows in %6.1f s (%,.0f rows/s)%n", name, rows.get(), seconds,
+				rows.get() / Math.max(seconds, 1e-9));
+	}
+
+	private Random chunkRandom(String phase, int chunk) {
+		return new Random(seed * 1_000_003L + phase.hashCode() * 31L + chunk);
+	}
+
+	private Connection connect() throws SQLException {
+		return DriverManager.getConnection(url, user, password);
+	}
+
+	// ---- housekeeping ----
+
+	private static long maxId(Connection connection, String table) throws SQLException {
+		try (Statement st = connection.createStatement();
+				ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	private static void resetSequence(Connection connection, String table) throws SQLException {
+		try (Statement st = connection.createStatement()) {
+			st.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'),"
+					+ " (SELECT GREATEST(COALESCE(MAX(id), 0), 1) FROM " + table + "))");
+		}
+	}
+
+	private static void checkIdRange(long highestId, String table) {
+		if (highestId > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Requested volume would overflow the integer ids of " + table + ".");
+		}
+	}
+
+	private static boolean contains(int[] values, int length, int value) {
+		for (int i = 0; i < length; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int chunks(int items, int perChunk) {
+		return (items + perChunk - 1) / perChunk;
+	}
+
+	private static double round2(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+
+	private int intOption(String name, int defaultValue) {
+		String value = options.get(name);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+}
@@ -0,0 +1,142 @@
+package com.syos.perf.gate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.syos.util.Json;
+
+/**
+ * One comparable number from a result file: a benchmark's primary score or
+ * allocation rate, or a load-test figure, with its confidence half-width
+ * (zero when the source reports none).
+ */
+final class Measurement {
+	private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+	// allocation figures jitter by a few bytes per operation even when nothing changed
+	private static final double MIN_ALLOCATION_DELTA_BYTES = 16;
+	private static final String LOAD_TEST_PREFIX = "load.";
+
+	private final String key;
+	private final double score;
+	private final double error;
+	private final String unit;
+	private final boolean higherIsBetter;
+
+	Measurement(String key, double score, double error, String unit, boolean higherIsBetter) {
+		this.key = key;
+		this.score = score;
+		this.error = Double.isNaN(error) ? 0 : Math.abs(error);
+		this.unit = unit;
+		this.higherIsBetter = higherIsBetter;
+	}
+
+	String getKey() {
+		return key;
+	}
+
+	double getScore() {
+		return score;
+	}
+
+	double getError() {
+		return error;
+	}
+
+	String getUnit() {
+		return unit;
+	}
+
+	boolean isLoadTest() {
+		return key.startsWith(LOAD_TEST_PREFIX);
+	}
+
+	// the confidence half-width is above that fraction of the score; allocation within the jitter that
+	// worsening() ignores anyway is never too noisy
+	boolean tooNoisy(double maxRelativeError) {
+		if ("B/op".equals(unit) && error < MIN_ALLOCATION_DELTA_BYTES) {
+			return false;
+		}
+		return error > maxRelativeError * Math.abs(score);
+	}
+
+	// relative change in the "worse" direction: positive means slower or heavier
+	double worsening(Measurement baseline) {
+		double base = baseline.score;
+		if ("B/op".equals(unit) && Math.abs(score - base) < MIN_ALLOCATION_DELTA_BYTES) {
+			return 0;
+		}
+		if (base == 0) {
+			return score == 0 ? 0 : (higherIsBetter ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+		}
+		return higherIsBetter ? (base - score) / base : (score - base) / base;
+	}
+
+	// the confidence intervals do not overlap, in either direction
+	boolean differsSignificantly(Measurement baseline) {
+		return score + error < baseline.score - baseline.error || score - error > baseline.score + baseline.error;
+	}
+
+	static Map<String, Measurement> fromJmh(Object parsed) {
+		Map<String, Measurement> measurements = new TreeMap<>();
+		for (Object entry : (List<?>) parsed) {
+			Map<?, ?> run = (Map<?, ?>) entry;
+			String name = shortName((String) run.get("benchmark")) + params((Map<?, ?>) run.get("params"));
+			String mode = (String) run.get("mode");
+
+			Map<?, ?> primary = (Map<?, ?>) run.get("primaryMetric");
+			add(measurements, new Measurement(name + " " + mode, Json.number(primary.get("score")),
+					Json.number(primary.get("scoreError")), (String) primary.get("scoreUnit"), "thrpt".equals(mode)));
+
+			Map<?, ?> secondary = (Map<?, ?>) run.get("secondaryMetrics");
+			if (secondary != null) {
+				for (Map.Entry<?, ?> metric : secondary.entrySet()) {
+					// JMH prefixes profiler metrics with a middle dot in some versions
+					if (((String) metric.getKey()).endsWith(ALLOCATION_METRIC)) {
+						Map<?, ?> values = (Map<?, ?>) metric.getValue();
+						add(measurements, new Measurement(name + " alloc", Json.number(values.get("score")),
+								Json.number(values.get("scoreError")), (String) values.get("scoreUnit"), false));
+					}
+				}
+			}
+		}
+		return measurements;
+	}
+
+	static Map<String, Measurement> fromLoadTest(Object parsed) {
+		Map<?, ?> result = (Map<?, ?>) parsed;
+		String prefix = LOAD_TEST_PREFIX + "checkout[" + result.get("target") + ",tills=" + whole(result.get("tills")) + ",products="
+				+ whole(result.get("products")) + "] ";
+		Map<String, Measurement> measurements = new TreeMap<>();
+		add(measurements, new Measurement(prefix + "throughput", Json.number(result.get("throughputPerSecond")), 0,
+				"ops/s", true));
+		add(measurements, new Measurement(prefix + "p50", Json.number(result.get("latencyP50Millis")), 0, "ms",
+				false));
+		add(measurements, new Measurement(prefix + "p99", Json.number(result.get("latencyP99Millis")), 0, "ms",
+				false));
+		return measurements;
+	}
+
+	private static void add(Map<String, Measurement> measurements, Measurement measurement) {
+		measurements.put(measurement.key, measurement);
+	}
+
+	private static String whole(Object number) {
+		return String.valueOf((long) Json.number(number));
+	}
+
+	private static String shortName(String benchmark) {
+		String prefix = "com.syos.perf.bench.";
+		return benchmark.startsWith(prefix) ? benchmark.substring(prefix.length()) : benchmark;
+	}
+
+	private static String params(Map<?, ?> params) {
+		if (params == null || params.isEmpty()) {
+			return "";
+		}
+		List<String> pairs = new ArrayList<>();
+		new TreeMap<>(params).forEach((k, v) -> pairs.add(k + "=" + v));
+		return "[" + String.join(",", pairs) + "]";
+	}
+}
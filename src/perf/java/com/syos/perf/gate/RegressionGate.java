@@ -0,0 +1,188 @@
+package com.syos.perf.gate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import com.syos.util.Json;
+
+/**
+ * Compares fresh JMH and load-test results with the baselines committed under
+ * {@code perf-baselines/}. A benchmark regresses when its confidence interval
+ * no longer overlaps the baseline's and it is worse by more than the margin;
+ * throughput, latency and allocation per operation are all checked. Every
+ * regression is reported, and the run exits non-zero when one of them
+ * matches {@code --fail-on}, which fails {@code mvn -Pperf verify}.
+ *
+ * That test can only fire when the baseline is tight, so a gated benchmark
+ * whose baseline error is above {@code --max-error} of its score fails the
+ * gate as NOISY, and {@code --update} refuses to record such a result.
+ *
+ * Load-test figures come from one run with no error estimate. They are
+ * judged by the wider {@code --load-margin} alone and gated only by
+ * {@code --load-fail-on}; {@code --fail-on} applies to JMH results only. A
+ * missing load result is skipped.
+ *
+ * Options (defaults in brackets): --baseline [perf-baselines/jmh.json],
+ * --current [target/jmh-result.json], --load-baseline [perf-baselines/load.json],
+ * --load-current [target/load-result.json], --margin fraction [0.10],
+ * --fail-on regex [moveToShelf|checkout], --max-error fraction [half the
+ * margin], --load-margin fraction [0.25], --load-fail-on regex [throughput],
+ * --update true copies the current results over the baselines instead of
+ * comparing [false].
+ */
+public class RegressionGate {
+	private final Map<String, String> options;
+
+	public RegressionGate(Map<String, String> options) {
+		this.options = options;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		System.exit(new RegressionGate(options).run() ? 0 : 1);
+	}
+
+	// true when no gated measurement regressed and no gated baseline is too noisy to tell
+	public boolean run() throws IOException {
+		Path baseline = Paths.get(options.getOrDefault("baseline", "perf-baselines/jmh.json"));
+		Path current = Paths.get(options.getOrDefault("current", "target/jmh-result.json"));
+		Path loadBaseline = Paths.get(options.getOrDefault("load-baseline", "perf-baselines/load.json"));
+		Path loadCurrent = Paths.get(options.getOrDefault("load-current", "target/load-result.json"));
+
+		double margin = Double.parseDouble(options.getOrDefault("margin", "0.10"));
+		Pattern failOn = Pattern.compile(options.getOrDefault("fail-on", "moveToShelf|checkout"));
+		double maxError = Double.parseDouble(options.getOrDefault("max-error", String.valueOf(margin / 2)));
+		double loadMargin = Double.parseDouble(options.getOrDefault("load-margin", "0.25"));
+		Pattern loadFailOn = Pattern.compile(options.getOrDefault("load-fail-on", "throughput"));
+
+		if (Boolean.parseBoolean(options.getOrDefault("update", "false"))) {
+			Map<String, Measurement> recorded = new TreeMap<>();
+			load(current, Measurement::fromJmh, recorded);
+			List<String> noisy = noisy(recorded, failOn, maxError);
+			if (!noisy.isEmpty()) {
+				System.out.printf(Locale.ROOT, "Not updating the baselines: error above %.0f%% of the score on%n",
+						maxError * 100);
+				noisy.forEach(key -> System.out.println("  " + key));
+				System.out.println("Record them with more forks or iterations (-Djmh.forks, -Djmh.iterations).");
+				return false;
+			}
+			update(current, baseline);
+			update(loadCurrent, loadBaseline);
+			return true;
+		}
+
+		Map<String, Measurement> before = new TreeMap<>();
+		Map<String, Measurement> after = new TreeMap<>();
+		load(baseline, Measurement::fromJmh, before);
+		load(current, Measurement::fromJmh, after);
+		if (Files.exists(loadBaseline) && Files.exists(loadCurrent)) {
+			load(loadBaseline, Measurement::fromLoadTest, before);
+			load(loadCurrent, Measurement::fromLoadTest, after);
+		}
+
+		List<String> gated = new ArrayList<>();
+		List<String> noisy = noisy(before, failOn, maxError);
+		int regressions = 0;
+		System.out.printf(Locale.ROOT, "Comparing %s against %s (margin %.0f%%, load margin %.0f%%)%n", current,
+				baseline, margin * 100, loadMargin * 100);
+		for (Map.Entry<String, Measurement> entry : after.entrySet()) {
+			Measurement now = entry.getValue();
+			Measurement then = before.get(entry.getKey());
+			if (then == null) {
+				System.out.printf("  %-8s %s%n", "NEW", entry.getKey());
+				continue;
+			}
+			double worse = now.worsening(then);
+			// load-test figures have no interval, so their wider margin alone decides
+			boolean load = now.isLoadTest();
+			boolean significant = load || now.differsSignificantly(then);
+			double limit = load ? loadMargin : margin;
+			String verdict;
+			if (noisy.contains(entry.getKey())) {
+				verdict = "NOISY";
+			} else if (significant && worse > limit) {
+				verdict = "REGRESS";
+				regressions++;
+				if ((load ? loadFailOn : failOn).matcher(entry.getKey()).find()) {
+					gated.add(entry.getKey());
+				}
+			} else if (significant && worse < -limit) {
+				verdict = "IMPROVED";
+			} else {
+				verdict = "ok";
+			}
+			System.out.printf(Locale.ROOT, "  %-8s %-70s %14.3f +- %-10.3f -> %14.3f +- %-10.3f %-8s %+7.1f%%%n",
+					verdict, entry.getKey(), then.getScore(), then.getError(), now.getScore(), now.getError(),
+					now.getUnit(), worse == 0 ? 0 : -100 * worse);
+		}
+		for (String key : before.keySet()) {
+			if (!after.containsKey(key)) {
+				System.out.printf("  %-8s %s%n", "MISSING", key);
+			}
+		}
+
+		System.out.printf("%d regression(s), %d on gated benchmarks.%n", regressions, gated.size());
+		if (!noisy.isEmpty()) {
+			System.out.printf(Locale.ROOT, "Gated baselines with error above %.0f%% of the score, which cannot show "
+					+ "a regression:%n", maxError * 100);
+			noisy.forEach(key -> System.out.println("  " + key));
+			System.out.println("Re-record them with more forks or iterations and -Dperf.baseline.update=true.");
+		}
+		if (!gated.isEmpty()) {
+			System.out.println("Gated regressions (fail-on " + failOn + ", load-fail-on " + loadFailOn + "):");
+			gated.forEach(key -> System.out.println("  " + key));
+			System.out.println("If the slowdown is intended, refresh the baselines with -Dperf.baseline.update=true.");
+		}
+		return gated.isEmpty() && noisy.isEmpty();
+	}
+
+	// gated JMH measurements whose interval is too wide for the comparison to mean anything
+	private static List<String> noisy(Map<String, Measurement> measurements, Pattern failOn, double maxError) {
+		List<String> noisy = new ArrayList<>();
+		for (Measurement measurement : measurements.values()) {
+			if (!measurement.isLoadTest() && failOn.matcher(measurement.getKey()).find()
+					&& measurement.tooNoisy(maxError)) {
+				noisy.add(measurement.getKey());
+			}
+		}
+		return noisy;
+	}
+
+	private static void load(Path file, Function<Object, Map<String, Measurement>> reader,
+			Map<String, Measurement> into) throws IOException {
+		if (!Files.exists(file)) {
+			throw new IOException("Result file not found: " + file);
+		}
+		into.putAll(reader.apply(Json.parse(Files.readString(file, StandardCharsets.UTF_8))));
+	}
+
+	private static void update(Path current, Path baseline) throws IOException {
+		if (!Files.exists(current)) {
+			System.out.println("No result at " + current + "; baseline " + baseline + " left as is.");
+			return;
+		}
+		if (baseline.toAbsolutePath().getParent() != null) {
+			Files.createDirectories(baseline.toAbsolutePath().getParent());
+		}
+		Files.copy(current, baseline, StandardCopyOption.REPLACE_EXISTING);
+		System.out.println("Baseline " + baseline + " updated from " + current + ".");
+	}
+}
@@ -0,0 +1,269 @@
+package com.syos.perf.load;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.syos.factory.BillItemFactory;
+import com.syos.metrics.LatencyHistogram;
+import com.syos.model.Bill;
+import com.syos.model.BillItem;
+import com.syos.model.Product;
+import com.syos.repository.ProductRepository;
+import com.syos.repository.ShelfStockRepository;
+import com.syos.repository.Storage;
+import com.syos.repository.StorageProvider;
+import com.syos.repository.memory.MemoryStorageProvider;
+import com.syos.service.StoreBillingService;
+import com.syos.singleton.InventoryManager;
+import com.syos.strategy.DiscountPricingStrategy;
+import com.syos.strategy.ExpiryAwareFifoStrategy;
+import com.syos.strategy.NoDiscountStrategy;
+
+/**
+ * Drives concurrent simulated tills through the billing flow: scan a basket
+ * (product lookup, stock check, pricing), then {@link StoreBillingService#checkout}.
+ *
+ * <pre>
+ * mvn -Pperf test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.syos.perf.load.CheckoutLoadGenerator \
+ *     -Dexec.args="--tills 8 --duration 30 --target memory"
+ * </pre>
+ *
+ * Options (defaults in brackets): --tills [8], --duration seconds [30],
+ * --products [1000], --zipf exponent [1.1], --basket-min [1], --basket-max [8],
+ * --stock units per product [1000], --target memory|postgres [memory],
+ * --round-trip-micros simulated latency for the memory target [200],
+ * --seed [42], --out [target/load-result.json].
+ *
+ * The postgres target uses the normal repositories against the configured
+ * database and tops up LT-prefixed load-test products before the run.
+ */
+public class CheckoutLoadGenerator {
+	private static final String PRODUCT_PREFIX = "LT";
+
+	private final Map<String, String> options;
+	private final List<Product> catalogue = new ArrayList<>();
+
+	private ProductRepository productRepository;
+	private ShelfStockRepository shelfRepository;
+	private BillItemFactory billItemFactory;
+	private StoreBillingService billing;
+	private InventoryManager inventoryManager;
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder checkouts = new LongAdder();
+	private final LongAdder lines = new LongAdder();
+	private final LongAdder emptyBaskets = new LongAdder();
+	private final LongAdder failedDeductions = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final ConcurrentLinkedQueue<Bill> bills = new ConcurrentLinkedQueue<>();
+
+	public CheckoutLoadGenerator(Map<String, String> options) {
+		this.options = options;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		new CheckoutLoadGenerator(options).run();
+	}
+
+	public void run() throws InterruptedException, IOException {
+		int tills = intOption("tills", 8);
+		int durationSeconds = intOption("duration", 30);
+		int productCount = intOption("products", 1000);
+		double zipf = Double.parseDouble(options.getOrDefault("zipf", "1.1"));
+		int basketMin = intOption("basket-min", 1);
+		int basketMax = intOption("basket-max", 8);
+		int stock = intOption("stock", 1000);
+		long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		String target = options.getOrDefault("target", "memory");
+		if (basketMin <= 0 || basketMax < basketMin) {
+			throw new IllegalArgumentException("Basket sizes must satisfy 0 < basket-min <= basket-max.");
+		}
+
+		setUpTarget(target);
+		seed(productCount, stock);
+		ZipfDistribution popularity = new ZipfDistribution(productCount, zipf);
+
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		long startNanos = System.nanoTime();
+		long deadline = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+		CountDownLatch done = new CountDownLatch(tills);
+		try {
+			for (int t = 0; t < tills; t++) {
+				Random random = new Random(seed + t);
+				Thread till = new Thread(() -> {
+					try {
+						while (System.nanoTime() < deadline) {
+							runOneCheckout(random, popularity, basketMin, basketMax);
+						}
+					} finally {
+						done.countDown();
+					}
+				}, "till-" + t);
+				till.start();
+			}
+			done.await();
+		} finally {
+			System.setOut(console);
+		}
+		double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+		report(target, tills, elapsedSeconds, productCount, zipf, basketMin, basketMax);
+	}
+
+	private void setUpTarget(String target) {
+		StorageProvider storage;
+		switch (target) {
+		case "memory":
+			storage = new RoundTripStorage(new MemoryStorageProvider(), intOption("round-trip-micros", 200));
+			break;
+		case "postgres":
+			storage = Storage.load("jdbc");
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown target: " + target + " (use memory or postgres)");
+		}
+		productRepository = storage.products();
+		shelfRepository = storage.shelfStock();
+		inventoryManager = new InventoryManager(new ExpiryAwareFifoStrategy(), storage);
+		billItemFactory = new BillItemFactory(
+				new DiscountPricingStrategy(new NoDiscountStrategy(), storage.discounts(), inventoryManager));
+		billing = new StoreBillingService(productRepository, storage.billing(), billItemFactory, inventoryManager);
+	}
+
+	private void seed(int productCount, int stock) {
+		Random random = new Random(7);
+		for (int i = 0; i < productCount; i++) {
+			String code = String.format("%s%05d", PRODUCT_PREFIX, i);
+			Product product = productRepository.findByCode(code);
+			if (product == null) {
+				product = new Product(code, "Load test item " + i, 50 + random.nextInt(2000) / 4.0);
+				productRepository.add(product);
+			}
+			catalogue.add(product);
+			int missing = stock - shelfRepository.getQuantity(code);
+			if (missing > 0) {
+				shelfRepository.upsertQuantity(code, missing);
+			}
+		}
+	}
+
+	private void runOneCheckout(Random random, ZipfDistribution popularity, int basketMin, int basketMax) {
+		long start = System.nanoTime();
+		try {
+			int basketSize = basketMin + random.nextInt(basketMax - basketMin + 1);
+			List<BillItem> items = new ArrayList<>(basketSize);
+			Set<String> inBasket = new HashSet<>();
+			for (int i = 0; i < basketSize; i++) {
+				Product wanted = catalogue.get(popularity.sample(random));
+				if (!inBasket.add(wanted.getCode())) {
+					continue;
+				}
+				Product product = productRepository.findByCode(wanted.getCode());
+				int available = inventoryManager.getAvailableStock(product.getCode());
+				if (available <= 0) {
+					continue;
+				}
+				int quantity = Math.min(available, 1 + random.nextInt(3));
+				items.add(billItemFactory.create(product, quantity));
+			}
+			if (items.isEmpty()) {
+				emptyBaskets.increment();
+				return;
+			}
+
+			double total = items.stream().mapToDouble(BillItem::getTotalPrice).sum();
+			bills.add(billing.checkout(items, Math.ceil(total) + 100));
+			checkouts.increment();
+			lines.add(items.size());
+		} catch (IllegalArgumentException e) {
+			// the bill is already saved when a deduction finds the shelf short: an oversell
+			failedDeductions.increment();
+		} catch (RuntimeException e) {
+			errors.increment();
+		} finally {
+			latency.record(System.nanoTime() - start);
+		}
+	}
+
+	private void report(String target, int tills, double elapsedSeconds, int productCount, double zipf,
+			int basketMin, int basketMax) throws IOException {
+		Map<String, Integer> serials = new HashMap<>();
+		int serialCollisions = 0;
+		for (Bill bill : bills) {
+			LocalDate day = bill.getBillDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+			if (serials.merge(day + "#" + bill.getSerialNumber(), 1, Integer::sum) > 1) {
+				serialCollisions++;
+			}
+		}
+		long negativeShelfUnits = 0;
+		for (Product product : catalogue) {
+			negativeShelfUnits += Math.max(0, -shelfRepository.getQuantity(product.getCode()));
+		}
+
+		double throughput = checkouts.sum() / elapsedSeconds;
+		String json = String.format(Locale.ROOT, "{%n"
+				+ "  \"target\": \"%s\",%n"
+				+ "  \"tills\": %d,%n"
+				+ "  \"products\": %d,%n"
+				+ "  \"zipfExponent\": %.2f,%n"
+				+ "  \"basketMin\": %d,%n"
+				+ "  \"basketMax\": %d,%n"
+				+ "  \"durationSeconds\": %.2f,%n"
+				+ "  \"checkouts\": %d,%n"
+				+ "  \"lines\": %d,%n"
+				+ "  \"emptyBaskets\": %d,%n"
+				+ "  \"throughputPerSecond\": %.2f,%n"
+				+ "  \"latencyP50Millis\": %.3f,%n"
+				+ "  \"latencyP99Millis\": %.3f,%n"
+				+ "  \"latencyMaxMillis\": %.3f,%n"
+				+ "  \"oversoldCheckouts\": %d,%n"
+				+ "  \"negativeShelfUnits\": %d,%n"
+				+ "  \"serialCollisions\": %d,%n"
+				+ "  \"errors\": %d%n"
+				+ "}%n",
+				target, tills, productCount, zipf, basketMin, basketMax, elapsedSeconds, checkouts.sum(),
+				lines.sum(), emptyBaskets.sum(), throughput, latency.percentileNanos(50) / 1e6,
+				latency.percentileNanos(99) / 1e6, latency.getMaxNanos() / 1e6, failedDeductions.sum(),
+				negativeShelfUnits, serialCollisions, errors.sum());
+
+		System.out.print(json);
+		Path out = Paths.get(options.getOrDefault("out", "target/load-result.json"));
+		if (out.toAbsolutePath().getParent() != null) {
+			Files.createDirectories(out.toAbsolutePath().getParent());
+		}
+		Files.write(out, json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private int intOption(String name, int defaultValue) {
+		String value = options.get(name);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+}
@@ -0,0 +1,99 @@
+package com.syos.perf.load;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.syos.repository.BillingRepository;
+import com.syos.repository.CustomerRepository;
+import com.syos.repository.DiscountRepository;
+import com.syos.repository.ProductRepository;
+import com.syos.repository.ReportRepository;
+import com.syos.repository.ShelfStockRepository;
+import com.syos.repository.StockBatchRepository;
+import com.syos.repository.StorageProvider;
+import com.syos.repository.StorageTransaction;
+
+/**
+ * Wraps a storage provider so that every repository call first costs one
+ * simulated round trip. Over the in-memory backend this stands in for a
+ * database when none is available, keeping the shape of the load (one call,
+ * one wait) without the rest of its cost.
+ */
+public class RoundTripStorage implements StorageProvider {
+	private final StorageProvider delegate;
+	private final long roundTripNanos;
+
+	public RoundTripStorage(StorageProvider delegate, long roundTripMicros) {
+		this.delegate = delegate;
+		this.roundTripNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+	}
+
+	@Override
+	public String name() {
+		return delegate.name() + "+latency";
+	}
+
+	@Override
+	public ProductRepository products() {
+		return delayed(ProductRepository.class, delegate.products());
+	}
+
+	@Override
+	public StockBatchRepository stockBatches() {
+		return delayed(StockBatchRepository.class, delegate.stockBatches());
+	}
+
+	@Override
+	public ShelfStockRepository shelfStock() {
+		return delayed(ShelfStockRepository.class, delegate.shelfStock());
+	}
+
+	@Override
+	public BillingRepository billing() {
+		return delayed(BillingRepository.class, delegate.billing());
+	}
+
+	@Override
+	public DiscountRepository discounts() {
+		return delayed(DiscountRepository.class, delegate.discounts());
+	}
+
+	@Override
+	public CustomerRepository customers() {
+		return delayed(CustomerRepository.class, delegate.customers());
+	}
+
+	@Override
+	public ReportRepository reports() {
+		return delayed(ReportRepository.class, delegate.reports());
+	}
+
+	@Override
+	public StorageTransaction beginTransaction() {
+		return delegate.beginTransaction();
+	}
+
+	@Override
+	public void afterCommit(Runnable action) {
+		delegate.afterCommit(action);
+	}
+
+	private <T> T delayed(Class<T> type, T target) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> {
+					if (method.getDeclaringClass() == Object.class) {
+						return method.invoke(target, args);
+					}
+					if (roundTripNanos > 0) {
+						LockSupport.parkNanos(roundTripNanos);
+					}
+					try {
+						return method.invoke(target, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				}));
+	}
+}
@@ -0,0 +1,32 @@
+package com.syos.perf.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Ranks 0..n-1 drawn with probability proportional to 1 / (rank + 1)^exponent,
+ * so a few products dominate the baskets as they do at a real till.
+ */
+public class ZipfDistribution {
+	private final double[] cumulative;
+
+	public ZipfDistribution(int n, double exponent) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("Need at least one rank.");
+		}
+		cumulative = new double[n];
+		double sum = 0;
+		for (int rank = 0; rank < n; rank++) {
+			sum += 1.0 / Math.pow(rank + 1, exponent);
+			cumulative[rank] = sum;
+		}
+		for (int rank = 0; rank < n; rank++) {
+			cumulative[rank] /= sum;
+		}
+	}
+
+	public int sample(Random random) {
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+	}
+}
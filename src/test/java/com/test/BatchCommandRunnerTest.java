@@ -0,0 +1,84 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.command.BatchCommandRunner;
+import com.syos.model.ImportReport;
+import com.syos.model.ShelfLot;
+
+class BatchCommandRunnerTest {
+
+	@Test
+	@DisplayName("Script commands should run through the inventory services and report failing lines")
+	void runsScriptAndReportsFailures() {
+		MemoryInventory inventory = new MemoryInventory();
+		LocalDate today = inventory.today;
+		String script = String.join("\n",
+				"# nightly restock",
+				"add-product P001 \"Full cream milk\" 450.00",
+				"BEGIN",
+				"receive P001 40 " + today + " " + today.plusDays(30),
+				"move P001 25",
+				"COMMIT",
+				"",
+				"move P001 0",
+				"add-product P002 Bread",
+				"teleport P001",
+				"write-off-expired * " + today);
+
+		ImportReport report = new BatchCommandRunner(inventory.storage, inventory.manager).run(new StringReader(script),
+				Paths.get("."));
+
+		assertEquals(7, report.getRowsRead());
+		assertEquals(4, report.getRowsImported());
+		assertEquals(List.of(8, 9, 10),
+				report.getErrors().stream().map(ImportReport.RowError::getLineNumber).collect(Collectors.toList()));
+		assertNotNull(inventory.storage.products().findByCode("P001"));
+		assertNull(inventory.storage.products().findByCode("P002"));
+		assertEquals(25, inventory.storage.shelfStock().getQuantity("P001"));
+	}
+
+	@Test
+	@DisplayName("A failing command should roll back everything its group already did and skip the rest of it")
+	void failingGroupIsRolledBack() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.batch("P001", 30, 10);
+		inventory.manager.moveToShelf("P001", 2);
+		LocalDate today = inventory.today;
+		String script = String.join("\n",
+				"BEGIN",
+				"add-product P009 Butter 300.00",
+				"receive P001 40 " + today + " " + today.plusDays(30),
+				"move P001 20",
+				"move P001 999",
+				"move P001 1",
+				"COMMIT",
+				"move P001 3");
+
+		ImportReport report = new BatchCommandRunner(inventory.storage, inventory.manager)
+				.run(new StringReader(script), Paths.get("."));
+
+		assertEquals(6, report.getRowsRead());
+		assertEquals(1, report.getRowsImported());
+		assertEquals(List.of(5),
+				report.getErrors().stream().map(ImportReport.RowError::getLineNumber).collect(Collectors.toList()));
+		assertNull(inventory.storage.products().findByCode("P009"));
+		assertEquals(1, inventory.storage.stockBatches().findByProductAllBatches("P001").size());
+		assertEquals(5, inventory.storage.shelfStock().getQuantity("P001"));
+		assertEquals(5, inventory.backStore("P001"));
+		// the shelf lots kept in memory were reloaded, so they match storage again
+		assertEquals(List.of(5), inventory.manager.getShelfLots("P001").stream().map(ShelfLot::getQuantity)
+				.collect(Collectors.toList()));
+	}
+}
@@ -0,0 +1,68 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.analytics.ColumnarSalesStore;
+import com.syos.analytics.ProductSales;
+
+class ColumnarSalesStoreTest {
+
+	private static final long DAY = ColumnarSalesStore.DAY_MILLIS;
+
+	@Test
+	@DisplayName("Should aggregate revenue by product within the time window only")
+	void shouldAggregateSalesByProductInWindow() {
+		ColumnarSalesStore store = new ColumnarSalesStore();
+		store.onLine(1, 0, 9, "P001", 2, 20.0, 0.0);
+		store.onLine(1, 0, 9, "P002", 1, 5.0, 0.0);
+		store.onLine(2, DAY, 10, "P001", 3, 30.0, 1.5);
+		store.onLine(3, 3 * DAY, 11, "P002", 10, 50.0, 0.0);
+
+		List<ProductSales> sales = store.salesByProduct(0, 2 * DAY);
+
+		assertEquals(2, sales.size());
+		assertEquals("P001", sales.get(0).getProductCode());
+		assertEquals(5, sales.get(0).getUnits());
+		assertEquals(50.0, sales.get(0).getRevenue(), 0.0001);
+		assertEquals("P002", sales.get(1).getProductCode());
+		assertEquals(1, sales.get(1).getUnits());
+		assertEquals(55.0, store.totalRevenue(0, 2 * DAY), 0.0001);
+		assertEquals(3, store.getMaxBillId());
+		assertEquals(2, store.getDistinctProducts());
+	}
+
+	@Test
+	@DisplayName("Should bucket discount spend by week")
+	void shouldBucketDiscountByWeek() {
+		ColumnarSalesStore store = new ColumnarSalesStore();
+		store.onLine(1, DAY, 9, "P001", 1, 9.0, 1.0);
+		store.onLine(2, 8 * DAY, 9, "P001", 1, 8.0, 2.0);
+		store.onLine(3, 9 * DAY, 9, "P002", 1, 7.0, 3.0);
+		store.onLine(4, 30 * DAY, 9, "P002", 1, 7.0, 100.0);
+
+		assertArrayEquals(new double[] { 1.0, 5.0, 0.0 }, store.discountByWeek(0, 3), 0.0001);
+	}
+
+	@Test
+	@DisplayName("Should scan correctly across several segments")
+	void shouldScanAcrossSegments() {
+		ColumnarSalesStore store = new ColumnarSalesStore();
+		int rows = 200_000;
+		for (int i = 0; i < rows; i++) {
+			store.onLine(i + 1, i, 12, "P" + (i % 7), 1, 1.0, 0.0);
+		}
+
+		List<ProductSales> sales = store.salesByProduct(0, Long.MAX_VALUE);
+
+		assertEquals(rows, store.getRowCount());
+		assertEquals(7, sales.size());
+		assertEquals(rows, sales.stream().mapToLong(ProductSales::getUnits).sum());
+		assertEquals(rows, store.totalRevenue(0, Long.MAX_VALUE), 0.0001);
+	}
+}
@@ -0,0 +1,132 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.db.DatabaseManager;
+
+class DatabaseTransactionTest {
+	private final Connection physical = mock(Connection.class);
+	private final Driver driver = new StubDriver(physical);
+	private List<Driver> registered;
+
+	// the pool connects through DriverManager, so the real drivers step aside for one handing out the mock
+	@BeforeEach
+	void swapDrivers() throws SQLException {
+		registered = Collections.list(DriverManager.getDrivers());
+		for (Driver d : registered) {
+			DriverManager.deregisterDriver(d);
+		}
+		DriverManager.registerDriver(driver);
+	}
+
+	@AfterEach
+	void restoreDrivers() throws SQLException {
+		DriverManager.deregisterDriver(driver);
+		for (Driver d : registered) {
+			DriverManager.registerDriver(d);
+		}
+	}
+
+	@Test
+	@DisplayName("Connections enlisted in a transaction should ignore commit and close, and a rollback should stop the commit")
+	void enlistedConnectionsJoinTheTransaction() throws SQLException {
+		DatabaseManager db = DatabaseManager.getInstance();
+		DatabaseManager.Transaction transaction = db.beginTransaction();
+		verify(physical).setAutoCommit(false);
+
+		// repository code commits and closes its connection after every statement
+		try (Connection connection = db.getConnection()) {
+			connection.setAutoCommit(true);
+			connection.prepareStatement("UPDATE shelf_stock SET quantity_on_shelf = 1");
+			connection.commit();
+		}
+		verify(physical, never()).commit();
+		verify(physical, never()).setAutoCommit(true);
+
+		try (Connection connection = db.getConnection()) {
+			connection.rollback();
+		}
+		assertThrows(SQLException.class, transaction::commit);
+		transaction.close();
+		verify(physical, never()).commit();
+		assertThrows(IllegalStateException.class, () -> {
+			DatabaseManager.Transaction open = db.beginTransaction();
+			try {
+				db.beginTransaction();
+			} finally {
+				open.close();
+			}
+		});
+
+		// the thread is free again and the pooled connection commits a new transaction
+		DatabaseManager.Transaction next = db.beginTransaction();
+		try (Connection connection = db.getConnection()) {
+			assertSame(Boolean.FALSE, connection.getAutoCommit());
+		}
+		next.commit();
+		verify(physical).commit();
+		assertThrows(SQLException.class, next::commit);
+	}
+
+	private static final class StubDriver implements Driver {
+		private final Connection connection;
+
+		StubDriver(Connection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public Connection connect(String url, Properties info) {
+			return connection;
+		}
+
+		@Override
+		public boolean acceptsURL(String url) {
+			return true;
+		}
+
+		@Override
+		public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+			return new DriverPropertyInfo[0];
+		}
+
+		@Override
+		public int getMajorVersion() {
+			return 1;
+		}
+
+		@Override
+		public int getMinorVersion() {
+			return 0;
+		}
+
+		@Override
+		public boolean jdbcCompliant() {
+			return false;
+		}
+
+		@Override
+		public Logger getParentLogger() {
+			return Logger.getGlobal();
+		}
+	}
+}
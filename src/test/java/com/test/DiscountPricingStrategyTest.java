@@ -0,0 +1,35 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.enums.DiscountType;
+import com.syos.model.Product;
+import com.syos.repository.DiscountRepository;
+import com.syos.strategy.DiscountPricingStrategy;
+import com.syos.strategy.NoDiscountStrategy;
+
+class DiscountPricingStrategyTest {
+
+	@Test
+	@DisplayName("A discount created and linked after prices were cached should apply on the next line")
+	void newDiscountsInvalidateTheCache() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.shelf("P001", 20);
+		DiscountRepository discounts = inventory.storage.discounts();
+		DiscountPricingStrategy pricing = new DiscountPricingStrategy(new NoDiscountStrategy(), discounts,
+				inventory.manager);
+		Product milk = new Product("P001", "Milk", 50.0);
+		assertEquals(200.0, pricing.calculate(milk, 4), 1e-9);
+
+		LocalDate today = inventory.today;
+		int id = discounts.createDiscount("Milk week", DiscountType.PERCENT, 10, today.minusDays(1), today.plusDays(6));
+		discounts.linkProductToDiscount("P001", id);
+
+		assertEquals(180.0, pricing.calculate(milk, 4), 1e-9);
+	}
+}
@@ -0,0 +1,81 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.model.StockBatch;
+import com.syos.model.WriteOff;
+import com.syos.repository.memory.MemoryShelfStockRepository;
+import com.syos.repository.memory.MemoryStockBatchRepository;
+import com.syos.repository.memory.MemoryStore;
+import com.syos.singleton.InventoryManager;
+import com.syos.strategy.ExpiryAwareFifoStrategy;
+
+class ExpiredWriteOffTest {
+
+	@Test
+	@DisplayName("Writing off expired stock should empty matching batches and record what each held")
+	void writeOffExpiredEmptiesBatches() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.batch("P001", -1, 4);
+		inventory.batch("P002", 0, 6);
+		inventory.batch("P001", 5, 8);
+
+		List<WriteOff> perProduct = inventory.manager.writeOffExpired(inventory.today, "P001");
+		List<WriteOff> rest = inventory.manager.writeOffExpired(inventory.today, null);
+
+		assertEquals(1, perProduct.size());
+		assertEquals(4, perProduct.get(0).getQuantity());
+		assertEquals(List.of("P002"), rest.stream().map(WriteOff::getProductCode).collect(Collectors.toList()));
+		assertEquals(List.of(8), inventory.storage.stockBatches().findAllOpenBatches().stream()
+				.map(StockBatch::getQuantityRemaining).collect(Collectors.toList()));
+		assertTrue(inventory.manager.getAllExpiringBatches(0).isEmpty());
+	}
+
+	@Test
+	@DisplayName("A write-off of every product should not be undone by a shelf move that read the batch first")
+	void writeOffOfAllProductsWaitsForShelfMove() throws Exception {
+		MemoryStore store = new MemoryStore();
+		CountDownLatch batchesRead = new CountDownLatch(1);
+		CountDownLatch writeOffDone = new CountDownLatch(1);
+		InventoryManager[] manager = new InventoryManager[1];
+		MemoryStockBatchRepository batches = new MemoryStockBatchRepository(store) {
+			@Override
+			public List<StockBatch> findByProduct(String code) {
+				List<StockBatch> read = super.findByProduct(code);
+				batchesRead.countDown();
+				// hold the move between its read and its write until the write-off has run or is waiting
+				long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+				while (writeOffDone.getCount() > 0 && manager[0].getLockContentionCounts().isEmpty()
+						&& System.nanoTime() < deadline) {
+					Thread.onSpinWait();
+				}
+				return read;
+			}
+		};
+		manager[0] = new InventoryManager(new ExpiryAwareFifoStrategy(), batches, new MemoryShelfStockRepository(store));
+		LocalDate today = LocalDate.now();
+		int batchId = batches.createBatch("P001", today.minusDays(30), today.minusDays(1), 10);
+
+		CompletableFuture<Void> move = CompletableFuture.runAsync(() -> manager[0].moveToShelf("P001", 4));
+		assertTrue(batchesRead.await(5, TimeUnit.SECONDS));
+		List<WriteOff> writeOffs = manager[0].writeOffExpired(today, null);
+		writeOffDone.countDown();
+		move.get(5, TimeUnit.SECONDS);
+
+		assertEquals(1, writeOffs.size());
+		assertEquals(6, writeOffs.get(0).getQuantity());
+		assertEquals(0, batches.findById(batchId).getQuantityRemaining());
+		assertEquals(4, manager[0].getQuantityOnShelf("P001"));
+	}
+}
@@ -0,0 +1,33 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.model.ProductStock;
+
+class ExpiryDashboardTest {
+
+	@Test
+	@DisplayName("Expiry dashboard should list the most urgent product first with its shelf quantity")
+	void expiryDashboardMostUrgentFirst() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.batch("A01", 6, 5);
+		inventory.batch("B01", 2, 3);
+		inventory.batch("A01", 1, 0);
+		inventory.batch("A01", 40, 8);
+		inventory.shelf("A01", 9);
+
+		List<ProductStock> dashboard = inventory.manager.getExpiryDashboard(7);
+
+		assertEquals(List.of("B01", "A01"),
+				dashboard.stream().map(ProductStock::getProductCode).collect(Collectors.toList()));
+		assertEquals(9, dashboard.get(1).getQuantityOnShelf());
+		assertEquals(5, dashboard.get(1).getBackStoreQuantity());
+		assertEquals(1, inventory.manager.getExpiryDashboard(7, "A01").size());
+	}
+}
@@ -0,0 +1,76 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.model.StockBatch;
+import com.syos.util.ExpiryWheel;
+
+class ExpiryWheelTest {
+	private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+	private static StockBatch batch(int id, String code, int daysFromToday, int qty) {
+		return new StockBatch(id, code, TODAY.minusDays(10), TODAY.plusDays(daysFromToday), qty);
+	}
+
+	private static List<Integer> ids(List<StockBatch> batches) {
+		return batches.stream().map(StockBatch::getId).collect(Collectors.toList());
+	}
+
+	@Test
+	@DisplayName("Expiring within N days should cover past-due, ring and overflow buckets in expiry order")
+	void expiringWithinWalksBuckets() {
+		ExpiryWheel wheel = new ExpiryWheel(8, TODAY);
+		wheel.put(batch(1, "P1", 20, 5));
+		wheel.put(batch(2, "P2", 3, 5));
+		wheel.put(batch(3, "P1", -2, 5));
+		wheel.put(batch(4, "P1", 0, 5));
+		wheel.put(batch(5, "P3", 3, 0));
+
+		assertEquals(List.of(3, 4, 2), ids(wheel.expiringWithin(7)));
+		assertEquals(List.of(3, 4, 2, 1), ids(wheel.expiringWithin(20)));
+		assertEquals(List.of(3, 4, 1), ids(wheel.expiringWithin("P1", 30)));
+		assertEquals(4, wheel.size());
+	}
+
+	@Test
+	@DisplayName("Advancing should report batches whose day passed and cascade overflow into the ring")
+	void advanceExpiresAndCascades() {
+		ExpiryWheel wheel = new ExpiryWheel(4, TODAY);
+		wheel.put(batch(1, "P1", 0, 5));
+		wheel.put(batch(2, "P1", 2, 5));
+		wheel.put(batch(3, "P2", 9, 5));
+
+		List<StockBatch> expired = wheel.advanceTo(TODAY.plusDays(3));
+
+		assertEquals(List.of(1, 2), ids(expired));
+		assertEquals(TODAY.plusDays(3), wheel.getToday());
+		assertEquals(List.of(1, 2), ids(wheel.expiringWithin(0)));
+		assertEquals(List.of(1, 2, 3), ids(wheel.expiringWithin(6)));
+		assertTrue(wheel.advanceTo(TODAY).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Quantity updates should be visible and drawing a batch down should drop it")
+	void updatesTrackQuantities() {
+		ExpiryWheel wheel = new ExpiryWheel(8, TODAY);
+		wheel.put(batch(1, "P1", 1, 10));
+		wheel.put(batch(2, "P1", 40, 10));
+
+		wheel.updateQuantity(1, 4);
+		wheel.updateQuantity(2, 0);
+		wheel.updateQuantity(99, 7);
+
+		List<StockBatch> expiring = wheel.expiringWithin(60);
+		assertEquals(List.of(1), ids(expiring));
+		assertEquals(4, expiring.get(0).getQuantityRemaining());
+		assertEquals(1, wheel.size());
+	}
+}
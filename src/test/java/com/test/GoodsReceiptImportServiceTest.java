@@ -0,0 +1,120 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.model.GoodsReceiptReport;
+import com.syos.model.ImportReport;
+import com.syos.model.Product;
+import com.syos.model.StockBatch;
+import com.syos.repository.StorageProvider;
+import com.syos.service.GoodsReceiptImportService;
+import com.syos.singleton.InventoryManager;
+
+class GoodsReceiptImportServiceTest {
+	private StorageProvider storage;
+	private GoodsReceiptImportService service;
+
+	@BeforeEach
+	void setUp() {
+		MemoryInventory inventory = new MemoryInventory();
+		storage = inventory.storage;
+		storage.products().add(new Product("P001", "Milk", 120.0));
+		storage.products().add(new Product("P002", "Bread", 80.0));
+		service = new GoodsReceiptImportService(inventory.manager, storage.products());
+	}
+
+	@Test
+	@DisplayName("A delivery note with any invalid line should be reported line by line and receive nothing")
+	void invalidNoteReceivesNothing() {
+		String csv = String.join("\n",
+				"productCode,quantity,purchaseDate,expiryDate",
+				"P001,10,2024-03-01,2024-03-20",
+				"P002,0,2024-03-01,2024-03-20",
+				"P003,5,2024-03-01,2024-03-20",
+				"P001,5,2024-03-01,2024-02-20",
+				"P002,5,01/03/2024,2024-03-20");
+
+		ImportReport report = service.importCsv(new StringReader(csv), false);
+
+		assertEquals(5, report.getRowsRead());
+		assertEquals(0, report.getRowsImported());
+		assertEquals(List.of(3, 4, 5, 6),
+				report.getErrors().stream().map(ImportReport.RowError::getLineNumber).collect(Collectors.toList()));
+		assertTrue(storage.stockBatches().findAllOpenBatches().isEmpty());
+	}
+
+	@Test
+	@DisplayName("A valid JSON note should be received in full and optionally moved to the shelf")
+	void receivesJsonAndMovesToShelf() {
+		LocalDate today = LocalDate.now();
+		String json = "{\"lines\": ["
+				+ "{\"productCode\": \"P001\", \"quantity\": 10, \"purchaseDate\": \"" + today
+				+ "\", \"expiryDate\": \"" + today.plusDays(20) + "\"},"
+				+ "{\"productCode\": \"P001\", \"quantity\": 4, \"purchaseDate\": \"" + today
+				+ "\", \"expiryDate\": \"" + today.plusDays(40) + "\"},"
+				+ "{\"productCode\": \"P002\", \"quantity\": 6, \"purchaseDate\": \"" + today
+				+ "\", \"expiryDate\": \"" + today.plusDays(5) + "\"}]}";
+
+		ImportReport report = service.importJson(new StringReader(json), true);
+
+		assertEquals(3, report.getRowsImported());
+		assertTrue(report.getErrors().isEmpty());
+		assertEquals(14, storage.shelfStock().getQuantity("P001"));
+		assertEquals(6, storage.shelfStock().getQuantity("P002"));
+		assertEquals(0, storage.stockBatches().findAllOpenBatches().stream()
+				.mapToInt(StockBatch::getQuantityRemaining).sum());
+	}
+
+	@Test
+	@DisplayName("A product that cannot be moved to the shelf should be reported apart from line errors, still received")
+	void shelfFailuresAreReportedSeparately() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.storage.products().add(new Product("P001", "Milk", 120.0));
+		inventory.storage.products().add(new Product("P002", "Bread", 80.0));
+		InventoryManager manager = spy(inventory.manager);
+		doThrow(new IllegalStateException("shelf is locked")).when(manager).moveToShelf(eq("P002"), anyInt());
+		LocalDate today = LocalDate.now();
+		String csv = String.join("\n",
+				"P001,10," + today + "," + today.plusDays(20),
+				"P002,6," + today + "," + today.plusDays(5));
+
+		GoodsReceiptReport report = new GoodsReceiptImportService(manager, inventory.storage.products())
+				.importCsv(new StringReader(csv), true);
+
+		assertTrue(report.isReceived());
+		assertFalse(report.hasErrors());
+		assertEquals(2, report.getRowsImported());
+		assertEquals(1, report.getShelfFailures().size());
+		assertEquals("P002", report.getShelfFailures().get(0).getProductCode());
+		assertEquals(6, report.getShelfFailures().get(0).getQuantity());
+		assertEquals(10, inventory.storage.shelfStock().getQuantity("P001"));
+		assertEquals(6, inventory.backStore("P002"));
+	}
+
+	@Test
+	@DisplayName("A JSON note cut off inside an escape should be rejected as malformed")
+	void truncatedEscapeIsRejected() {
+		assertThrows(IllegalArgumentException.class,
+				() -> service.importJson(new StringReader("[{\"productCode\": \"P00\\"), false));
+		assertThrows(IllegalArgumentException.class,
+				() -> service.importJson(new StringReader("[{\"productCode\": \"\\u00"), false));
+		assertThrows(IllegalArgumentException.class,
+				() -> service.importJson(new StringReader("[{\"productCode\": \"\\uzzzz\"}]"), false));
+	}
+}
@@ -0,0 +1,66 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.model.StockBatch;
+import com.syos.repository.ShelfStockRepository;
+import com.syos.repository.StockBatchRepository;
+import com.syos.singleton.InventoryManager;
+import com.syos.strategy.ExpiryAwareFifoStrategy;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class InventoryEventsTest {
+
+	@Test
+	@DisplayName("moveToShelf should emit one ShelfMove event with product, quantity and batches drawn")
+	void moveToShelfEmitsEvent() throws Exception {
+		StockBatchRepository batchRepository = mock(StockBatchRepository.class);
+		ShelfStockRepository shelfRepository = mock(ShelfStockRepository.class);
+		LocalDate today = LocalDate.now();
+		when(batchRepository.findByProduct("P001")).thenReturn(new ArrayList<>(List.of(
+				new StockBatch(1, "P001", today.minusDays(5), today.plusDays(10), 4),
+				new StockBatch(2, "P001", today.minusDays(2), today.plusDays(30), 20))));
+		InventoryManager manager = new InventoryManager(new ExpiryAwareFifoStrategy(), batchRepository,
+				shelfRepository);
+
+		Path file = Files.createTempFile("inventory-events", ".jfr");
+		PrintStream originalOut = System.out;
+		try (Recording recording = new Recording()) {
+			recording.enable("com.syos.ShelfMove").withThreshold(Duration.ZERO);
+			recording.start();
+			System.setOut(new PrintStream(PrintStream.nullOutputStream()));
+			manager.moveToShelf("P001", 10);
+			recording.stop();
+			recording.dump(file);
+		} finally {
+			System.setOut(originalOut);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+				.filter(e -> e.getEventType().getName().equals("com.syos.ShelfMove")).collect(Collectors.toList());
+		Files.deleteIfExists(file);
+
+		assertEquals(1, events.size());
+		RecordedEvent event = events.get(0);
+		assertEquals("P001", event.getString("productCode"));
+		assertEquals(10, event.getInt("quantity"));
+		assertEquals(2, event.getInt("batchCount"));
+	}
+}
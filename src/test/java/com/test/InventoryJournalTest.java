@@ -0,0 +1,257 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.syos.journal.InventoryJournal;
+import com.syos.journal.JournalEntry;
+import com.syos.journal.StockState;
+import com.syos.model.ProductStock;
+import com.syos.model.ShelfLot;
+import com.syos.model.StockBatch;
+import com.syos.repository.StorageTransaction;
+import com.syos.repository.memory.MemoryShelfStockRepository;
+import com.syos.repository.memory.MemoryStockBatchRepository;
+import com.syos.repository.memory.MemoryStore;
+import com.syos.singleton.InventoryManager;
+import com.syos.strategy.ExpiryAwareFifoStrategy;
+
+class InventoryJournalTest {
+	private static final int SEGMENT_BYTES = 64 * 1024;
+	// length, sequence, timestamp, type, batch, quantity, two dates, code length, "P001", CRC
+	private static final int ENTRY_BYTES = 4 + 8 + 8 + 1 + 4 + 4 + 8 + 8 + 2 + 4 + 4;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	@DisplayName("Movements should be journalled so past stock can be queried and state survives a reopen")
+	void journalsMovementsAndAnswersAsOf() throws InterruptedException {
+		MemoryInventory inventory = new MemoryInventory();
+		LocalDate today = inventory.today;
+		InventoryManager manager = inventory.manager;
+		inventory.batch("P001", 30, 10);
+		inventory.shelf("P002", 5);
+
+		// a new journal starts from what storage holds
+		manager.useJournal(InventoryJournal.open(dir, SEGMENT_BYTES, 1000));
+		manager.moveToShelf("P001", 4);
+		Thread.sleep(5);
+		Instant afterMove = Instant.now();
+		Thread.sleep(5);
+		manager.deductFromShelf("P001", 3);
+		manager.receiveStock("P002", today, today.plusDays(9), 7);
+		manager.stopJournal();
+
+		InventoryJournal reopened = InventoryJournal.open(dir, SEGMENT_BYTES, 1000);
+		StockState now = reopened.getState();
+		assertEquals(1, now.getShelfQuantity("P001"));
+		assertEquals(List.of(6, 7),
+				now.getOpenBatches().stream().map(StockBatch::getQuantityRemaining).sorted().collect(Collectors.toList()));
+
+		List<ProductStock> past = reopened.stateAsOf(afterMove.toEpochMilli()).toProductStock();
+		assertEquals(List.of("P001", "P002"),
+				past.stream().map(ProductStock::getProductCode).collect(Collectors.toList()));
+		assertEquals(4, past.get(0).getQuantityOnShelf());
+		assertEquals(6, past.get(0).getBackStoreQuantity());
+		assertEquals(0, past.get(1).getBackStoreQuantity());
+		reopened.close();
+	}
+
+	@Test
+	@DisplayName("Full segments should rotate and replay should pick up from the newest snapshot")
+	void rotatesSegmentsAndReplaysFromSnapshot() throws Exception {
+		InventoryJournal journal = InventoryJournal.open(dir, 2048, 7);
+		journal.append(JournalEntry.Type.RECEIVE, "P001", 1, 500, LocalDate.now(), LocalDate.now().plusDays(5));
+		for (int i = 0; i < 99; i++) {
+			journal.append(JournalEntry.Type.MOVE_TO_SHELF, "P001", 1, 2, null, null);
+		}
+		journal.close();
+
+		try (Stream<Path> files = Files.list(dir)) {
+			assertTrue(files.filter(f -> f.getFileName().toString().startsWith("segment-")).count() > 1);
+		}
+		InventoryJournal reopened = InventoryJournal.open(dir, 2048, 7);
+		assertEquals(100, reopened.getLastSequence());
+		assertEquals(198, reopened.getState().getShelfQuantity("P001"));
+		assertEquals(302, reopened.getState().getOpenBatches().get(0).getQuantityRemaining());
+		reopened.append(JournalEntry.Type.DEDUCT, "P001", 0, 8, null, null);
+		assertEquals(101, reopened.getLastSequence());
+		reopened.close();
+	}
+
+	@Test
+	@DisplayName("A torn last entry should be dropped on open and its sequence number reused")
+	void dropsTornTail() throws Exception {
+		appendMoves(3);
+		// the third entry only half reached the disk
+		overwrite(2 * ENTRY_BYTES + ENTRY_BYTES / 2, new byte[ENTRY_BYTES / 2]);
+
+		InventoryJournal reopened = InventoryJournal.open(dir, SEGMENT_BYTES, 1000);
+		assertEquals(2, reopened.getLastSequence());
+		assertEquals(98, reopened.getState().getOpenBatches().get(0).getQuantityRemaining());
+		assertEquals(3, reopened.append(JournalEntry.Type.MOVE_TO_SHELF, "P001", 1, 2, null, null).getSequence());
+		reopened.close();
+		deleteSnapshots();
+		InventoryJournal again = InventoryJournal.open(dir, SEGMENT_BYTES, 1000);
+		assertEquals(3, again.getLastSequence());
+		assertEquals(4, again.getState().getShelfQuantity("P001"));
+		again.close();
+	}
+
+	@Test
+	@DisplayName("An entry failing its CRC should end replay there, leaving the entries before it")
+	void stopsAtCorruptEntry() throws Exception {
+		appendMoves(4);
+		// one bit of the second entry's quantity flipped on disk
+		overwrite(ENTRY_BYTES + 4 + 8 + 8 + 1 + 4 + 3, new byte[] { 3 });
+
+		InventoryJournal reopened = InventoryJournal.open(dir, SEGMENT_BYTES, 1000);
+		assertEquals(1, reopened.getLastSequence());
+		assertEquals(0, reopened.getState().getShelfQuantity("P001"));
+		assertEquals(100, reopened.getState().getOpenBatches().get(0).getQuantityRemaining());
+		reopened.close();
+	}
+
+	@Test
+	@DisplayName("Movements of a rolled-back transaction should not be journalled")
+	void skipsRolledBackMovements() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.batch("P001", 30, 10);
+		InventoryJournal journal = InventoryJournal.open(dir, SEGMENT_BYTES, 1000);
+		inventory.manager.useJournal(journal);
+		long seeded = journal.getLastSequence();
+
+		try (StorageTransaction transaction = inventory.storage.beginTransaction()) {
+			inventory.manager.moveToShelf("P001", 4);
+			assertEquals(seeded, journal.getLastSequence());
+		}
+		inventory.manager.reloadCaches();
+		assertEquals(seeded, journal.getLastSequence());
+		assertEquals(0, journal.getState().getShelfQuantity("P001"));
+
+		try (StorageTransaction transaction = inventory.storage.beginTransaction()) {
+			inventory.manager.moveToShelf("P001", 4);
+			transaction.commit();
+		}
+		assertEquals(seeded + 1, journal.getLastSequence());
+		assertEquals(4, journal.getState().getShelfQuantity("P001"));
+		inventory.manager.stopJournal();
+	}
+
+	@Test
+	@DisplayName("A journal that missed movements should be rebased onto storage when it is opened")
+	void rebasesOntoStorageWhenBehind() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.batch("P001", 30, 10);
+		inventory.manager.useJournal(InventoryJournal.open(dir, SEGMENT_BYTES, 1000));
+		inventory.manager.moveToShelf("P001", 4);
+		inventory.manager.stopJournal();
+		// stock moved while the journal was off
+		inventory.manager.deductFromShelf("P001", 3);
+		inventory.batch("P002", 10, 5);
+
+		InventoryJournal journal = InventoryJournal.open(dir, SEGMENT_BYTES, 1000);
+		assertEquals(4, journal.getState().getShelfQuantity("P001"));
+		inventory.manager.useJournal(journal);
+		assertEquals(1, journal.getState().getShelfQuantity("P001"));
+		assertEquals(List.of(5, 6), journal.getState().getOpenBatches().stream()
+				.map(StockBatch::getQuantityRemaining).sorted().collect(Collectors.toList()));
+		inventory.manager.stopJournal();
+	}
+
+	@Test
+	@DisplayName("A journal that agrees with storage should fill the shelf lots and expiry index without reading them")
+	void seedsCachesFromAgreeingJournal() {
+		MemoryStore store = new MemoryStore();
+		LocalDate today = LocalDate.now();
+		MemoryStockBatchRepository batches = new MemoryStockBatchRepository(store);
+		int soon = batches.createBatch("P001", today.minusDays(40), today.plusDays(20), 6);
+		int later = batches.createBatch("P001", today.minusDays(30), today.plusDays(30), 10);
+		InventoryManager first = new InventoryManager(new ExpiryAwareFifoStrategy(), batches,
+				new MemoryShelfStockRepository(store));
+		first.useJournal(InventoryJournal.open(dir, SEGMENT_BYTES, 1000));
+		first.moveToShelf("P001", 8);
+		first.deductFromShelf("P001", 3);
+		first.stopJournal();
+
+		// only the totals may be read: anything else means a rebase or a cache loaded from storage
+		MemoryStockBatchRepository batchesUnread = new MemoryStockBatchRepository(store) {
+			@Override
+			public List<StockBatch> findAllOpenBatches() {
+				throw new AssertionError("open batches read from storage");
+			}
+		};
+		MemoryShelfStockRepository shelfUnread = new MemoryShelfStockRepository(store) {
+			@Override
+			public List<ShelfLot> findLots(String productCode) {
+				throw new AssertionError("shelf lots read from storage");
+			}
+
+			@Override
+			public void streamStockOverview(String codePrefix, String afterCode, int limit,
+					Consumer<ProductStock> handler) {
+				throw new AssertionError("stock overview read from storage");
+			}
+		};
+		InventoryManager second = new InventoryManager(new ExpiryAwareFifoStrategy(), batchesUnread, shelfUnread);
+		InventoryJournal journal = InventoryJournal.open(dir, SEGMENT_BYTES, 1000);
+		long lastSequence = journal.getLastSequence();
+		second.useJournal(journal);
+
+		assertEquals(lastSequence, journal.getLastSequence());
+		List<ShelfLot> lots = second.getShelfLots("P001");
+		assertEquals(List.of(soon, later), lots.stream().map(ShelfLot::getBatchId).collect(Collectors.toList()));
+		assertEquals(List.of(3, 2), lots.stream().map(ShelfLot::getQuantity).collect(Collectors.toList()));
+		List<StockBatch> expiring = second.getAllExpiringBatches(60);
+		assertEquals(1, expiring.size());
+		assertEquals(8, expiring.get(0).getQuantityRemaining());
+		second.stopJournal();
+	}
+
+	// a 100-unit batch of P001 received, then moves of two units each, with no snapshot left to start from
+	private void appendMoves(int entries) throws IOException {
+		InventoryJournal journal = InventoryJournal.open(dir, SEGMENT_BYTES, 1000);
+		journal.append(JournalEntry.Type.RECEIVE, "P001", 1, 100, LocalDate.now(), LocalDate.now().plusDays(5));
+		for (int i = 1; i < entries; i++) {
+			journal.append(JournalEntry.Type.MOVE_TO_SHELF, "P001", 1, 2, null, null);
+		}
+		journal.close();
+		deleteSnapshots();
+	}
+
+	private void deleteSnapshots() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			for (Path file : files.filter(f -> f.getFileName().toString().startsWith("snapshot-"))
+					.collect(Collectors.toList())) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	private void overwrite(long offset, byte[] bytes) throws IOException {
+		try (Stream<Path> files = Files.list(dir);
+				FileChannel channel = FileChannel.open(
+						files.filter(f -> f.getFileName().toString().startsWith("segment-")).findFirst().get(),
+						StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(bytes), offset);
+		}
+	}
+}
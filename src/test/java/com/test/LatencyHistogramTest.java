@@ -0,0 +1,70 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.syos.metrics.LatencyHistogram;
+import com.syos.metrics.MetricsRegistry;
+
+class LatencyHistogramTest {
+
+	@Test
+	void emptyHistogramReportsZero() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.percentileNanos(99));
+	}
+
+	@Test
+	void percentilesStayWithinBucketError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long v = 1; v <= 100_000; v++) {
+			histogram.record(v * 1000);
+		}
+
+		assertEquals(100_000, histogram.getCount());
+		assertWithin(50_000_000, histogram.percentileNanos(50));
+		assertWithin(99_000_000, histogram.percentileNanos(99));
+		assertWithin(99_900_000, histogram.percentileNanos(99.9));
+		assertEquals(100_000_000, histogram.getMaxNanos());
+	}
+
+	@Test
+	void outlierOnlyShowsInTailPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Random random = new Random(7);
+		for (int i = 0; i < 9_990; i++) {
+			histogram.record(1_000_000 + random.nextInt(100_000));
+		}
+		for (int i = 0; i < 10; i++) {
+			histogram.record(500_000_000);
+		}
+
+		assertTrue(histogram.percentileNanos(99) < 1_300_000);
+		assertTrue(histogram.percentileNanos(99.95) >= 450_000_000);
+	}
+
+	@Test
+	void registryReusesHistogramByName() {
+		MetricsRegistry registry = new MetricsRegistry();
+		try (LatencyHistogram.Timer timer = registry.histogram("op").time()) {
+			registry.counter("calls").increment();
+		}
+		try (LatencyHistogram.Timer timer = registry.histogram("op").time()) {
+			registry.counter("calls").increment();
+		}
+
+		assertEquals(2, registry.histogram("op").getCount());
+		assertEquals(2, registry.counter("calls").get());
+		assertTrue(registry.snapshot().contains("op"));
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(Math.abs(actual - expected) <= expected * 0.125,
+				"expected ~" + expected + " but was " + actual);
+	}
+}
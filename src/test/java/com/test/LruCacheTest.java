@@ -0,0 +1,53 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.util.LruCache;
+
+class LruCacheTest {
+
+	@Test
+	@DisplayName("The least recently used entry should be evicted first and hits counted")
+	void evictsLeastRecentlyUsedAndCountsHits() {
+		LruCache<String, Integer> cache = new LruCache<>(2, 0);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		assertEquals(1, cache.get("a"));
+		cache.put("c", 3);
+
+		assertNull(cache.get("b"));
+		assertEquals(1, cache.get("a"));
+		assertEquals(3, cache.get("c"));
+		assertEquals(1, cache.getEvictions());
+		assertEquals(0.75, cache.getHitRatio(), 1e-9);
+	}
+
+	@Test
+	@DisplayName("Shrinking the cache should evict down to the new size at once")
+	void shrinkingEvictsImmediately() {
+		LruCache<Integer, Integer> cache = new LruCache<>(10, 0);
+		for (int i = 0; i < 10; i++) {
+			cache.put(i, i);
+		}
+		cache.setMaxSize(3);
+
+		assertEquals(3, cache.size());
+		assertEquals(9, cache.get(9));
+		assertNull(cache.get(0));
+	}
+
+	@Test
+	@DisplayName("Entries older than the TTL should count as misses")
+	void expiredEntriesAreMisses() throws InterruptedException {
+		LruCache<String, String> cache = new LruCache<>(10, 1);
+		cache.put("k", "v");
+		Thread.sleep(5);
+
+		assertNull(cache.get("k"));
+		assertEquals(0, cache.size());
+	}
+}
@@ -0,0 +1,91 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.model.Product;
+import com.syos.singleton.InventoryManager;
+import com.syos.strategy.MarkdownPricingStrategy;
+import com.syos.strategy.NoDiscountStrategy;
+
+class MarkdownPricingStrategyTest {
+
+	@Test
+	@DisplayName("Products should take the deepest markdown any of their shelf lots falls into")
+	void marksDownByNearestExpiringLot() {
+		MemoryInventory inventory = new MemoryInventory();
+		LocalDate today = inventory.today;
+		InventoryManager manager = inventory.manager;
+		inventory.batch("P001", 1, 5);
+		inventory.batch("P002", 3, 5);
+		inventory.batch("P003", 20, 5);
+		manager.moveToShelf("P001", 5);
+		manager.moveToShelf("P002", 5);
+		manager.moveToShelf("P003", 5);
+
+		MarkdownPricingStrategy pricing = new MarkdownPricingStrategy(new NoDiscountStrategy(), manager,
+				MarkdownPricingStrategy.Window.parseAll("3:20, 1:50"));
+
+		assertEquals(100.0, pricing.calculate(new Product("P001", "Milk", 50.0), 4), 1e-9);
+		assertEquals(160.0, pricing.calculate(new Product("P002", "Bread", 50.0), 4), 1e-9);
+		assertEquals(200.0, pricing.calculate(new Product("P003", "Rice", 50.0), 4), 1e-9);
+
+		// taking the lot off the shelf drops the markdown without waiting for a refresh
+		manager.removeExpiredFromShelf("P001", today.plusDays(1));
+		assertEquals(0.0, pricing.getMarkdownPercent("P001"), 1e-9);
+		pricing.refresh();
+		assertEquals(0.0, pricing.getMarkdownPercent("P001"), 1e-9);
+	}
+
+	@Test
+	@DisplayName("Only as many units as the expiring lots hold should be marked down, and selling them ends it")
+	void capsMarkdownAtExpiringUnits() {
+		MemoryInventory inventory = new MemoryInventory();
+		InventoryManager manager = inventory.manager;
+		inventory.batch("P001", 1, 2);
+		inventory.batch("P001", 20, 5);
+		manager.moveToShelf("P001", 7);
+		MarkdownPricingStrategy pricing = new MarkdownPricingStrategy(new NoDiscountStrategy(), manager,
+				MarkdownPricingStrategy.Window.parseAll("3:20, 1:50"));
+		Product milk = new Product("P001", "Milk", 50.0);
+
+		// two units at half price, two at full price
+		assertEquals(150.0, pricing.calculate(milk, 4), 1e-9);
+		assertEquals(25.0, pricing.calculate(milk, 1), 1e-9);
+
+		manager.deductFromShelf("P001", 2);
+		assertEquals(200.0, pricing.calculate(milk, 4), 1e-9);
+		assertEquals(0.0, pricing.getMarkdownPercent("P001"), 1e-9);
+	}
+
+	@Test
+	@DisplayName("A failed refresh should leave lines at the base price instead of failing them")
+	void failedRefreshChargesBasePrice() {
+		InventoryManager manager = mock(InventoryManager.class);
+		when(manager.getExpiringShelfLots(anyInt())).thenThrow(new RuntimeException("connection refused"));
+		MarkdownPricingStrategy pricing = new MarkdownPricingStrategy(new NoDiscountStrategy(), manager,
+				MarkdownPricingStrategy.Window.parseAll("3:20"));
+
+		assertEquals(200.0, pricing.calculate(new Product("P001", "Milk", 50.0), 4), 1e-9);
+		pricing.refresh();
+		assertEquals(0.0, pricing.getMarkdownPercent("P001"), 1e-9);
+	}
+
+	@Test
+	@DisplayName("Malformed markdown windows should be rejected")
+	void rejectsMalformedWindows() {
+		assertEquals(List.of(), MarkdownPricingStrategy.Window.parseAll(" "));
+		assertThrows(IllegalArgumentException.class, () -> MarkdownPricingStrategy.Window.parseAll("3"));
+		assertThrows(IllegalArgumentException.class, () -> MarkdownPricingStrategy.Window.parseAll("3:abc"));
+		assertThrows(IllegalArgumentException.class, () -> MarkdownPricingStrategy.Window.parseAll("3:120"));
+	}
+}
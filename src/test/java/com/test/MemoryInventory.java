@@ -0,0 +1,40 @@
+package com.test;
+
+import java.time.LocalDate;
+
+import com.syos.repository.StorageProvider;
+import com.syos.repository.memory.MemoryStorageProvider;
+import com.syos.singleton.InventoryManager;
+import com.syos.strategy.ExpiryAwareFifoStrategy;
+
+// an in-memory backend with an InventoryManager over it, shared by the tests that move real stock
+final class MemoryInventory {
+	final LocalDate today = LocalDate.now();
+	final StorageProvider storage;
+	final InventoryManager manager;
+
+	MemoryInventory() {
+		this(new MemoryStorageProvider());
+	}
+
+	MemoryInventory(StorageProvider storage) {
+		this.storage = storage;
+		this.manager = new InventoryManager(new ExpiryAwareFifoStrategy(), storage);
+	}
+
+	// a back-store batch bought a month ago, expiring the given number of days from today (negative = expired)
+	int batch(String productCode, int expiresInDays, int quantity) {
+		return storage.stockBatches().createBatch(productCode, today.minusDays(30), today.plusDays(expiresInDays),
+				quantity);
+	}
+
+	// shelf units with no lot, as shelved before lots were tracked
+	void shelf(String productCode, int quantity) {
+		storage.shelfStock().upsertQuantity(productCode, quantity);
+	}
+
+	int backStore(String productCode) {
+		return storage.stockBatches().findByProduct(productCode).stream()
+				.mapToInt(b -> b.getQuantityRemaining()).sum();
+	}
+}
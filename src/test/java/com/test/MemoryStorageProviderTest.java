@@ -0,0 +1,54 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.model.StockBatch;
+import com.syos.repository.Storage;
+import com.syos.repository.memory.MemoryStorageProvider;
+
+class MemoryStorageProviderTest {
+
+	@Test
+	@DisplayName("Providers should be found by name through the service loader")
+	void loadsProvidersByName() {
+		assertTrue(Storage.load("memory") instanceof MemoryStorageProvider);
+		assertEquals("jdbc", Storage.load("JDBC").name());
+		assertThrows(IllegalArgumentException.class, () -> Storage.load("nosuch"));
+	}
+
+	@Test
+	@DisplayName("Expiring batches should come back in expiry order and skip empty batches")
+	void expiringBatchesInExpiryOrder() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.batch("P002", 3, 5);
+		inventory.batch("P001", 1, 5);
+		inventory.batch("P001", 30, 5);
+		inventory.batch("P003", 2, 0);
+
+		List<String> expiring = inventory.storage.stockBatches().findAllExpiringBatches(7).stream()
+				.map(StockBatch::getProductCode).collect(Collectors.toList());
+
+		assertEquals(List.of("P001", "P002"), expiring);
+	}
+
+	@Test
+	@DisplayName("InventoryManager should move stock to the shelf over the in-memory backend")
+	void inventoryManagerRunsOnMemoryBackend() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.batch("P001", 10, 4);
+		inventory.batch("P001", 20, 10);
+
+		inventory.manager.moveToShelf("P001", 6);
+
+		assertEquals(6, inventory.storage.shelfStock().getQuantity("P001"));
+		assertEquals(8, inventory.backStore("P001"));
+	}
+}
@@ -0,0 +1,47 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.model.ImportReport;
+import com.syos.model.Product;
+import com.syos.repository.StorageProvider;
+import com.syos.repository.memory.MemoryStorageProvider;
+import com.syos.service.ProductImportService;
+
+class ProductImportServiceTest {
+
+	@Test
+	@DisplayName("CSV import should load valid rows in chunks and report every rejected row by line")
+	void importsValidRowsAndReportsTheRest() {
+		StorageProvider storage = new MemoryStorageProvider();
+		storage.products().add(new Product("P100", "Existing", 10.0));
+		String csv = String.join("\n",
+				"code,name,price",
+				"P001,Milk,120.50",
+				"P002,\"Bread, sliced\",80",
+				"",
+				"P001,Milk again,99",
+				"P100,Clash,5",
+				"TOOLONGCODE1,Rice,10",
+				"P003,Sugar,abc",
+				"P004,Salt");
+
+		ImportReport report = new ProductImportService(storage.products(), 2).importCsv(new StringReader(csv));
+
+		assertEquals(7, report.getRowsRead());
+		assertEquals(2, report.getRowsImported());
+		assertEquals("Bread, sliced", storage.products().findByCode("P002").getName());
+		assertNotNull(storage.products().findByCode("P001"));
+		assertEquals(List.of(5, 6, 7, 8, 9), report.getErrors().stream().map(ImportReport.RowError::getLineNumber)
+				.sorted().collect(Collectors.toList()));
+		assertEquals("Existing", storage.products().findByCode("P100").getName());
+	}
+}
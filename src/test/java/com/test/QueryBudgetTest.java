@@ -0,0 +1,119 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.command.ViewStockCommand;
+import com.syos.config.ConfigLoader;
+import com.syos.db.QueryBudgetExceededException;
+import com.syos.db.QueryTracker;
+import com.syos.dto.BillReportDTO;
+import com.syos.factory.BillItemFactory;
+import com.syos.model.BillItem;
+import com.syos.model.Product;
+import com.syos.service.ReportService;
+import com.syos.service.StoreBillingService;
+import com.syos.strategy.NoDiscountStrategy;
+
+class QueryBudgetTest {
+	private static final int PRODUCTS = 40;
+
+	private String previousStrict;
+	private PrintStream console;
+	private MemoryInventory inventory;
+
+	@BeforeEach
+	void setUp() {
+		previousStrict = System.setProperty(QueryTracker.STRICT_PROPERTY, "true");
+		console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		inventory = new MemoryInventory();
+		for (int i = 0; i < PRODUCTS; i++) {
+			String code = String.format("P%03d", i);
+			inventory.storage.products().add(new Product(code, "Product " + i, 10.0 + i));
+			inventory.batch(code, 10 + i, 50);
+			inventory.manager.moveToShelf(code, 20);
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		System.setOut(console);
+		if (previousStrict == null) {
+			System.clearProperty(QueryTracker.STRICT_PROPERTY);
+		} else {
+			System.setProperty(QueryTracker.STRICT_PROPERTY, previousStrict);
+		}
+	}
+
+	@Test
+	@DisplayName("A ten-line checkout should stay within query.budget.checkout")
+	void checkoutStaysWithinBudget() {
+		BillItemFactory factory = new BillItemFactory(new NoDiscountStrategy());
+		StoreBillingService billing = new StoreBillingService(inventory.storage.products(),
+				inventory.storage.billing(), factory, inventory.manager);
+		List<BillItem> items = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			items.add(factory.create(inventory.storage.products().findByCode(String.format("P%03d", i)), 2));
+		}
+
+		try (QueryTracker.Scope observed = QueryTracker.begin("test.checkout", 0)) {
+			billing.checkout(items, 10_000);
+			assertTrue(observed.getRoundTrips() > 0);
+			assertTrue(observed.getRoundTrips() <= ConfigLoader.getInt("query.budget.checkout", 0));
+		}
+	}
+
+	@Test
+	@DisplayName("The daily sales report should stay within its budget however many bills the day has")
+	void dailySalesReportStaysWithinBudget() {
+		BillItemFactory factory = new BillItemFactory(new NoDiscountStrategy());
+		StoreBillingService billing = new StoreBillingService(inventory.storage.products(),
+				inventory.storage.billing(), factory, inventory.manager);
+		int bills = 15;
+		for (int i = 0; i < bills; i++) {
+			List<BillItem> items = new ArrayList<>();
+			items.add(factory.create(inventory.storage.products().findByCode(String.format("P%03d", i)), 1));
+			items.add(factory.create(inventory.storage.products().findByCode(String.format("P%03d", i + 1)), 1));
+			billing.checkout(items, 10_000);
+		}
+
+		List<BillReportDTO> report = new ReportService(inventory.storage.reports(), inventory.manager)
+				.getDailySales(inventory.today);
+		assertEquals(bills, report.size());
+		assertEquals(2, report.get(0).getItems().size());
+	}
+
+	@Test
+	@DisplayName("The full stock overview should stay within its command budget however many products there are")
+	void stockOverviewStaysWithinBudget() {
+		try (QueryTracker.Scope scope = QueryTracker.begin("command.ViewStockCommand")) {
+			new ViewStockCommand(inventory.manager, new Scanner("\n")).execute();
+			assertTrue(scope.getRoundTrips() > 0);
+		}
+	}
+
+	@Test
+	@DisplayName("A lookup per product should break the same budget")
+	void perProductLookupsBreakBudget() {
+		assertThrows(QueryBudgetExceededException.class, () -> {
+			try (QueryTracker.Scope scope = QueryTracker.begin("command.ViewStockCommand")) {
+				for (int i = 0; i < PRODUCTS; i++) {
+					inventory.manager.getBatchesForProduct(String.format("P%03d", i));
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,88 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.db.QueryBudgetExceededException;
+import com.syos.db.QueryTracker;
+import com.syos.db.QueryTrackingProxy;
+
+class QueryTrackerTest {
+	private static final String LOOKUP = "SELECT quantity_on_shelf FROM shelf_stock WHERE product_code = ?";
+
+	private Connection connection;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		Connection raw = mock(Connection.class);
+		when(raw.prepareStatement(anyString())).thenAnswer(inv -> mock(PreparedStatement.class));
+		connection = QueryTrackingProxy.wrap(raw);
+	}
+
+	@Test
+	@DisplayName("Executions, batches and commits are charged to the open scope")
+	void countsStatementsAndRoundTrips() throws SQLException {
+		try (QueryTracker.Scope scope = QueryTracker.begin("test.counting", 0)) {
+			for (int i = 0; i < 3; i++) {
+				connection.prepareStatement(LOOKUP).executeQuery();
+			}
+			PreparedStatement insert = connection.prepareStatement("INSERT INTO bill_item VALUES (?, ?)");
+			insert.addBatch();
+			insert.addBatch();
+			insert.executeBatch();
+			connection.commit();
+
+			assertEquals(5, scope.getRoundTrips());
+			assertEquals(5, scope.getStatements());
+			assertEquals(3, scope.getExecutions(LOOKUP));
+		}
+		assertNull(QueryTracker.current());
+	}
+
+	@Test
+	@DisplayName("Nested scopes both see statements issued inside the inner one")
+	void nestedScopesAccumulate() throws SQLException {
+		try (QueryTracker.Scope outer = QueryTracker.begin("test.outer", 0)) {
+			connection.prepareStatement(LOOKUP).executeQuery();
+			try (QueryTracker.Scope inner = QueryTracker.begin("test.inner", 0)) {
+				connection.prepareStatement(LOOKUP).executeQuery();
+				assertEquals(1, inner.getRoundTrips());
+			}
+			assertEquals(2, outer.getRoundTrips());
+		}
+	}
+
+	@Test
+	@DisplayName("An N+1 loop over budget fails the operation in strict mode")
+	void overBudgetFailsInStrictMode() {
+		String previous = System.setProperty(QueryTracker.STRICT_PROPERTY, "true");
+		try {
+			assertThrows(QueryBudgetExceededException.class, () -> {
+				try (QueryTracker.Scope scope = QueryTracker.begin("test.budget", 3)) {
+					for (int i = 0; i < 4; i++) {
+						connection.prepareStatement(LOOKUP).executeQuery();
+					}
+				}
+			});
+			assertNull(QueryTracker.current());
+		} finally {
+			if (previous == null) {
+				System.clearProperty(QueryTracker.STRICT_PROPERTY);
+			} else {
+				System.setProperty(QueryTracker.STRICT_PROPERTY, previous);
+			}
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.analytics.HourlySalesHistogram;
+import com.syos.analytics.ProductSales;
+import com.syos.analytics.SalesAggregator;
+
+class SalesAggregatorTest {
+
+	private SalesAggregator aggregator;
+
+	@BeforeEach
+	void setUp() {
+		aggregator = new SalesAggregator();
+		aggregator.onLine(1, 0L, 9, "P001", 5, 50.0, 0.0);
+		aggregator.onLine(1, 0L, 9, "P002", 2, 40.0, 0.0);
+		aggregator.onLine(2, 0L, 14, "P003", 8, 16.0, 0.0);
+		aggregator.onLine(3, 0L, 14, "P001", 4, 40.0, 0.0);
+		aggregator.onLine(4, 0L, 18, "P004", 1, 99.0, 0.0);
+	}
+
+	@Test
+	@DisplayName("Should keep only the N best sellers, ordered by units descending")
+	void shouldReturnTopSellersInDescendingOrder() {
+		List<ProductSales> top = aggregator.topSellers(2);
+
+		assertEquals(2, top.size());
+		assertEquals("P001", top.get(0).getProductCode());
+		assertEquals(9, top.get(0).getUnits());
+		assertEquals(90.0, top.get(0).getRevenue(), 0.0001);
+		assertEquals("P003", top.get(1).getProductCode());
+		assertEquals(8, top.get(1).getUnits());
+	}
+
+	@Test
+	@DisplayName("Should return every product when N exceeds the number of products")
+	void shouldReturnAllProductsWhenNIsLarge() {
+		List<ProductSales> top = aggregator.topSellers(50);
+
+		assertEquals(4, top.size());
+		assertEquals("P004", top.get(3).getProductCode());
+	}
+
+	@Test
+	@DisplayName("Should reject a non-positive N")
+	void shouldRejectNonPositiveN() {
+		assertThrows(IllegalArgumentException.class, () -> aggregator.topSellers(0));
+	}
+
+	@Test
+	@DisplayName("Should bucket units and revenue by hour of day")
+	void shouldBucketSalesByHour() {
+		HourlySalesHistogram histogram = aggregator.getHistogram();
+
+		assertEquals(7, histogram.getUnits(9));
+		assertEquals(12, histogram.getUnits(14));
+		assertEquals(2, histogram.getLines(14));
+		assertEquals(99.0, histogram.getRevenue(18), 0.0001);
+		assertEquals(0, histogram.getUnits(3));
+		assertEquals(12, histogram.getPeakUnits());
+		assertEquals(20, histogram.getTotalUnits());
+	}
+}
@@ -0,0 +1,55 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.analytics.ColumnarSalesStore;
+import com.syos.analytics.SaleLineHandler;
+import com.syos.model.Bill;
+import com.syos.model.BillItem;
+import com.syos.model.Product;
+import com.syos.repository.ReportRepository;
+import com.syos.singleton.SalesAnalytics;
+
+class SalesAnalyticsTest {
+
+	@Test
+	@DisplayName("Should keep bills committed out of id order during and after the columnar load")
+	void shouldKeepBillsCommittedOutOfIdOrder() {
+		SalesAnalytics analytics = new SalesAnalytics();
+		Bill read = bill(11, "P001");
+		Bill committedDuringLoad = bill(10, "P002");
+		ReportRepository reports = mock(ReportRepository.class);
+		doAnswer(invocation -> {
+			SaleLineHandler handler = invocation.getArgument(2);
+			handler.onLine(read.getId(), read.getBillDate().getTime(), 9, "P001", 1, 10.0, 0.0);
+			// till B's bill was in the scan, till A's lower id committed after it
+			analytics.onBillSaved(read);
+			analytics.onBillSaved(committedDuringLoad);
+			return null;
+		}).when(reports).streamSaleLines(any(), any(), any());
+
+		ColumnarSalesStore store = analytics.columnarStore(reports);
+		assertEquals(2, store.getRowCount());
+
+		analytics.onBillSaved(bill(9, "P003"));
+		assertEquals(3, store.getRowCount());
+		assertEquals(3, store.getDistinctProducts());
+	}
+
+	private static Bill bill(int id, String productCode) {
+		List<BillItem> items = new ArrayList<>();
+		items.add(new BillItem(0, id, new Product(productCode, "Item", 10.0), 1, 10.0, 0.0));
+		Bill bill = new Bill.BillBuilder(id, items).withCashTendered(10.0).build();
+		bill.setId(id);
+		return bill;
+	}
+}
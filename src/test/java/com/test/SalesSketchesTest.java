@@ -0,0 +1,66 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.analytics.CountMinSketch;
+import com.syos.analytics.HyperLogLog;
+import com.syos.analytics.QuantileDigest;
+
+class SalesSketchesTest {
+
+	@Test
+	@DisplayName("Count-min sketch should never undercount and stay close on a small key set")
+	void countMinShouldNotUndercount() {
+		CountMinSketch sketch = new CountMinSketch(4, 2048);
+		for (int i = 0; i < 500; i++) {
+			sketch.add("P" + i, i + 1);
+		}
+
+		for (int i = 0; i < 500; i++) {
+			long estimate = sketch.estimate("P" + i);
+			assertTrue(estimate >= i + 1, "estimate must not undercount");
+		}
+		assertEquals(1, sketch.estimate("P0"), 200);
+		assertEquals(500L * 501 / 2, sketch.getTotal());
+	}
+
+	@Test
+	@DisplayName("HyperLogLog should estimate distinct baskets within a few percent")
+	void hyperLogLogShouldEstimateDistinctCount() {
+		HyperLogLog hll = new HyperLogLog(12);
+		for (int id = 1; id <= 100_000; id++) {
+			hll.add(id);
+			hll.add(id); // duplicates must not count
+		}
+
+		assertEquals(100_000, hll.estimate(), 100_000 * 0.05);
+
+		HyperLogLog small = new HyperLogLog(12);
+		for (int id = 1; id <= 50; id++) {
+			small.add(id);
+		}
+		assertEquals(50, small.estimate(), 2);
+	}
+
+	@Test
+	@DisplayName("Quantile digest should track median and tail quantiles of basket values")
+	void quantileDigestShouldTrackQuantiles() {
+		QuantileDigest digest = new QuantileDigest(100);
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			digest.add(random.nextDouble() * 1000);
+		}
+
+		assertEquals(500, digest.quantile(0.5), 10);
+		assertEquals(900, digest.quantile(0.9), 10);
+		assertEquals(990, digest.quantile(0.99), 3);
+		assertEquals(100_000, digest.getCount());
+		assertTrue(digest.getMax() <= 1000);
+	}
+}
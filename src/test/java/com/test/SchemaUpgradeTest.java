@@ -0,0 +1,46 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.db.SchemaUpgrade;
+
+class SchemaUpgradeTest {
+
+	@Test
+	@DisplayName("Should split scripts only on semicolons outside literals, identifiers, bodies and comments")
+	void shouldSplitOnlyOnTopLevelSemicolons() {
+		String script = String.join("\n",
+				"-- header; not a statement",
+				"CREATE TABLE t (note VARCHAR(20) DEFAULT 'a;b', \"odd;name\" INT); -- trailing; comment",
+				"INSERT INTO t (note) VALUES ('it''s; fine');",
+				"/* block; comment */ DO $body$ BEGIN PERFORM 1; END $body$;",
+				"SELECT $1, $$x;y$$",
+				"");
+
+		List<String> statements = SchemaUpgrade.splitStatements(script);
+
+		assertEquals(List.of(
+				"CREATE TABLE t (note VARCHAR(20) DEFAULT 'a;b', \"odd;name\" INT)",
+				"INSERT INTO t (note) VALUES ('it''s; fine')",
+				"DO $body$ BEGIN PERFORM 1; END $body$",
+				"SELECT $1, $$x;y$$"), statements);
+	}
+
+	@Test
+	@DisplayName("Should split the shipped upgrade script into its three statements")
+	void shouldSplitShippedUpgradeScript() throws Exception {
+		String script = new String(getClass().getClassLoader().getResourceAsStream("db/upgrade.sql").readAllBytes(),
+				StandardCharsets.UTF_8);
+
+		List<String> statements = SchemaUpgrade.splitStatements(script);
+
+		assertEquals(3, statements.size());
+		assertEquals("LOCK TABLE shelf_lots IN SHARE ROW EXCLUSIVE MODE", statements.get(1));
+	}
+}
@@ -0,0 +1,89 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.model.ShelfLot;
+import com.syos.repository.ShelfStockRepository;
+import com.syos.repository.StorageProvider;
+import com.syos.repository.memory.MemoryStorageProvider;
+
+class ShelfLotTest {
+
+	@Test
+	@DisplayName("Shelf lots should follow moves, be consumed first-expiry-first and removed exactly when expiring")
+	void shelfLotsTrackExpiryOnTheShelf() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.storage.stockBatches().createBatch("P001", inventory.today.minusDays(5),
+				inventory.today.plusDays(10), 5);
+		inventory.storage.stockBatches().createBatch("P001", inventory.today, inventory.today.plusDays(30), 10);
+		inventory.shelf("P001", 3);
+
+		inventory.manager.moveToShelf("P001", 12);
+		inventory.manager.deductFromShelf("P001", 4);
+
+		// the 3 units shelved without a lot go first, then one from the lot expiring soonest
+		List<ShelfLot> lots = inventory.manager.getShelfLots("P001");
+		assertEquals(List.of(4, 7), lots.stream().map(ShelfLot::getQuantity).collect(Collectors.toList()));
+		assertEquals(1, inventory.manager.getExpiringShelfLots(14).size());
+
+		assertEquals(4, inventory.manager.removeExpiredFromShelf("P001", inventory.today.plusDays(14)));
+		assertEquals(7, inventory.storage.shelfStock().getQuantity("P001"));
+		assertEquals(1, inventory.storage.shelfStock().findLots("P001").size());
+	}
+
+	@Test
+	@DisplayName("A failed write should leave back-store, shelf and lots as they were")
+	void failedWritesLeaveStockUnchanged() {
+		MemoryStorageProvider memory = new MemoryStorageProvider();
+		ShelfStockRepository shelf = spy(memory.shelfStock());
+		doThrow(new RuntimeException("lot write failed")).when(shelf).addLot(anyString(), anyInt(), any(), anyInt());
+		doThrow(new RuntimeException("lot read failed")).when(shelf).findLots("P002");
+		StorageProvider storage = spy(memory);
+		doReturn(shelf).when(storage).shelfStock();
+		MemoryInventory inventory = new MemoryInventory(storage);
+		inventory.batch("P001", 20, 10);
+		inventory.shelf("P001", 2);
+		inventory.shelf("P002", 3);
+
+		assertThrows(RuntimeException.class, () -> inventory.manager.moveToShelf("P001", 4));
+		assertEquals(10, inventory.backStore("P001"));
+		assertEquals(2, memory.shelfStock().getQuantity("P001"));
+		assertTrue(memory.shelfStock().findLots("P001").isEmpty());
+
+		// the lots are read before the shelf is touched
+		assertThrows(RuntimeException.class, () -> inventory.manager.deductFromShelf("P002", 1));
+		assertEquals(3, memory.shelfStock().getQuantity("P002"));
+	}
+
+	@Test
+	@DisplayName("Shelf units with no lot should be reported and removable on their own")
+	void untrackedShelfUnitsAreListedAndRemovable() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.batch("P001", 20, 10);
+		inventory.shelf("P001", 3);
+		inventory.manager.moveToShelf("P001", 4);
+
+		assertEquals(Map.of("P001", 3), inventory.manager.getUntrackedShelfQuantities());
+		assertThrows(IllegalArgumentException.class, () -> inventory.manager.removeUntrackedFromShelf("P001", 4));
+
+		inventory.manager.removeUntrackedFromShelf("P001", 3);
+		assertTrue(inventory.manager.getUntrackedShelfQuantities().isEmpty());
+		assertEquals(4, inventory.storage.shelfStock().getQuantity("P001"));
+		assertEquals(4, inventory.manager.getShelfLots("P001").get(0).getQuantity());
+	}
+}
@@ -0,0 +1,34 @@
+package com.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.syos.model.ProductStock;
+
+class StockOverviewTest {
+
+	@Test
+	@DisplayName("Stock overview should group open batches per product and page by code")
+	void stockOverviewPagesByCode() {
+		MemoryInventory inventory = new MemoryInventory();
+		inventory.shelf("BEV01", 7);
+		inventory.batch("BEV02", 5, 3);
+		inventory.batch("BEV02", 9, 0);
+		inventory.batch("BEV03", 9, 4);
+		inventory.shelf("SNK01", 2);
+
+		List<ProductStock> first = inventory.manager.getStockOverview("BEV", null, 2);
+		List<ProductStock> second = inventory.manager.getStockOverview("BEV", first.get(1).getProductCode(), 2);
+
+		assertEquals(List.of("BEV01", "BEV02"),
+				first.stream().map(ProductStock::getProductCode).collect(Collectors.toList()));
+		assertEquals(7, first.get(0).getQuantityOnShelf());
+		assertEquals(1, first.get(1).getBatches().size());
+		assertEquals(List.of("BEV03"), second.stream().map(ProductStock::getProductCode).collect(Collectors.toList()));
+	}
+}